@@ -0,0 +1,165 @@
+/*
+ * Copyright 2016-2018 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class AxPerf {
+
+    @Param({ "1", "1000", "1000000" })
+    public int count;
+
+    ExecutorService exec;
+
+    Ax<Integer> range;
+
+    Ax<Integer> map;
+
+    Ax<Integer> filter;
+
+    Ax<Integer> take;
+
+    Ax<Integer> reduce;
+
+    Ax<?> buffer;
+
+    Ax<Integer> concatMap;
+
+    Ax<Integer> flatMap;
+
+    Ax<Integer> merge;
+
+    Ax<Integer> observeOn;
+
+    Ax<Integer> observeOnBatched;
+
+    Ax<Integer> mergeAsync;
+
+    Ax<Integer> observeOnVirtual;
+
+    @Setup
+    public void setup() {
+        exec = Executors.newSingleThreadExecutor();
+
+        range = Ax.range(1, count);
+        map = range.map(v -> v + 1);
+        filter = range.filter(v -> (v & 1) == 0);
+        take = range.take(count / 2);
+        reduce = range.reduce(() -> 0, (a, b) -> a + b);
+        buffer = range.buffer(16);
+
+        Ax<Integer> inner = Ax.range(1, 2);
+        concatMap = Ax.range(1, count / 2).concatMap(v -> inner);
+        flatMap = Ax.range(1, count / 2).flatMap(v -> inner);
+        merge = Ax.merge(Ax.range(1, count / 2), Ax.range(1, count / 2));
+
+        observeOn = range.observeOn(exec);
+        observeOnBatched = range.observeOn(exec, 128);
+        observeOnVirtual = range.observeOnVirtual(128);
+        mergeAsync = Ax.merge(Ax.range(1, count / 2).observeOn(exec, 128), Ax.range(1, count / 2).observeOn(exec, 128));
+    }
+
+    @TearDown
+    public void teardown() {
+        exec.shutdownNow();
+    }
+
+    @Benchmark
+    public void range(Blackhole bh) {
+        new PerfSyncConsumer(bh, range.enumerator()).consume();
+    }
+
+    @Benchmark
+    public void map(Blackhole bh) {
+        new PerfSyncConsumer(bh, map.enumerator()).consume();
+    }
+
+    @Benchmark
+    public void filter(Blackhole bh) {
+        new PerfSyncConsumer(bh, filter.enumerator()).consume();
+    }
+
+    @Benchmark
+    public void take(Blackhole bh) {
+        new PerfSyncConsumer(bh, take.enumerator()).consume();
+    }
+
+    @Benchmark
+    public void reduce(Blackhole bh) {
+        new PerfSyncConsumer(bh, reduce.enumerator()).consume();
+    }
+
+    @Benchmark
+    public void buffer(Blackhole bh) {
+        new PerfSyncConsumer(bh, buffer.enumerator()).consume();
+    }
+
+    @Benchmark
+    public void concatMap(Blackhole bh) {
+        new PerfSyncConsumer(bh, concatMap.enumerator()).consume();
+    }
+
+    @Benchmark
+    public void flatMap(Blackhole bh) {
+        new PerfSyncConsumer(bh, flatMap.enumerator()).consume();
+    }
+
+    @Benchmark
+    public void merge(Blackhole bh) {
+        new PerfSyncConsumer(bh, merge.enumerator()).consume();
+    }
+
+    @Benchmark
+    public void observeOn(Blackhole bh) {
+        new PerfAsyncConsumer(bh, observeOn.enumerator()).consume(count);
+    }
+
+    @Benchmark
+    public void observeOnBatched(Blackhole bh) {
+        new PerfAsyncConsumer(bh, observeOnBatched.enumerator()).consume(count);
+    }
+
+    @Benchmark
+    public void mergeAsync(Blackhole bh) {
+        new PerfAsyncConsumer(bh, mergeAsync.enumerator()).consume(count);
+    }
+
+    @Benchmark
+    public void observeOnVirtual(Blackhole bh) {
+        new PerfAsyncConsumer(bh, observeOnVirtual.enumerator()).consume(count);
+    }
+
+    @Benchmark
+    public void blockingIteratorObserveOnBatched(Blackhole bh) {
+        for (Integer v : observeOnBatched.blockingIterable()) {
+            bh.consume(v);
+        }
+    }
+
+    @Benchmark
+    public void blockingIteratorObserveOnVirtual(Blackhole bh) {
+        for (Integer v : observeOnVirtual.blockingIterable()) {
+            bh.consume(v);
+        }
+    }
+}
@@ -48,7 +48,7 @@ extends AtomicInteger {
     }
 
     public void consume(long expected) {
-        consumeStage(source.moveNext(csub));
+        consumeSync();
 
         CountDownLatch c = cdl;
         if (expected <= 1000) {
@@ -65,6 +65,28 @@ extends AtomicInteger {
         }
     }
 
+    /**
+     * Consumes stages that are already complete in a loop and
+     * switches to the callback-based path for the first one that isn't.
+     */
+    void consumeSync() {
+        IAsyncEnumerator<?> src = source;
+        for (;;) {
+            CompletionStage<Boolean> stage = src.moveNext(csub);
+            Boolean b = AxStages.now(stage);
+            if (b == null) {
+                consumeStage(stage);
+                return;
+            }
+            if (!b) {
+                bh.consume(false);
+                cdl.countDown();
+                return;
+            }
+            bh.consume(src.current());
+        }
+    }
+
     void consumeStage(CompletionStage<Boolean> stage) {
         Queue<CompletionStage<Boolean>> q = queue;
 
@@ -81,7 +103,7 @@ extends AtomicInteger {
                     } else
                     if (b) {
                         bh.consume(source.current());
-                        consumeStage(source.moveNext(csub));
+                        consumeSync();
                     } else {
                         bh.consume(false);
                         cdl.countDown();
@@ -45,7 +45,28 @@ extends AtomicInteger {
     }
 
     public void consume() {
-        consumeStage(source.moveNext(csub));
+        consumeSync();
+    }
+
+    /**
+     * Consumes stages that are already complete in a loop and
+     * switches to the callback-based path for the first one that isn't.
+     */
+    void consumeSync() {
+        IAsyncEnumerator<?> src = source;
+        for (;;) {
+            CompletionStage<Boolean> stage = src.moveNext(csub);
+            Boolean b = AxStages.now(stage);
+            if (b == null) {
+                consumeStage(stage);
+                return;
+            }
+            if (!b) {
+                bh.consume(false);
+                return;
+            }
+            bh.consume(src.current());
+        }
     }
 
     void consumeStage(CompletionStage<Boolean> stage) {
@@ -63,7 +84,7 @@ extends AtomicInteger {
                     } else
                     if (b) {
                         bh.consume(source.current());
-                        consumeStage(source.moveNext(csub));
+                        consumeSync();
                     } else {
                         bh.consume(false);
                     }
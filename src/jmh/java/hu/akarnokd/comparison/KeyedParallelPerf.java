@@ -0,0 +1,93 @@
+package hu.akarnokd.comparison;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import hu.akarnokd.rxjava3.ParallelFromKeyedPublisher;
+import io.reactivex.rxjava3.core.*;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * Compares ways of processing keyed items in parallel while keeping the per-key order:
+ * the hash partitioned {@link ParallelFromKeyedPublisher}, a group per key with
+ * {@code groupBy} and a group per rail with {@code groupBy} on the hash of the key.
+ * Each variant sums the values per key.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class KeyedParallelPerf {
+
+    @Param({"100000" })
+    public int count;
+
+    @Param({"16", "10000"})
+    public int keys;
+
+    @Param({"1", "100"})
+    public int cost;
+
+    Flowable<HashMap<Integer, Integer>> keyed;
+
+    Flowable<Integer> groupByKey;
+
+    Flowable<HashMap<Integer, Integer>> groupByRail;
+
+    Integer work(Integer v) {
+        Blackhole.consumeCPU(cost);
+        return v;
+    }
+
+    static HashMap<Integer, Integer> sum(HashMap<Integer, Integer> map, Integer v, int keys) {
+        map.merge(v % keys, v, Integer::sum);
+        return map;
+    }
+
+    @Setup
+    public void setup() {
+        int k = keys;
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        Scheduler scheduler = Schedulers.computation();
+
+        keyed = new ParallelFromKeyedPublisher<>(Flowable.range(0, count), v -> v % k, parallelism, Flowable.bufferSize())
+                .runOn(scheduler)
+                .map(this::work)
+                .reduce(HashMap<Integer, Integer>::new, (a, b) -> sum(a, b, k))
+                .sequential();
+
+        groupByKey = Flowable.range(0, count)
+                .groupBy(v -> v % k)
+                .flatMap(g -> g.observeOn(scheduler)
+                        .map(this::work)
+                        .reduce(0, Integer::sum)
+                        .toFlowable(), Integer.MAX_VALUE);
+
+        groupByRail = Flowable.range(0, count)
+                .groupBy(v -> ParallelFromKeyedPublisher.rail(v % k, parallelism))
+                .flatMap(g -> g.observeOn(scheduler)
+                        .map(this::work)
+                        .reduceWith(HashMap<Integer, Integer>::new, (a, b) -> sum(a, b, k))
+                        .toFlowable(), parallelism);
+    }
+
+    @Benchmark
+    public Object keyed() {
+        return keyed.blockingLast();
+    }
+
+    @Benchmark
+    public Object groupByKey() {
+        return groupByKey.blockingLast();
+    }
+
+    @Benchmark
+    public Object groupByRail() {
+        return groupByRail.blockingLast();
+    }
+}
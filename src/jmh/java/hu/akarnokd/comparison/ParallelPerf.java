@@ -6,6 +6,7 @@ import java.util.stream.IntStream;
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.Blackhole;
 
+import hu.akarnokd.rxjava3.*;
 import io.reactivex.Flowable;
 import io.reactivex.parallel.ParallelFlowable;
 import io.reactivex.schedulers.Schedulers;
@@ -24,25 +25,59 @@ public class ParallelPerf {
     @Param({"1", "10", "100", "1000", "10000"})
     public int cost;
 
+    /** If true, every 32nd item costs 32 times as much. */
+    @Param({"false", "true"})
+    public boolean skewed;
+
     Flowable<Integer> flowable;
 
     Flowable<Integer> flowableFJ;
 
+    io.reactivex.rxjava3.core.Flowable<Integer> fromPublisher;
+
+    io.reactivex.rxjava3.core.Flowable<Integer> fromBatchPublisher;
+
+    io.reactivex.rxjava3.core.Flowable<Integer> fromAdaptivePublisher;
+
+    boolean work(int v) {
+        Blackhole.consumeCPU(skewed && (v & 31) == 0 ? cost * 32L : cost);
+        return false;
+    }
+
     @Setup
     public void setup() {
         flowable = ParallelFlowable.from(Flowable.range(0, count)).runOn(Schedulers.computation())
-        .filter(v -> { Blackhole.consumeCPU(cost); return false; })
+        .filter(this::work)
         .sequential();
 
         flowableFJ = ParallelFlowable.from(Flowable.range(0, count))
                 .runOn(Schedulers.from(ForkJoinPool.commonPool()))
-        .filter(v -> { Blackhole.consumeCPU(cost); return false; })
+        .filter(this::work)
         .sequential();
+
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        int prefetch = io.reactivex.rxjava3.core.Flowable.bufferSize();
+        io.reactivex.rxjava3.core.Scheduler scheduler = io.reactivex.rxjava3.schedulers.Schedulers.computation();
+
+        fromPublisher = new ParallelFromPublisher<>(io.reactivex.rxjava3.core.Flowable.range(0, count), parallelism, prefetch)
+                .runOn(scheduler)
+                .filter(this::work)
+                .sequential();
+
+        fromBatchPublisher = new ParallelFromBatchPublisher<>(io.reactivex.rxjava3.core.Flowable.range(0, count), parallelism, prefetch)
+                .runOn(scheduler)
+                .filter(this::work)
+                .sequential();
+
+        fromAdaptivePublisher = new ParallelFromAdaptivePublisher<>(io.reactivex.rxjava3.core.Flowable.range(0, count),
+                parallelism, scheduler, prefetch, 100, TimeUnit.MICROSECONDS, true)
+                .filter(this::work)
+                .sequential();
     }
 
     @Benchmark
     public Object parallelStream() {
-        return IntStream.range(0, count).parallel().filter(v -> { Blackhole.consumeCPU(cost); return false; })
+        return IntStream.range(0, count).parallel().filter(this::work)
         .findAny();
     }
 
@@ -55,4 +90,19 @@ public class ParallelPerf {
     public Object parallelFlowableForkJoin() {
         return flowableFJ.blockingLast(0);
     }
+
+    @Benchmark
+    public Object parallelFromPublisher() {
+        return fromPublisher.blockingLast(0);
+    }
+
+    @Benchmark
+    public Object parallelFromBatchPublisher() {
+        return fromBatchPublisher.blockingLast(0);
+    }
+
+    @Benchmark
+    public Object parallelFromAdaptivePublisher() {
+        return fromAdaptivePublisher.blockingLast(0);
+    }
 }
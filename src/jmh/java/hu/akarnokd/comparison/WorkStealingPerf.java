@@ -0,0 +1,88 @@
+package hu.akarnokd.comparison;
+
+import java.util.concurrent.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import hu.akarnokd.rxjava3.WorkStealingScheduler;
+import io.reactivex.rxjava3.core.*;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * Compares the work-stealing scheduler with the computation and ForkJoinPool based ones
+ * on a workload where every {@code skew}th rail gets items {@code skewFactor} times more expensive.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class WorkStealingPerf {
+
+    @Param({"1024" })
+    public int count;
+
+    @Param({"100", "1000"})
+    public int cost;
+
+    @Param({"1", "4"})
+    public int skew;
+
+    @Param({"20"})
+    public int skewFactor;
+
+    WorkStealingScheduler workStealing;
+
+    Flowable<Integer> computation;
+
+    Flowable<Integer> forkJoin;
+
+    Flowable<Integer> stealing;
+
+    @Setup
+    public void setup() {
+        workStealing = new WorkStealingScheduler();
+
+        computation = create(Schedulers.computation());
+        forkJoin = create(Schedulers.from(ForkJoinPool.commonPool()));
+        stealing = create(workStealing);
+    }
+
+    @TearDown
+    public void teardown() {
+        workStealing.shutdown();
+    }
+
+    Flowable<Integer> create(Scheduler scheduler) {
+        int rails = Runtime.getRuntime().availableProcessors() * 4;
+        return Flowable.range(0, count)
+        .parallel(rails)
+        .runOn(scheduler)
+        .filter(v -> {
+            int c = cost;
+            if (skew != 1 && (v % rails) % skew == 0) {
+                c *= skewFactor;
+            }
+            Blackhole.consumeCPU(c);
+            return false;
+        })
+        .sequential();
+    }
+
+    @Benchmark
+    public Object computation() {
+        return computation.blockingLast(0);
+    }
+
+    @Benchmark
+    public Object forkJoin() {
+        return forkJoin.blockingLast(0);
+    }
+
+    @Benchmark
+    public Object workStealing() {
+        return stealing.blockingLast(0);
+    }
+}
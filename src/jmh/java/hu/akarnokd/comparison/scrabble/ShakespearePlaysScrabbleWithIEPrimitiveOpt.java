@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2019 Jos Paumard
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package hu.akarnokd.comparison.scrabble;
+
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.function.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import hu.akarnokd.enumerables.*;
+
+/**
+ * Shakespeare plays Scrabble with IEnumerable optimized and the per-word
+ * scoring done through the primitive IntEnumerable, no boxing per letter.
+ * @author Jos
+ * @author akarnokd
+ */
+public class ShakespearePlaysScrabbleWithIEPrimitiveOpt extends ShakespearePlaysScrabble {
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(
+        iterations = 5, time = 1
+    )
+    @Measurement(
+        iterations = 5, time = 1
+    )
+    @Fork(1)
+    public List<Entry<Integer, List<String>>> measureThroughput() throws InterruptedException {
+
+        // the benchmark runs single threaded, the histogram array can be reused for every word
+        int[] histogram = new int[26];
+
+        //  to compute the score of a given word
+        IntUnaryOperator scoreOfALetter = letter -> letterScores[letter - 'a'];
+
+        // score of the same letters in a word
+        IntUnaryOperator letterScore =
+                index -> letterScores[index] *
+                        Integer.min(
+                                histogram[index],
+                                scrabbleAvailableLetters[index]
+                            )
+                    ;
+
+        // Histogram of the letters in a given word
+        Consumer<String> histoOfLetters =
+                word -> {
+                    Arrays.fill(histogram, 0);
+                    IntEnumerable.characters(word)
+                        .forEach(letter -> histogram[letter - 'a']++);
+                };
+
+        // number of blanks for a given letter
+        IntUnaryOperator blank =
+                index -> Integer.max(
+                            0,
+                            histogram[index] -
+                            scrabbleAvailableLetters[index]
+                        )
+                    ;
+
+        // number of blanks for a given word
+        ToIntFunction<String> nBlanks =
+                word -> {
+                    histoOfLetters.accept(word);
+                    return IntEnumerable.range(0, 26)
+                            .map(blank)
+                            .sum();
+                };
+
+        // can a word be written with 2 blanks?
+        Predicate<String> checkBlanks =
+                word -> nBlanks.applyAsInt(word) <= 2 ;
+
+        // score taking blanks into account letterScore1
+        ToIntFunction<String> score2 =
+                word -> {
+                    histoOfLetters.accept(word);
+                    return IntEnumerable.range(0, 26)
+                            .map(letterScore)
+                            .sum();
+                };
+
+        // Placing the word on the board
+        // Building the streams of first and last letters
+        Function<String, IntEnumerable> first3 =
+                word -> IntEnumerable.characters(word).take(3) ;
+        Function<String, IntEnumerable> last3 =
+                word -> IntEnumerable.characters(word).skip(3) ;
+
+
+        // Stream to be maxed
+        Function<String, IntEnumerable> toBeMaxed =
+            word -> IntEnumerable.concat(first3.apply(word), last3.apply(word))
+            ;
+
+        // Bonus for double letter
+        ToIntFunction<String> bonusForDoubleLetter =
+            word -> toBeMaxed.apply(word)
+                        .map(scoreOfALetter)
+                        .max();
+
+        // score of the word put on the board
+        ToIntFunction<String> score3 =
+            word -> 2 * (score2.applyAsInt(word) + bonusForDoubleLetter.applyAsInt(word))
+                    + (word.length() == 7 ? 50 : 0);
+
+        Function<ToIntFunction<String>, IEnumerable<TreeMap<Integer, List<String>>>> buildHistoOnScore =
+                score -> IEnumerable.fromIterable(shakespeareWords)
+                                .filter(scrabbleWords::contains)
+                                .filter(checkBlanks)
+                                .collect(
+                                    () -> new TreeMap<Integer, List<String>>(Comparator.reverseOrder()),
+                                    (TreeMap<Integer, List<String>> map, String word) -> {
+                                        Integer key = score.applyAsInt(word) ;
+                                        List<String> list = map.get(key) ;
+                                        if (list == null) {
+                                            list = new ArrayList<>() ;
+                                            map.put(key, list) ;
+                                        }
+                                        list.add(word) ;
+                                    }
+                                ) ;
+
+        // best key / value pairs
+        List<Entry<Integer, List<String>>> finalList2 =
+                buildHistoOnScore.apply(score3)
+                    .flatMapIterable(map -> map.entrySet())
+                    .take(3)
+                    .collect(
+                        () -> new ArrayList<Entry<Integer, List<String>>>(),
+                        (list, entry) -> {
+                            list.add(entry) ;
+                        }
+                    )
+                    .first() ;
+
+//        System.out.println(finalList2);
+
+        return finalList2 ;
+    }
+
+    public static void main(String[] args) throws Exception {
+        ShakespearePlaysScrabbleWithIEPrimitiveOpt s = new ShakespearePlaysScrabbleWithIEPrimitiveOpt();
+        s.init();
+        System.out.println(s.measureThroughput());
+    }
+}
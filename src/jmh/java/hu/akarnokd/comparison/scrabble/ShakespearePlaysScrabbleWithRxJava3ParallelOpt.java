@@ -23,10 +23,12 @@ import java.util.concurrent.TimeUnit;
 
 import org.openjdk.jmh.annotations.*;
 
+import hu.akarnokd.rxjava3.*;
 import hu.akarnokd.rxjava3.math.MathFlowable;
 import hu.akarnokd.rxjava3.string.StringFlowable;
 import io.reactivex.rxjava3.core.*;
 import io.reactivex.rxjava3.functions.Function;
+import io.reactivex.rxjava3.parallel.ParallelFlowable;
 import io.reactivex.rxjava3.schedulers.Schedulers;
 
 /**
@@ -43,6 +45,24 @@ public class ShakespearePlaysScrabbleWithRxJava3ParallelOpt extends ShakespeareP
 
     final Scheduler scheduler = Schedulers.computation(); // = new WeakParallelScheduler();
 
+    /** How the words are split into the rails. */
+    @Param({ "parallel", "fromPublisher", "fromBatchPublisher", "fromAdaptivePublisher" })
+    public String source = "parallel";
+
+    ParallelFlowable<String> words() {
+        Flowable<String> f = Flowable.fromIterable(shakespeareWords);
+        switch (source) {
+        case "fromPublisher":
+            return new ParallelFromPublisher<>(f, 6, Flowable.bufferSize()).runOn(scheduler);
+        case "fromBatchPublisher":
+            return new ParallelFromBatchPublisher<>(f, 6, Flowable.bufferSize()).runOn(scheduler);
+        case "fromAdaptivePublisher":
+            return new ParallelFromAdaptivePublisher<>(f, 6, scheduler, Flowable.bufferSize(), 100, TimeUnit.MICROSECONDS, true);
+        default:
+            return f.parallel(6).runOn(scheduler);
+        }
+    }
+
     @Benchmark
     @BenchmarkMode(Mode.SampleTime)
     @OutputTimeUnit(TimeUnit.MILLISECONDS)
@@ -153,9 +173,7 @@ public class ShakespearePlaysScrabbleWithRxJava3ParallelOpt extends ShakespeareP
 
         Function<Function<String, Flowable<Integer>>, Flowable<TreeMap<Integer, List<String>>>> buildHistoOnScore =
                 score ->
-                Flowable.fromIterable(shakespeareWords)
-                .parallel(6)
-                .runOn(scheduler)
+                words()
                 .filter(scrabbleWords::contains)
                 .filter(word -> checkBlanks.apply(word).blockingFirst())
                 .collect(
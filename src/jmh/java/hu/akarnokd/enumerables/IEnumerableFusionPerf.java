@@ -0,0 +1,62 @@
+package hu.akarnokd.enumerables;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Five-stage chains over a {@code List} source that collapse into a single enumerator
+ * through the assembly-time fusion of map, filter, take and skip.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class IEnumerableFusionPerf {
+
+    @Param({ "1000", "1000000" })
+    public int count;
+
+    List<Integer> list;
+
+    @Setup
+    public void setup() {
+        Integer[] array = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            array[i] = i;
+        }
+        list = Arrays.asList(array);
+    }
+
+    @Benchmark
+    public void mapMapFilterFilter(Blackhole bh) {
+        IEnumerator<Integer> en = IEnumerable.fromIterable(list)
+                .map(v -> v + 1)
+                .map(v -> v * 3)
+                .filter(v -> (v & 1) == 0)
+                .filter(v -> v % 3 == 0)
+                .enumerator();
+
+        while (en.moveNext()) {
+            bh.consume(en.current());
+        }
+    }
+
+    @Benchmark
+    public void skipTakeFilterMap(Blackhole bh) {
+        IEnumerator<Integer> en = IEnumerable.fromIterable(list)
+                .skip(10)
+                .take(count / 2)
+                .filter(v -> (v & 1) == 0)
+                .map(v -> v + 1)
+                .enumerator();
+
+        while (en.moveNext()) {
+            bh.consume(en.current());
+        }
+    }
+}
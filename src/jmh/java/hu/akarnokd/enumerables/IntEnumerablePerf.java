@@ -0,0 +1,87 @@
+package hu.akarnokd.enumerables;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the boxed {@link IEnumerable} character pipelines with the primitive {@link IntEnumerable} ones.
+ * <p>
+ * Run with {@code -prof gc}: the primitive variants should report ~0 B/op for {@code gc.alloc.rate.norm}
+ * besides the few enumerator objects per call.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class IntEnumerablePerf {
+
+    static final int[] LETTER_SCORES = {
+            1, 3, 3, 2, 1, 4, 2, 4, 1, 8, 5, 1, 3, 1, 1, 3, 10, 1, 1, 1, 1, 4, 4, 8, 4, 10
+    };
+
+    @Param({ "7", "1000" })
+    public int length;
+
+    String word;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append((char)('a' + (i * 7) % 26));
+        }
+        word = sb.toString();
+    }
+
+    @Benchmark
+    public void sumBoxed(Blackhole bh) {
+        bh.consume(IEnumerable.characters(word)
+                .map(c -> LETTER_SCORES[c - 'a'])
+                .sumInt()
+                .first());
+    }
+
+    @Benchmark
+    public void sumPrimitive(Blackhole bh) {
+        bh.consume(IntEnumerable.characters(word)
+                .map(c -> LETTER_SCORES[c - 'a'])
+                .sum());
+    }
+
+    @Benchmark
+    public void maxBoxed(Blackhole bh) {
+        String w = word;
+        bh.consume(IEnumerable.concatArray(IEnumerable.characters(w).take(3), IEnumerable.characters(w).skip(3))
+                .map(c -> LETTER_SCORES[c - 'a'])
+                .maxInt()
+                .first());
+    }
+
+    @Benchmark
+    public void maxPrimitive(Blackhole bh) {
+        String w = word;
+        bh.consume(IntEnumerable.concat(IntEnumerable.characters(w).take(3), IntEnumerable.characters(w).skip(3))
+                .map(c -> LETTER_SCORES[c - 'a'])
+                .max());
+    }
+
+    @Benchmark
+    public void countBoxed(Blackhole bh) {
+        bh.consume(IEnumerable.characters(word)
+                .filter(c -> c < 'n')
+                .map(c -> 1L)
+                .sumLong()
+                .first());
+    }
+
+    @Benchmark
+    public void countPrimitive(Blackhole bh) {
+        bh.consume(IntEnumerable.characters(word)
+                .filter(c -> c < 'n')
+                .count());
+    }
+}
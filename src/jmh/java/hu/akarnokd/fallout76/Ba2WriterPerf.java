@@ -0,0 +1,77 @@
+package hu.akarnokd.fallout76;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.zip.Deflater;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Writes synthetic archives of {@code totalMB} through {@link Ba2Writer}.
+ * <p>
+ * The entries cycle through a small pool of half-random buffers, so multi-GB archives
+ * can be produced without holding the input in memory; divide {@code totalMB} by the
+ * reported time to get the throughput:
+ * <pre>
+ * java -jar benchmarks.jar Ba2WriterPerf -p totalMB=4096 -p threads=1,4
+ * </pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class Ba2WriterPerf {
+
+    @Param({ "256" })
+    public int totalMB;
+
+    @Param({ "65536", "4194304" })
+    public int entrySize;
+
+    @Param({ "1", "4" })
+    public int threads;
+
+    @Param({ "0", "1" })
+    public int level;
+
+    byte[][] pool;
+
+    ExecutorService exec;
+
+    Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        Random rnd = new Random(1);
+        pool = new byte[16][entrySize];
+        for (byte[] b : pool) {
+            for (int i = 0; i < b.length; i++) {
+                b[i] = (i & 1) == 0 ? (byte)rnd.nextInt(256) : (byte)(i % 13);
+            }
+        }
+        exec = Executors.newFixedThreadPool(threads);
+        file = Files.createTempFile("ba2writerperf", ".ba2");
+    }
+
+    @TearDown
+    public void teardown() throws IOException {
+        exec.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        int count = (int)((long)totalMB * 1024 * 1024 / entrySize);
+        int lvl = level == 0 ? Deflater.NO_COMPRESSION : level;
+        try (Ba2Writer w = new Ba2Writer(file, count, exec, lvl, threads * 4)) {
+            for (int i = 0; i < count; i++) {
+                w.add("data/dir" + (i & 63) + "/entry" + i + ".bin", pool[i & 15]);
+            }
+        }
+        return Files.size(file);
+    }
+}
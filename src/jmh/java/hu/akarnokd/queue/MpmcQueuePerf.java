@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015-2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.queue;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class MpmcQueuePerf {
+
+    static final int COUNT = 1_000_000;
+
+    @Param({ "1", "2", "4", "8" })
+    public int producers;
+
+    @Param({ "1", "2", "4", "8" })
+    public int consumers;
+
+    @Param({ "padded", "linked", "jctools", "clq" })
+    public String type;
+
+    @Param({ "1024" })
+    public int capacity;
+
+    ExecutorService exec;
+
+    @Setup
+    public void setup() {
+        exec = Executors.newFixedThreadPool(producers + consumers);
+    }
+
+    @TearDown
+    public void teardown() {
+        exec.shutdownNow();
+    }
+
+    IQueue<Integer> create() {
+        switch (type) {
+        case "padded":
+            return new MpmcPaddedArrayQueue<>(capacity);
+        case "linked":
+            return new MpmcLinkedArrayQueue<>(capacity);
+        case "jctools": {
+            org.jctools.queues.MpmcArrayQueue<Integer> q = new org.jctools.queues.MpmcArrayQueue<>(capacity);
+            return new IQueue<Integer>() {
+                @Override
+                public void enqueue(Integer item) {
+                    while (!q.offer(item)) {
+                        Thread.yield();
+                    }
+                }
+
+                @Override
+                public Integer dequeue() {
+                    return q.poll();
+                }
+            };
+        }
+        default: {
+            ConcurrentLinkedQueue<Integer> q = new ConcurrentLinkedQueue<>();
+            return new IQueue<Integer>() {
+                @Override
+                public void enqueue(Integer item) {
+                    q.offer(item);
+                }
+
+                @Override
+                public Integer dequeue() {
+                    return q.poll();
+                }
+            };
+        }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void transfer() throws Exception {
+        IQueue<Integer> q = create();
+
+        int p = producers;
+        int c = consumers;
+        CountDownLatch done = new CountDownLatch(c);
+        AtomicInteger remaining = new AtomicInteger(COUNT);
+        Integer value = 777;
+
+        for (int i = 0; i < p; i++) {
+            int n = COUNT / p + (i < COUNT % p ? 1 : 0);
+            exec.execute(() -> {
+                for (int j = 0; j < n; j++) {
+                    q.enqueue(value);
+                }
+            });
+        }
+
+        for (int i = 0; i < c; i++) {
+            exec.execute(() -> {
+                while (remaining.get() > 0) {
+                    if (q.dequeue() != null) {
+                        remaining.decrementAndGet();
+                    } else {
+                        Thread.onSpinWait();
+                    }
+                }
+                done.countDown();
+            });
+        }
+
+        done.await();
+    }
+}
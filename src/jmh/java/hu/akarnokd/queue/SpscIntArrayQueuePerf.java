@@ -93,6 +93,17 @@ public class SpscIntArrayQueuePerf {
         }
     }
 
+    @Benchmark
+    public void fillDrainPrimitive() {
+        if (times != 1) {
+            throw new RuntimeException("Skip this settings");
+        }
+        SpscIntArrayQueue q = queue;
+
+        q.fill(() -> 777, capacity);
+        q.drain(v -> { }, capacity);
+    }
+
 //    @Benchmark
     public void offerCapacityObject() {
         if (times != 1) {
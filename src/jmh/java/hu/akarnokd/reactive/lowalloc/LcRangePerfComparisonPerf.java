@@ -8,6 +8,15 @@ import org.openjdk.jmh.infra.Blackhole;
 import hu.akarnokd.rxjava2.PerfConsumer;
 import io.reactivex.Observable;
 
+/**
+ * Compares RxJava's Observable with the low-allocation LcObservable, in fresh, cached and
+ * recycled assembly modes.
+ * <p>
+ * Run with the GC profiler to see the allocation per subscription ({@code gc.alloc.rate.norm}):
+ * <pre>
+ * java -jar benchmarks.jar LcRangePerfComparisonPerf -prof gc
+ * </pre>
+ */
 @BenchmarkMode(Mode.Throughput)
 @Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
 @Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
@@ -23,10 +32,52 @@ public class LcRangePerfComparisonPerf {
 
     LcObservable<Integer> lcObservable;
 
+    LcObservable<Integer> lcRecycled;
+
+    Observable<Integer> observableChain;
+
+    LcObservable<Integer> lcChain;
+
+    LcObservable<Integer> lcChainRecycled;
+
+    LcObservable<Integer> lcFlatMap;
+
+    LcObservable<Integer> lcFlatMapRecycled;
+
+    LcObservable<Integer> lcConcatMap;
+
+    LcObservable<Integer> lcConcatMapRecycled;
+
+    LcObservable<Integer> lcZip;
+
+    LcObservable<Integer> lcZipRecycled;
+
     @Setup
     public void setup() {
         observable = createObservable();
         lcObservable = createLcObservable();
+        lcRecycled = createLcObservable().recycle();
+
+        observableChain = Observable.range(1, count).filter(v -> (v & 1) == 0).map(v -> v + 1).reduce(0, (a, b) -> a + b).toObservable();
+        lcChain = createLcChain();
+        lcChainRecycled = createLcChain().recycle();
+
+        lcFlatMap = LcObservable.range(1, count).flatMap(LcObservable::just);
+        lcFlatMapRecycled = LcObservable.range(1, count).flatMap(LcObservable::just).recycle();
+
+        lcConcatMap = LcObservable.range(1, count).concatMap(LcObservable::just);
+        lcConcatMapRecycled = LcObservable.range(1, count).concatMap(LcObservable::just).recycle();
+
+        lcZip = createLcZip();
+        lcZipRecycled = createLcZip().recycle();
+    }
+
+    LcObservable<Integer> createLcChain() {
+        return LcObservable.range(1, count).filter(v -> (v & 1) == 0).map(v -> v + 1).reduce(() -> 0, (a, b) -> a + b);
+    }
+
+    LcObservable<Integer> createLcZip() {
+        return LcObservable.zip(LcObservable.range(1, count), LcObservable.range(1, count), (a, b) -> a + b);
     }
 
     Observable<Integer> createObservable() {
@@ -56,4 +107,54 @@ public class LcRangePerfComparisonPerf {
     public void cachedLcObservable(Blackhole bh) {
         lcObservable.subscribe(new PerfConsumer(bh));
     }
+
+    @Benchmark
+    public void recycledLcObservable(Blackhole bh) {
+        lcRecycled.subscribe(new PerfConsumer(bh));
+    }
+
+    @Benchmark
+    public void cachedObservableChain(Blackhole bh) {
+        observableChain.subscribe(new PerfConsumer(bh));
+    }
+
+    @Benchmark
+    public void cachedLcChain(Blackhole bh) {
+        lcChain.subscribe(new PerfConsumer(bh));
+    }
+
+    @Benchmark
+    public void recycledLcChain(Blackhole bh) {
+        lcChainRecycled.subscribe(new PerfConsumer(bh));
+    }
+
+    @Benchmark
+    public void cachedLcFlatMap(Blackhole bh) {
+        lcFlatMap.subscribe(new PerfConsumer(bh));
+    }
+
+    @Benchmark
+    public void recycledLcFlatMap(Blackhole bh) {
+        lcFlatMapRecycled.subscribe(new PerfConsumer(bh));
+    }
+
+    @Benchmark
+    public void cachedLcConcatMap(Blackhole bh) {
+        lcConcatMap.subscribe(new PerfConsumer(bh));
+    }
+
+    @Benchmark
+    public void recycledLcConcatMap(Blackhole bh) {
+        lcConcatMapRecycled.subscribe(new PerfConsumer(bh));
+    }
+
+    @Benchmark
+    public void cachedLcZip(Blackhole bh) {
+        lcZip.subscribe(new PerfConsumer(bh));
+    }
+
+    @Benchmark
+    public void recycledLcZip(Blackhole bh) {
+        lcZipRecycled.subscribe(new PerfConsumer(bh));
+    }
 }
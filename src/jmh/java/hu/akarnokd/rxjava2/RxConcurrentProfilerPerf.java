@@ -0,0 +1,95 @@
+package hu.akarnokd.rxjava2;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import io.reactivex.Flowable;
+import jdk.jfr.Recording;
+
+/**
+ * Measures the overhead of {@link RxConcurrentProfiler} on a short synchronous
+ * pipeline, without the profiler, with the profiler only, with the JFR events
+ * switched on in the profiler but no recording running, and with a recording.
+ * The {@code work} parameter makes the items cost something beyond the operator
+ * overhead, as in most real pipelines.
+ * <pre>
+ * java -jar benchmarks.jar RxConcurrentProfilerPerf -p sampleRate=1,64,1024
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class RxConcurrentProfilerPerf {
+
+    @Param({ "none", "profiler", "jfrIdle", "jfrRecording" })
+    public String mode;
+
+    @Param({ "64", "1024" })
+    public int sampleRate;
+
+    @Param({ "1000" })
+    public int count;
+
+    /** The {@link Blackhole#consumeCPU(long)} tokens spent in the map() per item. */
+    @Param({ "0", "100" })
+    public int work;
+
+    Flowable<Integer> flow;
+
+    RxConcurrentProfiler profiler;
+
+    Recording recording;
+
+    @Setup
+    public void setup() {
+        if (!"none".equals(mode)) {
+            profiler = new RxConcurrentProfiler(sampleRate);
+            profiler.start();
+            if (!"profiler".equals(mode)) {
+                profiler.enableJfr(0L);
+            }
+            if ("jfrRecording".equals(mode)) {
+                recording = new Recording();
+                recording.enable(RxProfilerEvents.OnNext.class);
+                recording.enable(RxProfilerEvents.Request.class);
+                recording.enable(RxProfilerEvents.Subscribe.class);
+                recording.enable(RxProfilerEvents.OnComplete.class);
+                recording.setToDisk(false);
+                recording.setMaxSize(16 << 20);
+                recording.start();
+            }
+        }
+        int w = work;
+        try {
+            flow = Flowable.range(1, count)
+                    .map(v -> {
+                        Blackhole.consumeCPU(w);
+                        return v + 1;
+                    })
+                    .filter(v -> (v & 1) == 0)
+                    .reduce(0, (a, b) -> a + b)
+                    .toFlowable();
+        } finally {
+            if (profiler != null) {
+                profiler.stop();
+            }
+        }
+    }
+
+    @TearDown
+    public void teardown() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    @Benchmark
+    public void pipeline(Blackhole bh) {
+        flow.subscribe(new PerfConsumer(bh));
+    }
+}
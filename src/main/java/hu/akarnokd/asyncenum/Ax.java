@@ -13,7 +13,9 @@
 
 package hu.akarnokd.asyncenum;
 
+import java.util.*;
 import java.util.concurrent.Executor;
+import java.util.function.*;
 
 /**
  * Asynchronous Enumerable Extensions.
@@ -26,11 +28,95 @@ public abstract class Ax<T> implements IAsyncEnumerable<T> {
         return new AxRange(start, count);
     }
 
+    @SafeVarargs
+    public static <T> Ax<T> fromArray(T... items) {
+        return new AxFromArray<>(items);
+    }
+
+    @SafeVarargs
+    public static <T> Ax<T> merge(IAsyncEnumerable<? extends T>... sources) {
+        return new AxFlatMap<IAsyncEnumerable<? extends T>, T>(new AxFromArray<>(sources), v -> v,
+                Math.max(1, sources.length), 128);
+    }
+
+    public final <R> Ax<R> map(Function<? super T, ? extends R> mapper) {
+        return new AxMap<>(this, mapper);
+    }
+
+    public final Ax<T> filter(Predicate<? super T> predicate) {
+        return new AxFilter<>(this, predicate);
+    }
+
+    public final Ax<T> take(long n) {
+        return new AxTake<>(this, n);
+    }
+
+    public final <R> Ax<R> reduce(Supplier<R> seed, BiFunction<R, ? super T, R> reducer) {
+        return new AxReduce<>(this, seed, reducer);
+    }
+
+    public final Ax<List<T>> buffer(int size) {
+        return new AxBuffer<>(this, size);
+    }
+
+    public final <R> Ax<R> concatMap(Function<? super T, ? extends IAsyncEnumerable<? extends R>> mapper) {
+        return new AxConcatMap<>(this, mapper);
+    }
+
+    public final <R> Ax<R> flatMap(Function<? super T, ? extends IAsyncEnumerable<? extends R>> mapper) {
+        return flatMap(mapper, Integer.MAX_VALUE, 128);
+    }
+
+    public final <R> Ax<R> flatMap(Function<? super T, ? extends IAsyncEnumerable<? extends R>> mapper, int maxConcurrency, int prefetch) {
+        return new AxFlatMap<>(this, mapper, maxConcurrency, prefetch);
+    }
+
     public final Ax<T> observeOn(Executor executor) {
         return new AxObserveOn<>(this, executor);
     }
 
+    /**
+     * Moves the enumeration to the executor in batches: each hop collects up to
+     * {@code prefetch} values which are then returned without further hops.
+     * @param executor the executor to hop onto
+     * @param prefetch the maximum number of values collected per hop
+     * @return the new Ax instance
+     */
+    public final Ax<T> observeOn(Executor executor, int prefetch) {
+        return new AxObserveOn<>(this, executor, prefetch);
+    }
+
     public final Ax<T> subscribeOn(Executor executor) {
         return new AxSubscribeOn<>(this, executor);
     }
+
+    /**
+     * Enumerates this Ax on its own virtual thread (or platform thread before Java 21),
+     * which blocks on each {@code moveNext()} instead of chaining callbacks.
+     * @param prefetch the number of values the thread may run ahead of the consumer
+     * @return the new Ax instance
+     * @see AxVirtualThreads
+     */
+    public final Ax<T> observeOnVirtual(int prefetch) {
+        return new AxVirtualThread<>(this, AxVirtualThreads.factory(), prefetch, false);
+    }
+
+    /**
+     * Creates and enumerates this Ax on its own virtual thread (or platform thread before Java 21),
+     * which blocks on each {@code moveNext()} instead of chaining callbacks.
+     * @param prefetch the number of values the thread may run ahead of the consumer
+     * @return the new Ax instance
+     * @see AxVirtualThreads
+     */
+    public final Ax<T> subscribeOnVirtual(int prefetch) {
+        return new AxVirtualThread<>(this, AxVirtualThreads.factory(), prefetch, true);
+    }
+
+    public final AxBlockingIterator<T> blockingIterator() {
+        return new AxBlockingIterator<>(enumerator());
+    }
+
+    public final Iterable<T> blockingIterable() {
+        return this::blockingIterator;
+    }
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016-2018 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import rx.subscriptions.CompositeSubscription;
+
+/**
+ * Blocks the current thread until the next value of an IAsyncEnumerator is available.
+ * <p>
+ * Stages that have already completed are consumed without blocking. Running the
+ * iteration on a virtual thread parks the virtual thread instead of its carrier.
+ * @param <T> the value type
+ */
+public final class AxBlockingIterator<T> implements Iterator<T>, AutoCloseable {
+
+    final IAsyncEnumerator<? extends T> source;
+
+    final CompositeSubscription token;
+
+    Boolean hasValue;
+
+    public AxBlockingIterator(IAsyncEnumerator<? extends T> source) {
+        this(source, new CompositeSubscription());
+    }
+
+    /**
+     * Iterates the source with the given token, which {@link #close()} unsubscribes.
+     * @param source the source enumerator
+     * @param token the token passed to the source's moveNext
+     */
+    public AxBlockingIterator(IAsyncEnumerator<? extends T> source, CompositeSubscription token) {
+        this.source = source;
+        this.token = token;
+    }
+
+    @Override
+    public boolean hasNext() {
+        Boolean b = hasValue;
+        if (b == null) {
+            CompletionStage<Boolean> stage = source.moveNext(token);
+            b = AxStages.now(stage);
+            if (b == null) {
+                try {
+                    b = stage.toCompletableFuture().get();
+                } catch (InterruptedException ex) {
+                    token.unsubscribe();
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Interrupted while waiting for the next value");
+                } catch (ExecutionException ex) {
+                    hasValue = false;
+                    Throwable cause = ex.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException)cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error)cause;
+                    }
+                    throw new CompletionException(cause);
+                }
+            }
+            hasValue = b;
+        }
+        return b;
+    }
+
+    @Override
+    public T next() {
+        if (hasNext()) {
+            hasValue = null;
+            return source.current();
+        }
+        throw new NoSuchElementException();
+    }
+
+    @Override
+    public void close() {
+        token.unsubscribe();
+    }
+}
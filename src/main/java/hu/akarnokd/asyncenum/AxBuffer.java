@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016-2018 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.*;
+import java.util.concurrent.CompletionStage;
+
+import rx.subscriptions.CompositeSubscription;
+
+public final class AxBuffer<T> extends Ax<List<T>> {
+
+    final IAsyncEnumerable<? extends T> source;
+
+    final int size;
+
+    public AxBuffer(IAsyncEnumerable<? extends T> source, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size > 0 required but it was " + size);
+        }
+        this.source = source;
+        this.size = size;
+    }
+
+    @Override
+    public IAsyncEnumerator<List<T>> enumerator() {
+        return new AxBufferEnumerator<>(source.enumerator(), size);
+    }
+
+    static final class AxBufferEnumerator<T> implements IAsyncEnumerator<List<T>> {
+        final IAsyncEnumerator<? extends T> source;
+
+        final int size;
+
+        List<T> buffer;
+
+        List<T> current;
+
+        boolean done;
+
+        AxBufferEnumerator(IAsyncEnumerator<? extends T> source, int size) {
+            this.source = source;
+            this.size = size;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext(CompositeSubscription token) {
+            if (done) {
+                current = null;
+                return AxStages.FALSE;
+            }
+            buffer = new ArrayList<>(size);
+            return loop(token);
+        }
+
+        CompletionStage<Boolean> loop(CompositeSubscription token) {
+            for (;;) {
+                CompletionStage<Boolean> stage = source.moveNext(token);
+                Boolean b = AxStages.now(stage);
+                if (b == null) {
+                    return stage.thenCompose(v -> {
+                        if (v) {
+                            return add() ? AxStages.TRUE : loop(token);
+                        }
+                        return finish();
+                    });
+                }
+                if (!b) {
+                    return finish();
+                }
+                if (add()) {
+                    return AxStages.TRUE;
+                }
+            }
+        }
+
+        boolean add() {
+            List<T> b = buffer;
+            b.add(source.current());
+            if (b.size() == size) {
+                current = b;
+                buffer = null;
+                return true;
+            }
+            return false;
+        }
+
+        CompletionStage<Boolean> finish() {
+            done = true;
+            List<T> b = buffer;
+            buffer = null;
+            if (b.isEmpty()) {
+                current = null;
+                return AxStages.FALSE;
+            }
+            current = b;
+            return AxStages.TRUE;
+        }
+
+        @Override
+        public List<T> current() {
+            return current;
+        }
+    }
+}
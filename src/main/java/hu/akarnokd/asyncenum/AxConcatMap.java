@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016-2018 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+import rx.subscriptions.CompositeSubscription;
+
+public final class AxConcatMap<T, R> extends Ax<R> {
+
+    final IAsyncEnumerable<? extends T> source;
+
+    final Function<? super T, ? extends IAsyncEnumerable<? extends R>> mapper;
+
+    public AxConcatMap(IAsyncEnumerable<? extends T> source, Function<? super T, ? extends IAsyncEnumerable<? extends R>> mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public IAsyncEnumerator<R> enumerator() {
+        return new AxConcatMapEnumerator<>(source.enumerator(), mapper);
+    }
+
+    static final class AxConcatMapEnumerator<T, R> implements IAsyncEnumerator<R> {
+        final IAsyncEnumerator<? extends T> source;
+
+        final Function<? super T, ? extends IAsyncEnumerable<? extends R>> mapper;
+
+        IAsyncEnumerator<? extends R> inner;
+
+        R current;
+
+        AxConcatMapEnumerator(IAsyncEnumerator<? extends T> source, Function<? super T, ? extends IAsyncEnumerable<? extends R>> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext(CompositeSubscription token) {
+            try {
+                for (;;) {
+                    IAsyncEnumerator<? extends R> in = inner;
+                    if (in != null) {
+                        CompletionStage<Boolean> stage = in.moveNext(token);
+                        Boolean b = AxStages.now(stage);
+                        if (b == null) {
+                            return stage.thenCompose(v -> {
+                                if (v) {
+                                    current = in.current();
+                                    return AxStages.TRUE;
+                                }
+                                inner = null;
+                                return moveNext(token);
+                            });
+                        }
+                        if (b) {
+                            current = in.current();
+                            return AxStages.TRUE;
+                        }
+                        inner = null;
+                    }
+
+                    CompletionStage<Boolean> stage = source.moveNext(token);
+                    Boolean b = AxStages.now(stage);
+                    if (b == null) {
+                        return stage.thenCompose(v -> {
+                            if (v) {
+                                inner = mapper.apply(source.current()).enumerator();
+                                return moveNext(token);
+                            }
+                            current = null;
+                            return AxStages.FALSE;
+                        });
+                    }
+                    if (!b) {
+                        current = null;
+                        return AxStages.FALSE;
+                    }
+                    inner = mapper.apply(source.current()).enumerator();
+                }
+            } catch (Throwable ex) {
+                return AxStages.error(ex);
+            }
+        }
+
+        @Override
+        public R current() {
+            return current;
+        }
+    }
+}
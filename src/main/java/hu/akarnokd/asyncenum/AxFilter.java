@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016-2018 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.Predicate;
+
+import rx.subscriptions.CompositeSubscription;
+
+public final class AxFilter<T> extends Ax<T> {
+
+    final IAsyncEnumerable<? extends T> source;
+
+    final Predicate<? super T> predicate;
+
+    public AxFilter(IAsyncEnumerable<? extends T> source, Predicate<? super T> predicate) {
+        this.source = source;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public IAsyncEnumerator<T> enumerator() {
+        return new AxFilterEnumerator<>(source.enumerator(), predicate);
+    }
+
+    static final class AxFilterEnumerator<T> implements IAsyncEnumerator<T> {
+        final IAsyncEnumerator<? extends T> source;
+
+        final Predicate<? super T> predicate;
+
+        T current;
+
+        AxFilterEnumerator(IAsyncEnumerator<? extends T> source, Predicate<? super T> predicate) {
+            this.source = source;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext(CompositeSubscription token) {
+            try {
+                for (;;) {
+                    CompletionStage<Boolean> stage = source.moveNext(token);
+                    Boolean b = AxStages.now(stage);
+                    if (b == null) {
+                        return stage.thenCompose(v -> {
+                            if (!v) {
+                                current = null;
+                                return AxStages.FALSE;
+                            }
+                            return test() ? AxStages.TRUE : moveNext(token);
+                        });
+                    }
+                    if (!b) {
+                        current = null;
+                        return AxStages.FALSE;
+                    }
+                    if (test()) {
+                        return AxStages.TRUE;
+                    }
+                }
+            } catch (Throwable ex) {
+                return AxStages.error(ex);
+            }
+        }
+
+        boolean test() {
+            T t = source.current();
+            if (predicate.test(t)) {
+                current = t;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public T current() {
+            return current;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright 2016-2018 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.Function;
+
+import rx.internal.util.atomic.SpscAtomicArrayQueue;
+import rx.subscriptions.CompositeSubscription;
+
+/**
+ * Maps the source values into inner IAsyncEnumerables and enumerates up to
+ * {@code maxConcurrency} of them at once, relaying their values in whichever
+ * order they become available.
+ * <p>
+ * The source and each inner enumerator is driven by its own pump that prefetches
+ * at most {@code prefetch} values and pauses until the consumer takes them.
+ *
+ * @param <T> the source value type
+ * @param <R> the result value type
+ */
+public final class AxFlatMap<T, R> extends Ax<R> {
+
+    final IAsyncEnumerable<? extends T> source;
+
+    final Function<? super T, ? extends IAsyncEnumerable<? extends R>> mapper;
+
+    final int maxConcurrency;
+
+    final int prefetch;
+
+    public AxFlatMap(IAsyncEnumerable<? extends T> source, Function<? super T, ? extends IAsyncEnumerable<? extends R>> mapper,
+            int maxConcurrency, int prefetch) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency > 0 required but it was " + maxConcurrency);
+        }
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        this.source = source;
+        this.mapper = mapper;
+        this.maxConcurrency = maxConcurrency;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public IAsyncEnumerator<R> enumerator() {
+        return new AxFlatMapEnumerator<>(source.enumerator(), mapper, maxConcurrency, prefetch);
+    }
+
+    static final class AxFlatMapEnumerator<T, R> implements IAsyncEnumerator<R> {
+
+        final OuterPump<T, R> outer;
+
+        final int prefetch;
+
+        final Queue<InnerPump<R>> newInners;
+
+        final List<InnerPump<R>> inners;
+
+        final AtomicInteger active;
+
+        final AtomicReference<CompletableFuture<Boolean>> waiter;
+
+        final AtomicReference<Throwable> error;
+
+        volatile CompositeSubscription token;
+
+        boolean started;
+
+        int index;
+
+        R current;
+
+        AxFlatMapEnumerator(IAsyncEnumerator<? extends T> source, Function<? super T, ? extends IAsyncEnumerable<? extends R>> mapper,
+                int maxConcurrency, int prefetch) {
+            this.outer = new OuterPump<>(source, this, mapper, maxConcurrency);
+            this.prefetch = prefetch;
+            this.newInners = new ConcurrentLinkedQueue<>();
+            this.inners = new ArrayList<>();
+            this.active = new AtomicInteger(1);
+            this.waiter = new AtomicReference<>();
+            this.error = new AtomicReference<>();
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext(CompositeSubscription token) {
+            if (!started) {
+                started = true;
+                this.token = token;
+                outer.drain();
+            }
+
+            for (;;) {
+                boolean d = active.get() == 0;
+
+                if (poll()) {
+                    return AxStages.TRUE;
+                }
+
+                Throwable ex = error.get();
+                if (ex != null) {
+                    current = null;
+                    return AxStages.error(ex);
+                }
+
+                if (d) {
+                    current = null;
+                    return AxStages.FALSE;
+                }
+
+                CompletableFuture<Boolean> w = new CompletableFuture<>();
+                waiter.set(w);
+
+                if (hasSignal()) {
+                    waiter.compareAndSet(w, null);
+                    continue;
+                }
+
+                return w.thenCompose(v -> moveNext(token));
+            }
+        }
+
+        boolean poll() {
+            List<InnerPump<R>> list = inners;
+            Queue<InnerPump<R>> q = newInners;
+            InnerPump<R> p;
+            while ((p = q.poll()) != null) {
+                list.add(p);
+            }
+
+            int n = list.size();
+            int idx = index;
+            for (int i = 0; i < n; i++) {
+                if (idx >= n) {
+                    idx = 0;
+                }
+                p = list.get(idx);
+                R v = p.queue.poll();
+                if (v != null) {
+                    current = v;
+                    index = idx + 1;
+                    p.consumed();
+                    return true;
+                }
+                if (p.done && p.queue.isEmpty()) {
+                    list.remove(idx);
+                    n--;
+                    i--;
+                } else {
+                    idx++;
+                }
+            }
+            index = idx;
+            return false;
+        }
+
+        boolean hasSignal() {
+            if (active.get() == 0 || error.get() != null || !newInners.isEmpty()) {
+                return true;
+            }
+            for (InnerPump<R> p : inners) {
+                if (!p.queue.isEmpty()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void signal() {
+            CompletableFuture<Boolean> w = waiter.getAndSet(null);
+            if (w != null) {
+                w.complete(true);
+            }
+        }
+
+        void onError(Throwable ex) {
+            if (error.compareAndSet(null, ex)) {
+                signal();
+            }
+        }
+
+        void subscribeInner(IAsyncEnumerable<? extends R> source) {
+            InnerPump<R> p = new InnerPump<>(source.enumerator(), this, prefetch);
+            active.getAndIncrement();
+            newInners.offer(p);
+            p.drain();
+        }
+
+        void innerDone() {
+            active.decrementAndGet();
+            signal();
+        }
+
+        @Override
+        public R current() {
+            return current;
+        }
+    }
+
+    /**
+     * Pulls values from an IAsyncEnumerator while it has credit, looping on
+     * synchronously completed stages and resuming from the stage callback otherwise.
+     * @param <V> the value type
+     */
+    abstract static class Pump<V> extends AtomicInteger {
+
+        private static final long serialVersionUID = -4076306406937452843L;
+
+        final IAsyncEnumerator<? extends V> source;
+
+        final AxFlatMapEnumerator<?, ?> parent;
+
+        final AtomicInteger credit;
+
+        volatile boolean done;
+
+        volatile boolean awaiting;
+
+        Pump(IAsyncEnumerator<? extends V> source, AxFlatMapEnumerator<?, ?> parent, int credit) {
+            this.source = source;
+            this.parent = parent;
+            this.credit = new AtomicInteger(credit);
+        }
+
+        final void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            for (;;) {
+
+                while (!awaiting && !done && credit.get() != 0 && parent.error.get() == null) {
+                    CompletionStage<Boolean> stage;
+                    try {
+                        stage = source.moveNext(parent.token);
+                    } catch (Throwable ex) {
+                        fail(ex);
+                        break;
+                    }
+                    Boolean b = AxStages.now(stage);
+                    if (b == null) {
+                        awaiting = true;
+                        stage.whenComplete((v, e) -> {
+                            if (e != null) {
+                                fail(e);
+                            } else {
+                                move(v);
+                            }
+                            awaiting = false;
+                            drain();
+                        });
+                        break;
+                    }
+                    move(b);
+                }
+
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        final void move(boolean hasValue) {
+            if (hasValue) {
+                try {
+                    onItem(source.current());
+                } catch (Throwable ex) {
+                    fail(ex);
+                }
+            } else {
+                done = true;
+                onComplete();
+            }
+        }
+
+        final void fail(Throwable ex) {
+            done = true;
+            parent.onError(ex);
+        }
+
+        abstract void onItem(V item);
+
+        abstract void onComplete();
+    }
+
+    static final class OuterPump<T, R> extends Pump<T> {
+
+        private static final long serialVersionUID = 2894427463528787163L;
+
+        final Function<? super T, ? extends IAsyncEnumerable<? extends R>> mapper;
+
+        OuterPump(IAsyncEnumerator<? extends T> source, AxFlatMapEnumerator<T, R> parent,
+                Function<? super T, ? extends IAsyncEnumerable<? extends R>> mapper, int maxConcurrency) {
+            super(source, parent, maxConcurrency);
+            this.mapper = mapper;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        void onItem(T item) {
+            credit.decrementAndGet();
+            IAsyncEnumerable<? extends R> inner = mapper.apply(item);
+            ((AxFlatMapEnumerator<T, R>)parent).subscribeInner(inner);
+        }
+
+        @Override
+        void onComplete() {
+            parent.innerDone();
+        }
+
+        void innerFinished() {
+            if (credit.getAndIncrement() == 0) {
+                drain();
+            }
+        }
+    }
+
+    static final class InnerPump<R> extends Pump<R> {
+
+        private static final long serialVersionUID = -2591375364553590530L;
+
+        final SpscAtomicArrayQueue<R> queue;
+
+        InnerPump(IAsyncEnumerator<? extends R> source, AxFlatMapEnumerator<?, R> parent, int prefetch) {
+            super(source, parent, prefetch);
+            this.queue = new SpscAtomicArrayQueue<>(prefetch);
+        }
+
+        @Override
+        void onItem(R item) {
+            queue.offer(Objects.requireNonNull(item, "The inner IAsyncEnumerator produced a null value"));
+            credit.decrementAndGet();
+            parent.signal();
+        }
+
+        @Override
+        void onComplete() {
+            parent.outer.innerFinished();
+            parent.innerDone();
+        }
+
+        void consumed() {
+            if (credit.getAndIncrement() == 0) {
+                drain();
+            }
+        }
+    }
+}
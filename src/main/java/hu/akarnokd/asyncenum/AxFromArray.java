@@ -0,0 +1,62 @@
+/*
+ * Copyright 2016-2018 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.CompletionStage;
+
+import rx.subscriptions.CompositeSubscription;
+
+public final class AxFromArray<T> extends Ax<T> {
+
+    final T[] array;
+
+    public AxFromArray(T[] array) {
+        this.array = array;
+    }
+
+    @Override
+    public IAsyncEnumerator<T> enumerator() {
+        return new AxFromArrayEnumerator<>(array);
+    }
+
+    static final class AxFromArrayEnumerator<T> implements IAsyncEnumerator<T> {
+        final T[] array;
+
+        int index;
+
+        T current;
+
+        AxFromArrayEnumerator(T[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext(CompositeSubscription token) {
+            int i = index;
+            T[] a = array;
+            if (i == a.length) {
+                current = null;
+                return AxStages.FALSE;
+            }
+            current = a[i];
+            index = i + 1;
+            return AxStages.TRUE;
+        }
+
+        @Override
+        public T current() {
+            return current;
+        }
+    }
+}
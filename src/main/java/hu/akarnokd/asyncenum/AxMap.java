@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016-2018 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+import rx.subscriptions.CompositeSubscription;
+
+public final class AxMap<T, R> extends Ax<R> {
+
+    final IAsyncEnumerable<? extends T> source;
+
+    final Function<? super T, ? extends R> mapper;
+
+    public AxMap(IAsyncEnumerable<? extends T> source, Function<? super T, ? extends R> mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public IAsyncEnumerator<R> enumerator() {
+        return new AxMapEnumerator<>(source.enumerator(), mapper);
+    }
+
+    static final class AxMapEnumerator<T, R> implements IAsyncEnumerator<R> {
+        final IAsyncEnumerator<? extends T> source;
+
+        final Function<? super T, ? extends R> mapper;
+
+        R current;
+
+        AxMapEnumerator(IAsyncEnumerator<? extends T> source, Function<? super T, ? extends R> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext(CompositeSubscription token) {
+            CompletionStage<Boolean> stage = source.moveNext(token);
+            Boolean b = AxStages.now(stage);
+            if (b == null) {
+                return stage.thenApply(this::apply);
+            }
+            try {
+                return AxStages.of(apply(b));
+            } catch (Throwable ex) {
+                return AxStages.error(ex);
+            }
+        }
+
+        boolean apply(boolean hasValue) {
+            if (hasValue) {
+                current = mapper.apply(source.current());
+                return true;
+            }
+            current = null;
+            return false;
+        }
+
+        @Override
+        public R current() {
+            return current;
+        }
+    }
+}
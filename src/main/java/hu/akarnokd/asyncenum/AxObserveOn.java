@@ -10,14 +10,27 @@ public final class AxObserveOn<T> extends Ax<T> {
 
     final Executor executor;
 
+    final int prefetch;
+
     public AxObserveOn(IAsyncEnumerable<? extends T> source, Executor executor) {
+        this(source, executor, 1);
+    }
+
+    public AxObserveOn(IAsyncEnumerable<? extends T> source, Executor executor, int prefetch) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
         this.source = source;
         this.executor = executor;
+        this.prefetch = prefetch;
     }
 
     @Override
     public IAsyncEnumerator<T> enumerator() {
-        return new AxObserveOnEnumerator<>(source.enumerator(), executor);
+        if (prefetch == 1) {
+            return new AxObserveOnEnumerator<>(source.enumerator(), executor);
+        }
+        return new AxObserveOnBatchedEnumerator<>(source.enumerator(), executor, prefetch);
     }
 
     static final class AxObserveOnEnumerator<T> implements IAsyncEnumerator<T> {
@@ -40,4 +53,112 @@ public final class AxObserveOn<T> extends Ax<T> {
             return enumerator.moveNext(token).thenApplyAsync(v -> v, executor);
         }
     }
+
+    /**
+     * Collects up to prefetch values from the upstream on the executor per hop, then
+     * hands them out synchronously with the pre-completed stage.
+     * @param <T> the value type
+     */
+    static final class AxObserveOnBatchedEnumerator<T> implements IAsyncEnumerator<T> {
+        final IAsyncEnumerator<? extends T> enumerator;
+
+        final Executor executor;
+
+        final Object[] batch;
+
+        int index;
+
+        int count;
+
+        boolean upstreamDone;
+
+        CompletionStage<Boolean> pending;
+
+        T current;
+
+        AxObserveOnBatchedEnumerator(IAsyncEnumerator<? extends T> enumerator, Executor executor, int prefetch) {
+            this.enumerator = enumerator;
+            this.executor = executor;
+            this.batch = new Object[prefetch];
+        }
+
+        @Override
+        public T current() {
+            return current;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext(CompositeSubscription token) {
+            if (next()) {
+                return AxStages.TRUE;
+            }
+            if (upstreamDone) {
+                current = null;
+                return AxStages.FALSE;
+            }
+            CompletableFuture<Boolean> result = new CompletableFuture<>();
+            executor.execute(() -> fill(token, result));
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        boolean next() {
+            int i = index;
+            if (i != count) {
+                Object[] b = batch;
+                current = (T)b[i];
+                b[i] = null;
+                index = i + 1;
+                return true;
+            }
+            return false;
+        }
+
+        void fill(CompositeSubscription token, CompletableFuture<Boolean> result) {
+            Object[] b = batch;
+            int c = count;
+            if (index == c) {
+                index = 0;
+                count = 0;
+                c = 0;
+            }
+            try {
+                while (c != b.length) {
+                    CompletionStage<Boolean> stage = pending;
+                    pending = null;
+                    if (stage == null) {
+                        stage = enumerator.moveNext(token);
+                    }
+                    Boolean v = AxStages.now(stage);
+                    if (v == null) {
+                        if (c == 0) {
+                            CompletionStage<Boolean> s = stage;
+                            s.whenCompleteAsync((w, e) -> {
+                                if (e != null) {
+                                    result.completeExceptionally(e);
+                                } else {
+                                    pending = s;
+                                    fill(token, result);
+                                }
+                            }, executor);
+                            return;
+                        }
+                        pending = stage;
+                        break;
+                    }
+                    if (!v) {
+                        upstreamDone = true;
+                        break;
+                    }
+                    b[c++] = enumerator.current();
+                }
+            } catch (Throwable ex) {
+                count = c;
+                result.completeExceptionally(ex);
+                return;
+            }
+            count = c;
+            result.complete(next());
+        }
+    }
 }
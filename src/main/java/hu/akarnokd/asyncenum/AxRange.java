@@ -13,7 +13,7 @@
 
 package hu.akarnokd.asyncenum;
 
-import java.util.concurrent.*;
+import java.util.concurrent.CompletionStage;
 
 import rx.subscriptions.CompositeSubscription;
 
@@ -36,10 +36,6 @@ public final class AxRange extends Ax<Integer> {
         final long end;
         long index;
 
-        static final CompletionStage<Boolean> TRUE = CompletableFuture.completedFuture(true);
-
-        static final CompletionStage<Boolean> FALSE = CompletableFuture.completedFuture(false);
-
         AxRangeEnumerator(int start, int count) {
             this.index = start - 1;
             this.end = (long)start + count;
@@ -49,10 +45,10 @@ public final class AxRange extends Ax<Integer> {
         public CompletionStage<Boolean> moveNext(CompositeSubscription token) {
             long i = index + 1;
             if (i == end) {
-                return FALSE;
+                return AxStages.FALSE;
             }
             index = i;
-            return TRUE;
+            return AxStages.TRUE;
         }
 
         @Override
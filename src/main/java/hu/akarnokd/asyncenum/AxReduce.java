@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016-2018 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.*;
+
+import rx.subscriptions.CompositeSubscription;
+
+public final class AxReduce<T, R> extends Ax<R> {
+
+    final IAsyncEnumerable<? extends T> source;
+
+    final Supplier<R> seed;
+
+    final BiFunction<R, ? super T, R> reducer;
+
+    public AxReduce(IAsyncEnumerable<? extends T> source, Supplier<R> seed, BiFunction<R, ? super T, R> reducer) {
+        this.source = source;
+        this.seed = seed;
+        this.reducer = reducer;
+    }
+
+    @Override
+    public IAsyncEnumerator<R> enumerator() {
+        return new AxReduceEnumerator<>(source.enumerator(), seed, reducer);
+    }
+
+    static final class AxReduceEnumerator<T, R> implements IAsyncEnumerator<R> {
+        final IAsyncEnumerator<? extends T> source;
+
+        final Supplier<R> seed;
+
+        final BiFunction<R, ? super T, R> reducer;
+
+        R accumulator;
+
+        R current;
+
+        boolean done;
+
+        AxReduceEnumerator(IAsyncEnumerator<? extends T> source, Supplier<R> seed, BiFunction<R, ? super T, R> reducer) {
+            this.source = source;
+            this.seed = seed;
+            this.reducer = reducer;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext(CompositeSubscription token) {
+            if (done) {
+                current = null;
+                return AxStages.FALSE;
+            }
+            try {
+                accumulator = seed.get();
+            } catch (Throwable ex) {
+                return AxStages.error(ex);
+            }
+            return loop(token);
+        }
+
+        CompletionStage<Boolean> loop(CompositeSubscription token) {
+            try {
+                for (;;) {
+                    CompletionStage<Boolean> stage = source.moveNext(token);
+                    Boolean b = AxStages.now(stage);
+                    if (b == null) {
+                        return stage.thenCompose(v -> {
+                            if (v) {
+                                accumulator = reducer.apply(accumulator, source.current());
+                                return loop(token);
+                            }
+                            return finish();
+                        });
+                    }
+                    if (!b) {
+                        return finish();
+                    }
+                    accumulator = reducer.apply(accumulator, source.current());
+                }
+            } catch (Throwable ex) {
+                return AxStages.error(ex);
+            }
+        }
+
+        CompletionStage<Boolean> finish() {
+            done = true;
+            current = accumulator;
+            accumulator = null;
+            return AxStages.TRUE;
+        }
+
+        @Override
+        public R current() {
+            return current;
+        }
+    }
+}
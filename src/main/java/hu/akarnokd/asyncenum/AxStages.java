@@ -0,0 +1,66 @@
+/*
+ * Copyright 2016-2018 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.*;
+
+/**
+ * Shared pre-completed stages and helpers for the synchronous fast path of the operators.
+ * <p>
+ * The shared stages are minimal stages so callers can't complete or obtrude them;
+ * {@code toCompletableFuture()} on them returns a fresh copy.
+ */
+final class AxStages {
+
+    static final CompletionStage<Boolean> TRUE = CompletableFuture.completedStage(true);
+
+    static final CompletionStage<Boolean> FALSE = CompletableFuture.completedStage(false);
+
+    private AxStages() {
+        throw new IllegalStateException("No instances!");
+    }
+
+    static CompletionStage<Boolean> of(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    /**
+     * Returns the value of the stage if it has already completed normally.
+     * @param stage the stage to check
+     * @return the value or null if the stage is not yet done or has failed
+     */
+    static Boolean now(CompletionStage<Boolean> stage) {
+        if (stage == TRUE) {
+            return Boolean.TRUE;
+        }
+        if (stage == FALSE) {
+            return Boolean.FALSE;
+        }
+        if (stage instanceof CompletableFuture) {
+            // minimal stages, including those derived from TRUE/FALSE, throw from isDone()
+            // but hand out a completed copy via toCompletableFuture()
+            CompletableFuture<Boolean> f = stage.toCompletableFuture();
+            if (f.isDone() && !f.isCompletedExceptionally()) {
+                return f.join();
+            }
+        }
+        return null;
+    }
+
+    static <T> CompletionStage<T> error(Throwable ex) {
+        CompletableFuture<T> f = new CompletableFuture<>();
+        f.completeExceptionally(ex);
+        return f;
+    }
+}
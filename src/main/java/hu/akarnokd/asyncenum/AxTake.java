@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016-2018 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.CompletionStage;
+
+import rx.subscriptions.CompositeSubscription;
+
+public final class AxTake<T> extends Ax<T> {
+
+    final IAsyncEnumerable<? extends T> source;
+
+    final long n;
+
+    public AxTake(IAsyncEnumerable<? extends T> source, long n) {
+        this.source = source;
+        this.n = n;
+    }
+
+    @Override
+    public IAsyncEnumerator<T> enumerator() {
+        return new AxTakeEnumerator<>(source.enumerator(), n);
+    }
+
+    static final class AxTakeEnumerator<T> implements IAsyncEnumerator<T> {
+        final IAsyncEnumerator<? extends T> source;
+
+        long remaining;
+
+        boolean done;
+
+        AxTakeEnumerator(IAsyncEnumerator<? extends T> source, long n) {
+            this.source = source;
+            this.remaining = n;
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext(CompositeSubscription token) {
+            long r = remaining;
+            if (r <= 0L) {
+                done = true;
+                return AxStages.FALSE;
+            }
+            remaining = r - 1;
+            return source.moveNext(token);
+        }
+
+        @Override
+        public T current() {
+            return done ? null : source.current();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2016-2018 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.LockSupport;
+
+import rx.internal.util.atomic.SpscAtomicArrayQueue;
+import rx.subscriptions.*;
+
+/**
+ * Enumerates the source on a dedicated (virtual if available) thread that blocks on
+ * {@code moveNext()} and hands the values to the consumer through a bounded queue.
+ * <p>
+ * In subscribeOn mode the source enumerator is created on that thread as well. The thread parks when
+ * {@code prefetch} values are waiting; the consumer's continuations run on that thread
+ * whenever it had to wait. Unsubscribing the consumer's token cancels the source's own token
+ * and interrupts the thread if it is blocked on the source.
+ * @param <T> the value type
+ */
+public final class AxVirtualThread<T> extends Ax<T> {
+
+    final IAsyncEnumerable<? extends T> source;
+
+    final ThreadFactory threadFactory;
+
+    final int prefetch;
+
+    final boolean subscribeOn;
+
+    public AxVirtualThread(IAsyncEnumerable<? extends T> source, ThreadFactory threadFactory, int prefetch, boolean subscribeOn) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        this.source = source;
+        this.threadFactory = threadFactory;
+        this.prefetch = prefetch;
+        this.subscribeOn = subscribeOn;
+    }
+
+    @Override
+    public IAsyncEnumerator<T> enumerator() {
+        return new AxVirtualThreadEnumerator<>(source, subscribeOn ? null : source.enumerator(), threadFactory, prefetch);
+    }
+
+    static final class AxVirtualThreadEnumerator<T> implements IAsyncEnumerator<T>, Runnable {
+
+        final IAsyncEnumerable<? extends T> source;
+
+        final ThreadFactory threadFactory;
+
+        final SpscAtomicArrayQueue<T> queue;
+
+        final int prefetch;
+
+        final AtomicReference<CompletableFuture<Boolean>> waiter;
+
+        /**
+         * Set by the producer before it parks on a full queue and cleared with getAndSet
+         * by the consumer after it freed a slot; both sides fence so one of them always sees the other.
+         */
+        final AtomicBoolean producerWaiting;
+
+        /** The token handed to the source, unsubscribed when the consumer cancels. */
+        final CompositeSubscription upstreamToken;
+
+        IAsyncEnumerator<? extends T> enumerator;
+
+        CompositeSubscription token;
+
+        volatile Thread producer;
+
+        volatile boolean done;
+
+        volatile boolean cancelled;
+
+        Throwable error;
+
+        T current;
+
+        AxVirtualThreadEnumerator(IAsyncEnumerable<? extends T> source, IAsyncEnumerator<? extends T> enumerator,
+                ThreadFactory threadFactory, int prefetch) {
+            this.source = source;
+            this.enumerator = enumerator;
+            this.threadFactory = threadFactory;
+            this.prefetch = prefetch;
+            this.queue = new SpscAtomicArrayQueue<>(prefetch);
+            this.waiter = new AtomicReference<>();
+            this.producerWaiting = new AtomicBoolean();
+            this.upstreamToken = new CompositeSubscription();
+        }
+
+        @Override
+        public CompletionStage<Boolean> moveNext(CompositeSubscription token) {
+            if (producer == null) {
+                this.token = token;
+                if (token != null) {
+                    token.add(Subscriptions.create(this::cancel));
+                }
+                Thread t = threadFactory.newThread(this);
+                producer = t;
+                t.start();
+            }
+
+            for (;;) {
+                boolean d = done;
+                T v = queue.poll();
+                if (v != null) {
+                    current = v;
+                    if (producerWaiting.getAndSet(false)) {
+                        LockSupport.unpark(producer);
+                    }
+                    return AxStages.TRUE;
+                }
+                if (d) {
+                    current = null;
+                    Throwable ex = error;
+                    if (ex != null) {
+                        return AxStages.error(ex);
+                    }
+                    return AxStages.FALSE;
+                }
+
+                CompletableFuture<Boolean> w = new CompletableFuture<>();
+                waiter.set(w);
+                if (done || !queue.isEmpty()) {
+                    waiter.compareAndSet(w, null);
+                    continue;
+                }
+                return w.thenCompose(x -> moveNext(token));
+            }
+        }
+
+        @Override
+        public T current() {
+            return current;
+        }
+
+        void cancel() {
+            cancelled = true;
+            upstreamToken.unsubscribe();
+            Thread t = producer;
+            if (t != null && !done) {
+                t.interrupt();
+            }
+        }
+
+        void signal() {
+            CompletableFuture<Boolean> w = waiter.getAndSet(null);
+            if (w != null) {
+                w.complete(true);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                IAsyncEnumerator<? extends T> en = enumerator;
+                if (en == null) {
+                    en = source.enumerator();
+                }
+                SpscAtomicArrayQueue<T> q = queue;
+                AtomicBoolean waiting = producerWaiting;
+
+                try (AxBlockingIterator<? extends T> it = new AxBlockingIterator<>(en, upstreamToken)) {
+                    while (!cancelled && it.hasNext()) {
+                        T v = it.next();
+                        while (!q.offer(v)) {
+                            waiting.set(true);
+                            if (q.offer(v)) {
+                                waiting.lazySet(false);
+                                break;
+                            }
+                            if (cancelled) {
+                                return;
+                            }
+                            LockSupport.park(this);
+                        }
+                        signal();
+                    }
+                }
+            } catch (Throwable ex) {
+                if (cancelled) {
+                    return;
+                }
+                error = ex;
+            }
+            done = true;
+            signal();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016-2018 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Provides virtual threads on Java 21+ and falls back to daemon platform threads on older runtimes.
+ * <p>
+ * The project targets Java 17, hence the virtual thread builder is looked up reflectively.
+ */
+public final class AxVirtualThreads {
+
+    static final ThreadFactory FACTORY;
+
+    static final boolean VIRTUAL;
+
+    static {
+        ThreadFactory f;
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "AxVirtualThread-", 1L);
+            Method factory = builderClass.getMethod("factory");
+            f = (ThreadFactory)factory.invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            f = null;
+        }
+        VIRTUAL = f != null;
+        if (f == null) {
+            AtomicLong index = new AtomicLong();
+            f = r -> {
+                Thread t = new Thread(r, "AxPlatformThread-" + index.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            };
+        }
+        FACTORY = f;
+    }
+
+    private AxVirtualThreads() {
+        throw new IllegalStateException("No instances!");
+    }
+
+    /**
+     * Returns true if the runtime supports virtual threads.
+     * @return true if the factory creates virtual threads
+     */
+    public static boolean isVirtual() {
+        return VIRTUAL;
+    }
+
+    public static ThreadFactory factory() {
+        return FACTORY;
+    }
+
+    /**
+     * Returns an executor that starts a new thread from {@link #factory()} for each task.
+     * @return the thread-per-task executor
+     */
+    public static Executor executor() {
+        return r -> FACTORY.newThread(r).start();
+    }
+}
@@ -0,0 +1,11 @@
+package hu.akarnokd.enumerables;
+
+abstract class BasicDoubleEnumerator implements DoubleEnumerator {
+
+    protected double value;
+
+    @Override
+    public final double current() {
+        return value;
+    }
+}
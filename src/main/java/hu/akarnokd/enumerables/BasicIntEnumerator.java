@@ -0,0 +1,11 @@
+package hu.akarnokd.enumerables;
+
+abstract class BasicIntEnumerator implements IntEnumerator {
+
+    protected int value;
+
+    @Override
+    public final int current() {
+        return value;
+    }
+}
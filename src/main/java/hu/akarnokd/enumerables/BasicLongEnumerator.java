@@ -0,0 +1,11 @@
+package hu.akarnokd.enumerables;
+
+abstract class BasicLongEnumerator implements LongEnumerator {
+
+    protected long value;
+
+    @Override
+    public final long current() {
+        return value;
+    }
+}
@@ -0,0 +1,69 @@
+package hu.akarnokd.enumerables;
+
+import java.util.NoSuchElementException;
+import java.util.function.*;
+
+/**
+ * Primitive double specialization of {@link IEnumerable} that doesn't box the elements.
+ */
+public interface DoubleEnumerable {
+
+    DoubleEnumerator enumerator();
+
+    static DoubleEnumerable of(double... values) {
+        return new IEDoubleFromArray(values);
+    }
+
+    default DoubleEnumerable map(DoubleUnaryOperator mapper) {
+        return new IEDoubleMap(this, mapper);
+    }
+
+    default DoubleEnumerable filter(DoublePredicate predicate) {
+        return new IEDoubleFilter(this, predicate);
+    }
+
+    default <R> IEnumerable<R> mapToObj(DoubleFunction<? extends R> mapper) {
+        return new IEDoubleMapToObj<>(this, mapper);
+    }
+
+    default IEnumerable<Double> boxed() {
+        return mapToObj(Double::valueOf);
+    }
+
+    default void forEach(DoubleConsumer consumer) {
+        DoubleEnumerator en = enumerator();
+        while (en.moveNext()) {
+            consumer.accept(en.current());
+        }
+    }
+
+    default double sum() {
+        DoubleEnumerator en = enumerator();
+        double c = 0;
+        while (en.moveNext()) {
+            c += en.current();
+        }
+        return c;
+    }
+
+    default double max() {
+        DoubleEnumerator en = enumerator();
+        if (!en.moveNext()) {
+            throw new NoSuchElementException();
+        }
+        double c = en.current();
+        while (en.moveNext()) {
+            c = Math.max(c, en.current());
+        }
+        return c;
+    }
+
+    default long count() {
+        DoubleEnumerator en = enumerator();
+        long c = 0L;
+        while (en.moveNext()) {
+            c++;
+        }
+        return c;
+    }
+}
@@ -0,0 +1,8 @@
+package hu.akarnokd.enumerables;
+
+public interface DoubleEnumerator {
+
+    boolean moveNext();
+
+    double current();
+}
@@ -0,0 +1,47 @@
+package hu.akarnokd.enumerables;
+
+import java.util.function.DoublePredicate;
+
+final class IEDoubleFilter implements DoubleEnumerable {
+
+    final DoubleEnumerable source;
+
+    final DoublePredicate predicate;
+
+    IEDoubleFilter(DoubleEnumerable source, DoublePredicate predicate) {
+        this.source = source;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public DoubleEnumerator enumerator() {
+        return new FilterEnumerator(source.enumerator(), predicate);
+    }
+
+    static final class FilterEnumerator extends BasicDoubleEnumerator {
+
+        final DoubleEnumerator source;
+
+        final DoublePredicate predicate;
+
+        FilterEnumerator(DoubleEnumerator source, DoublePredicate predicate) {
+            this.source = source;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean moveNext() {
+            DoubleEnumerator src = source;
+            DoublePredicate pr = predicate;
+
+            while (src.moveNext()) {
+                double v = src.current();
+                if (pr.test(v)) {
+                    value = v;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package hu.akarnokd.enumerables;
+
+final class IEDoubleFromArray implements DoubleEnumerable {
+
+    final double[] array;
+
+    IEDoubleFromArray(double[] array) {
+        this.array = array;
+    }
+
+    @Override
+    public DoubleEnumerator enumerator() {
+        return new FromArrayEnumerator(array);
+    }
+
+    static final class FromArrayEnumerator extends BasicDoubleEnumerator {
+
+        final double[] array;
+
+        int index;
+
+        FromArrayEnumerator(double[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public boolean moveNext() {
+            int i = index;
+            double[] a = array;
+            if (i != a.length) {
+                value = a[i];
+                index = i + 1;
+                return true;
+            }
+            return false;
+        }
+    }
+}
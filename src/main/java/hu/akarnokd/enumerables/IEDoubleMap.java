@@ -0,0 +1,41 @@
+package hu.akarnokd.enumerables;
+
+import java.util.function.DoubleUnaryOperator;
+
+final class IEDoubleMap implements DoubleEnumerable {
+
+    final DoubleEnumerable source;
+
+    final DoubleUnaryOperator mapper;
+
+    IEDoubleMap(DoubleEnumerable source, DoubleUnaryOperator mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public DoubleEnumerator enumerator() {
+        return new MapEnumerator(source.enumerator(), mapper);
+    }
+
+    static final class MapEnumerator extends BasicDoubleEnumerator {
+
+        final DoubleEnumerator source;
+
+        final DoubleUnaryOperator mapper;
+
+        MapEnumerator(DoubleEnumerator source, DoubleUnaryOperator mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean moveNext() {
+            if (source.moveNext()) {
+                value = mapper.applyAsDouble(source.current());
+                return true;
+            }
+            return false;
+        }
+    }
+}
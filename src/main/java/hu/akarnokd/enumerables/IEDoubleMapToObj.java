@@ -0,0 +1,42 @@
+package hu.akarnokd.enumerables;
+
+import java.util.function.DoubleFunction;
+
+final class IEDoubleMapToObj<R> implements IEnumerable<R> {
+
+    final DoubleEnumerable source;
+
+    final DoubleFunction<? extends R> mapper;
+
+    IEDoubleMapToObj(DoubleEnumerable source, DoubleFunction<? extends R> mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public IEnumerator<R> enumerator() {
+        return new MapToObjEnumerator<>(source.enumerator(), mapper);
+    }
+
+    static final class MapToObjEnumerator<R> extends BasicEnumerator<R> {
+
+        final DoubleEnumerator source;
+
+        final DoubleFunction<? extends R> mapper;
+
+        MapToObjEnumerator(DoubleEnumerator source, DoubleFunction<? extends R> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean moveNext() {
+            if (source.moveNext()) {
+                value = mapper.apply(source.current());
+                return true;
+            }
+            value = null;
+            return false;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package hu.akarnokd.enumerables;
 
-import java.util.function.Predicate;
+import java.util.List;
+import java.util.function.*;
 
 final class IEFilter<T> implements IEnumerable<T> {
 
@@ -15,7 +16,23 @@ final class IEFilter<T> implements IEnumerable<T> {
 
     @Override
     public IEnumerator<T> enumerator() {
-        return new FilterEnumerator<>(source.enumerator(), predicate);
+        IEnumerable<T> src = source;
+        if (src instanceof IEFromList) {
+            IEFromList<T> list = (IEFromList<T>)src;
+            return new ListFilterEnumerator<>(list.list, list.start, list.limit(), predicate);
+        }
+        return new FilterEnumerator<>(src.enumerator(), predicate);
+    }
+
+    @Override
+    public IEnumerable<T> filter(Predicate<? super T> predicate) {
+        Predicate<? super T> p1 = this.predicate;
+        return new IEFilter<T>(source, t -> p1.test(t) && predicate.test(t));
+    }
+
+    @Override
+    public <R> IEnumerable<R> map(Function<? super T, ? extends R> mapper) {
+        return new IEFilterMap<>(source, predicate, mapper);
     }
 
     static final class FilterEnumerator<T> extends BasicEnumerator<T> {
@@ -45,4 +62,41 @@ final class IEFilter<T> implements IEnumerable<T> {
             return false;
         }
     }
+
+    static final class ListFilterEnumerator<T> extends BasicEnumerator<T> {
+
+        final List<T> list;
+
+        final int end;
+
+        final Predicate<? super T> predicate;
+
+        int index;
+
+        ListFilterEnumerator(List<T> list, int start, int end, Predicate<? super T> predicate) {
+            this.list = list;
+            this.index = start;
+            this.end = end;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean moveNext() {
+            List<T> lst = list;
+            Predicate<? super T> pr = predicate;
+            int e = end;
+
+            for (int i = index; i < e; i++) {
+                T t = lst.get(i);
+                if (pr.test(t)) {
+                    value = t;
+                    index = i + 1;
+                    return true;
+                }
+            }
+            index = e;
+            value = null;
+            return false;
+        }
+    }
 }
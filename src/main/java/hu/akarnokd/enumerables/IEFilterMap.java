@@ -0,0 +1,111 @@
+package hu.akarnokd.enumerables;
+
+import java.util.List;
+import java.util.function.*;
+
+/**
+ * Fused {@code filter(predicate).map(mapper)} stage.
+ * @param <T> the source element type
+ * @param <R> the result element type
+ */
+final class IEFilterMap<T, R> implements IEnumerable<R> {
+
+    final IEnumerable<T> source;
+
+    final Predicate<? super T> predicate;
+
+    final Function<? super T, ? extends R> mapper;
+
+    IEFilterMap(IEnumerable<T> source, Predicate<? super T> predicate, Function<? super T, ? extends R> mapper) {
+        this.source = source;
+        this.predicate = predicate;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public IEnumerator<R> enumerator() {
+        IEnumerable<T> src = source;
+        if (src instanceof IEFromList) {
+            IEFromList<T> list = (IEFromList<T>)src;
+            return new ListFilterMapEnumerator<>(list.list, list.start, list.limit(), predicate, mapper);
+        }
+        return new FilterMapEnumerator<>(src.enumerator(), predicate, mapper);
+    }
+
+    @Override
+    public <U> IEnumerable<U> map(Function<? super R, ? extends U> mapper) {
+        Function<? super T, ? extends R> m1 = this.mapper;
+        return new IEFilterMap<T, U>(source, predicate, t -> mapper.apply(m1.apply(t)));
+    }
+
+    static final class FilterMapEnumerator<T, R> extends BasicEnumerator<R> {
+
+        final IEnumerator<T> source;
+
+        final Predicate<? super T> predicate;
+
+        final Function<? super T, ? extends R> mapper;
+
+        FilterMapEnumerator(IEnumerator<T> source, Predicate<? super T> predicate, Function<? super T, ? extends R> mapper) {
+            this.source = source;
+            this.predicate = predicate;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean moveNext() {
+            IEnumerator<T> src = source;
+            Predicate<? super T> pr = predicate;
+
+            while (src.moveNext()) {
+                T t = src.current();
+                if (pr.test(t)) {
+                    value = mapper.apply(t);
+                    return true;
+                }
+            }
+            value = null;
+            return false;
+        }
+    }
+
+    static final class ListFilterMapEnumerator<T, R> extends BasicEnumerator<R> {
+
+        final List<T> list;
+
+        final int end;
+
+        final Predicate<? super T> predicate;
+
+        final Function<? super T, ? extends R> mapper;
+
+        int index;
+
+        ListFilterMapEnumerator(List<T> list, int start, int end, Predicate<? super T> predicate, Function<? super T, ? extends R> mapper) {
+            this.list = list;
+            this.index = start;
+            this.end = end;
+            this.predicate = predicate;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean moveNext() {
+            List<T> lst = list;
+            Predicate<? super T> pr = predicate;
+            int e = end;
+
+            for (int i = index; i < e; i++) {
+                T t = lst.get(i);
+                if (pr.test(t)) {
+                    value = mapper.apply(t);
+                    index = i + 1;
+                    return true;
+                }
+            }
+            index = e;
+            value = null;
+            return false;
+        }
+    }
+}
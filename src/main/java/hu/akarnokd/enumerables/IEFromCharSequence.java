@@ -4,30 +4,59 @@ final class IEFromCharSequence implements IEnumerable<Integer> {
 
     final CharSequence cs;
 
+    final int start;
+
+    final int end;
+
     IEFromCharSequence(CharSequence cs) {
+        this(cs, 0, Integer.MAX_VALUE);
+    }
+
+    IEFromCharSequence(CharSequence cs, int start, int end) {
         this.cs = cs;
+        this.start = start;
+        this.end = end;
     }
 
     @Override
     public IEnumerator<Integer> enumerator() {
-        return new FromCharSequenceEnumerator(cs);
+        return new FromCharSequenceEnumerator(cs, start, Math.min(end, cs.length()));
+    }
+
+    @Override
+    public IEnumerable<Integer> take(int n) {
+        if (n < 0) {
+            return IEnumerable.super.take(n);
+        }
+        return new IEFromCharSequence(cs, start, n < end - start ? start + n : end);
+    }
+
+    @Override
+    public IEnumerable<Integer> skip(int n) {
+        if (n < 0) {
+            return IEnumerable.super.skip(n);
+        }
+        return new IEFromCharSequence(cs, n < end - start ? start + n : end, end);
     }
 
     static final class FromCharSequenceEnumerator extends BasicEnumerator<Integer> {
         final CharSequence cs;
 
+        final int end;
+
         int index;
 
-        FromCharSequenceEnumerator(CharSequence cs) {
+        FromCharSequenceEnumerator(CharSequence cs, int start, int end) {
             this.cs = cs;
+            this.index = start;
+            this.end = end;
         }
 
         @Override
         public boolean moveNext() {
             int i = index;
-            CharSequence localCs = cs;
-            if (i != localCs.length()) {
-                value = (int)localCs.charAt(i);
+            if (i < end) {
+                value = (int)cs.charAt(i);
                 index = i + 1;
                 return true;
             }
@@ -0,0 +1,79 @@
+package hu.akarnokd.enumerables;
+
+import java.util.List;
+
+/**
+ * Enumerates a random access {@link List} by index so that {@code take} and {@code skip}
+ * become index arithmetic and fused {@code map}/{@code filter} stages can loop over the list directly.
+ * @param <T> the element type
+ */
+final class IEFromList<T> implements IEnumerable<T> {
+
+    final List<T> list;
+
+    final int start;
+
+    final int end;
+
+    IEFromList(List<T> list, int start, int end) {
+        this.list = list;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Returns the exclusive end index, bounded by the current size of the list.
+     * @return the exclusive end index
+     */
+    int limit() {
+        return Math.min(end, list.size());
+    }
+
+    @Override
+    public IEnumerator<T> enumerator() {
+        return new FromListEnumerator<>(list, start, limit());
+    }
+
+    @Override
+    public IEnumerable<T> take(int n) {
+        if (n < 0) {
+            return IEnumerable.super.take(n);
+        }
+        return new IEFromList<>(list, start, n < end - start ? start + n : end);
+    }
+
+    @Override
+    public IEnumerable<T> skip(int n) {
+        if (n < 0) {
+            return IEnumerable.super.skip(n);
+        }
+        return new IEFromList<>(list, n < end - start ? start + n : end, end);
+    }
+
+    static final class FromListEnumerator<T> extends BasicEnumerator<T> {
+
+        final List<T> list;
+
+        final int end;
+
+        int index;
+
+        FromListEnumerator(List<T> list, int start, int end) {
+            this.list = list;
+            this.index = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean moveNext() {
+            int i = index;
+            if (i < end) {
+                value = list.get(i);
+                index = i + 1;
+                return true;
+            }
+            value = null;
+            return false;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package hu.akarnokd.enumerables;
+
+final class IEIntConcat implements IntEnumerable {
+
+    final IntEnumerable first;
+
+    final IntEnumerable second;
+
+    IEIntConcat(IntEnumerable first, IntEnumerable second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    @Override
+    public IntEnumerator enumerator() {
+        return new ConcatEnumerator(first.enumerator(), second);
+    }
+
+    static final class ConcatEnumerator extends BasicIntEnumerator {
+
+        IntEnumerator current;
+
+        IntEnumerable next;
+
+        ConcatEnumerator(IntEnumerator current, IntEnumerable next) {
+            this.current = current;
+            this.next = next;
+        }
+
+        @Override
+        public boolean moveNext() {
+            for (;;) {
+                IntEnumerator en = current;
+                if (en.moveNext()) {
+                    value = en.current();
+                    return true;
+                }
+                IntEnumerable n = next;
+                if (n == null) {
+                    return false;
+                }
+                next = null;
+                current = n.enumerator();
+            }
+        }
+    }
+}
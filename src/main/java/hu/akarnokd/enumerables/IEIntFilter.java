@@ -0,0 +1,47 @@
+package hu.akarnokd.enumerables;
+
+import java.util.function.IntPredicate;
+
+final class IEIntFilter implements IntEnumerable {
+
+    final IntEnumerable source;
+
+    final IntPredicate predicate;
+
+    IEIntFilter(IntEnumerable source, IntPredicate predicate) {
+        this.source = source;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public IntEnumerator enumerator() {
+        return new FilterEnumerator(source.enumerator(), predicate);
+    }
+
+    static final class FilterEnumerator extends BasicIntEnumerator {
+
+        final IntEnumerator source;
+
+        final IntPredicate predicate;
+
+        FilterEnumerator(IntEnumerator source, IntPredicate predicate) {
+            this.source = source;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean moveNext() {
+            IntEnumerator src = source;
+            IntPredicate pr = predicate;
+
+            while (src.moveNext()) {
+                int v = src.current();
+                if (pr.test(v)) {
+                    value = v;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
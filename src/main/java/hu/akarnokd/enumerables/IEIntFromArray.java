@@ -0,0 +1,38 @@
+package hu.akarnokd.enumerables;
+
+final class IEIntFromArray implements IntEnumerable {
+
+    final int[] array;
+
+    IEIntFromArray(int[] array) {
+        this.array = array;
+    }
+
+    @Override
+    public IntEnumerator enumerator() {
+        return new FromArrayEnumerator(array);
+    }
+
+    static final class FromArrayEnumerator extends BasicIntEnumerator {
+
+        final int[] array;
+
+        int index;
+
+        FromArrayEnumerator(int[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public boolean moveNext() {
+            int i = index;
+            int[] a = array;
+            if (i != a.length) {
+                value = a[i];
+                index = i + 1;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package hu.akarnokd.enumerables;
+
+final class IEIntFromCharSequence implements IntEnumerable {
+
+    final CharSequence cs;
+
+    final int start;
+
+    final int end;
+
+    IEIntFromCharSequence(CharSequence cs) {
+        this(cs, 0, Integer.MAX_VALUE);
+    }
+
+    IEIntFromCharSequence(CharSequence cs, int start, int end) {
+        this.cs = cs;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public IntEnumerator enumerator() {
+        return new FromCharSequenceEnumerator(cs, start, Math.min(end, cs.length()));
+    }
+
+    @Override
+    public IntEnumerable take(int n) {
+        if (n < 0) {
+            return IntEnumerable.super.take(n);
+        }
+        return new IEIntFromCharSequence(cs, start, n < end - start ? start + n : end);
+    }
+
+    @Override
+    public IntEnumerable skip(int n) {
+        if (n < 0) {
+            return IntEnumerable.super.skip(n);
+        }
+        return new IEIntFromCharSequence(cs, n < end - start ? start + n : end, end);
+    }
+
+    static final class FromCharSequenceEnumerator extends BasicIntEnumerator {
+        final CharSequence cs;
+
+        final int end;
+
+        int index;
+
+        FromCharSequenceEnumerator(CharSequence cs, int start, int end) {
+            this.cs = cs;
+            this.index = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean moveNext() {
+            int i = index;
+            if (i < end) {
+                value = cs.charAt(i);
+                index = i + 1;
+                return true;
+            }
+            return false;
+        }
+    }
+}
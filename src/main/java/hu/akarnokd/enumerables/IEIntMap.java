@@ -0,0 +1,41 @@
+package hu.akarnokd.enumerables;
+
+import java.util.function.IntUnaryOperator;
+
+final class IEIntMap implements IntEnumerable {
+
+    final IntEnumerable source;
+
+    final IntUnaryOperator mapper;
+
+    IEIntMap(IntEnumerable source, IntUnaryOperator mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public IntEnumerator enumerator() {
+        return new MapEnumerator(source.enumerator(), mapper);
+    }
+
+    static final class MapEnumerator extends BasicIntEnumerator {
+
+        final IntEnumerator source;
+
+        final IntUnaryOperator mapper;
+
+        MapEnumerator(IntEnumerator source, IntUnaryOperator mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean moveNext() {
+            if (source.moveNext()) {
+                value = mapper.applyAsInt(source.current());
+                return true;
+            }
+            return false;
+        }
+    }
+}
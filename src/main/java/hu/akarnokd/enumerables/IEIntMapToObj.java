@@ -0,0 +1,42 @@
+package hu.akarnokd.enumerables;
+
+import java.util.function.IntFunction;
+
+final class IEIntMapToObj<R> implements IEnumerable<R> {
+
+    final IntEnumerable source;
+
+    final IntFunction<? extends R> mapper;
+
+    IEIntMapToObj(IntEnumerable source, IntFunction<? extends R> mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public IEnumerator<R> enumerator() {
+        return new MapToObjEnumerator<>(source.enumerator(), mapper);
+    }
+
+    static final class MapToObjEnumerator<R> extends BasicEnumerator<R> {
+
+        final IntEnumerator source;
+
+        final IntFunction<? extends R> mapper;
+
+        MapToObjEnumerator(IntEnumerator source, IntFunction<? extends R> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean moveNext() {
+            if (source.moveNext()) {
+                value = mapper.apply(source.current());
+                return true;
+            }
+            value = null;
+            return false;
+        }
+    }
+}
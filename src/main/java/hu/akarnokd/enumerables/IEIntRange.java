@@ -0,0 +1,41 @@
+package hu.akarnokd.enumerables;
+
+final class IEIntRange implements IntEnumerable {
+
+    final int start;
+
+    final int end;
+
+    IEIntRange(int start, int end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public IntEnumerator enumerator() {
+        return new RangeEnumerator(start, end);
+    }
+
+    static final class RangeEnumerator extends BasicIntEnumerator {
+
+        final int end;
+
+        int index;
+
+        RangeEnumerator(int start, int end) {
+            this.index = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean moveNext() {
+            int i = index;
+            if (i != end) {
+                value = i;
+                index = i + 1;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package hu.akarnokd.enumerables;
+
+final class IEIntSkip implements IntEnumerable {
+
+    final IntEnumerable source;
+
+    final int n;
+
+    IEIntSkip(IntEnumerable source, int n) {
+        this.source = source;
+        this.n = n;
+    }
+
+    @Override
+    public IntEnumerator enumerator() {
+        return new SkipEnumerator(source.enumerator(), n);
+    }
+
+    static final class SkipEnumerator implements IntEnumerator {
+
+        final IntEnumerator source;
+
+        int n;
+
+        SkipEnumerator(IntEnumerator source, int n) {
+            this.source = source;
+            this.n = n;
+        }
+
+        @Override
+        public boolean moveNext() {
+            int i = n;
+            if (i != 0) {
+                while (i != 0) {
+                    if (!source.moveNext()) {
+                        n = 0;
+                        return false;
+                    }
+                    i--;
+                }
+                n = 0;
+            }
+            return source.moveNext();
+        }
+
+        @Override
+        public int current() {
+            return source.current();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package hu.akarnokd.enumerables;
+
+final class IEIntTake implements IntEnumerable {
+
+    final IntEnumerable source;
+
+    final int n;
+
+    IEIntTake(IntEnumerable source, int n) {
+        this.source = source;
+        this.n = n;
+    }
+
+    @Override
+    public IntEnumerator enumerator() {
+        return new TakeEnumerator(source.enumerator(), n);
+    }
+
+    static final class TakeEnumerator implements IntEnumerator {
+
+        final IntEnumerator source;
+
+        int n;
+
+        TakeEnumerator(IntEnumerator source, int n) {
+            this.source = source;
+            this.n = n;
+        }
+
+        @Override
+        public boolean moveNext() {
+            int i = n;
+            if (i != 0) {
+                if (source.moveNext()) {
+                    n = i - 1;
+                    return true;
+                }
+                n = 0;
+            }
+            return false;
+        }
+
+        @Override
+        public int current() {
+            return source.current();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package hu.akarnokd.enumerables;
+
+import java.util.function.LongPredicate;
+
+final class IELongFilter implements LongEnumerable {
+
+    final LongEnumerable source;
+
+    final LongPredicate predicate;
+
+    IELongFilter(LongEnumerable source, LongPredicate predicate) {
+        this.source = source;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public LongEnumerator enumerator() {
+        return new FilterEnumerator(source.enumerator(), predicate);
+    }
+
+    static final class FilterEnumerator extends BasicLongEnumerator {
+
+        final LongEnumerator source;
+
+        final LongPredicate predicate;
+
+        FilterEnumerator(LongEnumerator source, LongPredicate predicate) {
+            this.source = source;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean moveNext() {
+            LongEnumerator src = source;
+            LongPredicate pr = predicate;
+
+            while (src.moveNext()) {
+                long v = src.current();
+                if (pr.test(v)) {
+                    value = v;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
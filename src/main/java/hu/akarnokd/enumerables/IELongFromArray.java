@@ -0,0 +1,38 @@
+package hu.akarnokd.enumerables;
+
+final class IELongFromArray implements LongEnumerable {
+
+    final long[] array;
+
+    IELongFromArray(long[] array) {
+        this.array = array;
+    }
+
+    @Override
+    public LongEnumerator enumerator() {
+        return new FromArrayEnumerator(array);
+    }
+
+    static final class FromArrayEnumerator extends BasicLongEnumerator {
+
+        final long[] array;
+
+        int index;
+
+        FromArrayEnumerator(long[] array) {
+            this.array = array;
+        }
+
+        @Override
+        public boolean moveNext() {
+            int i = index;
+            long[] a = array;
+            if (i != a.length) {
+                value = a[i];
+                index = i + 1;
+                return true;
+            }
+            return false;
+        }
+    }
+}
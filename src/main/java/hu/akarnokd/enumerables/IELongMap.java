@@ -0,0 +1,41 @@
+package hu.akarnokd.enumerables;
+
+import java.util.function.LongUnaryOperator;
+
+final class IELongMap implements LongEnumerable {
+
+    final LongEnumerable source;
+
+    final LongUnaryOperator mapper;
+
+    IELongMap(LongEnumerable source, LongUnaryOperator mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public LongEnumerator enumerator() {
+        return new MapEnumerator(source.enumerator(), mapper);
+    }
+
+    static final class MapEnumerator extends BasicLongEnumerator {
+
+        final LongEnumerator source;
+
+        final LongUnaryOperator mapper;
+
+        MapEnumerator(LongEnumerator source, LongUnaryOperator mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean moveNext() {
+            if (source.moveNext()) {
+                value = mapper.applyAsLong(source.current());
+                return true;
+            }
+            return false;
+        }
+    }
+}
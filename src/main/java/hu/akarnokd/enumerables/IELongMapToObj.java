@@ -0,0 +1,42 @@
+package hu.akarnokd.enumerables;
+
+import java.util.function.LongFunction;
+
+final class IELongMapToObj<R> implements IEnumerable<R> {
+
+    final LongEnumerable source;
+
+    final LongFunction<? extends R> mapper;
+
+    IELongMapToObj(LongEnumerable source, LongFunction<? extends R> mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public IEnumerator<R> enumerator() {
+        return new MapToObjEnumerator<>(source.enumerator(), mapper);
+    }
+
+    static final class MapToObjEnumerator<R> extends BasicEnumerator<R> {
+
+        final LongEnumerator source;
+
+        final LongFunction<? extends R> mapper;
+
+        MapToObjEnumerator(LongEnumerator source, LongFunction<? extends R> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean moveNext() {
+            if (source.moveNext()) {
+                value = mapper.apply(source.current());
+                return true;
+            }
+            value = null;
+            return false;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package hu.akarnokd.enumerables;
 
-import java.util.function.Function;
+import java.util.List;
+import java.util.function.*;
 
 final class IEMap<T, R> implements IEnumerable<R> {
 
@@ -15,7 +16,29 @@ final class IEMap<T, R> implements IEnumerable<R> {
 
     @Override
     public IEnumerator<R> enumerator() {
-        return new MapEnumerator<>(source.enumerator(), mapper);
+        IEnumerable<T> src = source;
+        if (src instanceof IEFromList) {
+            IEFromList<T> list = (IEFromList<T>)src;
+            return new ListMapEnumerator<>(list.list, list.start, list.limit(), mapper);
+        }
+        return new MapEnumerator<>(src.enumerator(), mapper);
+    }
+
+    @Override
+    public <U> IEnumerable<U> map(Function<? super R, ? extends U> mapper) {
+        Function<? super T, ? extends R> m1 = this.mapper;
+        return new IEMap<T, U>(source, t -> mapper.apply(m1.apply(t)));
+    }
+
+    @Override
+    public IEnumerable<R> filter(Predicate<? super R> predicate) {
+        return new IEMapFilter<>(source, mapper, predicate);
+    }
+
+    @Override
+    public IEnumerable<R> take(int n) {
+        // the mapper is not invoked on elements past the limit either way
+        return new IEMap<>(source.take(n), mapper);
     }
 
     static final class MapEnumerator<T, R> extends BasicEnumerator<R> {
@@ -39,4 +62,34 @@ final class IEMap<T, R> implements IEnumerable<R> {
             return false;
         }
     }
+
+    static final class ListMapEnumerator<T, R> extends BasicEnumerator<R> {
+
+        final List<T> list;
+
+        final int end;
+
+        final Function<? super T, ? extends R> mapper;
+
+        int index;
+
+        ListMapEnumerator(List<T> list, int start, int end, Function<? super T, ? extends R> mapper) {
+            this.list = list;
+            this.index = start;
+            this.end = end;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean moveNext() {
+            int i = index;
+            if (i < end) {
+                value = mapper.apply(list.get(i));
+                index = i + 1;
+                return true;
+            }
+            value = null;
+            return false;
+        }
+    }
 }
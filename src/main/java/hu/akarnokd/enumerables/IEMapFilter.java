@@ -0,0 +1,113 @@
+package hu.akarnokd.enumerables;
+
+import java.util.List;
+import java.util.function.*;
+
+/**
+ * Fused {@code map(mapper).filter(predicate)} stage.
+ * @param <T> the source element type
+ * @param <R> the result element type
+ */
+final class IEMapFilter<T, R> implements IEnumerable<R> {
+
+    final IEnumerable<T> source;
+
+    final Function<? super T, ? extends R> mapper;
+
+    final Predicate<? super R> predicate;
+
+    IEMapFilter(IEnumerable<T> source, Function<? super T, ? extends R> mapper, Predicate<? super R> predicate) {
+        this.source = source;
+        this.mapper = mapper;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public IEnumerator<R> enumerator() {
+        IEnumerable<T> src = source;
+        if (src instanceof IEFromList) {
+            IEFromList<T> list = (IEFromList<T>)src;
+            return new ListMapFilterEnumerator<>(list.list, list.start, list.limit(), mapper, predicate);
+        }
+        return new MapFilterEnumerator<>(src.enumerator(), mapper, predicate);
+    }
+
+    @Override
+    public IEnumerable<R> filter(Predicate<? super R> predicate) {
+        Predicate<? super R> p1 = this.predicate;
+        return new IEMapFilter<T, R>(source, mapper, r -> p1.test(r) && predicate.test(r));
+    }
+
+    static final class MapFilterEnumerator<T, R> extends BasicEnumerator<R> {
+
+        final IEnumerator<T> source;
+
+        final Function<? super T, ? extends R> mapper;
+
+        final Predicate<? super R> predicate;
+
+        MapFilterEnumerator(IEnumerator<T> source, Function<? super T, ? extends R> mapper, Predicate<? super R> predicate) {
+            this.source = source;
+            this.mapper = mapper;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean moveNext() {
+            IEnumerator<T> src = source;
+            Function<? super T, ? extends R> m = mapper;
+            Predicate<? super R> pr = predicate;
+
+            while (src.moveNext()) {
+                R r = m.apply(src.current());
+                if (pr.test(r)) {
+                    value = r;
+                    return true;
+                }
+            }
+            value = null;
+            return false;
+        }
+    }
+
+    static final class ListMapFilterEnumerator<T, R> extends BasicEnumerator<R> {
+
+        final List<T> list;
+
+        final int end;
+
+        final Function<? super T, ? extends R> mapper;
+
+        final Predicate<? super R> predicate;
+
+        int index;
+
+        ListMapFilterEnumerator(List<T> list, int start, int end, Function<? super T, ? extends R> mapper, Predicate<? super R> predicate) {
+            this.list = list;
+            this.index = start;
+            this.end = end;
+            this.mapper = mapper;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean moveNext() {
+            List<T> lst = list;
+            Function<? super T, ? extends R> m = mapper;
+            Predicate<? super R> pr = predicate;
+            int e = end;
+
+            for (int i = index; i < e; i++) {
+                R r = m.apply(lst.get(i));
+                if (pr.test(r)) {
+                    value = r;
+                    index = i + 1;
+                    return true;
+                }
+            }
+            index = e;
+            value = null;
+            return false;
+        }
+    }
+}
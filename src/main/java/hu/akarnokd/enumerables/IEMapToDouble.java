@@ -0,0 +1,41 @@
+package hu.akarnokd.enumerables;
+
+import java.util.function.ToDoubleFunction;
+
+final class IEMapToDouble<T> implements DoubleEnumerable {
+
+    final IEnumerable<T> source;
+
+    final ToDoubleFunction<? super T> mapper;
+
+    IEMapToDouble(IEnumerable<T> source, ToDoubleFunction<? super T> mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public DoubleEnumerator enumerator() {
+        return new MapToDoubleEnumerator<>(source.enumerator(), mapper);
+    }
+
+    static final class MapToDoubleEnumerator<T> extends BasicDoubleEnumerator {
+
+        final IEnumerator<T> source;
+
+        final ToDoubleFunction<? super T> mapper;
+
+        MapToDoubleEnumerator(IEnumerator<T> source, ToDoubleFunction<? super T> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean moveNext() {
+            if (source.moveNext()) {
+                value = mapper.applyAsDouble(source.current());
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package hu.akarnokd.enumerables;
+
+import java.util.function.ToIntFunction;
+
+final class IEMapToInt<T> implements IntEnumerable {
+
+    final IEnumerable<T> source;
+
+    final ToIntFunction<? super T> mapper;
+
+    IEMapToInt(IEnumerable<T> source, ToIntFunction<? super T> mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public IntEnumerator enumerator() {
+        return new MapToIntEnumerator<>(source.enumerator(), mapper);
+    }
+
+    static final class MapToIntEnumerator<T> extends BasicIntEnumerator {
+
+        final IEnumerator<T> source;
+
+        final ToIntFunction<? super T> mapper;
+
+        MapToIntEnumerator(IEnumerator<T> source, ToIntFunction<? super T> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean moveNext() {
+            if (source.moveNext()) {
+                value = mapper.applyAsInt(source.current());
+                return true;
+            }
+            return false;
+        }
+    }
+}
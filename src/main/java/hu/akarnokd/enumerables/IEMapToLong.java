@@ -0,0 +1,41 @@
+package hu.akarnokd.enumerables;
+
+import java.util.function.ToLongFunction;
+
+final class IEMapToLong<T> implements LongEnumerable {
+
+    final IEnumerable<T> source;
+
+    final ToLongFunction<? super T> mapper;
+
+    IEMapToLong(IEnumerable<T> source, ToLongFunction<? super T> mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public LongEnumerator enumerator() {
+        return new MapToLongEnumerator<>(source.enumerator(), mapper);
+    }
+
+    static final class MapToLongEnumerator<T> extends BasicLongEnumerator {
+
+        final IEnumerator<T> source;
+
+        final ToLongFunction<? super T> mapper;
+
+        MapToLongEnumerator(IEnumerator<T> source, ToLongFunction<? super T> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean moveNext() {
+            if (source.moveNext()) {
+                value = mapper.applyAsLong(source.current());
+                return true;
+            }
+            return false;
+        }
+    }
+}
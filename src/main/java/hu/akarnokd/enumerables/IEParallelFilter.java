@@ -0,0 +1,37 @@
+package hu.akarnokd.enumerables;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+
+final class IEParallelFilter<T> implements ParallelEnumerable<T> {
+
+    final ParallelEnumerable<T> source;
+
+    final Predicate<? super T> predicate;
+
+    IEParallelFilter(ParallelEnumerable<T> source, Predicate<? super T> predicate) {
+        this.source = source;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public int parallelism() {
+        return source.parallelism();
+    }
+
+    @Override
+    public ForkJoinPool pool() {
+        return source.pool();
+    }
+
+    @Override
+    public List<IEnumerable<T>> rails() {
+        List<IEnumerable<T>> rails = source.rails();
+        List<IEnumerable<T>> result = new ArrayList<>(rails.size());
+        for (IEnumerable<T> rail : rails) {
+            result.add(rail.filter(predicate));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,37 @@
+package hu.akarnokd.enumerables;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+final class IEParallelMap<T, R> implements ParallelEnumerable<R> {
+
+    final ParallelEnumerable<T> source;
+
+    final Function<? super T, ? extends R> mapper;
+
+    IEParallelMap(ParallelEnumerable<T> source, Function<? super T, ? extends R> mapper) {
+        this.source = source;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public int parallelism() {
+        return source.parallelism();
+    }
+
+    @Override
+    public ForkJoinPool pool() {
+        return source.pool();
+    }
+
+    @Override
+    public List<IEnumerable<R>> rails() {
+        List<IEnumerable<T>> rails = source.rails();
+        List<IEnumerable<R>> result = new ArrayList<>(rails.size());
+        for (IEnumerable<T> rail : rails) {
+            result.add(rail.map(mapper));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,107 @@
+package hu.akarnokd.enumerables;
+
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.*;
+
+/**
+ * Reduces each rail of a {@link ParallelEnumerable} on its pool and combines the
+ * partial results pairwise in rail order; {@code null} partial results count as empty.
+ * @param <T> the element type
+ * @param <C> the result type
+ */
+final class IEParallelReduce<T, C> implements IEnumerable<C> {
+
+    final ParallelEnumerable<T> source;
+
+    final Function<IEnumerable<T>, C> railReducer;
+
+    final BinaryOperator<C> combiner;
+
+    IEParallelReduce(ParallelEnumerable<T> source, Function<IEnumerable<T>, C> railReducer, BinaryOperator<C> combiner) {
+        this.source = source;
+        this.railReducer = railReducer;
+        this.combiner = combiner;
+    }
+
+    @Override
+    public IEnumerator<C> enumerator() {
+        return new ParallelReduceEnumerator<>(source, railReducer, combiner);
+    }
+
+    static final class ParallelReduceEnumerator<T, C> extends BasicEnumerator<C> {
+
+        final ParallelEnumerable<T> source;
+
+        final Function<IEnumerable<T>, C> railReducer;
+
+        final BinaryOperator<C> combiner;
+
+        boolean once;
+
+        ParallelReduceEnumerator(ParallelEnumerable<T> source, Function<IEnumerable<T>, C> railReducer, BinaryOperator<C> combiner) {
+            this.source = source;
+            this.railReducer = railReducer;
+            this.combiner = combiner;
+        }
+
+        @Override
+        public boolean moveNext() {
+            if (!once) {
+                once = true;
+                List<IEnumerable<T>> rails = source.rails();
+                C c = source.pool().invoke(new RailTask<>(rails, 0, rails.size(), railReducer, combiner));
+                if (c != null) {
+                    value = c;
+                    return true;
+                }
+            }
+            value = null;
+            return false;
+        }
+    }
+
+    static final class RailTask<T, C> extends RecursiveTask<C> {
+
+        private static final long serialVersionUID = -4587210765349452516L;
+
+        final List<IEnumerable<T>> rails;
+
+        final int start;
+
+        final int end;
+
+        final Function<IEnumerable<T>, C> railReducer;
+
+        final BinaryOperator<C> combiner;
+
+        RailTask(List<IEnumerable<T>> rails, int start, int end, Function<IEnumerable<T>, C> railReducer, BinaryOperator<C> combiner) {
+            this.rails = rails;
+            this.start = start;
+            this.end = end;
+            this.railReducer = railReducer;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected C compute() {
+            int s = start;
+            int e = end;
+            if (e - s <= 1) {
+                return s == e ? null : railReducer.apply(rails.get(s));
+            }
+            int m = (s + e) >>> 1;
+            RailTask<T, C> left = new RailTask<>(rails, s, m, railReducer, combiner);
+            left.fork();
+            C right = new RailTask<>(rails, m, e, railReducer, combiner).compute();
+            C c = left.join();
+            if (c == null) {
+                return right;
+            }
+            if (right == null) {
+                return c;
+            }
+            return combiner.apply(c, right);
+        }
+    }
+}
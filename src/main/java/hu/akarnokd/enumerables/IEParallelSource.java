@@ -0,0 +1,59 @@
+package hu.akarnokd.enumerables;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+final class IEParallelSource<T> implements ParallelEnumerable<T> {
+
+    final IEnumerable<T> source;
+
+    final int parallelism;
+
+    final ForkJoinPool pool;
+
+    IEParallelSource(IEnumerable<T> source, int parallelism, ForkJoinPool pool) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism > 0 required but it was " + parallelism);
+        }
+        this.source = source;
+        this.parallelism = parallelism;
+        this.pool = Objects.requireNonNull(pool, "pool is null");
+    }
+
+    @Override
+    public int parallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public ForkJoinPool pool() {
+        return pool;
+    }
+
+    @Override
+    public List<IEnumerable<T>> rails() {
+        IEFromList<T> list;
+        IEnumerable<T> src = source;
+        if (src instanceof IEFromList) {
+            list = (IEFromList<T>)src;
+        } else {
+            ArrayList<T> buffer = new ArrayList<>();
+            IEnumerator<T> en = src.enumerator();
+            while (en.moveNext()) {
+                buffer.add(en.current());
+            }
+            list = new IEFromList<>(buffer, 0, buffer.size());
+        }
+
+        int p = parallelism;
+        int start = list.start;
+        long n = Math.max(0, list.limit() - start);
+        List<IEnumerable<T>> rails = new ArrayList<>(p);
+        for (int i = 0; i < p; i++) {
+            int s = start + (int)(i * n / p);
+            int e = start + (int)((i + 1) * n / p);
+            rails.add(new IEFromList<>(list.list, s, e));
+        }
+        return rails;
+    }
+}
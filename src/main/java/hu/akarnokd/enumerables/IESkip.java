@@ -16,6 +16,14 @@ final class IESkip<T> implements IEnumerable<T> {
         return new SkipEnumerator<>(source.enumerator(), n);
     }
 
+    @Override
+    public IEnumerable<T> skip(int n) {
+        if (n < 0 || this.n < 0 || this.n + n < 0) {
+            return IEnumerable.super.skip(n);
+        }
+        return new IESkip<>(source, this.n + n);
+    }
+
     static final class SkipEnumerator<T> implements IEnumerator<T> {
 
         final IEnumerator<T> source;
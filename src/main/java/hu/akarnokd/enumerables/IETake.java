@@ -16,6 +16,14 @@ final class IETake<T> implements IEnumerable<T> {
         return new TakeEnumerator<>(source.enumerator(), n);
     }
 
+    @Override
+    public IEnumerable<T> take(int n) {
+        if (n < 0 || this.n < 0) {
+            return IEnumerable.super.take(n);
+        }
+        return new IETake<>(source, Math.min(this.n, n));
+    }
+
     static final class TakeEnumerator<T> implements IEnumerator<T> {
 
         final IEnumerator<T> source;
@@ -35,7 +43,7 @@ final class IETake<T> implements IEnumerable<T> {
                     n = i - 1;
                     return true;
                 }
-                i = 0;
+                n = 0;
             }
             return false;
         }
@@ -1,6 +1,7 @@
 package hu.akarnokd.enumerables;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.*;
 
 public interface IEnumerable<T> {
@@ -8,9 +9,17 @@ public interface IEnumerable<T> {
     IEnumerator<T> enumerator();
 
     static <T> IEnumerable<T> fromIterable(Iterable<T> source) {
+        if (source instanceof List && source instanceof RandomAccess) {
+            return new IEFromList<>((List<T>)source, 0, Integer.MAX_VALUE);
+        }
         return new IEFromIterable<>(source);
     }
 
+    @SafeVarargs
+    static <T> IEnumerable<T> fromArray(T... items) {
+        return new IEFromList<>(Arrays.asList(items), 0, items.length);
+    }
+
     static IEnumerable<Integer> characters(CharSequence cs) {
         return new IEFromCharSequence(cs);
     }
@@ -43,6 +52,31 @@ public interface IEnumerable<T> {
         return new IEFilter<>(this, predicate);
     }
 
+    default IntEnumerable mapToInt(ToIntFunction<? super T> mapper) {
+        return new IEMapToInt<>(this, mapper);
+    }
+
+    default LongEnumerable mapToLong(ToLongFunction<? super T> mapper) {
+        return new IEMapToLong<>(this, mapper);
+    }
+
+    default DoubleEnumerable mapToDouble(ToDoubleFunction<? super T> mapper) {
+        return new IEMapToDouble<>(this, mapper);
+    }
+
+    /**
+     * Splits this IEnumerable into the given number of rails running on the common {@link ForkJoinPool}.
+     * @param parallelism the number of rails
+     * @return the ParallelEnumerable
+     */
+    default ParallelEnumerable<T> parallel(int parallelism) {
+        return parallel(parallelism, ForkJoinPool.commonPool());
+    }
+
+    default ParallelEnumerable<T> parallel(int parallelism, ForkJoinPool pool) {
+        return new IEParallelSource<>(this, parallelism, pool);
+    }
+
     default IEnumerable<Long> sumLong() {
         return new IESumLong<>(this);
     }
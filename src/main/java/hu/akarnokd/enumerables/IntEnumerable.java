@@ -0,0 +1,89 @@
+package hu.akarnokd.enumerables;
+
+import java.util.NoSuchElementException;
+import java.util.function.*;
+
+/**
+ * Primitive int specialization of {@link IEnumerable} that doesn't box the elements.
+ */
+public interface IntEnumerable {
+
+    IntEnumerator enumerator();
+
+    static IntEnumerable range(int start, int count) {
+        return new IEIntRange(start, start + count);
+    }
+
+    static IntEnumerable characters(CharSequence cs) {
+        return new IEIntFromCharSequence(cs);
+    }
+
+    static IntEnumerable of(int... values) {
+        return new IEIntFromArray(values);
+    }
+
+    static IntEnumerable concat(IntEnumerable first, IntEnumerable second) {
+        return new IEIntConcat(first, second);
+    }
+
+    default IntEnumerable map(IntUnaryOperator mapper) {
+        return new IEIntMap(this, mapper);
+    }
+
+    default IntEnumerable filter(IntPredicate predicate) {
+        return new IEIntFilter(this, predicate);
+    }
+
+    default IntEnumerable take(int n) {
+        return new IEIntTake(this, n);
+    }
+
+    default IntEnumerable skip(int n) {
+        return new IEIntSkip(this, n);
+    }
+
+    default <R> IEnumerable<R> mapToObj(IntFunction<? extends R> mapper) {
+        return new IEIntMapToObj<>(this, mapper);
+    }
+
+    default IEnumerable<Integer> boxed() {
+        return mapToObj(Integer::valueOf);
+    }
+
+    default void forEach(IntConsumer consumer) {
+        IntEnumerator en = enumerator();
+        while (en.moveNext()) {
+            consumer.accept(en.current());
+        }
+    }
+
+    default int sum() {
+        IntEnumerator en = enumerator();
+        int c = 0;
+        while (en.moveNext()) {
+            c += en.current();
+        }
+        return c;
+    }
+
+    default int max() {
+        IntEnumerator en = enumerator();
+        if (!en.moveNext()) {
+            throw new NoSuchElementException();
+        }
+        int c = en.current();
+        while (en.moveNext()) {
+            c = Math.max(c, en.current());
+        }
+        return c;
+    }
+
+    default long count() {
+        IntEnumerator en = enumerator();
+        long c = 0L;
+        while (en.moveNext()) {
+            c++;
+        }
+        return c;
+    }
+}
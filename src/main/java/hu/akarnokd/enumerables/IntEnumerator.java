@@ -0,0 +1,8 @@
+package hu.akarnokd.enumerables;
+
+public interface IntEnumerator {
+
+    boolean moveNext();
+
+    int current();
+}
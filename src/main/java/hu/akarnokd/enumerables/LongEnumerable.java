@@ -0,0 +1,69 @@
+package hu.akarnokd.enumerables;
+
+import java.util.NoSuchElementException;
+import java.util.function.*;
+
+/**
+ * Primitive long specialization of {@link IEnumerable} that doesn't box the elements.
+ */
+public interface LongEnumerable {
+
+    LongEnumerator enumerator();
+
+    static LongEnumerable of(long... values) {
+        return new IELongFromArray(values);
+    }
+
+    default LongEnumerable map(LongUnaryOperator mapper) {
+        return new IELongMap(this, mapper);
+    }
+
+    default LongEnumerable filter(LongPredicate predicate) {
+        return new IELongFilter(this, predicate);
+    }
+
+    default <R> IEnumerable<R> mapToObj(LongFunction<? extends R> mapper) {
+        return new IELongMapToObj<>(this, mapper);
+    }
+
+    default IEnumerable<Long> boxed() {
+        return mapToObj(Long::valueOf);
+    }
+
+    default void forEach(LongConsumer consumer) {
+        LongEnumerator en = enumerator();
+        while (en.moveNext()) {
+            consumer.accept(en.current());
+        }
+    }
+
+    default long sum() {
+        LongEnumerator en = enumerator();
+        long c = 0;
+        while (en.moveNext()) {
+            c += en.current();
+        }
+        return c;
+    }
+
+    default long max() {
+        LongEnumerator en = enumerator();
+        if (!en.moveNext()) {
+            throw new NoSuchElementException();
+        }
+        long c = en.current();
+        while (en.moveNext()) {
+            c = Math.max(c, en.current());
+        }
+        return c;
+    }
+
+    default long count() {
+        LongEnumerator en = enumerator();
+        long c = 0L;
+        while (en.moveNext()) {
+            c++;
+        }
+        return c;
+    }
+}
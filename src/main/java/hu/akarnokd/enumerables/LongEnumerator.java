@@ -0,0 +1,8 @@
+package hu.akarnokd.enumerables;
+
+public interface LongEnumerator {
+
+    boolean moveNext();
+
+    long current();
+}
@@ -0,0 +1,74 @@
+package hu.akarnokd.enumerables;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.*;
+
+/**
+ * Splits a source into a fixed number of rails, each enumerated sequentially on a {@link ForkJoinPool},
+ * with the partial results combined in rail order.
+ * <p>
+ * Array- and {@code List}-backed sources are split into index ranges; other sources are
+ * buffered first. The per-rail {@code map} and {@code filter} stages fuse the same way as
+ * on a sequential {@link IEnumerable}.
+ * @param <T> the element type
+ */
+public interface ParallelEnumerable<T> {
+
+    int parallelism();
+
+    ForkJoinPool pool();
+
+    /**
+     * Splits the source and returns the sequential enumerable of each rail.
+     * @return the list of rails, one per {@link #parallelism()}
+     */
+    List<IEnumerable<T>> rails();
+
+    default <R> ParallelEnumerable<R> map(Function<? super T, ? extends R> mapper) {
+        return new IEParallelMap<>(this, mapper);
+    }
+
+    default ParallelEnumerable<T> filter(Predicate<? super T> predicate) {
+        return new IEParallelFilter<>(this, predicate);
+    }
+
+    /**
+     * Collects each rail into its own container and merges the containers in rail order.
+     * @param <C> the container type
+     * @param supplier the per-rail container supplier
+     * @param collector adds an item to a container
+     * @param combiner merges the second container into the first
+     * @return the single-element enumerable of the merged container
+     */
+    default <C> IEnumerable<C> collect(Supplier<C> supplier, BiConsumer<C, T> collector, BiConsumer<C, C> combiner) {
+        return new IEParallelReduce<T, C>(this,
+                rail -> rail.collect(supplier, collector).first(),
+                (a, b) -> {
+                    combiner.accept(a, b);
+                    return a;
+                });
+    }
+
+    default IEnumerable<Integer> sumInt() {
+        return new IEParallelReduce<T, Integer>(this, rail -> firstOrNull(rail.sumInt()), Integer::sum);
+    }
+
+    default IEnumerable<Integer> maxInt() {
+        return new IEParallelReduce<T, Integer>(this, rail -> firstOrNull(rail.maxInt()), Math::max);
+    }
+
+    /**
+     * Returns an IEnumerable that enumerates the rails one after the other on the current thread.
+     * @return the sequential IEnumerable
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    default IEnumerable<T> sequential() {
+        return () -> new IEConcatArray<T>(rails().toArray(new IEnumerable[0])).enumerator();
+    }
+
+    static <T> T firstOrNull(IEnumerable<T> source) {
+        IEnumerator<T> en = source.enumerator();
+        return en.moveNext() ? en.current() : null;
+    }
+}
@@ -16,7 +16,10 @@ public final class Ba2File {
     }
 
     public void read(RandomAccessFile raf, Predicate<String> readDataPredicate) throws IOException {
-        raf.seek(12);
+        raf.seek(8);
+        if (Integer.reverseBytes(raf.readInt()) == Ba2TextureFile.DX10) {
+            throw new IOException("Texture archive, use Ba2TextureFile");
+        }
         int numFiles = Integer.reverseBytes(raf.readInt());
         long nameTableOffset = Long.reverseBytes(raf.readLong());
 
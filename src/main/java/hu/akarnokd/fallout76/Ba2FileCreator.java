@@ -1,8 +1,8 @@
 package hu.akarnokd.fallout76;
 
 import java.io.*;
-
-import com.google.common.io.Files;
+import java.util.concurrent.*;
+import java.util.zip.Deflater;
 
 public class Ba2FileCreator {
     public static void main(String[] args) throws Exception {
@@ -14,33 +14,11 @@ public class Ba2FileCreator {
         String fileName = "corpse_meatbag01.nif";
         String includeName = dirName + "/" + fileName;
 
-        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f)))) {
-            out.writeBytes("BTDX");
-            out.writeInt(Integer.reverseBytes(1)); // version
-            out.writeBytes("GNRL");
-            out.writeInt(Integer.reverseBytes(1)); // number of files
-
-            long includeLen = includeFile.length();
-            out.writeLong(Long.reverseBytes(24 + 36 + includeLen));
-
-            out.writeInt(Integer.reverseBytes(hash(fileName))); // Namehash ???
-            out.writeBytes("nif");
-            out.writeByte(0); // Extension zero
-            out.writeInt(Integer.reverseBytes(hash(dirName))); // dir hash  ???
-            out.writeInt(Integer.reverseBytes(0x0010_0100)); // flags ???
-            out.writeLong(Long.reverseBytes(24 + 36)); // offset
-            out.writeInt(Integer.reverseBytes(0)); // size if compressed
-            out.writeInt(Integer.reverseBytes((int)includeLen)); // realsize
-            out.writeInt(Integer.reverseBytes(0xBAADF00D)); // align/magic
-
-            Files.copy(includeFile, out);
-
-            out.writeShort(Short.reverseBytes((short)includeName.length()));
-            out.writeBytes(includeName);
+        ExecutorService exec = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try (Ba2Writer out = new Ba2Writer(f.toPath(), 1, exec, Deflater.NO_COMPRESSION, 16)) {
+            out.add(includeName, includeFile.toPath());
+        } finally {
+            exec.shutdown();
         }
     }
-
-    static int hash(String str) {
-        return 0;
-    }
 }
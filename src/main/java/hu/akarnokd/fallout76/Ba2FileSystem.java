@@ -0,0 +1,251 @@
+package hu.akarnokd.fallout76;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Read-only virtual file system over several general BA2 archives.
+ * <p>
+ * The archives are mounted in priority order: an entry in a later archive overrides
+ * the entry with the same name in the earlier ones, like the game's load order. Names
+ * are matched ignoring case and the kind of path separator, through a precomputed
+ * open-addressing index so a lookup doesn't allocate.
+ * <p>
+ * The index is immutable after {@link #mount(long, List)}, reads are thread-safe.
+ * Stored entries are returned as views of the mapped archives; inflated entries are
+ * kept in an LRU cache bounded by the total number of decompressed bytes.
+ */
+public final class Ba2FileSystem {
+
+    final List<Ba2MappedFile> archives;
+
+    final String[] keys;
+
+    final int[] hashes;
+
+    final Ba2MappedEntry[] values;
+
+    final int mask;
+
+    final int size;
+
+    final long cacheBudget;
+
+    /** Guarded by itself. */
+    final LinkedHashMap<Ba2MappedEntry, ByteBuffer> cache;
+
+    /** Guarded by {@link #cache}. */
+    long cachedBytes;
+
+    Ba2FileSystem(List<Ba2MappedFile> archives, long cacheBudget) {
+        this.archives = archives;
+        this.cacheBudget = cacheBudget;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true);
+
+        int total = 0;
+        for (Ba2MappedFile f : archives) {
+            total += f.entries.size();
+        }
+        int cap = IntSet.capacity(total);
+        keys = new String[cap];
+        hashes = new int[cap];
+        values = new Ba2MappedEntry[cap];
+        mask = cap - 1;
+
+        int n = 0;
+        for (Ba2MappedFile f : archives) {
+            for (Ba2MappedEntry e : f.entries) {
+                String key = Ba2MappedFile.normalize(e.name);
+                int h = hash(key);
+                int i = h & mask;
+                for (;;) {
+                    if (keys[i] == null) {
+                        keys[i] = key;
+                        hashes[i] = h;
+                        values[i] = e;
+                        n++;
+                        break;
+                    }
+                    if (hashes[i] == h && keys[i].equals(key)) {
+                        values[i] = e;
+                        break;
+                    }
+                    i = (i + 1) & mask;
+                }
+            }
+        }
+        this.size = n;
+    }
+
+    /**
+     * Maps the given archives, in parallel, and indexes their entries.
+     * @param cacheBudget the maximum number of decompressed bytes to keep cached, 0 disables the cache
+     * @param archives the archive files, later ones override the entries of the earlier ones
+     * @return the file system
+     * @throws IOException if an archive couldn't be opened
+     */
+    public static Ba2FileSystem mount(long cacheBudget, List<Path> archives) throws IOException {
+        Ba2MappedFile[] files = new Ba2MappedFile[archives.size()];
+        IOException[] error = { null };
+        IntStream.range(0, files.length).parallel().forEach(i -> {
+            try {
+                files[i] = Ba2MappedFile.open(archives.get(i));
+            } catch (IOException ex) {
+                synchronized (error) {
+                    if (error[0] == null) {
+                        error[0] = ex;
+                    } else {
+                        error[0].addSuppressed(ex);
+                    }
+                }
+            }
+        });
+        if (error[0] != null) {
+            throw error[0];
+        }
+        return new Ba2FileSystem(Collections.unmodifiableList(Arrays.asList(files)), cacheBudget);
+    }
+
+    public static Ba2FileSystem mount(long cacheBudget, Path... archives) throws IOException {
+        return mount(cacheBudget, Arrays.asList(archives));
+    }
+
+    /** Hashes the normalized form of the name without creating it. */
+    static int hash(CharSequence name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            h = 31 * h + Ba2MappedFile.normalize(name.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    static boolean matches(String key, CharSequence name) {
+        int n = key.length();
+        if (n != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            if (key.charAt(i) != Ba2MappedFile.normalize(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** @return the number of distinct entry names over all archives */
+    public int size() {
+        return size;
+    }
+
+    public List<Ba2MappedFile> archives() {
+        return archives;
+    }
+
+    /**
+     * Returns the winning entry for the given name.
+     * @param name the entry name, matched ignoring case and the kind of path separator
+     * @return the entry of the last archive containing it, or null if not found
+     */
+    public Ba2MappedEntry entry(CharSequence name) {
+        int h = hash(name);
+        int m = mask;
+        int i = h & m;
+        for (;;) {
+            String k = keys[i];
+            if (k == null) {
+                return null;
+            }
+            if (hashes[i] == h && matches(k, name)) {
+                return values[i];
+            }
+            i = (i + 1) & m;
+        }
+    }
+
+    public boolean exists(CharSequence name) {
+        return entry(name) != null;
+    }
+
+    /**
+     * Returns the content of an entry: a view into the mapped archive if stored
+     * uncompressed, otherwise the inflated bytes, shared through the cache.
+     * @param name the entry name
+     * @return the read-only, little-endian buffer or null if not found
+     * @throws IOException if the compressed data is corrupt
+     */
+    public ByteBuffer read(CharSequence name) throws IOException {
+        Ba2MappedEntry e = entry(name);
+        return e != null ? read(e) : null;
+    }
+
+    /**
+     * Returns the content of an entry of one of the mounted archives.
+     * @param e the entry
+     * @return the read-only, little-endian buffer
+     * @throws IOException if the compressed data is corrupt
+     */
+    public ByteBuffer read(Ba2MappedEntry e) throws IOException {
+        if (!e.isCompressed()) {
+            return e.raw();
+        }
+        if (cacheBudget <= 0L || e.size > cacheBudget) {
+            return e.data().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+        }
+        LinkedHashMap<Ba2MappedEntry, ByteBuffer> c = cache;
+        synchronized (c) {
+            ByteBuffer b = c.get(e);
+            if (b != null) {
+                return b.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        // inflate outside the lock, concurrent misses of the same entry may inflate it twice
+        ByteBuffer b = e.data().asReadOnlyBuffer();
+        synchronized (c) {
+            if (c.put(e, b) == null) {
+                cachedBytes += e.size;
+                Iterator<Map.Entry<Ba2MappedEntry, ByteBuffer>> it = c.entrySet().iterator();
+                while (cachedBytes > cacheBudget && it.hasNext()) {
+                    Map.Entry<Ba2MappedEntry, ByteBuffer> eldest = it.next();
+                    if (eldest.getKey() != e) {
+                        cachedBytes -= eldest.getKey().size;
+                        it.remove();
+                    }
+                }
+            }
+        }
+        return b.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** @return the number of decompressed bytes currently cached */
+    public long cachedBytes() {
+        synchronized (cache) {
+            return cachedBytes;
+        }
+    }
+
+    /**
+     * Returns the winning entries whose normalized (lowercase, forward slash) name
+     * passes the filter, sorted by that name.
+     * @param normalizedNameFilter the filter
+     * @return the new list of entries
+     */
+    public List<Ba2MappedEntry> list(Predicate<String> normalizedNameFilter) {
+        String[] k = keys;
+        List<String> names = new ArrayList<>();
+        for (String key : k) {
+            if (key != null && normalizedNameFilter.test(key)) {
+                names.add(key);
+            }
+        }
+        Collections.sort(names);
+        List<Ba2MappedEntry> result = new ArrayList<>(names.size());
+        for (String key : names) {
+            result.add(entry(key));
+        }
+        return result;
+    }
+}
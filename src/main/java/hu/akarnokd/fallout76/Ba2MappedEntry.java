@@ -0,0 +1,101 @@
+package hu.akarnokd.fallout76;
+
+import java.io.IOException;
+import java.nio.*;
+import java.util.zip.*;
+
+/**
+ * A lazily accessed entry of a {@link Ba2MappedFile}.
+ */
+public final class Ba2MappedEntry {
+    public final String name;
+    public final long offset;
+    /** The compressed size, zero if the entry is stored uncompressed. */
+    public final int packedSize;
+    public final int size;
+
+    Ba2MappedFile file;
+
+    Ba2MappedEntry(String name, long offset, int packedSize, int size) {
+        this.name = name;
+        this.offset = offset;
+        this.packedSize = packedSize;
+        this.size = size;
+    }
+
+    public boolean isCompressed() {
+        return packedSize != 0;
+    }
+
+    int storedSize() {
+        return packedSize != 0 ? packedSize : size;
+    }
+
+    /**
+     * Returns a read-only, little-endian view of the entry as stored in the archive.
+     * @return the new view, compressed if {@link #isCompressed()}
+     */
+    public ByteBuffer raw() {
+        return file.slice(this);
+    }
+
+    /**
+     * Returns the entry's content: a view into the mapped file if stored uncompressed or
+     * a freshly inflated heap buffer otherwise.
+     * @return the little-endian buffer positioned at zero
+     * @throws IOException if the compressed data is corrupt
+     */
+    public ByteBuffer data() throws IOException {
+        ByteBuffer raw = raw();
+        if (packedSize == 0) {
+            return raw;
+        }
+        ByteBuffer out = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        inflate(raw, out, name);
+        out.flip();
+        return out;
+    }
+
+    /**
+     * Inflates a zlib stream until the output is full.
+     * @param raw the compressed data
+     * @param out the output with exactly the decompressed size remaining
+     * @param name the entry name for the error messages
+     * @throws IOException if the compressed data is truncated or corrupt
+     */
+    static void inflate(ByteBuffer raw, ByteBuffer out, String name) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(raw);
+            while (out.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(out) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated entry " + name);
+                }
+            }
+        } catch (DataFormatException ex) {
+            throw new IOException("Corrupt entry " + name, ex);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Copies the (decompressed) content of the entry onto the heap.
+     * @return the new byte array
+     * @throws IOException if the compressed data is corrupt
+     */
+    public byte[] bytes() throws IOException {
+        ByteBuffer b = data();
+        if (b.hasArray() && b.arrayOffset() == 0 && b.array().length == b.remaining()) {
+            return b.array();
+        }
+        byte[] result = new byte[b.remaining()];
+        b.get(result);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + size + (packedSize != 0 ? ", packed " + packedSize : "") + ")";
+    }
+}
@@ -0,0 +1,138 @@
+package hu.akarnokd.fallout76;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Memory-mapped, read-only view of a general (GNRL) BA2 archive.
+ * <p>
+ * The header, the entry table and the name table are mapped and parsed in one pass,
+ * the file data is mapped in large chunks and each entry is exposed as a slice of them.
+ * Nothing is copied onto the heap until an entry's bytes are actually requested; the
+ * OS pages in only the parts of the archive that are touched.
+ * <p>
+ * The mappings stay valid after the channel has been closed, therefore the instance
+ * doesn't have to be closed.
+ */
+public final class Ba2MappedFile {
+
+    static final int HEADER_SIZE = 24;
+
+    static final int ENTRY_SIZE = 36;
+
+    public final List<Ba2MappedEntry> entries;
+
+    final Ba2Mapping mapping;
+
+    Map<String, Ba2MappedEntry> lookup;
+
+    Ba2MappedFile(List<Ba2MappedEntry> entries, Ba2Mapping mapping) {
+        this.entries = entries;
+        this.mapping = mapping;
+    }
+
+    public static Ba2MappedFile open(File file) throws IOException {
+        return open(file.toPath());
+    }
+
+    public static Ba2MappedFile open(Path path) throws IOException {
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = fc.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("Not a BA2 archive: " + path);
+            }
+
+            ByteBuffer header = fc.map(MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+            if (header.getInt(0) != 0x58445442) { // BTDX
+                throw new IOException("Not a BA2 archive: " + path);
+            }
+            if (header.getInt(8) == Ba2TextureFile.DX10) {
+                throw new IOException("Texture archive, use Ba2TextureFile: " + path);
+            }
+            if (header.getInt(8) != 0x4C524E47) { // GNRL
+                throw new IOException("Unsupported BA2 archive type: " + EsmExport.intToChar(header.getInt(8)));
+            }
+
+            int numFiles = header.getInt(12);
+            long nameTableOffset = header.getLong(16);
+
+            ByteBuffer table = fc.map(MapMode.READ_ONLY, HEADER_SIZE, (long)numFiles * ENTRY_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer names = fc.map(MapMode.READ_ONLY, nameTableOffset, fileSize - nameTableOffset)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+
+            List<Ba2MappedEntry> entries = new ArrayList<>(numFiles);
+            byte[] nameBytes = new byte[256];
+
+            for (int i = 0; i < numFiles; i++) {
+                int p = i * ENTRY_SIZE;
+                long offset = table.getLong(p + 16);
+                int packedSize = table.getInt(p + 24);
+                int size = table.getInt(p + 28);
+
+                int nameLength = names.getShort() & 0xFFFF;
+                if (nameBytes.length < nameLength) {
+                    nameBytes = new byte[nameLength];
+                }
+                names.get(nameBytes, 0, nameLength);
+                String name = new String(nameBytes, 0, nameLength, StandardCharsets.ISO_8859_1);
+
+                entries.add(new Ba2MappedEntry(name, offset, packedSize, size));
+            }
+
+            Ba2Mapping mapping = new Ba2Mapping(fc, fileSize);
+            for (Ba2MappedEntry e : entries) {
+                mapping.register(fc, e.name, e.offset, e.storedSize());
+            }
+
+            Ba2MappedFile result = new Ba2MappedFile(Collections.unmodifiableList(entries), mapping);
+            for (Ba2MappedEntry e : entries) {
+                e.file = result;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns the entry with the given name, ignoring case and the kind of path separator.
+     * @param name the entry name
+     * @return the entry or null if not in this archive
+     */
+    public Ba2MappedEntry entry(String name) {
+        Map<String, Ba2MappedEntry> map = lookup;
+        if (map == null) {
+            map = new HashMap<>(entries.size() * 4 / 3 + 1);
+            for (Ba2MappedEntry e : entries) {
+                map.put(normalize(e.name), e);
+            }
+            lookup = map;
+        }
+        return map.get(normalize(name));
+    }
+
+    /**
+     * Lowercases the name char by char, independent of the default locale, and turns
+     * backslashes into forward slashes.
+     */
+    static String normalize(String name) {
+        char[] chars = new char[name.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = normalize(name.charAt(i));
+        }
+        return new String(chars);
+    }
+
+    static char normalize(char c) {
+        return c == '\\' ? '/' : Character.toLowerCase(c);
+    }
+
+    ByteBuffer slice(Ba2MappedEntry entry) {
+        return mapping.slice(entry.offset, entry.storedSize());
+    }
+}
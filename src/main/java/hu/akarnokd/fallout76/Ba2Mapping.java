@@ -0,0 +1,62 @@
+package hu.akarnokd.fallout76;
+
+import java.io.IOException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.*;
+
+/**
+ * The data area of a BA2 archive mapped in large chunks, with separate mappings for the
+ * few stored blocks that straddle a chunk boundary.
+ */
+final class Ba2Mapping {
+
+    static final long CHUNK_SIZE = 1L << 30;
+
+    final long fileSize;
+
+    final ByteBuffer[] chunks;
+
+    final Map<Long, ByteBuffer> straddling;
+
+    Ba2Mapping(FileChannel fc, long fileSize) throws IOException {
+        this.fileSize = fileSize;
+        int chunkCount = (int)((fileSize + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        ByteBuffer[] cs = new ByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            long start = i * CHUNK_SIZE;
+            cs[i] = fc.map(MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, fileSize - start));
+        }
+        this.chunks = cs;
+        this.straddling = new HashMap<>();
+    }
+
+    /**
+     * Verifies that a stored block is within the file and maps it separately if it
+     * crosses a chunk boundary.
+     */
+    void register(FileChannel fc, String name, long offset, int len) throws IOException {
+        if (offset < 0 || len < 0 || offset + len > fileSize) {
+            throw new IOException("Entry " + name + " is out of bounds: " + offset + " + " + len + " > " + fileSize);
+        }
+        if (len != 0 && offset / CHUNK_SIZE != (offset + len - 1) / CHUNK_SIZE) {
+            straddling.put(offset, fc.map(MapMode.READ_ONLY, offset, len));
+        }
+    }
+
+    /**
+     * Returns a read-only, little-endian view of a block registered before.
+     */
+    ByteBuffer slice(long offset, int len) {
+        ByteBuffer b = straddling.get(offset);
+        if (b != null) {
+            return b.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (len == 0) {
+            return ByteBuffer.allocate(0).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        ByteBuffer chunk = chunks[(int)(offset / CHUNK_SIZE)];
+        return chunk.slice((int)(offset % CHUNK_SIZE), len).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,86 @@
+package hu.akarnokd.fallout76;
+
+import java.io.IOException;
+import java.nio.*;
+
+/**
+ * A lazily accessed chunk, holding the mip levels {@code startMip..endMip}, of a {@link Ba2TextureEntry}.
+ */
+public final class Ba2TextureChunk {
+    final String name;
+    public final long offset;
+    /** The compressed size, zero if the chunk is stored uncompressed. */
+    public final int packedSize;
+    public final int size;
+    public final int startMip;
+    public final int endMip;
+
+    Ba2Mapping mapping;
+
+    Ba2TextureChunk(String name, long offset, int packedSize, int size, int startMip, int endMip) {
+        this.name = name;
+        this.offset = offset;
+        this.packedSize = packedSize;
+        this.size = size;
+        this.startMip = startMip;
+        this.endMip = endMip;
+    }
+
+    public boolean isCompressed() {
+        return packedSize != 0;
+    }
+
+    int storedSize() {
+        return packedSize != 0 ? packedSize : size;
+    }
+
+    /**
+     * Returns a read-only, little-endian view of the chunk as stored in the archive.
+     * @return the new view, compressed if {@link #isCompressed()}
+     */
+    public ByteBuffer raw() {
+        return mapping.slice(offset, storedSize());
+    }
+
+    /**
+     * Returns the chunk's pixel data: a view into the mapped file if stored uncompressed or
+     * a freshly inflated heap buffer otherwise.
+     * @return the little-endian buffer positioned at zero
+     * @throws IOException if the compressed data is corrupt
+     */
+    public ByteBuffer data() throws IOException {
+        ByteBuffer raw = raw();
+        if (packedSize == 0) {
+            return raw;
+        }
+        ByteBuffer out = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        Ba2MappedEntry.inflate(raw, out, name);
+        out.flip();
+        return out;
+    }
+
+    /**
+     * Inflates the chunk into the given buffer, which can be reused or direct.
+     * @param out the buffer with at least {@link #size} bytes remaining
+     * @throws IOException if the compressed data is corrupt
+     */
+    public void data(ByteBuffer out) throws IOException {
+        if (out.remaining() < size) {
+            throw new BufferOverflowException();
+        }
+        ByteBuffer raw = raw();
+        if (packedSize == 0) {
+            out.put(raw);
+        } else {
+            ByteBuffer o = out.slice();
+            o.limit(size);
+            Ba2MappedEntry.inflate(raw, o, name);
+            out.position(out.position() + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " mips " + startMip + ".." + endMip + " (" + size + (packedSize != 0 ? ", packed " + packedSize : "") + ")";
+    }
+}
@@ -0,0 +1,84 @@
+package hu.akarnokd.fallout76;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A texture of a {@link Ba2TextureFile}: the DDS properties and the chunks of its mip levels.
+ */
+public final class Ba2TextureEntry {
+    public final String name;
+    public final int width;
+    public final int height;
+    public final int numMips;
+    /** The DXGI_FORMAT of the pixel data. */
+    public final int format;
+    public final boolean cubemap;
+    public final int tileMode;
+
+    final Ba2TextureChunk[] chunks;
+
+    Ba2TextureEntry(String name, int width, int height, int numMips, int format,
+            boolean cubemap, int tileMode, Ba2TextureChunk[] chunks) {
+        this.name = name;
+        this.width = width;
+        this.height = height;
+        this.numMips = numMips;
+        this.format = format;
+        this.cubemap = cubemap;
+        this.tileMode = tileMode;
+        this.chunks = chunks;
+    }
+
+    public int chunkCount() {
+        return chunks.length;
+    }
+
+    public Ba2TextureChunk chunk(int index) {
+        return chunks[index];
+    }
+
+    /**
+     * Returns the chunk containing the given mip level.
+     * @param mip the mip level, 0 is the largest
+     * @return the chunk or null if no chunk covers the level
+     */
+    public Ba2TextureChunk chunkForMip(int mip) {
+        for (Ba2TextureChunk c : chunks) {
+            if (c.startMip <= mip && mip <= c.endMip) {
+                return c;
+            }
+        }
+        return null;
+    }
+
+    /** @return the total decompressed size of the pixel data */
+    public long size() {
+        long n = 0L;
+        for (Ba2TextureChunk c : chunks) {
+            n += c.size;
+        }
+        return n;
+    }
+
+    /**
+     * Writes the decompressed pixel data, without a DDS header, chunk by chunk.
+     * Only one chunk is inflated on the heap at a time.
+     * @param out the channel to write to
+     * @throws IOException if reading the archive or writing the channel failed
+     */
+    public void transferTo(WritableByteChannel out) throws IOException {
+        for (Ba2TextureChunk c : chunks) {
+            ByteBuffer b = c.data();
+            while (b.hasRemaining()) {
+                out.write(b);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + width + "x" + height + ", " + numMips + " mips, format " + format + ", " + chunks.length + " chunks)";
+    }
+}
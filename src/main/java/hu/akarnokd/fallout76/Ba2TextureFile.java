@@ -0,0 +1,194 @@
+package hu.akarnokd.fallout76;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Memory-mapped, read-only view of a texture (DX10) BA2 archive.
+ * <p>
+ * Unlike the general archives, each record has a 24 byte texture header followed by a
+ * variable number of 24 byte chunk records, each chunk holding one or more mip levels.
+ * The chunks are exposed as slices of the mapped file and are inflated one by one on
+ * request, so a texture never has to be fully on the heap.
+ * <p>
+ * The mappings stay valid after the channel has been closed, therefore the instance
+ * doesn't have to be closed.
+ */
+public final class Ba2TextureFile {
+
+    /** The archive type tag of texture archives. */
+    static final int DX10 = 0x30315844;
+
+    static final int HEADER_SIZE = Ba2MappedFile.HEADER_SIZE;
+
+    static final int RECORD_SIZE = 24;
+
+    static final int CHUNK_SIZE = 24;
+
+    public final List<Ba2TextureEntry> entries;
+
+    final Ba2Mapping mapping;
+
+    Map<String, Ba2TextureEntry> lookup;
+
+    Ba2TextureFile(List<Ba2TextureEntry> entries, Ba2Mapping mapping) {
+        this.entries = entries;
+        this.mapping = mapping;
+    }
+
+    public static Ba2TextureFile open(File file) throws IOException {
+        return open(file.toPath());
+    }
+
+    public static Ba2TextureFile open(Path path) throws IOException {
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = fc.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("Not a BA2 archive: " + path);
+            }
+
+            ByteBuffer header = fc.map(MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+            if (header.getInt(0) != 0x58445442) { // BTDX
+                throw new IOException("Not a BA2 archive: " + path);
+            }
+            if (header.getInt(8) != DX10) {
+                throw new IOException("Not a texture BA2 archive: " + EsmExport.intToChar(header.getInt(8)));
+            }
+
+            int numFiles = header.getInt(12);
+            long nameTableOffset = header.getLong(16);
+            if (nameTableOffset < HEADER_SIZE || nameTableOffset > fileSize) {
+                throw new IOException("Corrupt name table offset: " + nameTableOffset);
+            }
+
+            // the records are variable length and the texture data follows them, read just the records
+            RecordReader table = new RecordReader(fc, nameTableOffset);
+            ByteBuffer names = fc.map(MapMode.READ_ONLY, nameTableOffset, fileSize - nameTableOffset)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+
+            Ba2Mapping mapping = new Ba2Mapping(fc, fileSize);
+            List<Ba2TextureEntry> entries = new ArrayList<>(numFiles);
+            byte[] nameBytes = new byte[256];
+
+            long position = HEADER_SIZE;
+            for (int i = 0; i < numFiles; i++) {
+                int p = table.read(position, RECORD_SIZE);
+                ByteBuffer record = table.buffer;
+                int numChunks = record.get(p + 13) & 0xFF;
+                int chunkHeaderSize = record.getShort(p + 14) & 0xFFFF;
+                int height = record.getShort(p + 16) & 0xFFFF;
+                int width = record.getShort(p + 18) & 0xFFFF;
+                int numMips = record.get(p + 20) & 0xFF;
+                int format = record.get(p + 21) & 0xFF;
+                boolean cubemap = record.get(p + 22) != 0;
+                int tileMode = record.get(p + 23) & 0xFF;
+                if (chunkHeaderSize < CHUNK_SIZE) {
+                    throw new IOException("Unsupported chunk header size " + chunkHeaderSize + " in record " + i);
+                }
+                position += RECORD_SIZE;
+
+                int nameLength = names.getShort() & 0xFFFF;
+                if (nameBytes.length < nameLength) {
+                    nameBytes = new byte[nameLength];
+                }
+                names.get(nameBytes, 0, nameLength);
+                String name = new String(nameBytes, 0, nameLength, StandardCharsets.ISO_8859_1);
+
+                p = table.read(position, numChunks * chunkHeaderSize);
+                ByteBuffer chunkTable = table.buffer;
+                Ba2TextureChunk[] chunks = new Ba2TextureChunk[numChunks];
+                for (int j = 0; j < numChunks; j++) {
+                    Ba2TextureChunk c = new Ba2TextureChunk(name,
+                            chunkTable.getLong(p), chunkTable.getInt(p + 8), chunkTable.getInt(p + 12),
+                            chunkTable.getShort(p + 16) & 0xFFFF, chunkTable.getShort(p + 18) & 0xFFFF);
+                    mapping.register(fc, name, c.offset, c.storedSize());
+                    c.mapping = mapping;
+                    chunks[j] = c;
+                    p += chunkHeaderSize;
+                }
+                position += (long)numChunks * chunkHeaderSize;
+
+                entries.add(new Ba2TextureEntry(name, width, height, numMips, format, cubemap, tileMode, chunks));
+            }
+
+            return new Ba2TextureFile(Collections.unmodifiableList(entries), mapping);
+        }
+    }
+
+    /**
+     * Returns the texture with the given name, ignoring case and the kind of path separator.
+     * @param name the texture name
+     * @return the entry or null if not in this archive
+     */
+    public Ba2TextureEntry entry(String name) {
+        Map<String, Ba2TextureEntry> map = lookup;
+        if (map == null) {
+            map = new HashMap<>(entries.size() * 4 / 3 + 1);
+            for (Ba2TextureEntry e : entries) {
+                map.put(Ba2MappedFile.normalize(e.name), e);
+            }
+            lookup = map;
+        }
+        return map.get(Ba2MappedFile.normalize(name));
+    }
+
+    /**
+     * Reads the texture records through a small heap window instead of mapping them, as the
+     * records of large archives are followed by gigabytes of texture data before the name table.
+     */
+    static final class RecordReader {
+
+        static final int WINDOW = 64 * 1024;
+
+        final FileChannel fc;
+
+        final long limit;
+
+        ByteBuffer buffer;
+
+        long start;
+
+        RecordReader(FileChannel fc, long limit) {
+            this.fc = fc;
+            this.limit = limit;
+            this.buffer = ByteBuffer.allocate(WINDOW).order(ByteOrder.LITTLE_ENDIAN).limit(0);
+        }
+
+        /**
+         * Makes sure the given file range is in {@link #buffer}.
+         * @param position the file offset
+         * @param length the number of bytes needed
+         * @return the index of the file offset within the buffer
+         * @throws IOException if the range goes beyond the limit or the read fails
+         */
+        int read(long position, int length) throws IOException {
+            if (position + length > limit) {
+                throw new IOException("Texture record at " + position + " runs into the name table at " + limit);
+            }
+            ByteBuffer b = buffer;
+            if (position >= start && position + length <= start + b.limit()) {
+                return (int)(position - start);
+            }
+            if (b.capacity() < length) {
+                b = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+                buffer = b;
+            }
+            b.clear();
+            b.limit((int)Math.min(b.capacity(), limit - position));
+            while (b.position() < length) {
+                if (fc.read(b, position + b.position()) < 0) {
+                    throw new EOFException("Texture record at " + position + " is truncated");
+                }
+            }
+            b.flip();
+            start = position;
+            return 0;
+        }
+    }
+}
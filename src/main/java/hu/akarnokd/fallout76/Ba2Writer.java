@@ -0,0 +1,303 @@
+package hu.akarnokd.fallout76;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+/**
+ * Writes a general (GNRL) BA2 archive, compressing the entries in parallel.
+ * <p>
+ * The number of entries has to be known upfront: the space of the header and the
+ * entry table is reserved at the start of the file, the entry data is streamed after
+ * it in the order of {@link #add(String, byte[])} calls via gathered writes, then
+ * {@link #close()} appends the name table and patches the header and the entry table.
+ * At most {@code maxInFlight} entries are held in memory at any time.
+ * <p>
+ * Entries are zlib compressed on the given executor unless compression doesn't make
+ * them smaller, in which case they are stored as is.
+ */
+public final class Ba2Writer implements Closeable {
+
+    static final int HEADER_SIZE = Ba2MappedFile.HEADER_SIZE;
+
+    static final int ENTRY_SIZE = Ba2MappedFile.ENTRY_SIZE;
+
+    static final int FLAGS = 0x0010_0100;
+
+    static final int ALIGN_MAGIC = 0xBAADF00D;
+
+    /** Maximum number of buffers handed to a single gathered write. */
+    static final int GATHER_LIMIT = 64;
+
+    final FileChannel channel;
+
+    final ExecutorService executor;
+
+    final int level;
+
+    final int maxInFlight;
+
+    final int count;
+
+    final ByteBuffer table;
+
+    final List<String> names;
+
+    final ArrayDeque<Future<ByteBuffer[]>> pending;
+
+    final ThreadLocal<Deflater> deflaters;
+
+    final Queue<Deflater> allDeflaters;
+
+    final ByteBuffer[] gather;
+
+    long position;
+
+    int written;
+
+    /**
+     * Creates an archive writer.
+     * @param file the archive to create or overwrite
+     * @param count the exact number of entries that will be added
+     * @param executor the executor running the compression tasks
+     * @param level the {@link Deflater} level, {@link Deflater#NO_COMPRESSION} stores every entry as is
+     * @param maxInFlight the maximum number of entries read or being compressed at once
+     * @throws IOException if the file can't be opened
+     */
+    public Ba2Writer(Path file, int count, ExecutorService executor, int level, int maxInFlight) throws IOException {
+        if (count < 0) {
+            throw new IllegalArgumentException("count >= 0 required but it was " + count);
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight > 0 required but it was " + maxInFlight);
+        }
+        this.executor = executor;
+        this.level = level;
+        this.maxInFlight = maxInFlight;
+        this.count = count;
+        this.table = ByteBuffer.allocate(count * ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        this.names = new ArrayList<>(count);
+        this.pending = new ArrayDeque<>();
+        this.gather = new ByteBuffer[GATHER_LIMIT];
+        this.allDeflaters = new ConcurrentLinkedQueue<>();
+        this.deflaters = ThreadLocal.withInitial(() -> {
+            Deflater d = new Deflater(level);
+            allDeflaters.offer(d);
+            return d;
+        });
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.position = HEADER_SIZE + (long)count * ENTRY_SIZE;
+        channel.position(position);
+    }
+
+    /**
+     * Adds an entry with the given content.
+     * @param name the path of the entry inside the archive
+     * @param data the content, not modified and not retained after the entry has been written
+     * @throws IOException if writing a previous entry failed
+     */
+    public void add(String name, byte[] data) throws IOException {
+        submit(name, () -> compress(ByteBuffer.wrap(data)));
+    }
+
+    /**
+     * Adds an entry with the content of a file, which is read on the executor.
+     * @param name the path of the entry inside the archive
+     * @param source the file to include
+     * @throws IOException if writing a previous entry failed
+     */
+    public void add(String name, Path source) throws IOException {
+        submit(name, () -> compress(ByteBuffer.wrap(Files.readAllBytes(source))));
+    }
+
+    void submit(String name, Callable<ByteBuffer[]> task) throws IOException {
+        if (names.size() == count) {
+            throw new IllegalStateException("All " + count + " entries have been added already");
+        }
+        byte[] nameBytes = name.getBytes(StandardCharsets.ISO_8859_1);
+        if (nameBytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Name too long: " + name);
+        }
+        names.add(name);
+        pending.offer(executor.submit(task));
+        if (pending.size() >= maxInFlight) {
+            drain(false);
+        }
+    }
+
+    /**
+     * Compresses the data if that makes it smaller.
+     * @return the packed size and size for the entry table, followed by the bytes to store
+     */
+    ByteBuffer[] compress(ByteBuffer data) {
+        int size = data.remaining();
+        ByteBuffer sizes = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        if (level != Deflater.NO_COMPRESSION && size != 0) {
+            Deflater d = deflaters.get();
+            d.reset();
+            d.setInput(data.duplicate());
+            d.finish();
+            ByteBuffer out = ByteBuffer.allocate(size);
+            while (!d.finished() && out.hasRemaining()) {
+                d.deflate(out);
+            }
+            if (d.finished() && out.position() < size) {
+                out.flip();
+                sizes.putInt(0, out.remaining()).putInt(4, size);
+                return new ByteBuffer[] { sizes, out };
+            }
+        }
+        sizes.putInt(0, 0).putInt(4, size);
+        return new ByteBuffer[] { sizes, data };
+    }
+
+    /**
+     * Writes out the head of the queue, waiting for it if necessary, together with the
+     * already completed entries right behind it.
+     * @param all if true, waits for and writes every pending entry
+     */
+    void drain(boolean all) throws IOException {
+        ArrayDeque<Future<ByteBuffer[]>> q = pending;
+        ByteBuffer[] g = gather;
+        do {
+            int n = 0;
+            while (n < g.length && !q.isEmpty() && (n == 0 || all || q.peek().isDone())) {
+                ByteBuffer[] r = await(q.poll());
+                int index = written++;
+                String name = names.get(index);
+                ByteBuffer data = r[1];
+                int p = index * ENTRY_SIZE;
+                table.putInt(p, fileHash(name))
+                        .putInt(p + 4, extension(name))
+                        .putInt(p + 8, directoryHash(name))
+                        .putInt(p + 12, FLAGS)
+                        .putLong(p + 16, position)
+                        .putInt(p + 24, r[0].getInt(0))
+                        .putInt(p + 28, r[0].getInt(4))
+                        .putInt(p + 32, ALIGN_MAGIC);
+                position += data.remaining();
+                g[n++] = data;
+            }
+            if (n == 0) {
+                return;
+            }
+            writeFully(g, n);
+            Arrays.fill(g, 0, n, null);
+        } while (all);
+    }
+
+    void writeFully(ByteBuffer[] buffers, int n) throws IOException {
+        long remaining = 0L;
+        for (int i = 0; i < n; i++) {
+            remaining += buffers[i].remaining();
+        }
+        int offset = 0;
+        while (remaining > 0L) {
+            remaining -= channel.write(buffers, offset, n - offset);
+            while (offset < n && !buffers[offset].hasRemaining()) {
+                offset++;
+            }
+        }
+    }
+
+    static ByteBuffer[] await(Future<ByteBuffer[]> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException ex) {
+            Throwable c = ex.getCause();
+            if (c instanceof IOException) {
+                throw (IOException)c;
+            }
+            throw new IOException(c);
+        }
+    }
+
+    /**
+     * Writes the remaining entries, the name table and patches the header and the entry table.
+     * @throws IOException if writing failed or fewer entries were added than announced
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            drain(true);
+            if (names.size() != count) {
+                throw new IOException("Expected " + count + " entries but only " + names.size() + " were added");
+            }
+
+            long nameTableOffset = position;
+            ByteArrayOutputStream nameTable = new ByteArrayOutputStream(count * 48);
+            for (String name : names) {
+                byte[] b = name.getBytes(StandardCharsets.ISO_8859_1);
+                nameTable.write(b.length & 0xFF);
+                nameTable.write(b.length >> 8);
+                nameTable.write(b, 0, b.length);
+            }
+            writeFully(new ByteBuffer[] { ByteBuffer.wrap(nameTable.toByteArray()) }, 1);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0x58445442) // BTDX
+                    .putInt(1)
+                    .putInt(0x4C524E47) // GNRL
+                    .putInt(count)
+                    .putLong(nameTableOffset)
+                    .flip();
+            table.clear();
+            channel.position(0L);
+            writeFully(new ByteBuffer[] { header, table }, 2);
+        } finally {
+            for (Future<?> f : pending) {
+                f.cancel(true);
+            }
+            pending.clear();
+            Deflater d;
+            while ((d = allDeflaters.poll()) != null) {
+                d.end();
+            }
+            channel.close();
+        }
+    }
+
+    static int fileHash(String name) {
+        String n = name.toLowerCase(Locale.ROOT).replace('/', '\\');
+        int start = n.lastIndexOf('\\') + 1;
+        int end = n.lastIndexOf('.');
+        if (end < start) {
+            end = n.length();
+        }
+        return crc(n, start, end);
+    }
+
+    static int directoryHash(String name) {
+        String n = name.toLowerCase(Locale.ROOT).replace('/', '\\');
+        return crc(n, 0, Math.max(n.lastIndexOf('\\'), 0));
+    }
+
+    static int crc(String s, int start, int end) {
+        CRC32 crc = new CRC32();
+        byte[] b = s.substring(start, end).getBytes(StandardCharsets.ISO_8859_1);
+        crc.update(b, 0, b.length);
+        return (int)crc.getValue();
+    }
+
+    /** Returns the first 4 characters of the extension, zero padded, as a little-endian int. */
+    static int extension(String name) {
+        int dot = name.lastIndexOf('.');
+        int v = 0;
+        if (dot >= 0 && dot > Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\'))) {
+            String ext = name.substring(dot + 1).toLowerCase(Locale.ROOT);
+            for (int i = Math.min(ext.length(), 4) - 1; i >= 0; i--) {
+                v = (v << 8) | (ext.charAt(i) & 0xFF);
+            }
+        }
+        return v;
+    }
+}
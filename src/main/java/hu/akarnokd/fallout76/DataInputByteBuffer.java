@@ -32,6 +32,22 @@ public class DataInputByteBuffer implements DataInput {
         buffer.get(b, off, len);
     }
 
+    /**
+     * Returns a view of the next {@code length} bytes and skips over them.
+     * @param length the number of bytes
+     * @return the new view, its byte order is big-endian
+     * @throws IOException if not enough bytes remain
+     */
+    public ByteBuffer readSlice(int length) throws IOException {
+        if (buffer.remaining() < length) {
+            throw new EOFException("Could not read " + length + " bytes as only " + buffer.remaining() + " bytes are available.");
+        }
+        int p = buffer.position();
+        ByteBuffer result = buffer.slice(p, length);
+        buffer.position(p + length);
+        return result;
+    }
+
     @Override
     public int skipBytes(int n) throws IOException {
         int r = buffer.remaining();
@@ -2,6 +2,7 @@ package hu.akarnokd.fallout76;
 
 import java.io.File;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.*;
 
 import com.google.gson.*;
@@ -23,13 +24,12 @@ public class EnemyCurveTableListing {
             return;
         }
 
-        Map<String, Ba2FileEntry> curveMap = new HashMap<>();
-        Map<String, Ba2FileEntry> curveMap2 = new HashMap<>();
-        EsmExport.loadJsonBa2(curveMap, basePath + "SeventySix - Startup.ba2");
+        Map<String, Ba2MappedEntry> curveMap2 = new HashMap<>();
+        Ba2FileSystem vfs = Ba2FileSystem.mount(EsmExport.ARCHIVE_CACHE_BYTES, Paths.get(basePath + "SeventySix - Startup.ba2"));
 
-        List<Ba2FileEntry> selection = new ArrayList<>();
+        List<Ba2MappedEntry> selection = new ArrayList<>();
         Set<String> variants = new HashSet<>();
-        for (Ba2FileEntry e : curveMap.values()) {
+        for (Ba2MappedEntry e : vfs.list(name -> name.endsWith("json"))) {
             if (e.name.toLowerCase().contains("armor_") && e.name.toLowerCase().contains("creature") && e.name.toLowerCase().endsWith("json")) {
                 selection.add(e);
                 int idx = e.name.toLowerCase().indexOf("armor_");
@@ -42,11 +42,11 @@ public class EnemyCurveTableListing {
 
         selection.sort((a, b) -> a.name.compareTo(b.name));
 
-        for (Ba2FileEntry e : selection) {
+        for (Ba2MappedEntry e : selection) {
             int idx = e.name.toLowerCase().indexOf("armor_");
             System.out.printf("%s: %n", e.name.substring(idx));
 
-            JsonElement obj = new JsonParser().parse(new String(e.data, StandardCharsets.ISO_8859_1));
+            JsonElement obj = new JsonParser().parse(StandardCharsets.ISO_8859_1.decode(vfs.read(e)).toString());
             JsonArray arr = obj.getAsJsonObject().get("curve").getAsJsonArray();
 
             int[] count = { 0 };
@@ -76,9 +76,9 @@ public class EnemyCurveTableListing {
             Map<String, JsonArray> arrays = new HashMap<>();
             for (String p : postfixes) {
                 String key = "armor_" + e + "_" + p + ".json";
-                Ba2FileEntry map = curveMap2.get(key);
+                Ba2MappedEntry map = curveMap2.get(key);
                 if (map != null) {
-                    JsonElement obj = new JsonParser().parse(new String(map.data, StandardCharsets.ISO_8859_1));
+                    JsonElement obj = new JsonParser().parse(StandardCharsets.ISO_8859_1.decode(vfs.read(map)).toString());
                     JsonArray arr = obj.getAsJsonObject().get("curve").getAsJsonArray();
                     arrays.put(p, arr);
                 } else {
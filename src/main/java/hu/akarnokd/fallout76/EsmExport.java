@@ -3,11 +3,11 @@ package hu.akarnokd.fallout76;
 import java.io.*;
 import java.nio.*;
 import java.nio.channels.FileChannel.MapMode;
-import java.nio.charset.StandardCharsets;
+import java.nio.charset.*;
 import java.nio.file.*;
 import java.util.*;
-import java.util.function.BiConsumer;
-import java.util.zip.Inflater;
+import java.util.concurrent.*;
+import java.util.function.*;
 
 import com.google.gson.*;
 
@@ -17,19 +17,19 @@ public final class EsmExport {
         // static program
     }
 
-    static PrintWriter saveIds;
+    static EsmJsWriter saveIds;
 
-    static Map<Integer, String> edidMap;
+    static IntObjectMap<String> edidMap;
 
-    static Map<Integer, Integer> descriptionMap;
+    static IntIntMap descriptionMap;
 
-    static Set<Integer> usedFormIDs;
+    static IntSet usedFormIDs;
 
-    static Map<Integer, Float> globalValues;
+    static IntFloatMap globalValues;
 
-    static PrintWriter leveledList;
+    static EsmJsWriter leveledList;
 
-    static Map<Integer, String> curveTables;
+    static IntObjectMap<String> curveTables;
 
     static String[] basePaths = {
             "c:\\Program Files (x86)\\Steam\\steamapps\\common\\Fallout76\\Data\\",
@@ -39,6 +39,9 @@ public final class EsmExport {
 
     static String basePath;
 
+    /** Number of threads decoding the records, 1 selects the original sequential walk. */
+    static int threads = Integer.getInteger("esmexport.threads", Runtime.getRuntime().availableProcessors());
+
     public static void main(String[] args) throws Throwable {
 
         for (String s : basePaths) {
@@ -53,82 +56,68 @@ public final class EsmExport {
             return;
         }
 
-        Map<String, Ba2FileEntry> localization = new HashMap<>();
-        loadStringsBa2(localization, basePath + "SeventySix - Localization.ba2");
+        Ba2FileSystem vfs = mountArchives(basePath);
 
-        Map<Integer, String> descriptionLookup = new HashMap<>(10_000);
+        TesStringsIndex descriptionLookup = null;
 
-        for (Map.Entry<String, Ba2FileEntry> entry : localization.entrySet()) {
-            if (entry.getKey().toLowerCase().endsWith("seventysix_en.strings")) {
-                TesStringsData.process(entry.getValue().data, (id, string) -> {
-                    descriptionLookup.put(id, string);
-                });
-            }
+        for (Ba2MappedEntry entry : vfs.list(name -> name.endsWith("seventysix_en.strings"))) {
+            descriptionLookup = TesStringsIndex.of(entry.name, entry.bytes(), 0);
+        }
+
+        if (descriptionLookup == null) {
+            System.err.println("Strings not found, exporting without descriptions");
+            descriptionLookup = TesStringsIndex.empty();
         }
 
         File file = new File(
                 basePath + "SeventySix.esm");
 
-        edidMap = new HashMap<>(100_000);
-        descriptionMap = new HashMap<>(100_000);
-        usedFormIDs = new HashSet<>(10_000);
-        globalValues = new HashMap<>(10_000);
-        curveTables = new HashMap<>(1000);
+        edidMap = new IntObjectMap<>(100_000);
+        descriptionMap = new IntIntMap(100_000);
+        usedFormIDs = new IntSet(10_000);
+        globalValues = new IntFloatMap(10_000);
+        curveTables = new IntObjectMap<>(1000);
 
         String lvliFile = basePath + "Dump\\SeventySix_LVLIs.js";
 
-        leveledList = new PrintWriter(new FileWriter(
-                lvliFile));
-        leveledList.println("leveledLists = {");
+        leveledList = new EsmJsWriter(lvliFile);
+        leveledList.text("leveledLists = {").newLine();
 
+        inflaters = new EsmInflaterPool();
         try {
-            saveIds = new PrintWriter(new FileWriter(
-                    basePath + "Dump\\SeventySix_EDIDs.txt"));
+            // not a JS dump, keeps the platform charset of the original PrintWriter
+            saveIds = new EsmJsWriter(Paths.get(basePath + "Dump\\SeventySix_EDIDs.txt"), Charset.defaultCharset());
 
             try {
                 try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
                     MappedByteBuffer bb = raf.getChannel().map(MapMode.READ_ONLY, 0, raf.length());
                     bb.order(ByteOrder.BIG_ENDIAN);
 
-                    DataInputByteBuffer buf = new DataInputByteBuffer(bb);
+                    if (threads > 1) {
+                        processIndexed(bb, "LVLI,GLOB,CURV", threads);
+                    } else {
+                        DataInputByteBuffer buf = new DataInputByteBuffer(bb);
 
-                    while (buf.position() < raf.length()) {
-                        processTopGroups(buf, "LVLI,GLOB,CURV");
+                        while (buf.position() < raf.length()) {
+                            processTopGroups(buf, "LVLI,GLOB,CURV");
+                        }
                     }
                 }
             } finally {
                 saveIds.close();
+                System.out.println(inflaters);
+                inflaters.close();
             }
         } finally {
-            leveledList.println("}");
+            leveledList.text("}").newLine();
             leveledList.close();
-
-            // fix the trailing commas
-            List<String> lines = Files.readAllLines(Paths.get(lvliFile));
-
-            for (int i = 0; i < lines.size() - 1; i++) {
-                String line1 = lines.get(i);
-                String line2 = lines.get(i + 1).trim();
-
-                if (line1.endsWith(",")
-                        && (line2.startsWith("}") || line2.startsWith("]"))) {
-                    lines.set(i, line1.substring(0, line1.length() - 1));
-                }
-            }
-
-            Files.write(Paths.get(lvliFile), lines);
         }
 
-        for (Integer id : usedFormIDs) {
+        usedFormIDs.forEachSorted(id -> {
             if (!edidMap.containsKey(id)) {
                 System.err.printf("%08X missing edid%n", id);
             }
-        }
-
-        Map<String, Ba2FileEntry> curveMap = new HashMap<>();
-
-        loadJsonBa2(curveMap, basePath + "SeventySix - Startup.ba2");
-        loadJsonBa2(curveMap, basePath + "SeventySix - MiscClient.ba2");
+        });
 
         System.out.println("usedFormIDs before: " + usedFormIDs.size());
         System.out.println("EDIDs before: " + edidMap.size());
@@ -136,23 +125,23 @@ public final class EsmExport {
         System.out.println("GLOBs before: " + globalValues.size());
         System.out.println("CURVs before: " + curveTables.size());
 
-        saveCurvs("_full", curveMap);
+        saveCurvs("_full", vfs);
 
         saveEdids("_full", descriptionLookup);
 
         saveGlobs("_full");
 
         // remove unneeded references
-        edidMap.keySet().retainAll(usedFormIDs);
-        descriptionMap.keySet().retainAll(usedFormIDs);
-        globalValues.keySet().retainAll(usedFormIDs);
-        //curveTables.keySet().retainAll(usedFormIDs);
+        edidMap.retainAll(usedFormIDs);
+        descriptionMap.retainAll(usedFormIDs);
+        globalValues.retainAll(usedFormIDs);
+        //curveTables.retainAll(usedFormIDs);
         System.out.println("EDIDs after: " + edidMap.size());
         System.out.println("FULLs after: " + descriptionMap.size());
         System.out.println("GLOBs after: " + globalValues.size());
         System.out.println("CURVs after: " + curveTables.size());
 
-        saveCurvs("", curveMap);
+        saveCurvs("", vfs);
 
         saveEdids("", descriptionLookup);
 
@@ -160,99 +149,74 @@ public final class EsmExport {
 
     }
 
-    static void saveCurvs(String postfix, Map<String, Ba2FileEntry> curveMap) throws IOException {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(
-                basePath + "Dump\\SeventySix_CURVs" + postfix + ".js"))) {
-            pw.println("curves = {");
-            for (Map.Entry<Integer, String> e : curveTables.entrySet()) {
-                String ckey = e.getValue().toLowerCase().replace('\\', '/');
+    static void saveCurvs(String postfix, Ba2FileSystem vfs) throws IOException {
+        try (EsmJsWriter pw = new EsmJsWriter(basePath + "Dump\\SeventySix_CURVs" + postfix + ".js")) {
+            pw.text("curves = {").newLine();
+            for (int id : curveTables.sortedKeys()) {
+                String curve = curveTables.get(id);
+                String ckey = curve.toLowerCase().replace('\\', '/');
 
-                Ba2FileEntry ba2Entry = curveMap.get(ckey);
-                if (ba2Entry == null) {
-                    ba2Entry = curveMap.get("misc/curvetables/json/" + ckey);
+                ByteBuffer json = vfs.read(ckey);
+                if (json == null) {
+                    json = vfs.read("misc/curvetables/json/" + ckey);
                 }
-                if (ba2Entry == null) {
-                    System.err.printf("Unknown curve table: %08X - %s%n", e.getKey(), e.getValue());
+                if (json == null) {
+                    System.err.printf("Unknown curve table: %08X - %s%n", id, curve);
                 } else {
-                    JsonElement obj = new JsonParser().parse(new String(ba2Entry.data, StandardCharsets.ISO_8859_1));
+                    JsonElement obj = new JsonParser().parse(StandardCharsets.ISO_8859_1.decode(json).toString());
 
-                    pw.print("\"");
-                    pw.printf("%08X", e.getKey());
-                    pw.print("\": ");
-                    pw.print(obj.getAsJsonObject().get("curve"));
-                    pw.println(",");
+                    pw.quotedHex(id).text(": ")
+                            .text(obj.getAsJsonObject().get("curve").toString()).comma().newLine();
                 }
-
             }
-            pw.println("}");
+            pw.text("}").newLine();
         }
     }
 
-    static void saveEdids(String postfix, Map<Integer, String> descriptionLookup) throws IOException {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(
-                basePath + "Dump\\SeventySix_EDIDs" + postfix + ".js"))) {
-            pw.println("edids = {");
-            for (Map.Entry<Integer, String> e : edidMap.entrySet()) {
-                pw.print("\"");
-                pw.printf("%08X", e.getKey());
-                pw.print("\": \"");
-                String editorID = e.getValue().replace("\"", "\\\"");
-                Integer description = descriptionMap.get(e.getKey());
-                pw.print(editorID);
-                if (description != null) {
-                    String descriptionStr = descriptionLookup.get(description);
+    static void saveEdids(String postfix, TesStringsIndex descriptionLookup) throws IOException {
+        try (EsmJsWriter pw = new EsmJsWriter(basePath + "Dump\\SeventySix_EDIDs" + postfix + ".js")) {
+            pw.text("edids = {").newLine();
+            edidMap.forEachSorted((id, edid) -> {
+                pw.quotedHex(id).text(": \"");
+                String editorID = edid.replace("\"", "\\\"");
+                pw.text(editorID);
+                if (descriptionMap.containsKey(id)) {
+                    String descriptionStr = descriptionLookup.get(descriptionMap.get(id, 0));
                     if (descriptionStr != null) {
-                        pw.print(" ");
-                        pw.print(descriptionStr
+                        pw.text(' ');
+                        pw.text(descriptionStr
                                 .replace("\\", "\\\\")
                                 .replace("\"", "\\\""));
                     }
                 }
-                pw.println("\",");
-            }
-            pw.println("}");
+                pw.text('"').comma().newLine();
+            });
+            pw.text("}").newLine();
         }
     }
 
     static void saveGlobs(String postfix) throws IOException {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(
-                basePath + "Dump\\SeventySix_GLOBs" + postfix + ".js"))) {
-            pw.println("globals = {");
-            for (Map.Entry<Integer, Float> e : globalValues.entrySet()) {
-                pw.print("\"");
-                pw.printf("%08X", e.getKey());
-                pw.print("\": ");
-                pw.print(e.getValue());
-                pw.println(",");
-            }
-            pw.println("}");
-        }
-    }
-
-    static void loadJsonBa2(Map<String, Ba2FileEntry> curveMap, String ba2FileName) throws IOException {
-        Ba2File baf = new Ba2File();
-        File curveFiles = new File(ba2FileName);
-
-        try (RandomAccessFile raf = new RandomAccessFile(curveFiles, "r")) {
-            baf.read(raf, name -> name.endsWith("json"));
-
-            for (Ba2FileEntry e : baf.entries) {
-                curveMap.put(e.name.toLowerCase().replace('\\', '/'), e);
-            }
+        try (EsmJsWriter pw = new EsmJsWriter(basePath + "Dump\\SeventySix_GLOBs" + postfix + ".js")) {
+            pw.text("globals = {").newLine();
+            globalValues.forEachSorted((id, value) -> {
+                pw.quotedHex(id).text(": ").floatValue(value).comma().newLine();
+            });
+            pw.text("}").newLine();
         }
     }
 
-    static void loadStringsBa2(Map<String, Ba2FileEntry> curveMap, String ba2FileName) throws IOException {
-        Ba2File baf = new Ba2File();
-        File curveFiles = new File(ba2FileName);
-
-        try (RandomAccessFile raf = new RandomAccessFile(curveFiles, "r")) {
-            baf.read(raf, name -> name.toLowerCase().endsWith("seventysix_en.strings"));
-
-            for (Ba2FileEntry e : baf.entries) {
-                curveMap.put(e.name.toLowerCase().replace('\\', '/'), e);
-            }
-        }
+    /** Upper limit of the inflated archive entries kept in memory by {@link #mountArchives(String)}. */
+    static final long ARCHIVE_CACHE_BYTES = 64L << 20;
+
+    /**
+     * Mounts the archives the tools read the localization and the curve tables from;
+     * entries of MiscClient override the ones in Startup.
+     */
+    static Ba2FileSystem mountArchives(String basePath) throws IOException {
+        return Ba2FileSystem.mount(ARCHIVE_CACHE_BYTES,
+                Paths.get(basePath + "SeventySix - Localization.ba2"),
+                Paths.get(basePath + "SeventySix - Startup.ba2"),
+                Paths.get(basePath + "SeventySix - MiscClient.ba2"));
     }
 
     static String readChars(DataInput din, int count) throws IOException {
@@ -273,6 +237,12 @@ public final class EsmExport {
 
     static int FLAGS_COMPRESSED = 0x00040000;
 
+    /** Inflates the compressed records of both the sequential walk and the indexed decoder, one per run. */
+    static EsmInflaterPool inflaters;
+
+    /** Reused by the sequential walk for each record. */
+    static final EsmFieldCursor fieldCursor = new EsmFieldCursor();
+
     static void processTopGroups(DataInput din, String filterGroup) throws Exception {
         System.out.println(":---");
         String type = readChars(din, 4);
@@ -283,6 +253,86 @@ public final class EsmExport {
         processInnerGroup(din, filterGroup, type, size, "");
     }
 
+    /**
+     * Processes the whole file in two phases: first the record headers are indexed,
+     * then the records are inflated and parsed on a thread pool while their content
+     * is applied on the current thread in the original file order.
+     */
+    static void processIndexed(ByteBuffer bb, String filterGroup, int threads) throws Exception {
+        long t0 = System.nanoTime();
+        EsmRecordIndex index = EsmRecordIndex.scan(bb);
+        System.out.printf("Indexed %,d records in %,d top groups (%,d ms)%n",
+                index.size(), index.groupCount(), (System.nanoTime() - t0) / 1_000_000);
+
+        ExecutorService exec = Executors.newFixedThreadPool(threads);
+        try (IndexedGroupWriter groups = new IndexedGroupWriter(index, filterGroup)) {
+            EsmFieldCursor cursor = new EsmFieldCursor();
+            EsmRecordDecoder.decode(bb, index, exec, 256, threads * 4, inflaters, (record, data) -> {
+                PrintWriter save = groups.writerFor(record);
+                processRecord(save, index.type(record), index.formId(record), index.flags(record),
+                        cursor.reset(data, 0, data.limit()));
+            });
+            groups.finish();
+        } finally {
+            exec.shutdown();
+        }
+        System.out.printf("Decoded %,d records on %d threads (%,d ms)%n",
+                index.size(), threads, (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    /**
+     * Opens the per-group dump files of {@link #processInnerGroup} while the indexed records
+     * are applied in order.
+     */
+    static final class IndexedGroupWriter implements Closeable {
+        final EsmRecordIndex index;
+
+        final String filterGroup;
+
+        int group = -1;
+
+        PrintWriter save;
+
+        IndexedGroupWriter(EsmRecordIndex index, String filterGroup) {
+            this.index = index;
+            this.filterGroup = filterGroup;
+        }
+
+        PrintWriter writerFor(int record) throws IOException {
+            moveTo(index.topGroup(record));
+            return index.isDirect(record) ? save : null;
+        }
+
+        void moveTo(int target) throws IOException {
+            while (group < target) {
+                if (save != null) {
+                    save.close();
+                    save = null;
+                }
+                group++;
+                String groupLabel = intToChar(index.groupLabel(group));
+                System.out.printf("GRUP for %s%n", groupLabel);
+                if (filterGroup == null || filterGroup.contains(groupLabel)) {
+                    save = new PrintWriter(new FileWriter(
+                            basePath + "Dump\\SeventySix_" + groupLabel + ".txt"));
+                }
+            }
+        }
+
+        /** Creates the dump files of the trailing groups without records. */
+        void finish() throws IOException {
+            moveTo(index.groupCount() - 1);
+        }
+
+        @Override
+        public void close() {
+            if (save != null) {
+                save.close();
+                save = null;
+            }
+        }
+    }
+
     static double getProgress(DataInput din) throws IOException {
         long fileOffset = 0;
         long len = 1;
@@ -372,11 +422,11 @@ public final class EsmExport {
     }
 
     static int processRecords(DataInput din, PrintWriter save, String filterGroup, String debugPrefix) throws Exception {
-        String type = readChars(din, 4);
+        int type = Integer.reverseBytes(din.readInt());
         int size = Integer.reverseBytes(din.readInt());
 
-        if (type.equals("GRUP")) {
-            processInnerGroup(din, filterGroup, type, size, debugPrefix + "  ");
+        if (type == EsmRecordIndex.GRUP) {
+            processInnerGroup(din, filterGroup, "GRUP", size, debugPrefix + "  ");
             return size;
         }
 
@@ -404,81 +454,87 @@ public final class EsmExport {
         // skip version control and unknown
         din.skipBytes(8);
 
-        if (save != null) {
-            save.printf("%s %08X %d%n", type, id, flags);
-        }
-
-        if (type.equals("LVLI")) {
-            usedFormIDs.add(id);
-        }
-
-        int propertySize = size;
-        DataInput fieldInput = din;
+        ByteBuffer fieldData;
         if (isCompressed) {
             int decompressSize = Integer.reverseBytes(din.readInt());
             if (size < 0) {
                 System.err.println("wtf? " + ((RandomAccessFile)din).getFilePointer());
             }
-            byte[] inputbuf = new byte[size - 4];
-            din.readFully(inputbuf);
-
-            Inflater inflater = new Inflater();
-            inflater.setInput(inputbuf);
-
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(decompressSize);
-            byte[] buffer = new byte[1024];
-            while (!inflater.finished()) {
-                int count = inflater.inflate(buffer);
-                outputStream.write(buffer, 0, count);
+            ByteBuffer compressed;
+            if (din instanceof DataInputByteBuffer) {
+                compressed = ((DataInputByteBuffer)din).readSlice(size - 4);
+            } else {
+                byte[] inputbuf = new byte[size - 4];
+                din.readFully(inputbuf);
+                compressed = ByteBuffer.wrap(inputbuf);
             }
-            outputStream.close();
-            byte[] output = outputStream.toByteArray();
 
-            fieldInput = new DataInputStream(new ByteArrayInputStream(output));
+            fieldData = inflaters.inflate(compressed, decompressSize);
 
             // data starts here
             //din.skipBytes(size);
-            propertySize = output.length;
+        } else if (din instanceof DataInputByteBuffer) {
+            fieldData = ((DataInputByteBuffer)din).readSlice(size);
+        } else {
+            byte[] data = new byte[size];
+            din.readFully(data);
+            fieldData = ByteBuffer.wrap(data);
         }
+        fieldData.order(ByteOrder.LITTLE_ENDIAN);
 
-        List<FieldEntry> fieldList = processFields(fieldInput, propertySize);
+        processRecord(save, type, id, flags, fieldCursor.reset(fieldData, 0, fieldData.limit()));
 
-        for (FieldEntry fe : fieldList) {
+        return size + 24;
+    }
+
+    static void processRecord(PrintWriter save, int type, int id, int flags, EsmFieldCursor fe) {
+        if (save != null) {
+            save.printf("%s %08X %d%n", intToChar(type), id, flags);
+        }
+
+        if (type == EsmFieldCursor.LVLI) {
+            usedFormIDs.add(id);
+        }
+
+        while (fe.next()) {
+            int ftype = fe.tag();
             //System.out.printf("      + %s%n", fe.asString(type));
             if (save != null) {
-                fe.printBinary(save, type);
+                fe.toFieldEntry().printBinary(save, intToChar(type));
             }
-            if (fe.type.equals("EDID")) {
-                saveIds.printf("%s,%08X,%s%n", type, id, fe.getZString());
-                edidMap.put(id, type + fe.getZString());
+            if (ftype == EsmFieldCursor.EDID) {
+                String typeName = intToChar(type);
+                String edid = fe.getZString();
+                saveIds.text(typeName).text(',').hex(id).text(',').text(edid).newLine();
+                edidMap.put(id, typeName + edid);
             }
-            if (fe.type.equals("FULL")) {
-                descriptionMap.putIfAbsent(id, fe.getAsObjectID());
+            if (ftype == EsmFieldCursor.FULL) {
+                descriptionMap.putIfAbsent(id, fe.getInt());
             }
 
-            if (type.equals("LVLI")) {
-                if ("LVLO".equals(fe.type) && fe.data.length == 12) {
-                    usedFormIDs.add(fe.getAsObjectID(4));
+            if (type == EsmFieldCursor.LVLI) {
+                if (ftype == EsmFieldCursor.LVLO && fe.length() == 12) {
+                    usedFormIDs.add(fe.getInt(4));
                 } else
-                if (OBJECT_FIELDS.contains(fe.type)) {
-                    usedFormIDs.add(fe.getAsObjectID());
+                if (isObjectField(ftype)) {
+                    usedFormIDs.add(fe.getInt());
                 }
-                if (fe.type.equals("CTDA")) {
-                    usedFormIDs.addAll(fe.getConditionObjectIDs());
+                if (ftype == EsmFieldCursor.CTDA) {
+                    addConditionObjectIDs(fe, usedFormIDs);
                 }
             }
-            if (type.equals("GLOB") && fe.type.equals("FLTV")) {
-                globalValues.put(id, fe.getAsFloat());
+            if (type == EsmFieldCursor.GLOB && ftype == EsmFieldCursor.FLTV) {
+                globalValues.put(id, fe.getFloat());
             }
-            if (type.equals("CURV")) {
-                if (fe.type.equals("JASF") || fe.type.equals("CRVE")) {
+            if (type == EsmFieldCursor.CURV) {
+                if (ftype == EsmFieldCursor.JASF || ftype == EsmFieldCursor.CRVE) {
                     curveTables.put(id, fe.getZString());
                 }
             }
         }
 
-        if (type.equals("LVLI")) {
-            leveledList.printf("\"%08X\": {%n", id);
+        if (type == EsmFieldCursor.LVLI) {
+            leveledList.quotedHex(id).text(": {").newLine();
 
             int listcount = 0;
             boolean conditionMode = false;
@@ -486,142 +542,143 @@ public final class EsmExport {
             boolean hasEntl = false;
             boolean hadList = false;
 
-            for (int i = 0; i < fieldList.size(); i++) {
-                FieldEntry fe = fieldList.get(i);
+            fe.rewind();
+            while (fe.next()) {
+                int ftype = fe.tag();
 
-                if (listcount == 0 && conditionMode && !"CTDA".equals(fe.type)) {
+                if (listcount == 0 && conditionMode && ftype != EsmFieldCursor.CTDA) {
                     conditionMode = false;
-                    leveledList.printf("    ],%n");
+                    leveledList.text("    ]").comma().newLine();
                 }
 
-                if ("LLCT".equals(fe.type)) {
-                    listcount = fe.data[0];
-                    leveledList.printf("  \"Entries\": [%n");
+                if (ftype == EsmFieldCursor.LLCT) {
+                    listcount = fe.getByte(0);
+                    leveledList.text("  \"Entries\": [").newLine();
                     hadList = listcount != 0;
                     continue;
                 }
                 if (listcount != 0) {
-                    if (conditionMode && !"CTDA".equals(fe.type)) {
+                    if (conditionMode && ftype != EsmFieldCursor.CTDA) {
                         conditionMode = false;
-                        leveledList.printf("      ],%n");
+                        leveledList.text("      ]").comma().newLine();
                     }
-                    switch (fe.type) {
-                        case "LVLO":
+                    switch (ftype) {
+                        case EsmFieldCursor.LVLO:
                             if (once) {
-                                leveledList.printf("    },%n");
+                                leveledList.text("    }").comma().newLine();
                             }
                             once = true;
-                            leveledList.printf("    {%n");
-                            if (fe.data.length == 4) {
-                                leveledList.printf("      \"Object\": \"%08X\",%n", fe.getAsObjectID());
+                            leveledList.text("    {").newLine();
+                            if (fe.length() == 4) {
+                                leveledList.text("      \"Object\": ").quotedHex(fe.getInt()).comma().newLine();
                             } else {
-                                leveledList.printf("      \"Object\": \"%08X\",%n", fe.getAsObjectID(4));
-                                if (fe.data[10] > 0) {
-                                    leveledList.printf(Locale.US, "      \"%s\": %d,%n", "LVOV", fe.data[10]);
+                                leveledList.text("      \"Object\": ").quotedHex(fe.getInt(4)).comma().newLine();
+                                if (fe.getByte(10) > 0) {
+                                    leveledList.text("      \"LVOV\": ").integer(fe.getByte(10)).comma().newLine();
                                 }
-                                if (fe.getAsShort(8) > 1) {
-                                    leveledList.printf(Locale.US, "      \"%s\": %d,%n", "LVIV", fe.getAsShort(8));
+                                if (fe.getShort(8) > 1) {
+                                    leveledList.text("      \"LVIV\": ").integer(fe.getShort(8)).comma().newLine();
                                 }
-                                if (fe.getAsShort(0) > 1) {
-                                    leveledList.printf(Locale.US, "      \"%s\": %d,%n", "LVLV", fe.getAsShort(0));
+                                if (fe.getShort(0) > 1) {
+                                    leveledList.text("      \"LVLV\": ").integer(fe.getShort(0)).comma().newLine();
                                 }
                             }
                             break;
-                        case "LVOV": { // omission chance value
-                            float fv = fe.getAsFloat();
+                        case EsmFieldCursor.LVOV: { // omission chance value
+                            float fv = fe.getFloat();
                             if (fv > 0.0f) {
-                                leveledList.printf(Locale.US, "      \"%s\": %f,%n", fe.type, fv);
+                                leveledList.text("      \"").text(fe.tagName()).text("\": ").fixed(fv).comma().newLine();
                             }
                             break;
                         }
-                        case "LVIV": { // quantity
-                            float fv = fe.getAsFloat();
+                        case EsmFieldCursor.LVIV: { // quantity
+                            float fv = fe.getFloat();
                             if (fv > 1.0f) {
-                                leveledList.printf(Locale.US, "      \"%s\": %f,%n", fe.type, fv);
+                                leveledList.text("      \"").text(fe.tagName()).text("\": ").fixed(fv).comma().newLine();
                             }
                             break;
                         }
-                        case "LVLV": { // min level, 0-1 has no relevant meaning here
-                            float fv = fe.getAsFloat();
+                        case EsmFieldCursor.LVLV: { // min level, 0-1 has no relevant meaning here
+                            float fv = fe.getFloat();
                             if (fv > 1.0f) {
-                                leveledList.printf(Locale.US, "      \"%s\": %f,%n", fe.type, fv);
+                                leveledList.text("      \"").text(fe.tagName()).text("\": ").fixed(fv).comma().newLine();
                             }
                             break;
                         }
-                        case "LVOC":
-                        case "LVOT":
-                        case "LVIG":
-                        case "LVOG":
-                        case "LVLT":
-                            leveledList.printf(Locale.US, "      \"%s\": \"%08X\",%n", fe.type, fe.getAsObjectID());
+                        case EsmFieldCursor.LVOC:
+                        case EsmFieldCursor.LVOT:
+                        case EsmFieldCursor.LVIG:
+                        case EsmFieldCursor.LVOG:
+                        case EsmFieldCursor.LVLT:
+                            leveledList.text("      \"").text(fe.tagName()).text("\": ").quotedHex(fe.getInt()).comma().newLine();
                             break;
                     }
-                    if ("CTDA".equals(fe.type)) {
+                    if (ftype == EsmFieldCursor.CTDA) {
                         if (!conditionMode) {
                             conditionMode = true;
-                            leveledList.printf("      \"Conditions\": [%n");
+                            leveledList.text("      \"Conditions\": [").newLine();
                         }
                         addCTDA("      ", fe);
                     }
                 } else {
-                    if (conditionMode && !"CTDA".equals(fe.type)) {
+                    if (conditionMode && ftype != EsmFieldCursor.CTDA) {
                         conditionMode = false;
-                        leveledList.printf("  ],%n");
+                        leveledList.text("  ]").comma().newLine();
                     }
 
-                    switch (fe.type) {
-                        case "LVMG":
-                        case "LVMT":
-                        case "LVLG":
-                        case "LVCT":
-                            leveledList.printf("  \"%s\": \"%08X\",%n", fe.type, fe.getAsObjectID());
+                    switch (ftype) {
+                        case EsmFieldCursor.LVMG:
+                        case EsmFieldCursor.LVMT:
+                        case EsmFieldCursor.LVLG:
+                        case EsmFieldCursor.LVCT:
+                            leveledList.text("  \"").text(fe.tagName()).text("\": ").quotedHex(fe.getInt()).comma().newLine();
                             break;
-                        case "LVMV":
-                        case "LVCV": {
-                            float fv = fe.getAsFloat();
+                        case EsmFieldCursor.LVMV:
+                        case EsmFieldCursor.LVCV: {
+                            float fv = fe.getFloat();
 
                             // don't add default-zero entries
                             if (fv != 0.0f) {
-                                leveledList.printf(Locale.US, "  \"%s\": %f,%n", fe.type, fv);
+                                leveledList.text("  \"").text(fe.tagName()).text("\": ").fixed(fv).comma().newLine();
                             }
                             break;
                         }
-                        case "LVLD": {
-                            if (fe.data.length != 0 && fe.data[0] != 0) {
-                                leveledList.printf(Locale.US, "  \"%s\": %d,%n", "LVCV", fe.data[0]);
+                        case EsmFieldCursor.LVLD: {
+                            if (fe.length() != 0 && fe.getByte(0) != 0) {
+                                leveledList.text("  \"LVCV\": ").integer(fe.getByte(0)).comma().newLine();
                             }
 
                             break;
                         }
-                        case "LVLF": {
+                        case EsmFieldCursor.LVLF: {
                             int f = 0;
-                            if (fe.data.length >= 1) {
-                                f = fe.data[0];
+                            if (fe.length() >= 1) {
+                                f = fe.getByte(0);
                             }
-                            if (fe.data.length >= 2) {
-                                f += (fe.data[1] & 0xFF) * 256;
+                            if (fe.length() >= 2) {
+                                f += (fe.getByte(1) & 0xFF) * 256;
                             }
-                            leveledList.print(String.format("  \"%s\": %d,%n", fe.type, f));
+                            leveledList.text("  \"").text(fe.tagName()).text("\": ").integer(f).comma().newLine();
                             break;
                         }
                     }
-                    if ("CTDA".equals(fe.type)) {
+                    if (ftype == EsmFieldCursor.CTDA) {
                         if (!conditionMode) {
                             conditionMode = true;
-                            leveledList.printf("  \"Conditions\": [%n");
+                            leveledList.text("  \"Conditions\": [").newLine();
                         }
                         addCTDA("", fe);
                     }
                 }
-                if ("ENLT".equals(fe.type)) {
+                if (ftype == EsmFieldCursor.ENLT) {
                     if (conditionMode) {
                         conditionMode = false;
-                        leveledList.printf("      ],%n");
+                        leveledList.text("      ]").comma().newLine();
                     }
                     listcount = 0;
                     if (hadList) {
-                        leveledList.printf("    },%n");
-                        leveledList.printf("  ],%n");
+                        leveledList.text("    }").comma().newLine();
+                        leveledList.text("  ]").comma().newLine();
                     }
                     hasEntl = true;
                     break;
@@ -632,63 +689,99 @@ public final class EsmExport {
                 if (hadList) {
                     if (conditionMode) {
                         conditionMode = false;
-                        leveledList.printf("      ],%n");
+                        leveledList.text("      ]").comma().newLine();
                     }
-                    leveledList.printf("    },%n");
-                    leveledList.printf("  ],%n");
+                    leveledList.text("    }").comma().newLine();
+                    leveledList.text("  ]").comma().newLine();
                 }
                 if (conditionMode) {
                     conditionMode = false;
-                    leveledList.printf("  ],%n");
+                    leveledList.text("  ]").comma().newLine();
                 }
             }
 
-            leveledList.printf("},%n");
+            leveledList.text("}").comma().newLine();
         }
+    }
 
-        return size + 24;
+    static boolean isObjectField(int ftype) {
+        switch (ftype) {
+            case EsmFieldCursor.LVLO: // object ref
+            case EsmFieldCursor.LVOG: // minimum level global ref
+            case EsmFieldCursor.LVOC: // omission global ref
+            case EsmFieldCursor.LVOT: // omission curve table
+            case EsmFieldCursor.LVIG: // quantity global
+            case EsmFieldCursor.LVSG: // epic chance global ref
+            case EsmFieldCursor.LVLG: // list omission global
+            case EsmFieldCursor.LVCT: // list omission curve table
+            case EsmFieldCursor.LVLT: // list minimum level global ref
+            case EsmFieldCursor.LVMG: // list max global
+            case EsmFieldCursor.LVMT: // list max curve table
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Adds the form IDs a CTDA condition refers to, see {@link FieldEntry#getConditionObjectIDs()}.
+     */
+    static void addConditionObjectIDs(EsmFieldCursor fe, IntSet out) {
+        // global flag
+        if ((fe.getByte(0) & 4) != 0) {
+            out.add(fe.getInt(4));
+        }
+        // param 1
+        out.add(fe.getInt(12));
+        // param 2
+        out.add(fe.getInt(16));
+
+        // run on: reference
+        if (fe.getByte(20) == 2) {
+            out.add(fe.getInt(24));
+        }
     }
 
-    static void addCTDA(String prefix, FieldEntry fe) {
+    static void addCTDA(String prefix, EsmFieldCursor fe) {
 
-        leveledList.printf("%s    {%n", prefix);
-        leveledList.printf("%s      \"Operator\": %d,%n", prefix, fe.data[0]);
-        int v = toInt(fe.data[4], fe.data[5], fe.data[6], fe.data[7]);
-        if ((fe.data[0] & 4) != 0) {
-            leveledList.printf("%s      \"Ref\": \"%08X\",%n", prefix, v);
+        leveledList.text(prefix).text("    {").newLine();
+        leveledList.text(prefix).text("      \"Operator\": ").integer(fe.getByte(0)).comma().newLine();
+        int v = fe.getInt(4);
+        if ((fe.getByte(0) & 4) != 0) {
+            leveledList.text(prefix).text("      \"Ref\": ").quotedHex(v).comma().newLine();
         } else {
-            leveledList.printf(Locale.US, "%s      \"Value\": %s,%n", prefix, Float.intBitsToFloat(v));
+            leveledList.text(prefix).text("      \"Value\": ").floatValue(Float.intBitsToFloat(v)).comma().newLine();
         }
-        int findex = toInt(fe.data[8], fe.data[9]) + 4096;
-        leveledList.printf("%s      \"Function\": %d,%n", prefix, findex);
-        leveledList.printf("%s      \"FunctionName\": \"%s\",%n", prefix, FUNCTION_MAP.get(findex));
+        int findex = fe.getShort(8) + 4096;
+        leveledList.text(prefix).text("      \"Function\": ").integer(findex).comma().newLine();
+        leveledList.text(prefix).text("      \"FunctionName\": \"").text(FUNCTION_MAP.get(findex)).text("\"").comma().newLine();
 
-        int p1 = toInt(fe.data[12], fe.data[13], fe.data[14], fe.data[15]);
-        leveledList.printf("%s      \"Param1Ref\": \"%08X\",%n", prefix, p1);
-        leveledList.printf(Locale.US, "%s      \"Param1Value\": %s,%n", prefix, Float.intBitsToFloat(p1));
+        int p1 = fe.getInt(12);
+        leveledList.text(prefix).text("      \"Param1Ref\": ").quotedHex(p1).comma().newLine();
+        leveledList.text(prefix).text("      \"Param1Value\": ").floatValue(Float.intBitsToFloat(p1)).comma().newLine();
 
-        int p2 = toInt(fe.data[16], fe.data[17], fe.data[18], fe.data[19]);
-        leveledList.printf("%s      \"Param2Ref\": \"%08X\",%n", prefix, p2);
-        leveledList.printf(Locale.US, "%s      \"Param2Value\": %s,%n", prefix, Float.intBitsToFloat(p2));
+        int p2 = fe.getInt(16);
+        leveledList.text(prefix).text("      \"Param2Ref\": ").quotedHex(p2).comma().newLine();
+        leveledList.text(prefix).text("      \"Param2Value\": ").floatValue(Float.intBitsToFloat(p2)).comma().newLine();
 
-        switch (fe.data[20]) {
+        switch (fe.getByte(20)) {
         case 0: {
-            leveledList.printf("%s      \"RunOn\": \"Subject\"%n", prefix);
+            leveledList.text(prefix).text("      \"RunOn\": \"Subject\"").newLine();
             break;
         }
         case 1: {
-            leveledList.printf("%s      \"RunOn\": \"Target\"%n", prefix);
+            leveledList.text(prefix).text("      \"RunOn\": \"Target\"").newLine();
             break;
         }
         case 2: {
-            leveledList.printf("%s      \"RunOn\": \"Ref\",%n", prefix);
-            int rf = toInt(fe.data[24], fe.data[25], fe.data[26], fe.data[27]);
-            leveledList.printf("%s      \"RunOnRef\": \"%08X\"%n", prefix, rf);
+            leveledList.text(prefix).text("      \"RunOn\": \"Ref\"").comma().newLine();
+            int rf = fe.getInt(24);
+            leveledList.text(prefix).text("      \"RunOnRef\": ").quotedHex(rf).newLine();
             break;
         }
         }
 
-        leveledList.printf("%s    },%n", prefix);
+        leveledList.text(prefix).text("    }").comma().newLine();
     }
 
     static void findEntry(List<FieldEntry> list, String entry, PrintWriter out, BiConsumer<FieldEntry, PrintWriter> handler) {
@@ -1156,22 +1249,6 @@ public final class EsmExport {
         FUNCTION_MAP.put(9100, "PlayerHasQuest");
     }
 
-    static final Set<String> OBJECT_FIELDS = new HashSet<>(Arrays.asList(
-            "LVLO", // object ref
-            "LVOG", // minimum level global ref
-            "LVOC", // omission global ref
-            "LVOT", // omission curve table
-            "LVIG", // quantity global
-
-            "LVSG", // epic chance global ref
-
-            "LVLG", // list omission global
-            "LVCT",  // list omission curve table
-            "LVLT", // list minimum level global ref
-            "LVMG", // list max global
-            "LVMT" // list max curve table
-    ));
-
     static final Set<String> IGNORE_FIELDS = new HashSet<>(Arrays.asList(
             "OBND", "ONAM", "ENLT", "ENLS", "AUUV"
     ));
@@ -0,0 +1,213 @@
+package hu.akarnokd.fallout76;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Flyweight cursor over the fields (subrecords) of a record's data.
+ * <p>
+ * Tags are the little-endian ints of their 4 characters so they can be compared and
+ * switched on without creating Strings; the payload is read in place from the buffer.
+ * An {@code XXXX} field's value is used as the size of the following zero-sized field.
+ */
+public final class EsmFieldCursor {
+
+    public static final int EDID = 0x44494445;
+    public static final int FULL = 0x4C4C5546;
+    public static final int XXXX = 0x58585858;
+    public static final int CTDA = 0x41445443;
+    public static final int FLTV = 0x56544C46;
+    public static final int JASF = 0x4653414A;
+    public static final int CRVE = 0x45565243;
+    public static final int LLCT = 0x54434C4C;
+    public static final int ENLT = 0x544C4E45;
+    public static final int LVLO = 0x4F4C564C;
+    public static final int LVOV = 0x564F564C;
+    public static final int LVIV = 0x5649564C;
+    public static final int LVLV = 0x564C564C;
+    public static final int LVOC = 0x434F564C;
+    public static final int LVOT = 0x544F564C;
+    public static final int LVIG = 0x4749564C;
+    public static final int LVOG = 0x474F564C;
+    public static final int LVSG = 0x4753564C;
+    public static final int LVLT = 0x544C564C;
+    public static final int LVMG = 0x474D564C;
+    public static final int LVMT = 0x544D564C;
+    public static final int LVLG = 0x474C564C;
+    public static final int LVCT = 0x5443564C;
+    public static final int LVMV = 0x564D564C;
+    public static final int LVCV = 0x5643564C;
+    public static final int LVLD = 0x444C564C;
+    public static final int LVLF = 0x464C564C;
+
+    public static final int LVLI = 0x494C564C;
+    public static final int GLOB = 0x424F4C47;
+    public static final int CURV = 0x56525543;
+
+    ByteBuffer buffer;
+
+    int start;
+
+    int end;
+
+    int position;
+
+    int tag;
+
+    int offset;
+
+    int length;
+
+    /**
+     * Points the cursor before the first field of the given region.
+     * @param buffer the buffer, read with absolute, little-endian accesses
+     * @param start the offset of the first field
+     * @param end the end offset (exclusive) of the fields
+     * @return this
+     */
+    public EsmFieldCursor reset(ByteBuffer buffer, int start, int end) {
+        if (buffer.order() != ByteOrder.LITTLE_ENDIAN) {
+            buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        }
+        this.buffer = buffer;
+        this.start = start;
+        this.end = end;
+        rewind();
+        return this;
+    }
+
+    /**
+     * Points the cursor before the first field again.
+     */
+    public void rewind() {
+        position = start;
+        tag = 0;
+        offset = start;
+        length = 0;
+    }
+
+    /**
+     * Moves to the next field.
+     * @return false if there are no more fields
+     * @throws UncheckedIOException if a field extends beyond the end of the record
+     */
+    public boolean next() {
+        int p = position;
+        if (p >= end) {
+            return false;
+        }
+        if (p + 6 > end) {
+            throw new UncheckedIOException(new EOFException("Truncated field header at " + p));
+        }
+        ByteBuffer b = buffer;
+        int t = b.getInt(p);
+        int len = b.getShort(p + 4) & 0xFFFF;
+        if (len == 0 && tag == XXXX && length >= 4) {
+            len = b.getInt(offset);
+        }
+        if (p + 6 + len > end) {
+            throw new UncheckedIOException(new EOFException(
+                    "Field " + EsmExport.intToChar(t) + " at " + p + " has " + len + " bytes but only " + (end - p - 6) + " remain"));
+        }
+        tag = t;
+        offset = p + 6;
+        length = len;
+        position = p + 6 + len;
+        return true;
+    }
+
+    /** @return the current field's tag as little-endian int */
+    public int tag() {
+        return tag;
+    }
+
+    /** @return the current field's tag as String, allocates */
+    public String tagName() {
+        return EsmExport.intToChar(tag);
+    }
+
+    /** @return the buffer offset of the current field's payload */
+    public int offset() {
+        return offset;
+    }
+
+    /** @return the payload length of the current field */
+    public int length() {
+        return length;
+    }
+
+    public byte getByte(int index) {
+        check(index, 1);
+        return buffer.get(offset + index);
+    }
+
+    /** @return the unsigned 16 bit value at the given payload index */
+    public int getShort(int index) {
+        check(index, 2);
+        return buffer.getShort(offset + index) & 0xFFFF;
+    }
+
+    public int getInt() {
+        return getInt(0);
+    }
+
+    public int getInt(int index) {
+        check(index, 4);
+        return buffer.getInt(offset + index);
+    }
+
+    public float getFloat() {
+        check(0, 4);
+        return buffer.getFloat(offset);
+    }
+
+    /**
+     * Makes sure a read stays within the current field's payload.
+     * @throws UncheckedIOException if the field is too short
+     */
+    void check(int index, int size) {
+        if (index < 0 || index + size > length) {
+            throw new UncheckedIOException(new EOFException(
+                    "Field " + EsmExport.intToChar(tag) + " at " + (offset - 6) + " has " + length
+                    + " bytes but " + size + " were read at " + index));
+        }
+    }
+
+    /**
+     * Returns the payload without its zero terminator.
+     * @return the new String
+     */
+    public String getZString() {
+        int len = Math.max(0, length - 1);
+        ByteBuffer b = buffer;
+        if (b.hasArray()) {
+            return new String(b.array(), b.arrayOffset() + offset, len, StandardCharsets.ISO_8859_1);
+        }
+        byte[] bytes = new byte[len];
+        b.get(offset, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Copies the current field into a {@link EsmExport.FieldEntry} for the dump printers.
+     * @return the new entry
+     */
+    EsmExport.FieldEntry toFieldEntry() {
+        byte[] data = new byte[length];
+        buffer.get(offset, data);
+        return new EsmExport.FieldEntry(tagName(), data);
+    }
+
+    /**
+     * Packs the 4 characters of a tag into an int the way {@link #tag()} returns it.
+     * @param tag the 4 character tag
+     * @return the packed tag
+     */
+    public static int tag(String tag) {
+        return (tag.charAt(0) & 0xFF)
+                | ((tag.charAt(1) & 0xFF) << 8)
+                | ((tag.charAt(2) & 0xFF) << 16)
+                | ((tag.charAt(3) & 0xFF) << 24);
+    }
+}
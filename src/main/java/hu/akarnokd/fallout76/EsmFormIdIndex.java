@@ -0,0 +1,478 @@
+package hu.akarnokd.fallout76;
+
+import java.io.IOException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.zip.*;
+
+/**
+ * Persistent, memory-mapped index of the records of an ESM file keyed by form ID.
+ * <p>
+ * The index file is reused as long as the size and modification time of the ESM match the
+ * ones recorded in it. Otherwise only those top groups are parsed again whose size or CRC32
+ * changed, the entries of the others are carried over from the old index.
+ * <p>
+ * Layout, all little-endian:
+ * <pre>
+ * header:  int magic "FIDX", int version, long esmSize, long esmMtime,
+ *          int groupCount, int recordCount, int poolSize, int reserved
+ * groups:  groupCount * (int label, int offset, int size, int crc32)
+ * records: int[recordCount] formIds (sorted), int[] types, int[] recordOffsets,
+ *          int[] edidOffsets (-1 if none), int[] groups
+ * pool:    zero-terminated EDID strings
+ * </pre>
+ */
+public final class EsmFormIdIndex {
+
+    static final int MAGIC = 0x58444946;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 40;
+
+    static final int GROUP_ENTRY_SIZE = 16;
+
+    static final int EDID = 0x44494445;
+
+    static final int XXXX = 0x58585858;
+
+    /** The number of bytes inflated first when looking for the EDID of a compressed record. */
+    static final int PARTIAL_INFLATE = 512;
+
+    final ByteBuffer buffer;
+
+    final int size;
+
+    final int groupCount;
+
+    final int idsOffset;
+
+    final int poolOffset;
+
+    final int rebuiltGroups;
+
+    EsmFormIdIndex(ByteBuffer buffer, int rebuiltGroups) {
+        this.buffer = buffer;
+        this.groupCount = buffer.getInt(24);
+        this.size = buffer.getInt(28);
+        this.idsOffset = HEADER_SIZE + groupCount * GROUP_ENTRY_SIZE;
+        this.poolOffset = idsOffset + 5 * 4 * size;
+        this.rebuiltGroups = rebuiltGroups;
+    }
+
+    /**
+     * Maps the index of the given ESM file, building or incrementally updating it first
+     * if it is missing or outdated.
+     * @param esm the ESM file
+     * @param indexFile the index file
+     * @return the index
+     * @throws IOException if reading the ESM or writing the index failed
+     */
+    public static EsmFormIdIndex open(Path esm, Path indexFile) throws IOException {
+        BasicFileAttributes attr = Files.readAttributes(esm, BasicFileAttributes.class);
+        long esmSize = attr.size();
+        long esmTime = attr.lastModifiedTime().toMillis();
+
+        ByteBuffer old = null;
+        if (Files.isRegularFile(indexFile)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            try (FileChannel fc = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+                while (header.hasRemaining() && fc.read(header) >= 0) { }
+            }
+            if (!header.hasRemaining() && header.getInt(0) == MAGIC && header.getInt(4) == VERSION) {
+                if (header.getLong(8) == esmSize && header.getLong(16) == esmTime) {
+                    return new EsmFormIdIndex(map(indexFile), 0);
+                }
+                old = ByteBuffer.wrap(Files.readAllBytes(indexFile)).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        int rebuilt = build(esm, esmSize, esmTime, old == null ? null : new EsmFormIdIndex(old, 0), indexFile);
+        return new EsmFormIdIndex(map(indexFile), rebuilt);
+    }
+
+    static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ)) {
+            return fc.map(MapMode.READ_ONLY, 0, fc.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    static int build(Path esm, long esmSize, long esmTime, EsmFormIdIndex old, Path indexFile) throws IOException {
+        ByteBuffer file;
+        try (FileChannel fc = FileChannel.open(esm, StandardOpenOption.READ)) {
+            file = fc.map(MapMode.READ_ONLY, 0, fc.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        EsmRecordIndex records = EsmRecordIndex.scan(file);
+        int gc = records.groupCount();
+
+        int[] crcs = new int[gc];
+        int[] reuse = new int[gc];
+        Arrays.fill(reuse, -1);
+        boolean[] taken = new boolean[old != null ? old.groupCount : 0];
+
+        CRC32 crc = new CRC32();
+        for (int g = 0; g < gc; g++) {
+            crc.reset();
+            crc.update(file.slice(records.groupOffset(g), records.groupSize(g)));
+            crcs[g] = (int)crc.getValue();
+
+            for (int og = 0; og < taken.length; og++) {
+                if (!taken[og]
+                        && old.groupLabel(og) == records.groupLabel(g)
+                        && old.groupSize(og) == records.groupSize(g)
+                        && old.groupCrc(og) == crcs[g]) {
+                    taken[og] = true;
+                    reuse[g] = og;
+                    break;
+                }
+            }
+        }
+
+        Builder b = new Builder(Math.max(16, records.size()));
+        int rebuilt = 0;
+
+        if (old != null) {
+            int[] oldToNew = new int[old.groupCount];
+            Arrays.fill(oldToNew, -1);
+            for (int g = 0; g < gc; g++) {
+                if (reuse[g] >= 0) {
+                    oldToNew[reuse[g]] = g;
+                }
+            }
+            for (int i = 0; i < old.size; i++) {
+                int og = old.group(i);
+                int g = oldToNew[og];
+                if (g >= 0) {
+                    int offset = old.recordOffset(i) - old.groupOffset(og) + records.groupOffset(g);
+                    b.add(old.formId(i), old.type(i), offset, b.copyString(old, old.edidOffset(i)), g);
+                }
+            }
+        }
+
+        for (int g = 0; g < gc; g++) {
+            if (reuse[g] < 0) {
+                rebuilt++;
+            }
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            for (int r = 0; r < records.size(); r++) {
+                int g = records.topGroup(r);
+                if (reuse[g] < 0) {
+                    b.add(records.formId(r), records.type(r), records.offset(r), b.extractEdid(file, records, r, inflater), g);
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+
+        b.write(indexFile, esmSize, esmTime, records, crcs);
+        return rebuilt;
+    }
+
+    /** @return the number of records in the index */
+    public int size() {
+        return size;
+    }
+
+    /** @return the number of top groups parsed while opening, zero if the index was up-to-date */
+    public int rebuiltGroups() {
+        return rebuiltGroups;
+    }
+
+    /**
+     * Binary searches for the entry of the given form ID.
+     * @param formId the form ID
+     * @return the entry index or -1 if not found
+     */
+    public int indexOf(int formId) {
+        ByteBuffer b = buffer;
+        int base = idsOffset;
+        int lo = 0;
+        int hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int v = b.getInt(base + mid * 4);
+            if (v < formId) {
+                lo = mid + 1;
+            } else if (v > formId) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(int formId) {
+        return indexOf(formId) >= 0;
+    }
+
+    /**
+     * @param formId the form ID
+     * @return the editor ID of the record or null if the record is unknown or has none
+     */
+    public String editorIdOf(int formId) {
+        int i = indexOf(formId);
+        return i < 0 ? null : editorId(i);
+    }
+
+    public int formId(int entry) {
+        return buffer.getInt(idsOffset + entry * 4);
+    }
+
+    /** @return the record type as the little-endian int of its 4 characters */
+    public int type(int entry) {
+        return buffer.getInt(idsOffset + (size + entry) * 4);
+    }
+
+    /** @return the ESM file offset of the record header */
+    public int recordOffset(int entry) {
+        return buffer.getInt(idsOffset + (2 * size + entry) * 4);
+    }
+
+    int edidOffset(int entry) {
+        return buffer.getInt(idsOffset + (3 * size + entry) * 4);
+    }
+
+    int group(int entry) {
+        return buffer.getInt(idsOffset + (4 * size + entry) * 4);
+    }
+
+    public String editorId(int entry) {
+        int offset = edidOffset(entry);
+        if (offset < 0) {
+            return null;
+        }
+        ByteBuffer b = buffer;
+        int start = poolOffset + offset;
+        int end = start;
+        while (b.get(end) != 0) {
+            end++;
+        }
+        byte[] bytes = new byte[end - start];
+        b.get(start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    int groupLabel(int group) {
+        return buffer.getInt(HEADER_SIZE + group * GROUP_ENTRY_SIZE);
+    }
+
+    int groupOffset(int group) {
+        return buffer.getInt(HEADER_SIZE + group * GROUP_ENTRY_SIZE + 4);
+    }
+
+    int groupSize(int group) {
+        return buffer.getInt(HEADER_SIZE + group * GROUP_ENTRY_SIZE + 8);
+    }
+
+    int groupCrc(int group) {
+        return buffer.getInt(HEADER_SIZE + group * GROUP_ENTRY_SIZE + 12);
+    }
+
+    /**
+     * Collects the entries in file order and writes them sorted by form ID.
+     */
+    static final class Builder {
+        int count;
+
+        int[] ids;
+
+        int[] types;
+
+        int[] offsets;
+
+        int[] edids;
+
+        int[] groups;
+
+        byte[] pool;
+
+        int poolSize;
+
+        byte[] inflated;
+
+        Builder(int capacity) {
+            ids = new int[capacity];
+            types = new int[capacity];
+            offsets = new int[capacity];
+            edids = new int[capacity];
+            groups = new int[capacity];
+            pool = new byte[capacity * 16];
+            inflated = new byte[1024];
+        }
+
+        void add(int id, int type, int offset, int edid, int group) {
+            int n = count;
+            if (n == ids.length) {
+                int c = n + (n >> 1);
+                ids = Arrays.copyOf(ids, c);
+                types = Arrays.copyOf(types, c);
+                offsets = Arrays.copyOf(offsets, c);
+                edids = Arrays.copyOf(edids, c);
+                groups = Arrays.copyOf(groups, c);
+            }
+            ids[n] = id;
+            types[n] = type;
+            offsets[n] = offset;
+            edids[n] = edid;
+            groups[n] = group;
+            count = n + 1;
+        }
+
+        int addString(ByteBuffer source, int start, int length) {
+            while (length > 0 && source.get(start + length - 1) == 0) {
+                length--;
+            }
+            int p = poolSize;
+            if (p + length + 1 > pool.length) {
+                pool = Arrays.copyOf(pool, Math.max(pool.length * 2, p + length + 1));
+            }
+            source.get(start, pool, p, length);
+            pool[p + length] = 0;
+            poolSize = p + length + 1;
+            return p;
+        }
+
+        int copyString(EsmFormIdIndex old, int offset) {
+            if (offset < 0) {
+                return -1;
+            }
+            int start = old.poolOffset + offset;
+            int end = start;
+            while (old.buffer.get(end) != 0) {
+                end++;
+            }
+            return addString(old.buffer, start, end - start);
+        }
+
+        /**
+         * Locates the EDID field of a record and adds it to the pool. Compressed records
+         * are inflated only partially first as the EDID is usually their first field.
+         * @return the pool offset or -1 if the record has no EDID
+         */
+        int extractEdid(ByteBuffer file, EsmRecordIndex records, int record, Inflater inflater) throws IOException {
+            int start = records.offset(record) + EsmRecordIndex.HEADER_SIZE;
+            int size = records.dataSize(record);
+
+            if (!records.isCompressed(record)) {
+                int r = findEdid(file, start, start + size);
+                return r == -2 ? -1 : r;
+            }
+
+            int total = file.getInt(start);
+            if (inflated.length < total) {
+                inflated = new byte[Math.max(total, inflated.length * 2)];
+            }
+            inflater.reset();
+            inflater.setInput(file.slice(start + 4, size - 4));
+
+            ByteBuffer view = ByteBuffer.wrap(inflated).order(ByteOrder.LITTLE_ENDIAN);
+            int n = inflate(inflater, 0, Math.min(total, PARTIAL_INFLATE), records, record);
+            int r = findEdid(view, 0, n);
+            // the window may also end on a field boundary before the EDID
+            if (r < 0 && n < total) {
+                n = inflate(inflater, n, total, records, record);
+                r = findEdid(view, 0, n);
+            }
+            return r == -2 ? -1 : r;
+        }
+
+        int inflate(Inflater inflater, int n, int want, EsmRecordIndex records, int record) throws IOException {
+            try {
+                while (n < want && !inflater.finished()) {
+                    int c = inflater.inflate(inflated, n, want - n);
+                    if (c == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    n += c;
+                }
+            } catch (DataFormatException ex) {
+                throw new IOException(String.format("Record %08X is corrupt", records.formId(record)), ex);
+            }
+            return n;
+        }
+
+        /**
+         * Walks the fields between start and end.
+         * @return the pool offset of the EDID, -1 if the fields ended without it or
+         * -2 if a field extends beyond end
+         */
+        int findEdid(ByteBuffer b, int start, int end) {
+            int p = start;
+            int extendedSize = -1;
+            while (p < end) {
+                if (p + 6 > end) {
+                    return -2;
+                }
+                int type = b.getInt(p);
+                int fsize = b.getShort(p + 4) & 0xFFFF;
+                if (fsize == 0 && extendedSize >= 0) {
+                    fsize = extendedSize;
+                }
+                extendedSize = -1;
+                if (p + 6 + fsize > end) {
+                    return -2;
+                }
+                if (type == EDID) {
+                    return addString(b, p + 6, fsize);
+                }
+                if (type == XXXX && fsize >= 4) {
+                    extendedSize = b.getInt(p + 6);
+                }
+                p += 6 + fsize;
+            }
+            return -1;
+        }
+
+        void write(Path indexFile, long esmSize, long esmTime, EsmRecordIndex records, int[] crcs) throws IOException {
+            int n = count;
+            long[] keys = new long[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = ((long)ids[i] << 32) | i;
+            }
+            Arrays.sort(keys);
+
+            int gc = records.groupCount();
+            int total = HEADER_SIZE + gc * GROUP_ENTRY_SIZE + 5 * 4 * n + poolSize;
+            ByteBuffer out = ByteBuffer.allocate(total).order(ByteOrder.LITTLE_ENDIAN);
+
+            out.putInt(MAGIC).putInt(VERSION).putLong(esmSize).putLong(esmTime)
+                .putInt(gc).putInt(n).putInt(poolSize).putInt(0);
+
+            for (int g = 0; g < gc; g++) {
+                out.putInt(records.groupLabel(g)).putInt(records.groupOffset(g))
+                    .putInt(records.groupSize(g)).putInt(crcs[g]);
+            }
+
+            for (int[] column : new int[][] { ids, types, offsets, edids, groups }) {
+                for (long k : keys) {
+                    out.putInt(column[(int)k]);
+                }
+            }
+            out.put(pool, 0, poolSize);
+            out.flip();
+
+            Path parent = indexFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            try (FileChannel fc = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (out.hasRemaining()) {
+                    fc.write(out);
+                }
+            }
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package hu.akarnokd.fallout76;
+
+import java.io.*;
+import java.nio.*;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.*;
+
+/**
+ * Decompresses zlib-packed ESM records with one reused {@link Inflater} and output buffer
+ * per thread and keeps count of the work done.
+ * <p>
+ * {@link #close()} releases the native memory of all the inflaters created so far; the pool
+ * can't be used afterwards.
+ */
+public final class EsmInflaterPool implements Closeable {
+
+    final ThreadLocal<Slot> slots;
+
+    final Queue<Slot> all;
+
+    final LongAdder records;
+
+    final LongAdder compressedBytes;
+
+    final LongAdder inflatedBytes;
+
+    final LongAdder inflateNanos;
+
+    volatile boolean closed;
+
+    public EsmInflaterPool() {
+        this.all = new ConcurrentLinkedQueue<>();
+        this.records = new LongAdder();
+        this.compressedBytes = new LongAdder();
+        this.inflatedBytes = new LongAdder();
+        this.inflateNanos = new LongAdder();
+        this.slots = ThreadLocal.withInitial(() -> {
+            if (closed) {
+                throw new IllegalStateException("EsmInflaterPool is closed");
+            }
+            Slot s = new Slot();
+            all.offer(s);
+            return s;
+        });
+    }
+
+    /**
+     * Inflates into the current thread's reused buffer.
+     * @param input the compressed bytes between its position and limit, consumed by the call
+     * @param decompressSize the declared size of the inflated data
+     * @return a little-endian view of the inflated bytes, valid until the next call on the same thread
+     * @throws IOException if the data is corrupt or doesn't inflate to exactly decompressSize bytes
+     * @throws IllegalStateException if the pool has been closed
+     */
+    public ByteBuffer inflate(ByteBuffer input, int decompressSize) throws IOException {
+        Slot s = slot();
+        ByteBuffer out = s.buffer;
+        if (out.capacity() < decompressSize) {
+            out = ByteBuffer.allocate(Math.max(decompressSize, out.capacity() * 2)).order(ByteOrder.LITTLE_ENDIAN);
+            s.buffer = out;
+        }
+        out.clear().limit(decompressSize);
+        inflate(s, input, out);
+        return out.flip();
+    }
+
+    /**
+     * Inflates into the given buffer's remaining space, which must be exactly the declared
+     * size of the inflated data.
+     * @param input the compressed bytes between its position and limit, consumed by the call
+     * @param output the buffer to fill, its position is advanced
+     * @throws IOException if the data is corrupt or doesn't fill the output exactly
+     * @throws IllegalStateException if the pool has been closed
+     */
+    public void inflate(ByteBuffer input, ByteBuffer output) throws IOException {
+        inflate(slot(), input, output);
+    }
+
+    Slot slot() {
+        // the slots of other threads still reference their ended inflaters after close()
+        if (closed) {
+            throw new IllegalStateException("EsmInflaterPool is closed");
+        }
+        return slots.get();
+    }
+
+    void inflate(Slot slot, ByteBuffer input, ByteBuffer output) throws IOException {
+        Inflater inflater = slot.inflater;
+        long t0 = System.nanoTime();
+        int in = input.remaining();
+        int expected = output.remaining();
+        inflater.reset();
+        inflater.setInput(input);
+        try {
+            while (output.hasRemaining() && !inflater.finished()) {
+                if (inflater.inflate(output) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+            }
+            // the output may fill up before the end of the stream has been read
+            if (!output.hasRemaining() && !inflater.finished()
+                    && inflater.inflate(slot.overflow) != 0) {
+                throw new IOException("Compressed record inflates to more than " + expected + " bytes");
+            }
+        } catch (DataFormatException ex) {
+            throw new IOException("Corrupt compressed record", ex);
+        }
+        if (output.hasRemaining()) {
+            throw new IOException("Compressed record inflated to " + (expected - output.remaining()) + " bytes instead of " + expected);
+        }
+        if (!inflater.finished()) {
+            throw new IOException("Compressed record is truncated after " + expected + " bytes");
+        }
+        records.increment();
+        compressedBytes.add(in);
+        inflatedBytes.add(expected);
+        inflateNanos.add(System.nanoTime() - t0);
+    }
+
+    /** @return the number of records inflated */
+    public long records() {
+        return records.sum();
+    }
+
+    /** @return the number of compressed bytes consumed */
+    public long compressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    /** @return the number of bytes produced */
+    public long inflatedBytes() {
+        return inflatedBytes.sum();
+    }
+
+    /** @return the total time spent inflating, summed over all threads */
+    public long inflateNanos() {
+        return inflateNanos.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        slots.remove();
+        Slot s;
+        while ((s = all.poll()) != null) {
+            s.inflater.end();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Inflated %,d records: %,d -> %,d bytes in %,d ms",
+                records(), compressedBytes(), inflatedBytes(), inflateNanos() / 1_000_000);
+    }
+
+    static final class Slot {
+        final Inflater inflater = new Inflater();
+
+        /** Receives the byte past the declared size, if any, to detect oversized records. */
+        final byte[] overflow = new byte[1];
+
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,195 @@
+package hu.akarnokd.fallout76;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.Locale;
+
+/**
+ * Line oriented writer of the JS/JSON dumps.
+ * <p>
+ * A line ended via {@link #comma()} gets its trailing comma only if the next line doesn't
+ * start with a closing bracket and isn't the end of the file, so the output needs no fix-up
+ * pass. Hex IDs and integers are formatted without {@link java.util.Formatter}; the text is
+ * encoded (UTF-8 by default) through a large buffer directly into a {@link FileChannel}.
+ */
+public final class EsmJsWriter implements Closeable {
+
+    static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    static final int FLUSH_THRESHOLD = 1 << 16;
+
+    static final String NEW_LINE = System.lineSeparator();
+
+    final FileChannel channel;
+
+    final CharsetEncoder encoder;
+
+    final ByteBuffer bytes;
+
+    final StringBuilder out;
+
+    final StringBuilder line;
+
+    boolean lineComma;
+
+    boolean pendingComma;
+
+    public EsmJsWriter(String fileName) throws IOException {
+        this(Paths.get(fileName));
+    }
+
+    public EsmJsWriter(Path file) throws IOException {
+        this(file, StandardCharsets.UTF_8);
+    }
+
+    public EsmJsWriter(Path file, Charset charset) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocateDirect(FLUSH_THRESHOLD * 4);
+        this.out = new StringBuilder(FLUSH_THRESHOLD + 1024);
+        this.line = new StringBuilder(256);
+    }
+
+    public EsmJsWriter text(String s) {
+        line.append(s);
+        return this;
+    }
+
+    public EsmJsWriter text(char c) {
+        line.append(c);
+        return this;
+    }
+
+    public EsmJsWriter integer(int v) {
+        line.append(v);
+        return this;
+    }
+
+    /** Appends the value as {@link Float#toString(float)} would. */
+    public EsmJsWriter floatValue(float v) {
+        line.append(v);
+        return this;
+    }
+
+    /** Appends the value as {@code %f} would in {@link Locale#US}. */
+    public EsmJsWriter fixed(float v) {
+        line.append(String.format(Locale.US, "%f", v));
+        return this;
+    }
+
+    /** Appends the value as 8 uppercase hex digits, like {@code %08X}. */
+    public EsmJsWriter hex(int v) {
+        StringBuilder b = line;
+        for (int shift = 28; shift >= 0; shift -= 4) {
+            b.append(HEX[(v >>> shift) & 0xF]);
+        }
+        return this;
+    }
+
+    /** Appends the value as a quoted, 8 digit uppercase hex string. */
+    public EsmJsWriter quotedHex(int v) {
+        line.append('"');
+        hex(v);
+        line.append('"');
+        return this;
+    }
+
+    /**
+     * Marks the current line to be followed by a comma unless the next line starts
+     * with {@code '}'} or {@code ']'} or there is no next line.
+     */
+    public EsmJsWriter comma() {
+        lineComma = true;
+        return this;
+    }
+
+    /**
+     * Ends the current line.
+     * @throws UncheckedIOException if writing to the file failed
+     */
+    public EsmJsWriter newLine() {
+        StringBuilder b = out;
+        StringBuilder ln = line;
+        if (pendingComma) {
+            char c = firstNonSpace(ln);
+            if (c != '}' && c != ']') {
+                b.append(',');
+            }
+            b.append(NEW_LINE);
+            pendingComma = false;
+        }
+        b.append(ln);
+        ln.setLength(0);
+        if (lineComma) {
+            lineComma = false;
+            pendingComma = true;
+        } else {
+            b.append(NEW_LINE);
+        }
+        if (b.length() >= FLUSH_THRESHOLD) {
+            try {
+                flush(false);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        return this;
+    }
+
+    static char firstNonSpace(CharSequence s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c != ' ' && c != '\t') {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    void flush(boolean endOfInput) throws IOException {
+        CharBuffer cb = CharBuffer.wrap(out);
+        ByteBuffer bb = bytes;
+        for (;;) {
+            CoderResult r = encoder.encode(cb, bb, endOfInput);
+            bb.flip();
+            while (bb.hasRemaining()) {
+                channel.write(bb);
+            }
+            bb.clear();
+            if (!r.isOverflow()) {
+                break;
+            }
+        }
+        // a dangling high surrogate stays for the next round
+        out.delete(0, out.length() - cb.remaining());
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (line.length() != 0 || lineComma) {
+                newLine();
+            }
+            if (pendingComma) {
+                // nothing follows, the comma would dangle
+                out.append(NEW_LINE);
+                pendingComma = false;
+            }
+            flush(true);
+            ByteBuffer bb = bytes;
+            encoder.flush(bb);
+            bb.flip();
+            while (bb.hasRemaining()) {
+                channel.write(bb);
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
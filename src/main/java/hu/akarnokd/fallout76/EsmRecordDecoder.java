@@ -0,0 +1,109 @@
+package hu.akarnokd.fallout76;
+
+import java.io.IOException;
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Second phase of the indexed ESM processing: inflates the indexed records in batches
+ * on an executor and hands their field data to a consumer on the caller thread, in
+ * file order.
+ */
+final class EsmRecordDecoder {
+
+    private EsmRecordDecoder() {
+        throw new IllegalStateException("No instances!");
+    }
+
+    interface RecordConsumer {
+        void accept(int record, ByteBuffer data) throws Exception;
+    }
+
+    /**
+     * Decodes all records of the index.
+     * @param file the mapped ESM file, its byte order is ignored
+     * @param index the record index of the file
+     * @param executor the executor running the batches
+     * @param batchSize the number of records decoded by one task
+     * @param maxInFlight the number of batches allowed to be decoded ahead of the consumer
+     * @param inflaters the per-thread inflaters of the executor's threads
+     * @param consumer receives the little-endian field data of the records in index order,
+     * on the caller thread
+     * @throws Exception if decoding or the consumer failed
+     */
+    static void decode(ByteBuffer file, EsmRecordIndex index, ExecutorService executor,
+            int batchSize, int maxInFlight, EsmInflaterPool inflaters, RecordConsumer consumer) throws Exception {
+        ByteBuffer le = file.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int n = index.size();
+        ArrayDeque<Future<List<ByteBuffer>>> inFlight = new ArrayDeque<>(maxInFlight);
+        int next = 0;
+        int consumed = 0;
+        try {
+            while (consumed < n) {
+                while (next < n && inFlight.size() < maxInFlight) {
+                    int start = next;
+                    int end = Math.min(n, start + batchSize);
+                    inFlight.offer(executor.submit(() -> decodeBatch(le, index, start, end, inflaters)));
+                    next = end;
+                }
+
+                List<ByteBuffer> batch;
+                try {
+                    batch = inFlight.poll().get();
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    if (cause instanceof Exception) {
+                        throw (Exception)cause;
+                    }
+                    throw ex;
+                }
+
+                for (ByteBuffer data : batch) {
+                    consumer.accept(consumed++, data);
+                }
+            }
+        } finally {
+            for (Future<?> f : inFlight) {
+                f.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Inflates the compressed records of the batch into one shared, exactly sized array
+     * and returns views of it; stored records are returned as views of the file.
+     */
+    static List<ByteBuffer> decodeBatch(ByteBuffer file, EsmRecordIndex index, int start, int end,
+            EsmInflaterPool inflaters) throws IOException {
+        int total = 0;
+        for (int i = start; i < end; i++) {
+            if (index.isCompressed(i)) {
+                total += file.getInt(index.offset(i) + EsmRecordIndex.HEADER_SIZE);
+            }
+        }
+        ByteBuffer arena = ByteBuffer.allocate(total).order(ByteOrder.LITTLE_ENDIAN);
+
+        List<ByteBuffer> result = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            int size = index.dataSize(i);
+            ByteBuffer data = file.slice(index.offset(i) + EsmRecordIndex.HEADER_SIZE, size)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+
+            if (!index.isCompressed(i)) {
+                result.add(data);
+            } else {
+                int decompressSize = data.getInt(0);
+                int p = arena.position();
+                arena.limit(p + decompressSize);
+                try {
+                    inflaters.inflate(data.position(4), arena);
+                } catch (IOException ex) {
+                    throw new IOException(String.format("Record %08X: %s", index.formId(i), ex.getMessage()), ex);
+                }
+                result.add(arena.slice(p, decompressSize).order(ByteOrder.LITTLE_ENDIAN));
+            }
+        }
+        return result;
+    }
+}
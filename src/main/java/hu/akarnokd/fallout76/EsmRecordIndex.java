@@ -0,0 +1,196 @@
+package hu.akarnokd.fallout76;
+
+import java.nio.*;
+import java.util.Arrays;
+
+/**
+ * Flat index of the records of a memory-mapped ESM file: header offset, type, form ID,
+ * flags and data size of each record in file order, plus the top group it belongs to.
+ * <p>
+ * Building it only reads the 24 byte headers and hops over the record data, therefore it
+ * is cheap compared to inflating and parsing the fields.
+ */
+public final class EsmRecordIndex {
+
+    static final int GRUP = 0x50555247;
+
+    static final int HEADER_SIZE = 24;
+
+    int size;
+
+    int[] offsets;
+
+    int[] types;
+
+    int[] formIds;
+
+    int[] flags;
+
+    int[] sizes;
+
+    /** Top group ordinal shifted left by one, the lowest bit set if the record is its direct child. */
+    int[] groups;
+
+    int groupCount;
+
+    int[] groupLabels;
+
+    int[] groupOffsets;
+
+    int[] groupSizes;
+
+    EsmRecordIndex(int capacity) {
+        offsets = new int[capacity];
+        types = new int[capacity];
+        formIds = new int[capacity];
+        flags = new int[capacity];
+        sizes = new int[capacity];
+        groups = new int[capacity];
+        groupLabels = new int[16];
+        groupOffsets = new int[16];
+        groupSizes = new int[16];
+    }
+
+    /**
+     * Scans the headers of the whole file.
+     * @param file the file content, the position and byte order are ignored
+     * @return the new index
+     */
+    public static EsmRecordIndex scan(ByteBuffer file) {
+        ByteBuffer b = file.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        EsmRecordIndex index = new EsmRecordIndex(Math.max(16, b.limit() / 512));
+
+        int pos = 0;
+        int limit = b.limit();
+        while (pos < limit) {
+            int type = b.getInt(pos);
+            int size = b.getInt(pos + 4);
+            if (type == GRUP) {
+                int ordinal = index.addGroup(b.getInt(pos + 8), pos, size);
+                index.scanGroup(b, pos, size, ordinal);
+                pos += size;
+            } else {
+                // the file header record (TES4) is not part of any group
+                pos += HEADER_SIZE + size;
+            }
+        }
+        return index;
+    }
+
+    void scanGroup(ByteBuffer b, int groupStart, int groupSize, int ordinal) {
+        int pos = groupStart + HEADER_SIZE;
+        int end = groupStart + groupSize;
+        boolean top = isTop(b, groupStart);
+        while (pos < end) {
+            int type = b.getInt(pos);
+            int size = b.getInt(pos + 4);
+            if (type == GRUP) {
+                scanGroup(b, pos, size, ordinal);
+                pos += size;
+            } else {
+                add(pos, type, b.getInt(pos + 12), b.getInt(pos + 8), size, (ordinal << 1) | (top ? 1 : 0));
+                pos += HEADER_SIZE + size;
+            }
+        }
+    }
+
+    static boolean isTop(ByteBuffer b, int groupStart) {
+        return b.getInt(groupStart + 12) == 0;
+    }
+
+    int addGroup(int label, int offset, int groupSize) {
+        int n = groupCount;
+        if (n == groupLabels.length) {
+            groupLabels = Arrays.copyOf(groupLabels, n * 2);
+            groupOffsets = Arrays.copyOf(groupOffsets, n * 2);
+            groupSizes = Arrays.copyOf(groupSizes, n * 2);
+        }
+        groupLabels[n] = label;
+        groupOffsets[n] = offset;
+        groupSizes[n] = groupSize;
+        groupCount = n + 1;
+        return n;
+    }
+
+    void add(int offset, int type, int formId, int flag, int dataSize, int group) {
+        int n = size;
+        if (n == offsets.length) {
+            int c = n + (n >> 1);
+            offsets = Arrays.copyOf(offsets, c);
+            types = Arrays.copyOf(types, c);
+            formIds = Arrays.copyOf(formIds, c);
+            flags = Arrays.copyOf(flags, c);
+            sizes = Arrays.copyOf(sizes, c);
+            groups = Arrays.copyOf(groups, c);
+        }
+        offsets[n] = offset;
+        types[n] = type;
+        formIds[n] = formId;
+        flags[n] = flag;
+        sizes[n] = dataSize;
+        groups[n] = group;
+        size = n + 1;
+    }
+
+    /** @return the number of records */
+    public int size() {
+        return size;
+    }
+
+    /** @return the file offset of the record header */
+    public int offset(int record) {
+        return offsets[record];
+    }
+
+    /** @return the record type as the little-endian int of its 4 characters */
+    public int type(int record) {
+        return types[record];
+    }
+
+    public int formId(int record) {
+        return formIds[record];
+    }
+
+    public int flags(int record) {
+        return flags[record];
+    }
+
+    /** @return the size of the record data, excluding the header */
+    public int dataSize(int record) {
+        return sizes[record];
+    }
+
+    public boolean isCompressed(int record) {
+        return (flags[record] & EsmExport.FLAGS_COMPRESSED) != 0;
+    }
+
+    /** @return the ordinal of the top group containing the record */
+    public int topGroup(int record) {
+        return groups[record] >>> 1;
+    }
+
+    /** @return true if the record is directly inside its top group and not in a nested group */
+    public boolean isDirect(int record) {
+        return (groups[record] & 1) != 0;
+    }
+
+    /** @return the number of top groups */
+    public int groupCount() {
+        return groupCount;
+    }
+
+    /** @return the record type label of the given top group */
+    public int groupLabel(int group) {
+        return groupLabels[group];
+    }
+
+    /** @return the file offset of the given top group's header */
+    public int groupOffset(int group) {
+        return groupOffsets[group];
+    }
+
+    /** @return the size of the given top group, including its header */
+    public int groupSize(int group) {
+        return groupSizes[group];
+    }
+}
@@ -0,0 +1,204 @@
+package hu.akarnokd.fallout76;
+
+/**
+ * Open-addressing map from primitive int keys to objects, sized for form ID tables.
+ * <p>
+ * The key 0 is the free-slot marker of the table and is tracked separately,
+ * so every int value can be used as a key. Not thread-safe.
+ * @param <V> the value type
+ */
+public final class IntObjectMap<V> {
+
+    int[] keys;
+
+    Object[] values;
+
+    int mask;
+
+    int size;
+
+    boolean hasZero;
+
+    V zeroValue;
+
+    public IntObjectMap() {
+        this(16);
+    }
+
+    public IntObjectMap(int expected) {
+        int cap = IntSet.capacity(expected);
+        keys = new int[cap];
+        values = new Object[cap];
+        mask = cap - 1;
+    }
+
+    public int size() {
+        return hasZero ? size + 1 : size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int slot(int key) {
+        int[] k = keys;
+        int i = IntSet.probe(k, mask, key);
+        return k[i] != 0 ? i : -1;
+    }
+
+    public boolean containsKey(int key) {
+        if (key == 0) {
+            return hasZero;
+        }
+        return slot(key) >= 0;
+    }
+
+    /**
+     * Returns the value mapped to the key.
+     * @param key the key
+     * @return the value or null if the key is not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key == 0) {
+            return zeroValue;
+        }
+        int i = slot(key);
+        return i >= 0 ? (V)values[i] : null;
+    }
+
+    public void put(int key, V value) {
+        insert(key, value, true);
+    }
+
+    /**
+     * Maps the key to the value if it is not in the map yet.
+     * @param key the key
+     * @param value the value
+     * @return true if the value was added
+     */
+    public boolean putIfAbsent(int key, V value) {
+        return insert(key, value, false);
+    }
+
+    boolean insert(int key, V value, boolean replace) {
+        if (key == 0) {
+            if (hasZero && !replace) {
+                return false;
+            }
+            boolean added = !hasZero;
+            hasZero = true;
+            zeroValue = value;
+            return added;
+        }
+        int[] k = keys;
+        int i = IntSet.probe(k, mask, key);
+        if (k[i] != 0) {
+            if (replace) {
+                values[i] = value;
+            }
+            return false;
+        }
+        k[i] = key;
+        values[i] = value;
+        if (++size > (mask >> 1)) {
+            rehash(k.length << 1);
+        }
+        return true;
+    }
+
+    void rehash(int cap) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] k = new int[cap];
+        Object[] v = new Object[cap];
+        int m = cap - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            int c = oldKeys[j];
+            if (c != 0) {
+                int i = IntSet.probe(k, m, c);
+                k[i] = c;
+                v[i] = oldValues[j];
+            }
+        }
+        keys = k;
+        values = v;
+        mask = m;
+    }
+
+    /**
+     * Removes every entry whose key is not in the given set.
+     * @param other the keys to keep
+     */
+    public void retainAll(IntSet other) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        int cap = IntSet.capacity(size);
+        keys = new int[cap];
+        values = new Object[cap];
+        mask = cap - 1;
+        size = 0;
+        if (hasZero && !other.contains(0)) {
+            hasZero = false;
+            zeroValue = null;
+        }
+        for (int j = 0; j < oldKeys.length; j++) {
+            int c = oldKeys[j];
+            if (c != 0 && other.contains(c)) {
+                @SuppressWarnings("unchecked")
+                V v = (V)oldValues[j];
+                insert(c, v, true);
+            }
+        }
+    }
+
+    /**
+     * Returns the keys in ascending (signed) order.
+     * @return the new array of keys
+     */
+    public int[] sortedKeys() {
+        long[] slots = IntSet.sortedSlots(keys, hasZero, size());
+        int[] a = new int[slots.length];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = (int)(slots[i] >> 32);
+        }
+        return a;
+    }
+
+    /**
+     * Calls the consumer with each entry in ascending (signed) key order.
+     * @param consumer the callback
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachSorted(EntryConsumer<? super V> consumer) {
+        int[] k = keys;
+        for (long slot : IntSet.sortedSlots(k, hasZero, size())) {
+            int i = (int)slot;
+            if (i == k.length) {
+                consumer.accept(0, zeroValue);
+            } else {
+                consumer.accept(k[i], (V)values[i]);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder("{");
+        forEachSorted((k, v) -> {
+            if (b.length() > 1) {
+                b.append(", ");
+            }
+            b.append(k).append('=').append(v);
+        });
+        return b.append('}').toString();
+    }
+
+    /**
+     * Receives the entries of an {@link IntObjectMap}.
+     * @param <V> the value type
+     */
+    public interface EntryConsumer<V> {
+        void accept(int key, V value);
+    }
+}
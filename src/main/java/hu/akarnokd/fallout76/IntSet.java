@@ -0,0 +1,199 @@
+package hu.akarnokd.fallout76;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Open-addressing set of primitive ints, sized for form ID tables.
+ * <p>
+ * The key 0 is the free-slot marker of the table and is tracked separately,
+ * so every int value can be stored. Not thread-safe.
+ */
+public final class IntSet {
+
+    int[] keys;
+
+    int mask;
+
+    int size;
+
+    boolean hasZero;
+
+    public IntSet() {
+        this(16);
+    }
+
+    public IntSet(int expected) {
+        int cap = capacity(expected);
+        keys = new int[cap];
+        mask = cap - 1;
+    }
+
+    /**
+     * Returns the power-of-2 table size that keeps the given number of
+     * entries at most half full.
+     */
+    static int capacity(int expected) {
+        int cap = Integer.highestOneBit(Math.max(expected, 4) * 2 - 1) << 1;
+        if (cap <= 0) {
+            throw new IllegalArgumentException("Too many entries: " + expected);
+        }
+        return cap;
+    }
+
+    static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Linear-probes a key table; shared by the set and the int-keyed maps.
+     * @param keys the key table, 0 marks the free slots
+     * @param mask the table length minus one
+     * @param key the non-zero key to look for
+     * @return the slot holding the key or, if it is absent, the free slot where it would go
+     */
+    static int probe(int[] keys, int mask, int key) {
+        int i = mix(key) & mask;
+        for (;;) {
+            int c = keys[i];
+            if (c == 0 || c == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    public int size() {
+        return hasZero ? size + 1 : size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean contains(int key) {
+        if (key == 0) {
+            return hasZero;
+        }
+        int[] k = keys;
+        return k[probe(k, mask, key)] != 0;
+    }
+
+    /**
+     * Adds the key to the set.
+     * @param key the key to add
+     * @return true if the key was not in the set before
+     */
+    public boolean add(int key) {
+        if (key == 0) {
+            if (hasZero) {
+                return false;
+            }
+            hasZero = true;
+            return true;
+        }
+        int[] k = keys;
+        int i = probe(k, mask, key);
+        if (k[i] != 0) {
+            return false;
+        }
+        k[i] = key;
+        if (++size > (mask >> 1)) {
+            rehash(k.length << 1);
+        }
+        return true;
+    }
+
+    void rehash(int cap) {
+        int[] old = keys;
+        int[] k = new int[cap];
+        int m = cap - 1;
+        for (int c : old) {
+            if (c != 0) {
+                k[probe(k, m, c)] = c;
+            }
+        }
+        keys = k;
+        mask = m;
+    }
+
+    /**
+     * Removes every key not contained in the other set.
+     * @param other the keys to keep
+     */
+    public void retainAll(IntSet other) {
+        int[] retained = new int[size];
+        int n = 0;
+        for (int c : keys) {
+            if (c != 0 && other.contains(c)) {
+                retained[n++] = c;
+            }
+        }
+        hasZero &= other.hasZero;
+        int cap = capacity(n);
+        keys = new int[cap];
+        mask = cap - 1;
+        size = 0;
+        for (int i = 0; i < n; i++) {
+            add(retained[i]);
+        }
+    }
+
+    /**
+     * Returns the keys in ascending (signed) order.
+     * @return the new array of keys
+     */
+    public int[] toSortedArray() {
+        int[] a = new int[size()];
+        int n = 0;
+        if (hasZero) {
+            a[n++] = 0;
+        }
+        for (int c : keys) {
+            if (c != 0) {
+                a[n++] = c;
+            }
+        }
+        Arrays.sort(a);
+        return a;
+    }
+
+    /**
+     * Calls the consumer with each key in ascending (signed) order.
+     * @param consumer the callback
+     */
+    public void forEachSorted(IntConsumer consumer) {
+        for (int key : toSortedArray()) {
+            consumer.accept(key);
+        }
+    }
+
+    /**
+     * Orders the occupied slots of a map table by their key.
+     * @param keys the key table, 0 marks the free slots
+     * @param hasZero if true, the zero key is reported with the slot index {@code keys.length}
+     * @param count the number of entries, including the zero key
+     * @return the slots, the key in the upper, the slot index in the lower 32 bits
+     */
+    static long[] sortedSlots(int[] keys, boolean hasZero, int count) {
+        long[] a = new long[count];
+        int n = 0;
+        if (hasZero) {
+            a[n++] = keys.length;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            int c = keys[i];
+            if (c != 0) {
+                a[n++] = ((long)c << 32) | i;
+            }
+        }
+        Arrays.sort(a);
+        return a;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toSortedArray());
+    }
+}
@@ -1,11 +1,11 @@
 package hu.akarnokd.fallout76;
 
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 import java.util.function.BiConsumer;
 
 /**
  * Processes a byte array of Elder Scrolls {@code .strings} file.
+ * @see TesStringsIndex for lazy, indexed lookups
  */
 public final class TesStringsData {
 
@@ -37,10 +37,9 @@ public final class TesStringsData {
 
     static String getZString(byte[] data, int offset) {
         int end = offset;
-        while (data[end] != 0 && end < data.length) {
+        while (end < data.length && data[end] != 0) {
             end++;
         }
-        byte[] copy = Arrays.copyOfRange(data, offset, end);
-        return new String(copy, StandardCharsets.UTF_8);
+        return new String(data, offset, end - offset, StandardCharsets.UTF_8);
     }
 }
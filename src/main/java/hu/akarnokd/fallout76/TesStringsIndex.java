@@ -0,0 +1,215 @@
+package hu.akarnokd.fallout76;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Indexed view over the raw bytes of an Elder Scrolls {@code .strings},
+ * {@code .dlstrings} or {@code .ilstrings} file.
+ * <p>
+ * Only the id to offset directory is read upfront, into a primitive open-addressing
+ * table; the strings themselves are decoded on {@link #get(int)}, optionally through
+ * a bounded LRU cache. Instances are not thread-safe when the cache is enabled.
+ */
+public final class TesStringsIndex {
+
+    /** Marks an empty slot, the offsets are always non-negative. */
+    static final int EMPTY = -1;
+
+    final byte[] data;
+
+    final int stringsStart;
+
+    final boolean lengthPrefixed;
+
+    final int[] keys;
+
+    final int[] offsets;
+
+    final int mask;
+
+    final Map<Integer, String> cache;
+
+    int size;
+
+    TesStringsIndex(byte[] data, boolean lengthPrefixed, int cacheSize) {
+        int count = TesStringsData.getInt32(data, 0);
+        if (count < 0 || 8L + count * 8L > data.length) {
+            throw new IllegalArgumentException("Corrupt strings directory: " + count + " entries for " + data.length + " bytes");
+        }
+        this.data = data;
+        this.lengthPrefixed = lengthPrefixed;
+        this.stringsStart = 8 + count * 8;
+
+        int cap = Integer.highestOneBit(Math.max(count, 8) * 2 - 1) << 1;
+        this.keys = new int[cap];
+        this.offsets = new int[cap];
+        Arrays.fill(offsets, EMPTY);
+        this.mask = cap - 1;
+
+        // a length-prefixed entry needs room for its length at least
+        long minEntry = lengthPrefixed ? 4 : 1;
+        for (int i = 0; i < count; i++) {
+            int id = TesStringsData.getInt32(data, 8 + 8 * i);
+            int offset = TesStringsData.getInt32(data, 12 + 8 * i);
+            if (offset < 0 || stringsStart + (long)offset + minEntry > data.length) {
+                throw new IllegalArgumentException(String.format(
+                        "Corrupt strings directory: entry %d (id %08X) points to offset %d past the %d bytes of strings",
+                        i, id, offset, data.length - stringsStart));
+            }
+            put(id, offset);
+        }
+
+        if (cacheSize > 0) {
+            cache = new LinkedHashMap<Integer, String>(cacheSize * 4 / 3 + 1, 0.75f, true) {
+                private static final long serialVersionUID = -3451020349227616599L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+                    return size() > cacheSize;
+                }
+            };
+        } else {
+            cache = null;
+        }
+    }
+
+    /**
+     * @return an index without any strings
+     */
+    public static TesStringsIndex empty() {
+        return of(new byte[8]);
+    }
+
+    /**
+     * Indexes a zero-terminated {@code .strings} file without caching.
+     * @param data the file content
+     * @return the index
+     */
+    public static TesStringsIndex of(byte[] data) {
+        return new TesStringsIndex(data, false, 0);
+    }
+
+    /**
+     * Indexes a strings file, picking the layout from the file name's extension:
+     * {@code .dlstrings} and {@code .ilstrings} entries are length-prefixed.
+     * @param fileName the name of the file, used only for its extension
+     * @param data the file content
+     * @param cacheSize the maximum number of decoded strings to keep, 0 disables the cache
+     * @return the index
+     */
+    public static TesStringsIndex of(String fileName, byte[] data, int cacheSize) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        boolean prefixed = lower.endsWith(".dlstrings") || lower.endsWith(".ilstrings");
+        return new TesStringsIndex(data, prefixed, cacheSize);
+    }
+
+    static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    void put(int id, int offset) {
+        int m = mask;
+        int i = mix(id) & m;
+        for (;;) {
+            if (offsets[i] == EMPTY) {
+                keys[i] = id;
+                offsets[i] = offset;
+                size++;
+                return;
+            }
+            if (keys[i] == id) {
+                // later entries win, as with the old HashMap based lookup
+                offsets[i] = offset;
+                return;
+            }
+            i = (i + 1) & m;
+        }
+    }
+
+    int slot(int id) {
+        int m = mask;
+        int i = mix(id) & m;
+        for (;;) {
+            int o = offsets[i];
+            if (o == EMPTY) {
+                return -1;
+            }
+            if (keys[i] == id) {
+                return i;
+            }
+            i = (i + 1) & m;
+        }
+    }
+
+    /** @return the number of distinct string ids */
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return slot(id) >= 0;
+    }
+
+    /**
+     * Returns the string for the given id, decoding it on first access.
+     * @param id the string id
+     * @return the string or null if the id is not in the file
+     */
+    public String get(int id) {
+        Map<Integer, String> c = cache;
+        if (c != null) {
+            String s = c.get(id);
+            if (s != null) {
+                return s;
+            }
+        }
+        int i = slot(id);
+        if (i < 0) {
+            return null;
+        }
+        String s = decode(offsets[i]);
+        if (c != null) {
+            c.put(id, s);
+        }
+        return s;
+    }
+
+    /**
+     * Decodes every entry, in table order, and hands it to the consumer.
+     * @param onEntry the callback receiving the id and the decoded string
+     */
+    public void forEach(BiConsumer<Integer, String> onEntry) {
+        int[] k = keys;
+        int[] o = offsets;
+        for (int i = 0; i < k.length; i++) {
+            if (o[i] != EMPTY) {
+                onEntry.accept(k[i], decode(o[i]));
+            }
+        }
+    }
+
+    String decode(int offset) {
+        int start = stringsStart + offset;
+        if (lengthPrefixed) {
+            return getLString(data, start);
+        }
+        return TesStringsData.getZString(data, start);
+    }
+
+    /**
+     * Decodes a length-prefixed entry: a 32-bit length, which includes the zero
+     * terminator, followed by the characters.
+     */
+    static String getLString(byte[] data, int offset) {
+        int len = TesStringsData.getInt32(data, offset);
+        int start = offset + 4;
+        int end = (int)Math.min((long)start + Math.max(len, 0), data.length);
+        if (end > start && data[end - 1] == 0) {
+            end--;
+        }
+        return new String(data, start, end - start, StandardCharsets.UTF_8);
+    }
+}
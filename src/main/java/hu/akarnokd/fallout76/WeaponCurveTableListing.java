@@ -2,6 +2,7 @@ package hu.akarnokd.fallout76;
 
 import java.io.File;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.*;
 
 import com.google.gson.*;
@@ -23,11 +24,10 @@ public class WeaponCurveTableListing {
             return;
         }
 
-        Map<String, Ba2FileEntry> curveMap = new HashMap<>();
-        EsmExport.loadJsonBa2(curveMap, basePath + "SeventySix - Startup.ba2");
+        Ba2FileSystem vfs = Ba2FileSystem.mount(EsmExport.ARCHIVE_CACHE_BYTES, Paths.get(basePath + "SeventySix - Startup.ba2"));
 
-        List<Ba2FileEntry> selection = new ArrayList<>();
-        for (Ba2FileEntry e : curveMap.values()) {
+        List<Ba2MappedEntry> selection = new ArrayList<>();
+        for (Ba2MappedEntry e : vfs.list(name -> name.endsWith("json"))) {
             if (e.name.contains("weap_") && !e.name.contains("_mod_")) {
                 selection.add(e);
             }
@@ -35,8 +35,8 @@ public class WeaponCurveTableListing {
 
         selection.sort((a, b) -> a.name.compareTo(b.name));
 
-        for (Ba2FileEntry e : selection) {
-            JsonElement obj = new JsonParser().parse(new String(e.data, StandardCharsets.ISO_8859_1));
+        for (Ba2MappedEntry e : selection) {
+            JsonElement obj = new JsonParser().parse(StandardCharsets.ISO_8859_1.decode(vfs.read(e)).toString());
             int idx = e.name.indexOf("weap_");
             System.out.printf("%s: %n", e.name.substring(idx));
 
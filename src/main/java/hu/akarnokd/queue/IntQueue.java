@@ -13,7 +13,13 @@
 
 package hu.akarnokd.queue;
 
-public interface IntQueue {
+import java.util.function.*;
+
+/**
+ * A queue of primitive ints where the no-argument {@link #peek()} and {@link #poll()}
+ * return the value in the lower 32 bits and set bit 32 if there was a value.
+ */
+public interface IntQueue extends PrimitiveQueue {
 
     boolean offer(int value);
 
@@ -35,7 +41,7 @@ public interface IntQueue {
 
     default int peek(boolean[] hasValue) {
         long v = peek();
-        hasValue[0] = (v & 0x1_0000_0000L) != 0L;
+        hasValue[0] = (v & HAS_VALUE) != 0L;
         return (int)v;
     }
 
@@ -43,7 +49,7 @@ public interface IntQueue {
 
     default int poll(boolean[] hasValue) {
         long v = poll();
-        hasValue[0] = (v & 0x1_0000_0000L) != 0L;
+        hasValue[0] = (v & HAS_VALUE) != 0L;
         return (int)v;
     }
 
@@ -54,17 +60,15 @@ public interface IntQueue {
     }
 
     default int poll(int[] values, int start, int count) {
-        boolean[] hasValue = new boolean[1];
-
         int i = start;
         int e = 0;
 
         while (count-- != 0) {
-            int v = poll(hasValue);
-            if (!hasValue[0]) {
+            long v = poll();
+            if ((v & HAS_VALUE) == 0L) {
                 break;
             }
-            values[i] = v;
+            values[i] = (int)v;
             i++;
             e++;
         }
@@ -72,9 +76,46 @@ public interface IntQueue {
         return e;
     }
 
-    void clear();
-
-    int size();
+    /**
+     * Polls at most {@code limit} values and hands them to the consumer.
+     * @param consumer the consumer of the values
+     * @param limit the maximum number of values to poll
+     * @return the number of values polled
+     */
+    default int drain(IntConsumer consumer, int limit) {
+        int e = 0;
+        while (e != limit) {
+            long v = poll();
+            if ((v & HAS_VALUE) == 0L) {
+                break;
+            }
+            consumer.accept((int)v);
+            e++;
+        }
+        return e;
+    }
 
-    boolean isEmpty();
+    /**
+     * Offers at most {@code limit} values produced by the supplier; the
+     * supplier is only invoked if there is room for the value.
+     * <p>
+     * If the supplier throws, the values supplied before stay in the queue and
+     * the exception is rethrown.
+     * @param supplier the supplier of the values
+     * @param limit the maximum number of values to offer
+     * @return the number of values offered
+     */
+    int fill(IntSupplier supplier, int limit);
+
+    /** The flag bit indicating {@link #peek()} or {@link #poll()} returned a value. */
+    long HAS_VALUE = 0x1_0000_0000L;
+
+    /**
+     * Packs an int value with the {@link #HAS_VALUE} flag.
+     * @param value the value to pack
+     * @return the packed value
+     */
+    static long pack(int value) {
+        return HAS_VALUE | (value & 0xFFFF_FFFFL);
+    }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2015-2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.queue;
+
+import java.util.function.*;
+
+public interface LongQueue extends PrimitiveQueue {
+
+    boolean offer(long value);
+
+    default int offer(long[] values) {
+        return offer(values, 0, values.length);
+    }
+
+    default int offer(long[] values, int start, int count) {
+        int e = 0;
+        int i = start;
+        while (count-- != 0) {
+            if (!offer(values[i])) {
+                return e;
+            }
+            i++;
+            e++;
+        }
+        return e;
+    }
+
+    long peek(boolean[] hasValue);
+
+    long poll(boolean[] hasValue);
+
+    /**
+     * Polls at most {@code limit} values and hands them to the consumer.
+     * @param consumer the consumer of the values
+     * @param limit the maximum number of values to poll
+     * @return the number of values polled
+     */
+    int drain(LongConsumer consumer, int limit);
+
+    /**
+     * Offers at most {@code limit} values produced by the supplier; the
+     * supplier is only invoked if there is room for the value.
+     * <p>
+     * If the supplier throws, the values supplied before stay in the queue and
+     * the exception is rethrown.
+     * @param supplier the supplier of the values
+     * @param limit the maximum number of values to offer
+     * @return the number of values offered
+     */
+    int fill(LongSupplier supplier, int limit);
+}
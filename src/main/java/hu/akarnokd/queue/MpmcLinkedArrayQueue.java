@@ -0,0 +1,185 @@
+package hu.akarnokd.queue;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.*;
+
+abstract class MpmcColdLinked {
+    final int size;
+
+    MpmcColdLinked(int size) {
+        this.size = size;
+    }
+}
+
+abstract class MpmcPad1Linked extends MpmcColdLinked {
+    volatile long p0, p1, p2, p3, p4, p5, p6;
+    volatile long q1, q2, q3, q4, q5, q6, q7, q8;
+
+    MpmcPad1Linked(int size) {
+        super(size);
+    }
+}
+
+abstract class MpmcTailLinked extends MpmcPad1Linked {
+    volatile MpmcNode tail;
+    static final AtomicReferenceFieldUpdater<MpmcTailLinked, MpmcNode> TAIL =
+            AtomicReferenceFieldUpdater.newUpdater(MpmcTailLinked.class, MpmcNode.class, "tail");
+
+    MpmcTailLinked(int size) {
+        super(size);
+    }
+}
+
+abstract class MpmcPad2Linked extends MpmcTailLinked {
+    volatile long p0, p1, p2, p3, p4, p5, p6;
+    volatile long q1, q2, q3, q4, q5, q6, q7, q8;
+
+    MpmcPad2Linked(int size) {
+        super(size);
+    }
+}
+
+abstract class MpmcHeadLinked extends MpmcPad2Linked {
+    volatile MpmcNode head;
+    static final AtomicReferenceFieldUpdater<MpmcHeadLinked, MpmcNode> HEAD =
+            AtomicReferenceFieldUpdater.newUpdater(MpmcHeadLinked.class, MpmcNode.class, "head");
+
+    MpmcHeadLinked(int size) {
+        super(size);
+    }
+}
+
+abstract class MpmcPad3Linked extends MpmcHeadLinked {
+    volatile long p0, p1, p2, p3, p4, p5, p6;
+    volatile long q1, q2, q3, q4, q5, q6, q7, q8;
+
+    MpmcPad3Linked(int size) {
+        super(size);
+    }
+}
+
+/**
+ * Unbounded multi-producer multi-consumer queue made of linked array segments;
+ * producers and consumers claim slots within the current segment via getAndIncrement
+ * and only contend on the head/tail references when switching segments.
+ * @param <E> the element type
+ */
+public final class MpmcLinkedArrayQueue<E> extends MpmcPad3Linked implements IQueue<E> {
+
+    /** Marks a slot whose item has been taken or which was abandoned by a consumer. */
+    static final Object TAKEN = new Object();
+
+    public MpmcLinkedArrayQueue(int size) {
+        super(size);
+        MpmcNode start = new MpmcNode(size);
+        HEAD.lazySet(this, start);
+        TAIL.lazySet(this, start);
+    }
+
+    @Override
+    public void enqueue(E item) {
+        Objects.requireNonNull(item, "item is null");
+        final int s = size;
+        for (;;) {
+            MpmcNode t = tail;
+            int idx = t.getAndIncrementEnqueue();
+            if (idx >= s) {
+                if (t != tail) {
+                    continue;
+                }
+                MpmcNode next = t.next;
+                if (next == null) {
+                    MpmcNode n = new MpmcNode(s, item);
+                    if (t.casNext(n)) {
+                        TAIL.compareAndSet(this, t, n);
+                        return;
+                    }
+                } else {
+                    TAIL.compareAndSet(this, t, next);
+                }
+                continue;
+            }
+            if (t.compareAndSet(idx, null, item)) {
+                return;
+            }
+            // a consumer gave up on this slot, try the next one
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public E dequeue() {
+        final int s = size;
+        for (;;) {
+            MpmcNode h = head;
+            if (h.dequeueIndex >= h.enqueueIndex && h.next == null) {
+                return null;
+            }
+            int idx = h.getAndIncrementDequeue();
+            if (idx >= s) {
+                MpmcNode next = h.next;
+                if (next == null) {
+                    return null;
+                }
+                HEAD.compareAndSet(this, h, next);
+                continue;
+            }
+            Object item = h.getAndSet(idx, TAKEN);
+            if (item != null) {
+                return (E)item;
+            }
+        }
+    }
+
+    public boolean offer(E item) {
+        enqueue(item);
+        return true;
+    }
+
+    public E poll() {
+        return dequeue();
+    }
+
+    public boolean isEmpty() {
+        MpmcNode h = head;
+        return h.dequeueIndex >= Math.min(h.enqueueIndex, size) && h.next == null;
+    }
+}
+
+final class MpmcNode extends AtomicReferenceArray<Object> {
+    private static final long serialVersionUID = -8035221587094573834L;
+
+    volatile int enqueueIndex;
+    static final AtomicIntegerFieldUpdater<MpmcNode> ENQUEUE_INDEX =
+            AtomicIntegerFieldUpdater.newUpdater(MpmcNode.class, "enqueueIndex");
+
+    volatile int dequeueIndex;
+    static final AtomicIntegerFieldUpdater<MpmcNode> DEQUEUE_INDEX =
+            AtomicIntegerFieldUpdater.newUpdater(MpmcNode.class, "dequeueIndex");
+
+    volatile MpmcNode next;
+    static final AtomicReferenceFieldUpdater<MpmcNode, MpmcNode> NEXT =
+            AtomicReferenceFieldUpdater.newUpdater(MpmcNode.class, MpmcNode.class, "next");
+
+    MpmcNode(int itemCount) {
+        super(itemCount);
+    }
+
+    MpmcNode(int itemCount, Object first) {
+        super(itemCount);
+        lazySet(0, first);
+        ENQUEUE_INDEX.lazySet(this, 1);
+    }
+
+    int getAndIncrementEnqueue() {
+        return ENQUEUE_INDEX.getAndIncrement(this);
+    }
+
+    int getAndIncrementDequeue() {
+        return DEQUEUE_INDEX.getAndIncrement(this);
+    }
+
+    boolean casNext(MpmcNode n) {
+        return NEXT.compareAndSet(this, null, n);
+    }
+}
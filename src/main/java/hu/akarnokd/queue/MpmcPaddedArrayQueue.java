@@ -0,0 +1,192 @@
+package hu.akarnokd.queue;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.*;
+
+import rx.internal.util.unsafe.Pow2;
+
+abstract class MpmcColdArray<E> {
+    final int mask;
+    final AtomicReferenceArray<E> buffer;
+    final AtomicLongArray sequences;
+
+    MpmcColdArray(int capacity) {
+        int c = Pow2.roundToPowerOfTwo(Math.max(2, capacity));
+        mask = c - 1;
+        buffer = new AtomicReferenceArray<>(c);
+        sequences = new AtomicLongArray(c);
+        for (int i = 0; i < c; i++) {
+            sequences.lazySet(i, i);
+        }
+    }
+}
+
+abstract class MpmcPad1Array<E> extends MpmcColdArray<E> {
+    volatile long p0, p1, p2, p3, p4, p5, p6;
+    volatile long q1, q2, q3, q4, q5, q6, q7, q8;
+
+    MpmcPad1Array(int capacity) {
+        super(capacity);
+    }
+}
+
+abstract class MpmcProducerArray<E> extends MpmcPad1Array<E> {
+    volatile long producerIndex;
+    @SuppressWarnings("rawtypes")
+    static final AtomicLongFieldUpdater<MpmcProducerArray> PRODUCER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(MpmcProducerArray.class, "producerIndex");
+
+    MpmcProducerArray(int capacity) {
+        super(capacity);
+    }
+}
+
+abstract class MpmcPad2Array<E> extends MpmcProducerArray<E> {
+    volatile long p0, p1, p2, p3, p4, p5, p6;
+    volatile long q1, q2, q3, q4, q5, q6, q7, q8;
+
+    MpmcPad2Array(int capacity) {
+        super(capacity);
+    }
+}
+
+abstract class MpmcConsumerArray<E> extends MpmcPad2Array<E> {
+    volatile long consumerIndex;
+    @SuppressWarnings("rawtypes")
+    static final AtomicLongFieldUpdater<MpmcConsumerArray> CONSUMER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(MpmcConsumerArray.class, "consumerIndex");
+
+    MpmcConsumerArray(int capacity) {
+        super(capacity);
+    }
+}
+
+abstract class MpmcPad3Array<E> extends MpmcConsumerArray<E> {
+    volatile long p0, p1, p2, p3, p4, p5, p6;
+    volatile long q1, q2, q3, q4, q5, q6, q7, q8;
+
+    MpmcPad3Array(int capacity) {
+        super(capacity);
+    }
+}
+
+/**
+ * Bounded multi-producer multi-consumer queue where each slot has its own sequence number:
+ * a slot is free for the producer of index {@code i} if its sequence is {@code i} and holds
+ * the item for the consumer of index {@code i} if its sequence is {@code i + 1}.
+ * @param <E> the element type
+ */
+public final class MpmcPaddedArrayQueue<E> extends MpmcPad3Array<E> implements IQueue<E> {
+
+    public MpmcPaddedArrayQueue(int capacity) {
+        super(capacity);
+    }
+
+    /**
+     * Enqueues the item, spinning while the queue is full.
+     */
+    @Override
+    public void enqueue(E item) {
+        while (!offer(item)) {
+            Thread.yield();
+        }
+    }
+
+    @Override
+    public E dequeue() {
+        return poll();
+    }
+
+    public boolean offer(E item) {
+        Objects.requireNonNull(item, "item is null");
+        final int m = mask;
+        final AtomicLongArray seq = sequences;
+
+        long pi = producerIndex;
+        int offset;
+        for (;;) {
+            offset = (int)pi & m;
+            long s = seq.get(offset);
+            if (s == pi) {
+                if (PRODUCER_INDEX.compareAndSet(this, pi, pi + 1)) {
+                    break;
+                }
+            } else if (s < pi) {
+                // the slot still holds the item from the previous round
+                if (pi - consumerIndex > m) {
+                    return false;
+                }
+            }
+            pi = producerIndex;
+        }
+
+        buffer.lazySet(offset, item);
+        seq.lazySet(offset, pi + 1);
+        return true;
+    }
+
+    public E poll() {
+        final int m = mask;
+        final AtomicLongArray seq = sequences;
+
+        long ci = consumerIndex;
+        int offset;
+        for (;;) {
+            offset = (int)ci & m;
+            long s = seq.get(offset);
+            long expected = ci + 1;
+            if (s == expected) {
+                if (CONSUMER_INDEX.compareAndSet(this, ci, expected)) {
+                    break;
+                }
+            } else if (s < expected) {
+                // the slot has not been filled yet
+                if (ci == producerIndex) {
+                    return null;
+                }
+            }
+            ci = consumerIndex;
+        }
+
+        final AtomicReferenceArray<E> b = buffer;
+        E item = b.get(offset);
+        b.lazySet(offset, null);
+        seq.lazySet(offset, ci + m + 1);
+        return item;
+    }
+
+    public E peek() {
+        final int m = mask;
+        final AtomicLongArray seq = sequences;
+        for (;;) {
+            long ci = consumerIndex;
+            int offset = (int)ci & m;
+            long s = seq.get(offset);
+            if (s == ci + 1) {
+                E item = buffer.get(offset);
+                if (item != null && consumerIndex == ci) {
+                    return item;
+                }
+            } else if (ci == producerIndex) {
+                return null;
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return consumerIndex == producerIndex;
+    }
+
+    public int size() {
+        long ci = consumerIndex;
+
+        for (;;) {
+            long pi = producerIndex;
+            long ci2 = consumerIndex;
+            if (ci2 == ci) {
+                return (int)(pi - ci);
+            }
+            ci = ci2;
+        }
+    }
+}
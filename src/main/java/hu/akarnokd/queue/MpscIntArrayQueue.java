@@ -0,0 +1,176 @@
+/*
+ * Copyright 2015-2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.queue;
+
+import java.util.concurrent.atomic.*;
+import java.util.function.IntSupplier;
+
+import rx.internal.util.unsafe.Pow2;
+
+/**
+ * Bounded multi-producer single-consumer queue of ints; each slot holds the
+ * value packed via {@link IntQueue#pack(int)} so an empty slot reads as zero.
+ */
+public final class MpscIntArrayQueue implements IntQueue {
+    final AtomicLongArray buffer;
+    final int mask;
+
+    volatile long producerIndex;
+    static final AtomicLongFieldUpdater<MpscIntArrayQueue> PRODUCER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(MpscIntArrayQueue.class, "producerIndex");
+
+    volatile long consumerIndex;
+    static final AtomicLongFieldUpdater<MpscIntArrayQueue> CONSUMER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(MpscIntArrayQueue.class, "consumerIndex");
+
+    public MpscIntArrayQueue(int capacity) {
+        int c = Pow2.roundToPowerOfTwo(capacity);
+        buffer = new AtomicLongArray(c);
+        mask = c - 1;
+    }
+
+    /**
+     * The content of a slot claimed by a {@link #fill} whose supplier crashed, the consumer
+     * skips it; it doesn't have the {@link IntQueue#HAS_VALUE} flag.
+     */
+    static final long SKIPPED = IntQueue.HAS_VALUE << 1;
+
+    int calcOffset(long index, int m) {
+        return (int)index & m;
+    }
+
+    @Override
+    public boolean offer(int value) {
+        final int m = mask;
+        final long c = m + 1;
+        long pi;
+        for (;;) {
+            pi = producerIndex;
+            if (pi - consumerIndex >= c) {
+                return false;
+            }
+            if (PRODUCER_INDEX.compareAndSet(this, pi, pi + 1)) {
+                break;
+            }
+        }
+        buffer.lazySet(calcOffset(pi, m), IntQueue.pack(value));
+        return true;
+    }
+
+    @Override
+    public int fill(IntSupplier supplier, int limit) {
+        final int m = mask;
+        final long c = m + 1;
+        long pi;
+        int n;
+        for (;;) {
+            pi = producerIndex;
+            n = (int)Math.min(c - (pi - consumerIndex), limit);
+            if (n <= 0) {
+                return 0;
+            }
+            if (PRODUCER_INDEX.compareAndSet(this, pi, pi + n)) {
+                break;
+            }
+        }
+        final AtomicLongArray a = buffer;
+        int i = 0;
+        try {
+            for (; i < n; i++) {
+                a.lazySet(calcOffset(pi + i, m), IntQueue.pack(supplier.getAsInt()));
+            }
+        } finally {
+            // the slots are claimed already, the consumer would wait for them forever
+            for (; i < n; i++) {
+                a.lazySet(calcOffset(pi + i, m), SKIPPED);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Finds the next slot with a value, waiting for it if a producer has
+     * already claimed it but not yet written it and consuming the skipped slots.
+     * @return the consumer index of the value or -1 if the queue is empty
+     */
+    long awaitSlot() {
+        final AtomicLongArray a = buffer;
+        final int m = mask;
+        long ci = consumerIndex;
+        for (;;) {
+            int offset = calcOffset(ci, m);
+            long v = a.get(offset);
+            if (v == 0L) {
+                if (ci == producerIndex) {
+                    return -1L;
+                }
+                while ((v = a.get(offset)) == 0L) { }
+            }
+            if (v != SKIPPED) {
+                return ci;
+            }
+            a.lazySet(offset, 0L);
+            CONSUMER_INDEX.lazySet(this, ++ci);
+        }
+    }
+
+    @Override
+    public long peek() {
+        final long ci = awaitSlot();
+        if (ci < 0L) {
+            return 0L;
+        }
+        return buffer.get(calcOffset(ci, mask));
+    }
+
+    @Override
+    public long poll() {
+        final AtomicLongArray a = buffer;
+        final long ci = awaitSlot();
+        if (ci < 0L) {
+            return 0L;
+        }
+        final int offset = calcOffset(ci, mask);
+        long v = a.get(offset);
+        a.lazySet(offset, 0L);
+        CONSUMER_INDEX.lazySet(this, ci + 1);
+        return v;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return producerIndex == consumerIndex;
+    }
+
+    @Override
+    public void clear() {
+        while (!isEmpty()) {
+            poll();
+        }
+    }
+
+    @Override
+    public int size() {
+        long ci = consumerIndex;
+
+        for (;;) {
+            long pi = producerIndex;
+            long ci2 = consumerIndex;
+            if (ci2 == ci) {
+                return (int)(pi - ci);
+            }
+            ci = ci2;
+        }
+    }
+}
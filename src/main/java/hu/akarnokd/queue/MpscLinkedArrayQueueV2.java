@@ -42,7 +42,7 @@ abstract class Pad3V2<E> extends HeadV2<E> {
 
 }
 
-public final class MpscLinkedArrayQueueV2<E> extends Pad3V2<E> {
+public final class MpscLinkedArrayQueueV2<E> extends Pad3V2<E> implements IQueue<E> {
 
     static final int SHIFT = 0;
 
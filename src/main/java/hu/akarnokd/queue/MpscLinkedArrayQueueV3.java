@@ -60,7 +60,7 @@ abstract class Pad3<E> extends Head<E> {
 
 }
 
-public final class MpscLinkedArrayQueueV3<E> extends Pad3<E> {
+public final class MpscLinkedArrayQueueV3<E> extends Pad3<E> implements IQueue<E> {
 
     static final int SHIFT = 0;
 
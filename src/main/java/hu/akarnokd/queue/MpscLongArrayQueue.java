@@ -0,0 +1,208 @@
+/*
+ * Copyright 2015-2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.queue;
+
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import rx.internal.util.unsafe.Pow2;
+
+/**
+ * Bounded multi-producer single-consumer queue of longs; each element
+ * occupies a value and a presence-flag slot.
+ */
+public final class MpscLongArrayQueue implements LongQueue {
+    final AtomicLongArray buffer;
+    final int mask;
+
+    volatile long producerIndex;
+    static final AtomicLongFieldUpdater<MpscLongArrayQueue> PRODUCER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(MpscLongArrayQueue.class, "producerIndex");
+
+    volatile long consumerIndex;
+    static final AtomicLongFieldUpdater<MpscLongArrayQueue> CONSUMER_INDEX =
+            AtomicLongFieldUpdater.newUpdater(MpscLongArrayQueue.class, "consumerIndex");
+
+    public MpscLongArrayQueue(int capacity) {
+        int c = Pow2.roundToPowerOfTwo(capacity);
+        buffer = new AtomicLongArray(c << 1);
+        mask = c - 1;
+    }
+
+    /** The flag of a slot claimed by a {@link #fill} whose supplier crashed, the consumer skips it. */
+    static final long SKIPPED = 2L;
+
+    int calcOffset(long index, int m) {
+        return ((int)index & m) << 1;
+    }
+
+    @Override
+    public boolean offer(long value) {
+        final int m = mask;
+        final long c = m + 1;
+        long pi;
+        for (;;) {
+            pi = producerIndex;
+            if (pi - consumerIndex >= c) {
+                return false;
+            }
+            if (PRODUCER_INDEX.compareAndSet(this, pi, pi + 1)) {
+                break;
+            }
+        }
+        final AtomicLongArray a = buffer;
+        int offset = calcOffset(pi, m);
+        a.lazySet(offset, value);
+        a.lazySet(offset + 1, 1L);
+        return true;
+    }
+
+    @Override
+    public int fill(LongSupplier supplier, int limit) {
+        final int m = mask;
+        final long c = m + 1;
+        long pi;
+        int n;
+        for (;;) {
+            pi = producerIndex;
+            n = (int)Math.min(c - (pi - consumerIndex), limit);
+            if (n <= 0) {
+                return 0;
+            }
+            if (PRODUCER_INDEX.compareAndSet(this, pi, pi + n)) {
+                break;
+            }
+        }
+        final AtomicLongArray a = buffer;
+        int i = 0;
+        try {
+            for (; i < n; i++) {
+                int offset = calcOffset(pi + i, m);
+                a.lazySet(offset, supplier.getAsLong());
+                a.lazySet(offset + 1, 1L);
+            }
+        } finally {
+            // the slots are claimed already, the consumer would wait for them forever
+            for (; i < n; i++) {
+                a.lazySet(calcOffset(pi + i, m) + 1, SKIPPED);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Finds the next slot with a value, waiting for its flag if a producer has
+     * already claimed it but not yet written it and consuming the skipped slots.
+     * @param ci the consumer index
+     * @return the consumer index of the value or -1 if the queue is empty
+     */
+    long awaitSlot(long ci) {
+        final AtomicLongArray a = buffer;
+        final int m = mask;
+        for (;;) {
+            int offset1 = calcOffset(ci, m) + 1;
+            long flag = a.get(offset1);
+            if (flag == 0L) {
+                if (ci == producerIndex) {
+                    return -1L;
+                }
+                while ((flag = a.get(offset1)) == 0L) { }
+            }
+            if (flag != SKIPPED) {
+                return ci;
+            }
+            a.lazySet(offset1, 0L);
+            CONSUMER_INDEX.lazySet(this, ++ci);
+        }
+    }
+
+    @Override
+    public long peek(boolean[] hasValue) {
+        final long ci = awaitSlot(consumerIndex);
+
+        if (ci < 0L) {
+            hasValue[0] = false;
+            return 0L;
+        }
+        hasValue[0] = true;
+        final int offset = calcOffset(ci, mask);
+        return buffer.get(offset);
+    }
+
+    @Override
+    public long poll(boolean[] hasValue) {
+        final AtomicLongArray a = buffer;
+        final long ci = awaitSlot(consumerIndex);
+
+        if (ci < 0L) {
+            hasValue[0] = false;
+            return 0L;
+        }
+        final int offset = calcOffset(ci, mask);
+        final int offset1 = offset + 1;
+        long v = a.get(offset);
+        a.lazySet(offset1, 0L);
+        CONSUMER_INDEX.lazySet(this, ci + 1);
+        hasValue[0] = true;
+        return v;
+    }
+
+    @Override
+    public int drain(LongConsumer consumer, int limit) {
+        final AtomicLongArray a = buffer;
+        final int m = mask;
+        long ci = consumerIndex;
+
+        int e = 0;
+        while (e != limit) {
+            ci = awaitSlot(ci);
+            if (ci < 0L) {
+                break;
+            }
+            final int offset = calcOffset(ci, m);
+            final int offset1 = offset + 1;
+
+            long v = a.get(offset);
+            a.lazySet(offset1, 0L);
+            CONSUMER_INDEX.lazySet(this, ++ci);
+            consumer.accept(v);
+            e++;
+        }
+        return e;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return producerIndex == consumerIndex;
+    }
+
+    @Override
+    public void clear() {
+        drain(v -> { }, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int size() {
+        long ci = consumerIndex;
+
+        for (;;) {
+            long pi = producerIndex;
+            long ci2 = consumerIndex;
+            if (ci2 == ci) {
+                return (int)(pi - ci);
+            }
+            ci = ci2;
+        }
+    }
+}
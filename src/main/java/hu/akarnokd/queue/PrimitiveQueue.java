@@ -0,0 +1,30 @@
+/*
+ * Copyright 2015-2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.queue;
+
+/**
+ * Common base of the primitive-specialized queues ({@link IntQueue},
+ * {@link LongQueue} and {@link DoubleQueue}).
+ * <p>
+ * The typed {@code drain} and {@code fill} batch methods live on the
+ * sub-interfaces; none of them allocate per call.
+ */
+public interface PrimitiveQueue {
+
+    void clear();
+
+    int size();
+
+    boolean isEmpty();
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2015-2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.queue;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.*;
+
+import rx.internal.util.unsafe.Pow2;
+
+public final class SpscDoubleArrayQueue implements DoubleQueue {
+    final AtomicLongArray buffer;
+    final int mask;
+
+    public SpscDoubleArrayQueue(int capacity) {
+        int c = Pow2.roundToPowerOfTwo(capacity) << 1;
+        buffer = new AtomicLongArray(c + 2);
+        mask = c - 1;
+    }
+
+    int calcOffset(long index, int mask) {
+        return 2 + ((int)index & mask);
+    }
+
+    @Override
+    public boolean offer(double value) {
+        final AtomicLongArray a = buffer;
+        final int m = mask;
+        final long pi = a.get(0);
+
+        int offset = calcOffset(pi, m);
+        int offset1 = offset + 1;
+
+        if (a.get(offset1) != 0L) {
+            return false;
+        }
+
+        a.lazySet(offset, Double.doubleToRawLongBits(value));
+        a.lazySet(offset1, 1L);
+        a.lazySet(0, pi + 2);
+        return true;
+    }
+
+    @Override
+    public double peek(boolean[] hasValue) {
+        final AtomicLongArray a = buffer;
+        final int m = mask;
+        final long ci = a.get(1);
+
+        int offset = calcOffset(ci, m);
+
+        long v = a.get(offset + 1);
+        if (v == 0L) {
+            hasValue[0] = false;
+            return 0d;
+        }
+        hasValue[0] = true;
+        return Double.longBitsToDouble(a.get(offset));
+    }
+
+    @Override
+    public double poll(boolean[] hasValue) {
+        final AtomicLongArray a = buffer;
+        final int m = mask;
+        final long ci = a.get(1);
+
+        int offset = calcOffset(ci, m);
+        int offset1 = offset + 1;
+
+        long v = a.get(offset1);
+        if (v == 0L) {
+            hasValue[0] = false;
+            return 0d;
+        }
+        hasValue[0] = true;
+        v = a.get(offset);
+        a.lazySet(offset1, 0L);
+        a.lazySet(1, ci + 2);
+
+        return Double.longBitsToDouble(v);
+    }
+
+    @Override
+    public int drain(DoubleConsumer consumer, int limit) {
+        final AtomicLongArray a = buffer;
+        final int m = mask;
+        long ci = a.get(1);
+
+        int e = 0;
+        while (e != limit) {
+            int offset = calcOffset(ci, m);
+            int offset1 = offset + 1;
+
+            if (a.get(offset1) == 0L) {
+                break;
+            }
+            long v = a.get(offset);
+            a.lazySet(offset1, 0L);
+            ci += 2;
+            a.lazySet(1, ci);
+            consumer.accept(Double.longBitsToDouble(v));
+            e++;
+        }
+        return e;
+    }
+
+    @Override
+    public int fill(DoubleSupplier supplier, int limit) {
+        final AtomicLongArray a = buffer;
+        final int m = mask;
+        long pi = a.get(0);
+
+        int e = 0;
+        while (e != limit) {
+            int offset = calcOffset(pi, m);
+            int offset1 = offset + 1;
+
+            if (a.get(offset1) != 0L) {
+                break;
+            }
+            a.lazySet(offset, Double.doubleToRawLongBits(supplier.getAsDouble()));
+            a.lazySet(offset1, 1L);
+            pi += 2;
+            a.lazySet(0, pi);
+            e++;
+        }
+        return e;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        final AtomicLongArray a = buffer;
+        return a.get(0) == a.get(1);
+    }
+
+    @Override
+    public void clear() {
+        drain(v -> { }, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int size() {
+        final AtomicLongArray a = buffer;
+        long ci = a.get(1);
+
+        for (;;) {
+            long pi = a.get(0);
+            long ci2 = a.get(1);
+            if (ci2 == ci) {
+                return (int)((pi - ci) >> 1);
+            }
+            ci = ci2;
+        }
+    }
+}
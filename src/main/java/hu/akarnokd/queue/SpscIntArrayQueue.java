@@ -14,10 +14,11 @@
 package hu.akarnokd.queue;
 
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.*;
 
 import rx.internal.util.unsafe.Pow2;
 
-public final class SpscIntArrayQueue {
+public final class SpscIntArrayQueue implements IntQueue {
     final int mask;
     final int[] array;
     final AtomicLong producerIndex = new AtomicLong();
@@ -56,6 +57,7 @@ public final class SpscIntArrayQueue {
         mask = c - 1;
     }
 
+    @Override
     public boolean offer(int value) {
         final long pi = lvProducerIndex();
         final long ci = lvConsumerIndex();
@@ -74,6 +76,7 @@ public final class SpscIntArrayQueue {
         return true;
     }
 
+    @Override
     public int peek(boolean[] hasValue) {
         final long pi = lvProducerIndex();
         final long ci = lvConsumerIndex();
@@ -91,22 +94,24 @@ public final class SpscIntArrayQueue {
         return lvElement(a, offset);
     }
 
-    public int peek() {
+    @Override
+    public long peek() {
         final long pi = lvProducerIndex();
         final long ci = lvConsumerIndex();
 
         if (pi == ci) {
-            return 0;
+            return 0L;
         }
 
         final int m = mask;
         final int[] a = array;
 
         final int offset = calcOffset(ci, m);
-        return lvElement(a, offset);
+        return IntQueue.pack(lvElement(a, offset));
     }
 
 
+    @Override
     public int poll(boolean[] hasValue) {
         final long pi = lvProducerIndex();
         final long ci = lvConsumerIndex();
@@ -127,12 +132,13 @@ public final class SpscIntArrayQueue {
         return lvElement;
     }
 
-    public int poll() {
+    @Override
+    public long poll() {
         final long pi = lvProducerIndex();
         final long ci = lvConsumerIndex();
 
         if (pi == ci) {
-            return 0;
+            return 0L;
         }
 
         final int m = mask;
@@ -142,9 +148,45 @@ public final class SpscIntArrayQueue {
         int lvElement = lvElement(a, offset);
         soConsumerIndex(ci + 1);
 
-        return lvElement;
+        return IntQueue.pack(lvElement);
+    }
+
+    @Override
+    public int drain(IntConsumer consumer, int limit) {
+        final long pi = lvProducerIndex();
+        long ci = lvConsumerIndex();
+        final int m = mask;
+        final int[] a = array;
+
+        final int n = (int)Math.min(pi - ci, limit);
+
+        for (int i = 0; i < n; i++) {
+            final int offset = calcOffset(ci, m);
+            int v = lvElement(a, offset);
+            soConsumerIndex(++ci);
+            consumer.accept(v);
+        }
+        return n;
+    }
+
+    @Override
+    public int fill(IntSupplier supplier, int limit) {
+        long pi = lvProducerIndex();
+        final long ci = lvConsumerIndex();
+        final int m = mask;
+        final int[] a = array;
+
+        final int n = (int)Math.min(m + 1 - (pi - ci), limit);
+
+        for (int i = 0; i < n; i++) {
+            final int offset = calcOffset(pi, m);
+            soElement(a, offset, supplier.getAsInt());
+            soProducerIndex(++pi);
+        }
+        return n;
     }
 
+    @Override
     public boolean isEmpty() {
         return lvProducerIndex() == lvConsumerIndex();
     }
@@ -153,12 +195,14 @@ public final class SpscIntArrayQueue {
         return !isEmpty();
     }
 
+    @Override
     public void clear() {
         while (hasValue()) {
             poll();
         }
     }
 
+    @Override
     public int size() {
         long ci = lvConsumerIndex();
 
@@ -166,7 +210,7 @@ public final class SpscIntArrayQueue {
             long pi = lvProducerIndex();
             long ci2 = lvConsumerIndex();
             if (ci2 == ci) {
-                return (int)((pi - ci) >> 1);
+                return (int)(pi - ci);
             }
             ci = ci2;
         }
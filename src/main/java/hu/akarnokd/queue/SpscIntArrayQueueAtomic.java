@@ -14,10 +14,11 @@
 package hu.akarnokd.queue;
 
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.*;
 
 import rx.internal.util.unsafe.Pow2;
 
-public final class SpscIntArrayQueueAtomic {
+public final class SpscIntArrayQueueAtomic implements IntQueue {
     final int mask;
     final long[] array;
     final AtomicLong producerIndex = new AtomicLong();
@@ -56,6 +57,7 @@ public final class SpscIntArrayQueueAtomic {
         mask = c - 1;
     }
 
+    @Override
     public boolean offer(int value) {
         final int m = mask;
         final long[] a = array;
@@ -66,12 +68,13 @@ public final class SpscIntArrayQueueAtomic {
         if (v != 0L) {
             return false;
         }
-        soElement(a, offset, value | 0x1_0000_0000L);
+        soElement(a, offset, IntQueue.pack(value));
         soProducerIndex(pi + 1);
 
         return true;
     }
 
+    @Override
     public int peek(boolean[] hasValue) {
         final int m = mask;
         final long[] a = array;
@@ -87,20 +90,18 @@ public final class SpscIntArrayQueueAtomic {
         return 0;
     }
 
-    public int peek() {
+    @Override
+    public long peek() {
         final int m = mask;
         final long[] a = array;
         final long ci = lpConsumerIndex();
 
         final int offset = calcOffset(ci, m);
-        final long v = lvElement(a, offset);
-        if (v != 0L) {
-            return (int)v;
-        }
-        return 0;
+        return lvElement(a, offset);
     }
 
 
+    @Override
     public int poll(boolean[] hasValue) {
         final int m = mask;
         final long[] a = array;
@@ -118,7 +119,8 @@ public final class SpscIntArrayQueueAtomic {
         return 0;
     }
 
-    public int poll() {
+    @Override
+    public long poll() {
         final int m = mask;
         final long[] a = array;
         final long ci = lpConsumerIndex();
@@ -128,11 +130,51 @@ public final class SpscIntArrayQueueAtomic {
         if (v != 0L) {
             soElement(a, offset, 0L);
             soConsumerIndex(ci + 1);
-            return (int)v;
         }
-        return 0;
+        return v;
+    }
+
+    @Override
+    public int drain(IntConsumer consumer, int limit) {
+        final int m = mask;
+        final long[] a = array;
+        long ci = lpConsumerIndex();
+
+        int e = 0;
+        while (e != limit) {
+            final int offset = calcOffset(ci, m);
+            final long v = lvElement(a, offset);
+            if (v == 0L) {
+                break;
+            }
+            soElement(a, offset, 0L);
+            soConsumerIndex(++ci);
+            consumer.accept((int)v);
+            e++;
+        }
+        return e;
+    }
+
+    @Override
+    public int fill(IntSupplier supplier, int limit) {
+        final int m = mask;
+        final long[] a = array;
+        long pi = lpProducerIndex();
+
+        int e = 0;
+        while (e != limit) {
+            final int offset = calcOffset(pi, m);
+            if (lvElement(a, offset) != 0L) {
+                break;
+            }
+            soElement(a, offset, IntQueue.pack(supplier.getAsInt()));
+            soProducerIndex(++pi);
+            e++;
+        }
+        return e;
     }
 
+    @Override
     public boolean isEmpty() {
         return lpProducerIndex() == lpConsumerIndex();
     }
@@ -141,12 +183,14 @@ public final class SpscIntArrayQueueAtomic {
         return !isEmpty();
     }
 
+    @Override
     public void clear() {
         while (hasValue()) {
             poll();
         }
     }
 
+    @Override
     public int size() {
         long ci = lpConsumerIndex();
 
@@ -154,7 +198,7 @@ public final class SpscIntArrayQueueAtomic {
             long pi = lpProducerIndex();
             long ci2 = lpConsumerIndex();
             if (ci2 == ci) {
-                return (int)((pi - ci) >> 1);
+                return (int)(pi - ci);
             }
             ci = ci2;
         }
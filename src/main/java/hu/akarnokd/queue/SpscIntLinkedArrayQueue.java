@@ -14,11 +14,12 @@
 package hu.akarnokd.queue;
 
 import java.util.concurrent.atomic.*;
+import java.util.function.IntSupplier;
 
 import io.reactivex.internal.util.Pow2;
 
 
-public final class SpscIntLinkedArrayQueue {
+public final class SpscIntLinkedArrayQueue implements IntQueue {
     protected long[] producerBuffer;
 
     protected volatile long producerIndex;
@@ -57,6 +58,7 @@ public final class SpscIntLinkedArrayQueue {
         }
     }
 
+    @Override
     public boolean offer(int value) {
         final int m = mask;
         final long[] a = producerBuffer;
@@ -69,7 +71,7 @@ public final class SpscIntLinkedArrayQueue {
         int offset = calcOffset(pi, m);
         if ((v & 0x1_0000_0000L) != 0L) {
             long[] b = new long[m + 1];
-            b[offset] = 0x1_0000_0000L | value;
+            b[offset] = IntQueue.pack(value);
             NextNode nn = new NextNode(b);
             NextNode t = tail;
             producerBuffer = b;
@@ -77,13 +79,14 @@ public final class SpscIntLinkedArrayQueue {
             t.lazySet(nn);
             a[offset] = 0x2_0000_0000L;
         } else {
-            a[offset] = 0x1_0000_0000L | value;
+            a[offset] = IntQueue.pack(value);
         }
         PRODUCER_INDEX.lazySet(this, pi + 1);
 
         return true;
     }
 
+    @Override
     public long peek() {
         final int m = mask;
         final long[] a = consumerBuffer;
@@ -106,18 +109,21 @@ public final class SpscIntLinkedArrayQueue {
         return v;
     }
 
+    @Override
     public int peek(boolean[] hasValue) {
         long v = peek();
-        hasValue[0] = (v & 0x1_0000_0000L) != 0L;
+        hasValue[0] = (v & HAS_VALUE) != 0L;
         return (int)v;
     }
 
+    @Override
     public int poll(boolean[] hasValue) {
         long v = poll();
-        hasValue[0] = (v & 0x1_0000_0000L) != 0L;
+        hasValue[0] = (v & HAS_VALUE) != 0L;
         return (int)v;
     }
 
+    @Override
     public long poll() {
         final int m = mask;
         final long[] a = consumerBuffer;
@@ -153,14 +159,37 @@ public final class SpscIntLinkedArrayQueue {
     }
 
 
+    @Override
     public boolean isEmpty() {
         return producerIndex == consumerIndex;
     }
 
+    @Override
+    public int fill(IntSupplier supplier, int limit) {
+        for (int i = 0; i < limit; i++) {
+            offer(supplier.getAsInt());
+        }
+        return limit;
+    }
+
+    @Override
     public void clear() {
-        boolean[] b = { true };
-        while (!isEmpty() && !b[0]) {
-            poll(b);
+        while (!isEmpty()) {
+            poll();
+        }
+    }
+
+    @Override
+    public int size() {
+        long ci = consumerIndex;
+
+        for (;;) {
+            long pi = producerIndex;
+            long ci2 = consumerIndex;
+            if (ci2 == ci) {
+                return (int)(pi - ci);
+            }
+            ci = ci2;
         }
     }
 }
@@ -14,10 +14,11 @@
 package hu.akarnokd.queue;
 
 import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.*;
 
 import rx.internal.util.unsafe.Pow2;
 
-public final class SpscLongArrayQueue {
+public final class SpscLongArrayQueue implements LongQueue {
     final AtomicLongArray buffer;
     final int mask;
 
@@ -31,6 +32,7 @@ public final class SpscLongArrayQueue {
         return 2 + ((int)index & mask);
     }
 
+    @Override
     public boolean offer(long value) {
         final AtomicLongArray a = buffer;
         final int m = mask;
@@ -49,6 +51,7 @@ public final class SpscLongArrayQueue {
         return true;
     }
 
+    @Override
     public long peek(boolean[] hasValue) {
         final AtomicLongArray a = buffer;
         final int m = mask;
@@ -88,6 +91,7 @@ public final class SpscLongArrayQueue {
         return a.get(offset);
     }
 
+    @Override
     public long poll(boolean[] hasValue) {
         final AtomicLongArray a = buffer;
         final int m = mask;
@@ -126,8 +130,78 @@ public final class SpscLongArrayQueue {
         return v;
     }
 
+    @Override
     public boolean isEmpty() {
         final AtomicLongArray a = buffer;
         return a.get(0) == a.get(1);
     }
+
+    @Override
+    public int drain(LongConsumer consumer, int limit) {
+        final AtomicLongArray a = buffer;
+        final int m = mask;
+        long ci = a.get(1);
+
+        int e = 0;
+        while (e != limit) {
+            int offset = calcOffset(ci, m);
+            int offset1 = offset + 1;
+
+            if (a.get(offset1) == 0L) {
+                break;
+            }
+            long v = a.get(offset);
+            a.lazySet(offset1, 0L);
+            ci += 2;
+            a.lazySet(1, ci);
+            consumer.accept(v);
+            e++;
+        }
+        return e;
+    }
+
+    @Override
+    public int fill(LongSupplier supplier, int limit) {
+        final AtomicLongArray a = buffer;
+        final int m = mask;
+        long pi = a.get(0);
+
+        int e = 0;
+        while (e != limit) {
+            int offset = calcOffset(pi, m);
+            int offset1 = offset + 1;
+
+            if (a.get(offset1) != 0L) {
+                break;
+            }
+            a.lazySet(offset, supplier.getAsLong());
+            a.lazySet(offset1, 1L);
+            pi += 2;
+            a.lazySet(0, pi);
+            e++;
+        }
+        return e;
+    }
+
+    @Override
+    public void clear() {
+        while (hasValue()) {
+            poll();
+        }
+    }
+
+    @Override
+    public int size() {
+        final AtomicLongArray a = buffer;
+        long ci = a.get(1);
+
+        for (;;) {
+            long pi = a.get(0);
+            long ci2 = a.get(1);
+            if (ci2 == ci) {
+                return (int)((pi - ci) >> 1);
+            }
+            ci = ci2;
+        }
+    }
 }
@@ -14,10 +14,11 @@
 package hu.akarnokd.queue;
 
 import java.util.concurrent.atomic.*;
+import java.util.function.*;
 
 import rx.internal.util.unsafe.Pow2;
 
-public final class SpscLongLinkedArrayQueue {
+public final class SpscLongLinkedArrayQueue implements LongQueue {
     final int mask;
 
     ALA producerBuffer;
@@ -61,6 +62,7 @@ public final class SpscLongLinkedArrayQueue {
         return (int)index & m;
     }
 
+    @Override
     public boolean offer(long value) {
         final ALA a = producerBuffer;
         final int m = mask;
@@ -88,6 +90,7 @@ public final class SpscLongLinkedArrayQueue {
         return true;
     }
 
+    @Override
     public long peek(boolean[] hasValue) {
         final ALA a = consumerBuffer;
         final int m = mask;
@@ -110,6 +113,7 @@ public final class SpscLongLinkedArrayQueue {
         return v;
     }
 
+    @Override
     public long poll(boolean[] hasValue) {
         final ALA a = consumerBuffer;
         final int m = mask;
@@ -140,7 +144,70 @@ public final class SpscLongLinkedArrayQueue {
         return v;
     }
 
+    @Override
     public boolean isEmpty() {
         return producerIndex == consumerIndex;
     }
+
+    @Override
+    public int drain(LongConsumer consumer, int limit) {
+        final int m = mask;
+        ALA a = consumerBuffer;
+        long ci = consumerIndex;
+
+        int e = 0;
+        while (e != limit) {
+            int offset = calcOffset(ci, m);
+            int offset1 = offset + 1;
+
+            long v = a.get(offset1);
+
+            if (v == 0L) {
+                break;
+            }
+
+            if (v == 2) {
+                ALA b = a.next;
+                v = b.get(offset);
+                b.lazySet(offset1, 0L);
+                consumerBuffer = b;
+                a = b;
+            } else {
+                v = a.get(offset);
+                a.lazySet(offset1, 0L);
+            }
+            ci += 2;
+            CONSUMER_INDEX.lazySet(this, ci);
+            consumer.accept(v);
+            e++;
+        }
+        return e;
+    }
+
+    @Override
+    public int fill(LongSupplier supplier, int limit) {
+        for (int i = 0; i < limit; i++) {
+            offer(supplier.getAsLong());
+        }
+        return limit;
+    }
+
+    @Override
+    public void clear() {
+        drain(v -> { }, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int size() {
+        long ci = consumerIndex;
+
+        for (;;) {
+            long pi = producerIndex;
+            long ci2 = consumerIndex;
+            if (ci2 == ci) {
+                return (int)((pi - ci) >> 1);
+            }
+            ci = ci2;
+        }
+    }
 }
@@ -5,6 +5,11 @@ import java.util.concurrent.atomic.*;
 import io.reactivex.internal.util.Pow2;
 
 
+/**
+ * Single-producer single-consumer bounded queue where other threads can
+ * {@link #steal()} the most recently offered items.
+ * @param <T> the element type
+ */
 public final class SpscStealableArrayQeque<T> extends AtomicReferenceArray<Object> {
     private static final long serialVersionUID = -806326314905613274L;
 
@@ -31,6 +36,10 @@ public final class SpscStealableArrayQeque<T> extends AtomicReferenceArray<Objec
         final int m = mask;
         long pi = producerIndex;
 
+        if (pi - consumerIndex > m) {
+            return false;
+        }
+
         int offset = (int)pi & m;
 
         Object o = get(offset);
@@ -46,12 +55,13 @@ public final class SpscStealableArrayQeque<T> extends AtomicReferenceArray<Objec
     public T poll() {
         final int m = mask;
         final long ci = consumerIndex;
+        final long pi = producerIndex;
         long ci1 = ci;
 
         for (;;) {
             int offset = (int)ci1 & m;
 
-            Object o = get(offset);
+            Object o = ci1 != pi ? get(offset) : null;
             if (o == null) {
                 if (ci1 != ci) {
                     CONSUMER_INDEX.lazySet(this, ci1);
@@ -76,8 +86,12 @@ public final class SpscStealableArrayQeque<T> extends AtomicReferenceArray<Objec
         long pi = producerIndex;
 
         for (;;) {
+            // poll() may skip the stolen slots past this point, don't walk below it
+            if (pi - consumerIndex <= 0) {
+                return null;
+            }
 
-            int offset = (int)pi & m;
+            int offset = (int)(pi - 1) & m;
 
             Object o = get(offset);
             if (o == null) {
@@ -92,4 +106,8 @@ public final class SpscStealableArrayQeque<T> extends AtomicReferenceArray<Objec
             }
         }
     }
+
+    public boolean isEmpty() {
+        return producerIndex == consumerIndex;
+    }
 }
@@ -14,13 +14,30 @@ public abstract class LcIntermediateObservable<Upstream, Downstream> extends LcO
 
     Observer<? super Downstream> downstream;
 
+    boolean recycle;
+
     protected abstract void subscribeActual();
 
     protected abstract LcIntermediateObservable<Upstream, Downstream> createFresh();
 
+    @Override
+    void recycleChain() {
+        recycle = true;
+    }
+
+    /**
+     * Makes this instance available to the next subscription if recycling is enabled.
+     * Call it right before signaling the terminal event to the downstream read out beforehand.
+     */
+    protected final void release() {
+        downstream = null;
+        if (recycle) {
+            OBSERVER_STATE.lazySet(this, 0);
+        }
+    }
+
     @Override
     public final void subscribe(Observer<? super Downstream> observer) {
-        // TODO Auto-generated method stub
         if (observerState == 0 && OBSERVER_STATE.compareAndSet(this, 0, 1)) {
             this.downstream = observer;
             subscribeActual();
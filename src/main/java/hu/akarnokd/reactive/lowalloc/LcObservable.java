@@ -1,13 +1,35 @@
 package hu.akarnokd.reactive.lowalloc;
 
-import java.util.function.Function;
+import java.util.function.*;
 
-import io.reactivex.Observer;
+import io.reactivex.*;
 
 public abstract class LcObservable<T> {
 
+    static final int DEFAULT_PREFETCH = 16;
+
     public abstract void subscribe(Observer<? super T> observer);
 
+    /**
+     * Marks this instance and all of its upstream stages to be reused by the next
+     * subscription once the current one has terminated.
+     */
+    void recycleChain() {
+    }
+
+    /**
+     * Turns on the recycled mode for the whole chain: after a terminal event, the
+     * next subscription reuses the operator instances instead of creating fresh ones.
+     * <p>
+     * Observers must not touch the {@code Disposable} they received after the terminal event
+     * because it may already serve another subscription.
+     * @return this
+     */
+    public final LcObservable<T> recycle() {
+        recycleChain();
+        return this;
+    }
+
     public static <T> LcObservable<T> just(T value) {
         return new LcObservableJust<T>(value);
     }
@@ -19,7 +41,39 @@ public abstract class LcObservable<T> {
         return new LcObservableRange(start, start + count);
     }
 
+    public static <T, U, R> LcObservable<R> zip(LcObservable<T> first, LcObservable<U> second, BiFunction<T, U, R> zipper) {
+        return new LcObservableZip<T, U, R>(first, second, zipper, DEFAULT_PREFETCH);
+    }
+
     public final <R> LcObservable<R> map(Function<T, R> mapper) {
         return new LcObservableMap<T, R>(this, mapper);
     }
+
+    public final LcObservable<T> filter(Predicate<T> predicate) {
+        return new LcObservableFilter<T>(this, predicate);
+    }
+
+    public final LcObservable<T> take(long n) {
+        return new LcObservableTake<T>(this, n);
+    }
+
+    public final <R> LcObservable<R> reduce(Supplier<R> seed, BiFunction<R, T, R> reducer) {
+        return new LcObservableReduce<T, R>(this, seed, reducer);
+    }
+
+    public final <R> LcObservable<R> flatMap(Function<T, LcObservable<R>> mapper) {
+        return new LcObservableFlatMap<T, R>(this, mapper);
+    }
+
+    public final <R> LcObservable<R> concatMap(Function<T, LcObservable<R>> mapper) {
+        return new LcObservableConcatMap<T, R>(this, mapper, DEFAULT_PREFETCH);
+    }
+
+    public final <U, R> LcObservable<R> zipWith(LcObservable<U> other, BiFunction<T, U, R> zipper) {
+        return zip(this, other, zipper);
+    }
+
+    public final LcObservable<T> observeOn(Scheduler scheduler) {
+        return new LcObservableObserveOn<T>(this, scheduler, DEFAULT_PREFETCH);
+    }
 }
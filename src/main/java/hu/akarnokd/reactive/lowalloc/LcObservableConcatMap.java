@@ -0,0 +1,220 @@
+package hu.akarnokd.reactive.lowalloc;
+
+import java.util.concurrent.atomic.*;
+import java.util.function.Function;
+
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.disposables.DisposableHelper;
+import io.reactivex.internal.queue.SpscLinkedArrayQueue;
+
+/**
+ * Maps the upstream values into inner LcObservables and relays them one after the other.
+ * <p>
+ * The queue and the inner observer are allocated once per instance and reused by
+ * each inner subscription and, in recycle mode, by the next subscription.
+ */
+final class LcObservableConcatMap<T, R> extends LcIntermediateObservable<T, R> implements Disposable {
+
+    final Function<T, LcObservable<R>> mapper;
+
+    final LcObservable<T> source;
+
+    final int prefetch;
+
+    final SpscLinkedArrayQueue<T> queue;
+
+    final InnerObserver<R> inner;
+
+    volatile int wip;
+
+    @SuppressWarnings("rawtypes")
+    static final AtomicIntegerFieldUpdater<LcObservableConcatMap> WIP =
+        AtomicIntegerFieldUpdater.newUpdater(LcObservableConcatMap.class, "wip");
+
+    Disposable upstream;
+
+    volatile boolean active;
+
+    volatile boolean done;
+
+    volatile boolean disposed;
+
+    Throwable error;
+
+    LcObservableConcatMap(LcObservable<T> source, Function<T, LcObservable<R>> mapper, int prefetch) {
+        this.source = source;
+        this.mapper = mapper;
+        this.prefetch = prefetch;
+        this.queue = new SpscLinkedArrayQueue<>(prefetch);
+        this.inner = new InnerObserver<>(this);
+    }
+
+    @Override
+    public void onSubscribe(Disposable d) {
+        upstream = d;
+        downstream.onSubscribe(this);
+    }
+
+    @Override
+    public void onNext(T t) {
+        queue.offer(t);
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable e) {
+        error = e;
+        done = true;
+        inner.dispose();
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        done = true;
+        drain();
+    }
+
+    void innerNext(R value) {
+        downstream.onNext(value);
+    }
+
+    void innerError(Throwable e) {
+        error = e;
+        done = true;
+        upstream.dispose();
+        active = false;
+        drain();
+    }
+
+    void innerComplete() {
+        active = false;
+        drain();
+    }
+
+    void drain() {
+        if (WIP.getAndIncrement(this) != 0) {
+            return;
+        }
+
+        int missed = 1;
+        for (;;) {
+            if (disposed) {
+                queue.clear();
+            } else if (!active) {
+                boolean d = done;
+                Throwable ex = error;
+                if (d && ex != null) {
+                    queue.clear();
+                    Observer<? super R> a = downstream;
+                    release();
+                    a.onError(ex);
+                    return;
+                }
+
+                T t = queue.poll();
+                boolean empty = t == null;
+
+                if (d && empty) {
+                    Observer<? super R> a = downstream;
+                    release();
+                    a.onComplete();
+                    return;
+                }
+
+                if (!empty) {
+                    LcObservable<R> o;
+                    try {
+                        o = mapper.apply(t);
+                    } catch (Throwable exc) {
+                        upstream.dispose();
+                        queue.clear();
+                        Observer<? super R> a = downstream;
+                        release();
+                        a.onError(exc);
+                        return;
+                    }
+                    active = true;
+                    o.subscribe(inner);
+                }
+            }
+
+            missed = WIP.addAndGet(this, -missed);
+            if (missed == 0) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    void recycleChain() {
+        super.recycleChain();
+        source.recycleChain();
+    }
+
+    @Override
+    protected void subscribeActual() {
+        active = false;
+        done = false;
+        disposed = false;
+        error = null;
+        inner.lazySet(null);
+        source.subscribe(this);
+    }
+
+    @Override
+    protected LcObservableConcatMap<T, R> createFresh() {
+        return new LcObservableConcatMap<T, R>(source, mapper, prefetch);
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+        upstream.dispose();
+        inner.dispose();
+        if (WIP.getAndIncrement(this) == 0) {
+            queue.clear();
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    static final class InnerObserver<R> extends AtomicReference<Disposable> implements Observer<R> {
+
+        private static final long serialVersionUID = -1940473880036455367L;
+
+        final LcObservableConcatMap<?, R> parent;
+
+        InnerObserver(LcObservableConcatMap<?, R> parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            DisposableHelper.replace(this, d);
+        }
+
+        @Override
+        public void onNext(R t) {
+            parent.innerNext(t);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            parent.innerError(e);
+        }
+
+        @Override
+        public void onComplete() {
+            parent.innerComplete();
+        }
+
+        void dispose() {
+            DisposableHelper.dispose(this);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package hu.akarnokd.reactive.lowalloc;
+
+import java.util.function.Predicate;
+
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+
+final class LcObservableFilter<T> extends LcIntermediateObservable<T, T> implements Disposable {
+
+    final Predicate<T> predicate;
+
+    final LcObservable<T> source;
+
+    Disposable upstream;
+
+    LcObservableFilter(LcObservable<T> source, Predicate<T> predicate) {
+        this.source = source;
+        this.predicate = predicate;
+    }
+
+    @Override
+    public void onSubscribe(Disposable d) {
+        upstream = d;
+        downstream.onSubscribe(this);
+    }
+
+    @Override
+    public void onNext(T t) {
+        boolean b;
+        try {
+            b = predicate.test(t);
+        } catch (Throwable ex) {
+            upstream.dispose();
+            onError(ex);
+            return;
+        }
+        if (b) {
+            downstream.onNext(t);
+        }
+    }
+
+    @Override
+    public void onError(Throwable e) {
+        Observer<? super T> d = downstream;
+        release();
+        d.onError(e);
+    }
+
+    @Override
+    public void onComplete() {
+        Observer<? super T> d = downstream;
+        release();
+        d.onComplete();
+    }
+
+    @Override
+    void recycleChain() {
+        super.recycleChain();
+        source.recycleChain();
+    }
+
+    @Override
+    protected void subscribeActual() {
+        source.subscribe(this);
+    }
+
+    @Override
+    protected LcObservableFilter<T> createFresh() {
+        return new LcObservableFilter<T>(source, predicate);
+    }
+
+    @Override
+    public void dispose() {
+        upstream.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return upstream.isDisposed();
+    }
+}
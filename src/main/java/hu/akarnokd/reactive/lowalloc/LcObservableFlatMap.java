@@ -0,0 +1,238 @@
+package hu.akarnokd.reactive.lowalloc;
+
+import java.util.concurrent.atomic.*;
+import java.util.function.Function;
+
+import io.reactivex.Observer;
+import io.reactivex.disposables.*;
+import io.reactivex.internal.disposables.DisposableHelper;
+import io.reactivex.internal.queue.MpscLinkedQueue;
+import io.reactivex.internal.util.AtomicThrowable;
+
+/**
+ * Maps the upstream values into inner LcObservables and merges all of them at once.
+ * <p>
+ * Values are emitted directly while there is no contention and only queued when another
+ * source is emitting at the same time. Besides the inner observers and their tracking set,
+ * the queue and error container are allocated once per instance.
+ */
+final class LcObservableFlatMap<T, R> extends LcIntermediateObservable<T, R> implements Disposable {
+
+    final Function<T, LcObservable<R>> mapper;
+
+    final LcObservable<T> source;
+
+    final MpscLinkedQueue<R> queue;
+
+    final AtomicThrowable errors;
+
+    volatile int wip;
+
+    @SuppressWarnings("rawtypes")
+    static final AtomicIntegerFieldUpdater<LcObservableFlatMap> WIP =
+        AtomicIntegerFieldUpdater.newUpdater(LcObservableFlatMap.class, "wip");
+
+    volatile int active;
+
+    @SuppressWarnings("rawtypes")
+    static final AtomicIntegerFieldUpdater<LcObservableFlatMap> ACTIVE =
+        AtomicIntegerFieldUpdater.newUpdater(LcObservableFlatMap.class, "active");
+
+    Disposable upstream;
+
+    CompositeDisposable inners;
+
+    volatile boolean disposed;
+
+    LcObservableFlatMap(LcObservable<T> source, Function<T, LcObservable<R>> mapper) {
+        this.source = source;
+        this.mapper = mapper;
+        this.queue = new MpscLinkedQueue<>();
+        this.errors = new AtomicThrowable();
+    }
+
+    @Override
+    public void onSubscribe(Disposable d) {
+        upstream = d;
+        downstream.onSubscribe(this);
+    }
+
+    @Override
+    public void onNext(T t) {
+        LcObservable<R> o;
+        try {
+            o = mapper.apply(t);
+        } catch (Throwable ex) {
+            upstream.dispose();
+            onError(ex);
+            return;
+        }
+        InnerObserver<R> inner = new InnerObserver<>(this);
+        if (inners.add(inner)) {
+            ACTIVE.getAndIncrement(this);
+            o.subscribe(inner);
+        }
+    }
+
+    @Override
+    public void onError(Throwable e) {
+        errors.addThrowable(e);
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        ACTIVE.decrementAndGet(this);
+        drain();
+    }
+
+    void innerNext(R value) {
+        if (wip == 0 && WIP.compareAndSet(this, 0, 1)) {
+            downstream.onNext(value);
+            if (WIP.decrementAndGet(this) == 0) {
+                return;
+            }
+        } else {
+            queue.offer(value);
+            if (WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+        }
+        drainLoop();
+    }
+
+    void innerError(InnerObserver<R> inner, Throwable e) {
+        inners.delete(inner);
+        errors.addThrowable(e);
+        drain();
+    }
+
+    void innerComplete(InnerObserver<R> inner) {
+        inners.delete(inner);
+        ACTIVE.decrementAndGet(this);
+        drain();
+    }
+
+    void drain() {
+        if (WIP.getAndIncrement(this) == 0) {
+            drainLoop();
+        }
+    }
+
+    void drainLoop() {
+        int missed = 1;
+        MpscLinkedQueue<R> q = queue;
+        for (;;) {
+            if (disposed) {
+                q.clear();
+            } else {
+                if (errors.get() != null) {
+                    q.clear();
+                    upstream.dispose();
+                    inners.dispose();
+                    Throwable ex = errors.terminate();
+                    Observer<? super R> a = downstream;
+                    release();
+                    a.onError(ex);
+                    return;
+                }
+
+                boolean d = active == 0;
+
+                Observer<? super R> a = downstream;
+                R v;
+                while ((v = q.poll()) != null) {
+                    a.onNext(v);
+                }
+
+                if (d) {
+                    release();
+                    a.onComplete();
+                    return;
+                }
+            }
+
+            missed = WIP.addAndGet(this, -missed);
+            if (missed == 0) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    void recycleChain() {
+        super.recycleChain();
+        source.recycleChain();
+    }
+
+    @Override
+    protected void subscribeActual() {
+        disposed = false;
+        errors.lazySet(null);
+        inners = new CompositeDisposable();
+        ACTIVE.lazySet(this, 1);
+        WIP.lazySet(this, 0);
+        source.subscribe(this);
+    }
+
+    @Override
+    protected LcObservableFlatMap<T, R> createFresh() {
+        return new LcObservableFlatMap<T, R>(source, mapper);
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+        upstream.dispose();
+        inners.dispose();
+        if (WIP.getAndIncrement(this) == 0) {
+            queue.clear();
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    static final class InnerObserver<R> extends AtomicReference<Disposable> implements Observer<R>, Disposable {
+
+        private static final long serialVersionUID = 6316429580350016813L;
+
+        final LcObservableFlatMap<?, R> parent;
+
+        InnerObserver(LcObservableFlatMap<?, R> parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            DisposableHelper.setOnce(this, d);
+        }
+
+        @Override
+        public void onNext(R t) {
+            parent.innerNext(t);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            parent.innerError(this, e);
+        }
+
+        @Override
+        public void onComplete() {
+            parent.innerComplete(this);
+        }
+
+        @Override
+        public void dispose() {
+            DisposableHelper.dispose(this);
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return DisposableHelper.isDisposed(get());
+        }
+    }
+}
@@ -29,15 +29,19 @@ final class LcObservableJust<T> extends LcSourceObservable<T> {
 
     @Override
     protected void subscribeActual(Observer<? super T> downstream) {
+        disposed = false;
         downstream.onSubscribe(this);
 
         if (disposed) {
+            release();
             return;
         }
         downstream.onNext(value);
         if (disposed) {
+            release();
             return;
         }
+        release();
         downstream.onComplete();
     }
 
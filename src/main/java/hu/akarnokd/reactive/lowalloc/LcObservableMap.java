@@ -2,6 +2,7 @@ package hu.akarnokd.reactive.lowalloc;
 
 import java.util.function.Function;
 
+import io.reactivex.Observer;
 import io.reactivex.disposables.Disposable;
 
 final class LcObservableMap<T, R> extends LcIntermediateObservable<T, R> implements Disposable {
@@ -25,17 +26,35 @@ final class LcObservableMap<T, R> extends LcIntermediateObservable<T, R> impleme
 
     @Override
     public void onNext(T t) {
-        downstream.onNext(mapper.apply(t));
+        R v;
+        try {
+            v = mapper.apply(t);
+        } catch (Throwable ex) {
+            upstream.dispose();
+            onError(ex);
+            return;
+        }
+        downstream.onNext(v);
     }
 
     @Override
     public void onError(Throwable e) {
-        downstream.onError(e);
+        Observer<? super R> d = downstream;
+        release();
+        d.onError(e);
     }
 
     @Override
     public void onComplete() {
-        downstream.onComplete();
+        Observer<? super R> d = downstream;
+        release();
+        d.onComplete();
+    }
+
+    @Override
+    void recycleChain() {
+        super.recycleChain();
+        source.recycleChain();
     }
 
     @Override
@@ -0,0 +1,164 @@
+package hu.akarnokd.reactive.lowalloc;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import io.reactivex.*;
+import io.reactivex.Scheduler.Worker;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.queue.SpscLinkedArrayQueue;
+
+/**
+ * Relays the upstream signals on a {@link Scheduler.Worker}.
+ * <p>
+ * The operator is the drain task itself; only the worker is created per subscription,
+ * the queue is reused.
+ */
+final class LcObservableObserveOn<T> extends LcIntermediateObservable<T, T> implements Disposable, Runnable {
+
+    final LcObservable<T> source;
+
+    final Scheduler scheduler;
+
+    final int prefetch;
+
+    final SpscLinkedArrayQueue<T> queue;
+
+    volatile int wip;
+
+    @SuppressWarnings("rawtypes")
+    static final AtomicIntegerFieldUpdater<LcObservableObserveOn> WIP =
+        AtomicIntegerFieldUpdater.newUpdater(LcObservableObserveOn.class, "wip");
+
+    Worker worker;
+
+    Disposable upstream;
+
+    volatile boolean done;
+
+    volatile boolean disposed;
+
+    Throwable error;
+
+    LcObservableObserveOn(LcObservable<T> source, Scheduler scheduler, int prefetch) {
+        this.source = source;
+        this.scheduler = scheduler;
+        this.prefetch = prefetch;
+        this.queue = new SpscLinkedArrayQueue<>(prefetch);
+    }
+
+    @Override
+    public void onSubscribe(Disposable d) {
+        upstream = d;
+        downstream.onSubscribe(this);
+    }
+
+    @Override
+    public void onNext(T t) {
+        queue.offer(t);
+        schedule();
+    }
+
+    @Override
+    public void onError(Throwable e) {
+        error = e;
+        done = true;
+        schedule();
+    }
+
+    @Override
+    public void onComplete() {
+        done = true;
+        schedule();
+    }
+
+    void schedule() {
+        if (WIP.getAndIncrement(this) == 0) {
+            worker.schedule(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        int missed = 1;
+        SpscLinkedArrayQueue<T> q = queue;
+        Observer<? super T> a = downstream;
+
+        for (;;) {
+            if (disposed) {
+                q.clear();
+                return;
+            }
+
+            for (;;) {
+                boolean d = done;
+                T v = q.poll();
+                boolean empty = v == null;
+
+                if (d && empty) {
+                    Throwable ex = error;
+                    error = null;
+                    worker.dispose();
+                    release();
+                    if (ex != null) {
+                        a.onError(ex);
+                    } else {
+                        a.onComplete();
+                    }
+                    return;
+                }
+
+                if (empty) {
+                    break;
+                }
+
+                a.onNext(v);
+
+                if (disposed) {
+                    q.clear();
+                    return;
+                }
+            }
+
+            missed = WIP.addAndGet(this, -missed);
+            if (missed == 0) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    void recycleChain() {
+        super.recycleChain();
+        source.recycleChain();
+    }
+
+    @Override
+    protected void subscribeActual() {
+        done = false;
+        disposed = false;
+        error = null;
+        WIP.lazySet(this, 0);
+        worker = scheduler.createWorker();
+        source.subscribe(this);
+    }
+
+    @Override
+    protected LcObservableObserveOn<T> createFresh() {
+        return new LcObservableObserveOn<T>(source, scheduler, prefetch);
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+        upstream.dispose();
+        worker.dispose();
+        if (WIP.getAndIncrement(this) == 0) {
+            queue.clear();
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+}
@@ -32,17 +32,21 @@ final class LcObservableRange extends LcSourceObservable<Integer> {
 
     @Override
     protected void subscribeActual(Observer<? super Integer> downstream) {
+        disposed = false;
         downstream.onSubscribe(this);
 
         for (int i = start; i < end; i++) {
             if (disposed) {
+                release();
                 return;
             }
             downstream.onNext(i);
         }
         if (disposed) {
+            release();
             return;
         }
+        release();
         downstream.onComplete();
     }
 
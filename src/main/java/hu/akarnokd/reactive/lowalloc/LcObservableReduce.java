@@ -0,0 +1,81 @@
+package hu.akarnokd.reactive.lowalloc;
+
+import java.util.function.*;
+
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+
+final class LcObservableReduce<T, R> extends LcIntermediateObservable<T, R> implements Disposable {
+
+    final Supplier<R> seed;
+
+    final BiFunction<R, T, R> reducer;
+
+    final LcObservable<T> source;
+
+    Disposable upstream;
+
+    R accumulator;
+
+    LcObservableReduce(LcObservable<T> source, Supplier<R> seed, BiFunction<R, T, R> reducer) {
+        this.source = source;
+        this.seed = seed;
+        this.reducer = reducer;
+    }
+
+    @Override
+    public void onSubscribe(Disposable d) {
+        upstream = d;
+        downstream.onSubscribe(this);
+    }
+
+    @Override
+    public void onNext(T t) {
+        accumulator = reducer.apply(accumulator, t);
+    }
+
+    @Override
+    public void onError(Throwable e) {
+        accumulator = null;
+        Observer<? super R> d = downstream;
+        release();
+        d.onError(e);
+    }
+
+    @Override
+    public void onComplete() {
+        R v = accumulator;
+        accumulator = null;
+        Observer<? super R> d = downstream;
+        release();
+        d.onNext(v);
+        d.onComplete();
+    }
+
+    @Override
+    void recycleChain() {
+        super.recycleChain();
+        source.recycleChain();
+    }
+
+    @Override
+    protected void subscribeActual() {
+        accumulator = seed.get();
+        source.subscribe(this);
+    }
+
+    @Override
+    protected LcObservableReduce<T, R> createFresh() {
+        return new LcObservableReduce<T, R>(source, seed, reducer);
+    }
+
+    @Override
+    public void dispose() {
+        upstream.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return upstream.isDisposed();
+    }
+}
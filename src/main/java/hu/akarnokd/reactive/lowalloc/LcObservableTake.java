@@ -0,0 +1,102 @@
+package hu.akarnokd.reactive.lowalloc;
+
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+
+final class LcObservableTake<T> extends LcIntermediateObservable<T, T> implements Disposable {
+
+    final long n;
+
+    final LcObservable<T> source;
+
+    Disposable upstream;
+
+    long remaining;
+
+    boolean done;
+
+    LcObservableTake(LcObservable<T> source, long n) {
+        this.source = source;
+        this.n = n;
+    }
+
+    @Override
+    public void onSubscribe(Disposable d) {
+        upstream = d;
+        downstream.onSubscribe(this);
+        if (remaining == 0L) {
+            done = true;
+            d.dispose();
+            Observer<? super T> a = downstream;
+            release();
+            a.onComplete();
+        }
+    }
+
+    @Override
+    public void onNext(T t) {
+        if (done) {
+            return;
+        }
+        long r = remaining - 1;
+        remaining = r;
+        Observer<? super T> a = downstream;
+        a.onNext(t);
+        if (r == 0L && !done) {
+            done = true;
+            upstream.dispose();
+            release();
+            a.onComplete();
+        }
+    }
+
+    @Override
+    public void onError(Throwable e) {
+        if (done) {
+            return;
+        }
+        done = true;
+        Observer<? super T> d = downstream;
+        release();
+        d.onError(e);
+    }
+
+    @Override
+    public void onComplete() {
+        if (done) {
+            return;
+        }
+        done = true;
+        Observer<? super T> d = downstream;
+        release();
+        d.onComplete();
+    }
+
+    @Override
+    void recycleChain() {
+        super.recycleChain();
+        source.recycleChain();
+    }
+
+    @Override
+    protected void subscribeActual() {
+        remaining = n;
+        done = false;
+        source.subscribe(this);
+    }
+
+    @Override
+    protected LcObservableTake<T> createFresh() {
+        return new LcObservableTake<T>(source, n);
+    }
+
+    @Override
+    public void dispose() {
+        upstream.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return upstream.isDisposed();
+    }
+}
@@ -0,0 +1,251 @@
+package hu.akarnokd.reactive.lowalloc;
+
+import java.util.concurrent.atomic.*;
+import java.util.function.BiFunction;
+
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.disposables.DisposableHelper;
+import io.reactivex.internal.queue.SpscLinkedArrayQueue;
+import io.reactivex.internal.util.AtomicThrowable;
+
+/**
+ * Combines the values of two LcObservables pairwise.
+ * <p>
+ * The operator itself observes the first source while the observer of the second source,
+ * the two queues and the error container are allocated once per instance.
+ */
+final class LcObservableZip<T, U, R> extends LcIntermediateObservable<T, R> implements Disposable {
+
+    final LcObservable<T> first;
+
+    final LcObservable<U> second;
+
+    final BiFunction<T, U, R> zipper;
+
+    final int prefetch;
+
+    final SpscLinkedArrayQueue<T> firstQueue;
+
+    final SpscLinkedArrayQueue<U> secondQueue;
+
+    final SecondObserver<U> secondObserver;
+
+    final AtomicThrowable errors;
+
+    volatile Disposable upstream;
+
+    @SuppressWarnings("rawtypes")
+    static final AtomicReferenceFieldUpdater<LcObservableZip, Disposable> UPSTREAM =
+        AtomicReferenceFieldUpdater.newUpdater(LcObservableZip.class, Disposable.class, "upstream");
+
+    volatile int wip;
+
+    @SuppressWarnings("rawtypes")
+    static final AtomicIntegerFieldUpdater<LcObservableZip> WIP =
+        AtomicIntegerFieldUpdater.newUpdater(LcObservableZip.class, "wip");
+
+    volatile boolean firstDone;
+
+    volatile boolean secondDone;
+
+    volatile boolean disposed;
+
+    LcObservableZip(LcObservable<T> first, LcObservable<U> second, BiFunction<T, U, R> zipper, int prefetch) {
+        this.first = first;
+        this.second = second;
+        this.zipper = zipper;
+        this.prefetch = prefetch;
+        this.firstQueue = new SpscLinkedArrayQueue<>(prefetch);
+        this.secondQueue = new SpscLinkedArrayQueue<>(prefetch);
+        this.secondObserver = new SecondObserver<>(this);
+        this.errors = new AtomicThrowable();
+    }
+
+    @Override
+    public void onSubscribe(Disposable d) {
+        if (!UPSTREAM.compareAndSet(this, null, d)) {
+            d.dispose();
+        }
+    }
+
+    @Override
+    public void onNext(T t) {
+        firstQueue.offer(t);
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable e) {
+        errors.addThrowable(e);
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        firstDone = true;
+        drain();
+    }
+
+    void secondNext(U t) {
+        secondQueue.offer(t);
+        drain();
+    }
+
+    void secondError(Throwable e) {
+        errors.addThrowable(e);
+        drain();
+    }
+
+    void secondComplete() {
+        secondDone = true;
+        drain();
+    }
+
+    void cancelSources() {
+        Disposable d = UPSTREAM.getAndSet(this, DisposableHelper.DISPOSED);
+        if (d != null) {
+            d.dispose();
+        }
+        secondObserver.dispose();
+    }
+
+    void drain() {
+        if (WIP.getAndIncrement(this) != 0) {
+            return;
+        }
+
+        int missed = 1;
+        SpscLinkedArrayQueue<T> q1 = firstQueue;
+        SpscLinkedArrayQueue<U> q2 = secondQueue;
+
+        for (;;) {
+            if (disposed) {
+                q1.clear();
+                q2.clear();
+            } else {
+                Observer<? super R> a = downstream;
+                for (;;) {
+                    if (errors.get() != null) {
+                        cancelSources();
+                        q1.clear();
+                        q2.clear();
+                        Throwable ex = errors.terminate();
+                        release();
+                        a.onError(ex);
+                        return;
+                    }
+
+                    boolean d1 = firstDone;
+                    boolean e1 = q1.isEmpty();
+                    boolean d2 = secondDone;
+                    boolean e2 = q2.isEmpty();
+
+                    if ((d1 && e1) || (d2 && e2)) {
+                        cancelSources();
+                        q1.clear();
+                        q2.clear();
+                        release();
+                        a.onComplete();
+                        return;
+                    }
+
+                    if (e1 || e2) {
+                        break;
+                    }
+
+                    R v;
+                    try {
+                        v = zipper.apply(q1.poll(), q2.poll());
+                    } catch (Throwable ex) {
+                        errors.addThrowable(ex);
+                        continue;
+                    }
+
+                    a.onNext(v);
+                }
+            }
+
+            missed = WIP.addAndGet(this, -missed);
+            if (missed == 0) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    void recycleChain() {
+        super.recycleChain();
+        first.recycleChain();
+        second.recycleChain();
+    }
+
+    @Override
+    protected void subscribeActual() {
+        firstDone = false;
+        secondDone = false;
+        disposed = false;
+        errors.lazySet(null);
+        UPSTREAM.lazySet(this, null);
+        secondObserver.lazySet(null);
+        WIP.lazySet(this, 0);
+        downstream.onSubscribe(this);
+        first.subscribe(this);
+        second.subscribe(secondObserver);
+    }
+
+    @Override
+    protected LcObservableZip<T, U, R> createFresh() {
+        return new LcObservableZip<T, U, R>(first, second, zipper, prefetch);
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+        cancelSources();
+        if (WIP.getAndIncrement(this) == 0) {
+            firstQueue.clear();
+            secondQueue.clear();
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    static final class SecondObserver<U> extends AtomicReference<Disposable> implements Observer<U> {
+
+        private static final long serialVersionUID = -4532913925482329018L;
+
+        final LcObservableZip<?, U, ?> parent;
+
+        SecondObserver(LcObservableZip<?, U, ?> parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            DisposableHelper.setOnce(this, d);
+        }
+
+        @Override
+        public void onNext(U t) {
+            parent.secondNext(t);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            parent.secondError(e);
+        }
+
+        @Override
+        public void onComplete() {
+            parent.secondComplete();
+        }
+
+        void dispose() {
+            DisposableHelper.dispose(this);
+        }
+    }
+}
@@ -13,10 +13,26 @@ public abstract class LcSourceObservable<T> extends LcObservable<T> implements D
     static final AtomicIntegerFieldUpdater<LcSourceObservable> SOURCE_STATE =
         AtomicIntegerFieldUpdater.newUpdater(LcSourceObservable.class, "sourceState");
 
+    boolean recycle;
+
     protected abstract void subscribeActual(Observer<? super T> downstream);
 
     protected abstract LcSourceObservable<T> createFresh();
 
+    @Override
+    void recycleChain() {
+        recycle = true;
+    }
+
+    /**
+     * Makes this instance available to the next subscription if recycling is enabled.
+     */
+    protected final void release() {
+        if (recycle) {
+            SOURCE_STATE.lazySet(this, 0);
+        }
+    }
+
     @Override
     public final void subscribe(Observer<? super T> observer) {
         if (sourceState == 0 && SOURCE_STATE.compareAndSet(this, 0, 1)) {
@@ -0,0 +1,146 @@
+package hu.akarnokd.rxjava2;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-bucketed, HDR-style histogram of nanosecond latencies.
+ * <p>
+ * Values below 16 get their own bucket, above that every power of 2 is split into
+ * 16 linear sub-buckets, so a reported value is at most 1/16th above the recorded one.
+ * Values of {@link #MAX_TRACKABLE} and above go into the last bucket.
+ * Recording is thread-safe and lock-free.
+ */
+public final class LatencyHistogram {
+
+    static final int SUB_BITS = 4;
+
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /** The highest bit position a trackable value can have, about 18 minutes in nanoseconds. */
+    static final int MAX_BIT = 40;
+
+    /** The smallest value that is reported in the last bucket. */
+    public static final long MAX_TRACKABLE = 1L << (MAX_BIT + 1);
+
+    static final int BUCKETS = (MAX_BIT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    final AtomicLongArray counts;
+
+    public LatencyHistogram() {
+        counts = new AtomicLongArray(BUCKETS);
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int)Math.max(value, 0L);
+        }
+        if (value >= MAX_TRACKABLE) {
+            return BUCKETS - 1;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int)((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /** Returns the highest value that falls into the given bucket. */
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long sub = SUB_BUCKETS + (index & (SUB_BUCKETS - 1));
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Records a latency.
+     * @param nanos the latency, negative values count as 0
+     */
+    public void record(long nanos) {
+        counts.getAndIncrement(index(nanos));
+    }
+
+    /** @return the number of recorded values */
+    public long count() {
+        AtomicLongArray c = counts;
+        long n = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            n += c.get(i);
+        }
+        return n;
+    }
+
+    /**
+     * Returns the value at the given percentile.
+     * @param percentile the percentile in the range [0, 100]
+     * @return the highest value of the bucket containing the percentile, 0 if the histogram is empty
+     */
+    public long percentile(double percentile) {
+        long total = count();
+        if (total == 0L) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long)Math.ceil(Math.min(percentile, 100d) / 100d * total));
+        AtomicLongArray c = counts;
+        long sum = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            sum += c.get(i);
+            if (sum >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    /**
+     * Copies the current counts into a new histogram.
+     * @param reset if true, the counts of this histogram are zeroed in the same pass
+     * @return the new histogram
+     */
+    public LatencyHistogram snapshot(boolean reset) {
+        LatencyHistogram h = new LatencyHistogram();
+        AtomicLongArray c = counts;
+        for (int i = 0; i < BUCKETS; i++) {
+            long v = reset ? c.getAndSet(i, 0L) : c.get(i);
+            if (v != 0L) {
+                h.counts.lazySet(i, v);
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Adds the counts of the other histogram to this one.
+     * @param other the histogram to add
+     * @return this
+     */
+    public LatencyHistogram add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long v = other.counts.get(i);
+            if (v != 0L) {
+                counts.getAndAdd(i, v);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Subtracts the counts of the other histogram, typically an earlier snapshot of this one.
+     * @param other the histogram to subtract
+     * @return this
+     */
+    public LatencyHistogram subtract(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long v = other.counts.get(i);
+            if (v != 0L) {
+                counts.getAndAdd(i, -v);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("p50 = %9d ns, p99 = %9d ns, p999 = %9d ns, samples = %7d",
+                percentile(50), percentile(99), percentile(99.9), count());
+    }
+}
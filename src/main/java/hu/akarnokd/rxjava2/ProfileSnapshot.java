@@ -0,0 +1,55 @@
+package hu.akarnokd.rxjava2;
+
+import java.util.*;
+
+import hu.akarnokd.rxjava2.RxSynchronousProfiler.CallStatistics;
+
+/**
+ * The statistics an {@link RxConcurrentProfiler} gathered over an interval,
+ * as emitted by {@link RxConcurrentProfiler#snapshots(long, java.util.concurrent.TimeUnit, io.reactivex.Scheduler)}.
+ */
+public final class ProfileSnapshot {
+
+    final long timestamp;
+
+    final long intervalNanos;
+
+    final Map<String, CallStatistics> entries;
+
+    ProfileSnapshot(long timestamp, long intervalNanos, Map<String, CallStatistics> entries) {
+        this.timestamp = timestamp;
+        this.intervalNanos = intervalNanos;
+        this.entries = Collections.unmodifiableMap(entries);
+    }
+
+    /** @return the wall clock time at the end of the interval, in milliseconds */
+    public long timestamp() {
+        return timestamp;
+    }
+
+    /** @return the length of the interval in nanoseconds */
+    public long intervalNanos() {
+        return intervalNanos;
+    }
+
+    /**
+     * Returns the statistics of the operators that had any signal in the interval.
+     * @return the unmodifiable map, keyed like {@link RxConcurrentProfiler#snapshot()}
+     */
+    public Map<String, CallStatistics> entries() {
+        return entries;
+    }
+
+    @Override
+    public String toString() {
+        List<CallStatistics> list = new ArrayList<>(entries.values());
+        list.sort(Comparator.comparing(CallStatistics::sumTime).reversed());
+
+        StringBuilder b = new StringBuilder();
+        b.append("ProfileSnapshot @ ").append(timestamp).append(", interval = ").append(intervalNanos).append(" ns\r\n");
+        for (CallStatistics cs : list) {
+            b.append(cs.print());
+        }
+        return b.toString();
+    }
+}
@@ -0,0 +1,1219 @@
+package hu.akarnokd.rxjava2;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.reactivestreams.*;
+
+import hu.akarnokd.rxjava2.RxSynchronousProfiler.CallStatistics;
+import io.reactivex.*;
+import io.reactivex.Observable;
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.fuseable.*;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Hooks the onAssembly calls, times and counts the various method calls passing through it,
+ * safe to use with multi-threaded streams.
+ * <p>
+ * The statistics are kept per operator class in a lock-free registry, with {@link LongAdder}
+ * counters. Only every {@code sampleRate}th signal of a subscriber is timed; the others are
+ * counted in plain fields of the subscriber and added to the shared counters together with the
+ * next timed signal or the termination, so the snapshot of a running stream may lag behind by
+ * less than {@code sampleRate} signals per subscriber. The once-per-subscriber calls
+ * (subscribe, onSubscribe, the terminal events) are timed for 1 in {@code sampleRate}
+ * subscribers and only counted for the rest. The reported times are extrapolated from
+ * the sampled calls, the sampled onNext, request and poll times are also collected into
+ * {@link LatencyHistogram}s.
+ * <p>
+ * With {@code captureSites}, the statistics are kept per assembly site instead: the operator
+ * class together with the first stack frame outside RxJava that created it. Capturing walks
+ * the stack on every assembly, so it is best used when the pipelines are not assembled on
+ * the hot path.
+ * <p>
+ * The sampled calls can also be reported as JFR events, see {@link #enableJfr(long)}, and
+ * the statistics can be streamed periodically, see {@link #snapshots(long, TimeUnit, Scheduler)}.
+ */
+@SuppressWarnings("rawtypes")
+public class RxConcurrentProfiler {
+
+    static final int SUBSCRIBE = 0;
+    static final int ON_SUBSCRIBE = 1;
+    static final int ON_NEXT = 2;
+    static final int TRY_ON_NEXT = 3;
+    static final int ON_ERROR = 4;
+    static final int ON_COMPLETE = 5;
+    static final int POLL = 6;
+    static final int REQUEST = 7;
+    static final int KINDS = 8;
+
+    /** Returned by {@link ConcurrentCallStatistics#begin(int, boolean)} if the call is not timed. */
+    static final long NOT_TIMED = Long.MIN_VALUE;
+
+    static final StackWalker WALKER = StackWalker.getInstance();
+
+    /** Keyed by the operator class or its {@link AssemblySite}. */
+    final ConcurrentMap<Object, ConcurrentCallStatistics> entries;
+
+    final int sampleRate;
+
+    final boolean captureSites;
+
+    /** The minimum latency of the sampled calls reported to JFR, negative if disabled. */
+    volatile long jfrThreshold = -1L;
+
+    /**
+     * Creates a profiler that times every signal.
+     */
+    public RxConcurrentProfiler() {
+        this(1);
+    }
+
+    /**
+     * Creates a profiler that times only 1 in {@code sampleRate} signals.
+     * @param sampleRate the sampling rate, 1 times every signal
+     */
+    public RxConcurrentProfiler(int sampleRate) {
+        this(sampleRate, false);
+    }
+
+    /**
+     * Creates a profiler that times only 1 in {@code sampleRate} signals.
+     * @param sampleRate the sampling rate, 1 times every signal
+     * @param captureSites if true, the statistics are kept per assembly site instead of per operator class
+     */
+    public RxConcurrentProfiler(int sampleRate, boolean captureSites) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sampleRate > 0 required but it was " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+        this.captureSites = captureSites;
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    ConcurrentCallStatistics stats(Object source) {
+        Object key = captureSites ? AssemblySite.capture(source.getClass()) : source.getClass();
+        return entries.computeIfAbsent(key, c -> new ConcurrentCallStatistics(this,
+                c instanceof Class ? ((Class<?>)c).getSimpleName() : c.toString()));
+    }
+
+    /**
+     * Starts committing a {@link RxProfilerEvents} event for each sampled call that took
+     * at least the given time; the events still have to be enabled in the JFR recording.
+     * @param thresholdNanos the minimum latency, 0 reports every sampled call
+     */
+    public void enableJfr(long thresholdNanos) {
+        if (thresholdNanos < 0L) {
+            throw new IllegalArgumentException("thresholdNanos >= 0 required but it was " + thresholdNanos);
+        }
+        jfrThreshold = thresholdNanos;
+    }
+
+    public void disableJfr() {
+        jfrThreshold = -1L;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void start() {
+        RxJavaPlugins.setOnFlowableAssembly(t -> new FlowableProfiler(t, stats(t)));
+        RxJavaPlugins.setOnObservableAssembly(t -> new ObservableProfiler(t, stats(t)));
+        RxJavaPlugins.setOnSingleAssembly(t -> new SingleProfiler(t, stats(t)));
+        RxJavaPlugins.setOnMaybeAssembly(t -> new MaybeProfiler(t, stats(t)));
+        RxJavaPlugins.setOnCompletableAssembly(t -> new CompletableProfiler(t, stats(t)));
+    }
+
+    public void stop() {
+        RxJavaPlugins.setOnFlowableAssembly(null);
+        RxJavaPlugins.setOnObservableAssembly(null);
+        RxJavaPlugins.setOnSingleAssembly(null);
+        RxJavaPlugins.setOnMaybeAssembly(null);
+        RxJavaPlugins.setOnCompletableAssembly(null);
+    }
+
+    /**
+     * Zeroes the statistics, the operators assembled before keep reporting into them.
+     */
+    public void reset() {
+        for (ConcurrentCallStatistics cs : entries.values()) {
+            cs.sum(true);
+        }
+    }
+
+    /**
+     * Returns the current statistics, keyed by the simple name of the operator class
+     * or by the assembly site if those are captured.
+     * @return the new map of statistics
+     */
+    public Map<String, CallStatistics> snapshot() {
+        return snapshot(false);
+    }
+
+    /**
+     * Returns the statistics and zeroes them in one pass, so no signal is lost between
+     * consecutive intervals.
+     * @return the new map of statistics
+     */
+    public Map<String, CallStatistics> snapshotAndReset() {
+        return snapshot(true);
+    }
+
+    Map<String, CallStatistics> snapshot(boolean reset) {
+        Map<String, CallStatistics> result = new HashMap<>();
+        for (Map.Entry<Object, ConcurrentCallStatistics> e : entries.entrySet()) {
+            CallStatistics cs = e.getValue().sum(reset);
+            result.merge(cs.key, cs, RxConcurrentProfiler::add);
+        }
+        return result;
+    }
+
+    static CallStatistics add(CallStatistics a, CallStatistics b) {
+        a.subscribeTime += b.subscribeTime;
+        a.subscribeCount += b.subscribeCount;
+        a.onSubscribeTime += b.onSubscribeTime;
+        a.onSubscribeCount += b.onSubscribeCount;
+        a.onNextTime += b.onNextTime;
+        a.onNextCount += b.onNextCount;
+        a.tryOnNextTime += b.tryOnNextTime;
+        a.tryOnNextCount += b.tryOnNextCount;
+        a.onErrorTime += b.onErrorTime;
+        a.onErrorCount += b.onErrorCount;
+        a.onCompleteTime += b.onCompleteTime;
+        a.onCompleteCount += b.onCompleteCount;
+        a.pollTime += b.pollTime;
+        a.pollCount += b.pollCount;
+        a.requestTime += b.requestTime;
+        a.requestCount += b.requestCount;
+        a.onNextLatency.add(b.onNextLatency);
+        a.requestLatency.add(b.requestLatency);
+        a.pollLatency.add(b.pollLatency);
+        return a;
+    }
+
+    /**
+     * Returns the difference of two snapshots of the same operator.
+     * @param current the later snapshot
+     * @param previous the earlier snapshot, null if the operator was not known before
+     * @return the delta, or null if there was no signal in between
+     */
+    static CallStatistics subtract(CallStatistics current, CallStatistics previous) {
+        if (previous == null) {
+            return current.onSubscribeCount + current.subscribeCount + current.onNextCount
+                    + current.tryOnNextCount + current.onErrorCount + current.onCompleteCount
+                    + current.pollCount + current.requestCount != 0L ? current : null;
+        }
+        CallStatistics d = new CallStatistics();
+        d.key = current.key;
+        d.subscribeTime = current.subscribeTime - previous.subscribeTime;
+        d.subscribeCount = current.subscribeCount - previous.subscribeCount;
+        d.onSubscribeTime = current.onSubscribeTime - previous.onSubscribeTime;
+        d.onSubscribeCount = current.onSubscribeCount - previous.onSubscribeCount;
+        d.onNextTime = current.onNextTime - previous.onNextTime;
+        d.onNextCount = current.onNextCount - previous.onNextCount;
+        d.tryOnNextTime = current.tryOnNextTime - previous.tryOnNextTime;
+        d.tryOnNextCount = current.tryOnNextCount - previous.tryOnNextCount;
+        d.onErrorTime = current.onErrorTime - previous.onErrorTime;
+        d.onErrorCount = current.onErrorCount - previous.onErrorCount;
+        d.onCompleteTime = current.onCompleteTime - previous.onCompleteTime;
+        d.onCompleteCount = current.onCompleteCount - previous.onCompleteCount;
+        d.pollTime = current.pollTime - previous.pollTime;
+        d.pollCount = current.pollCount - previous.pollCount;
+        d.requestTime = current.requestTime - previous.requestTime;
+        d.requestCount = current.requestCount - previous.requestCount;
+        if (d.subscribeCount + d.onSubscribeCount + d.onNextCount + d.tryOnNextCount + d.onErrorCount
+                + d.onCompleteCount + d.pollCount + d.requestCount == 0L) {
+            return null;
+        }
+        d.onNextLatency = current.onNextLatency.snapshot(false).subtract(previous.onNextLatency);
+        d.requestLatency = current.requestLatency.snapshot(false).subtract(previous.requestLatency);
+        d.pollLatency = current.pollLatency.snapshot(false).subtract(previous.pollLatency);
+        return d;
+    }
+
+    /**
+     * Periodically emits the statistics gathered since the previous emission.
+     * <p>
+     * The deltas are computed per subscriber from the cumulative statistics, so the
+     * stream doesn't interfere with {@link #snapshot()} or other subscribers, and
+     * ticks dropped due to lack of requests are included in the next emission.
+     * A {@link #reset()} in between makes the next delta unreliable.
+     * @param period the time between emissions
+     * @param unit the time unit of the period
+     * @param scheduler the scheduler to take the snapshots on
+     * @return the Flowable of snapshots
+     */
+    @SuppressWarnings("unchecked")
+    public Flowable<ProfileSnapshot> snapshots(long period, TimeUnit unit, Scheduler scheduler) {
+        return Flowable.defer(() -> {
+            Map<String, CallStatistics>[] previous = new Map[] { snapshot() };
+            long[] previousTime = { System.nanoTime() };
+            return Flowable.interval(period, unit, scheduler)
+                    .onBackpressureDrop()
+                    .map(t -> {
+                        Map<String, CallStatistics> current = snapshot();
+                        long now = System.nanoTime();
+
+                        Map<String, CallStatistics> deltas = new HashMap<>();
+                        Map<String, CallStatistics> prev = previous[0];
+                        for (CallStatistics cs : current.values()) {
+                            CallStatistics d = subtract(cs, prev.get(cs.key));
+                            if (d != null) {
+                                deltas.put(d.key, d);
+                            }
+                        }
+
+                        ProfileSnapshot s = new ProfileSnapshot(System.currentTimeMillis(), now - previousTime[0], deltas);
+                        previous[0] = current;
+                        previousTime[0] = now;
+                        return s;
+                    });
+        });
+    }
+
+    public void print() {
+        List<CallStatistics> list = new ArrayList<>(snapshot().values());
+
+        list.sort(Comparator.comparing(CallStatistics::sumTime).reversed());
+
+        list.forEach(v -> System.out.println(v.print()));
+    }
+
+    /**
+     * An operator class and the code location that assembled it.
+     */
+    static final class AssemblySite {
+
+        final Class<?> operator;
+
+        final String className;
+
+        final String methodName;
+
+        final String fileName;
+
+        final int lineNumber;
+
+        AssemblySite(Class<?> operator, String className, String methodName, String fileName, int lineNumber) {
+            this.operator = operator;
+            this.className = className;
+            this.methodName = methodName;
+            this.fileName = fileName;
+            this.lineNumber = lineNumber;
+        }
+
+        static AssemblySite capture(Class<?> operator) {
+            StackWalker.StackFrame f = WALKER.walk(s -> s.filter(AssemblySite::isUserFrame).findFirst()).orElse(null);
+            if (f == null) {
+                return new AssemblySite(operator, "", "", null, -1);
+            }
+            return new AssemblySite(operator, f.getClassName(), f.getMethodName(), f.getFileName(), f.getLineNumber());
+        }
+
+        static boolean isUserFrame(StackWalker.StackFrame f) {
+            String c = f.getClassName();
+            String p = RxConcurrentProfiler.class.getName();
+            return !c.startsWith("io.reactivex.")
+                    && !(c.startsWith(p) && (c.length() == p.length() || c.charAt(p.length()) == '$'));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof AssemblySite)) {
+                return false;
+            }
+            AssemblySite o = (AssemblySite)obj;
+            return operator == o.operator && lineNumber == o.lineNumber
+                    && className.equals(o.className) && methodName.equals(o.methodName)
+                    && Objects.equals(fileName, o.fileName);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((operator.hashCode() * 31 + className.hashCode()) * 31 + methodName.hashCode()) * 31 + lineNumber;
+        }
+
+        @Override
+        public String toString() {
+            if (className.isEmpty()) {
+                return operator.getSimpleName();
+            }
+            return operator.getSimpleName() + " @ " + className + "." + methodName
+                    + "(" + (fileName != null ? fileName : "Unknown Source")
+                    + (lineNumber >= 0 ? ":" + lineNumber : "") + ")";
+        }
+    }
+
+    /**
+     * The shared, striped counters of an operator class.
+     */
+    static final class ConcurrentCallStatistics {
+
+        final RxConcurrentProfiler parent;
+
+        final String name;
+
+        final int sampleRate;
+
+        final LongAdder[] counts;
+
+        final LongAdder[] times;
+
+        final LongAdder[] samples;
+
+        /** The latencies per signal kind, null if the kind has no histogram. */
+        final LatencyHistogram[] latencies;
+
+        ConcurrentCallStatistics(RxConcurrentProfiler parent, String name) {
+            this.parent = parent;
+            this.name = name;
+            this.sampleRate = parent.sampleRate;
+            counts = new LongAdder[KINDS];
+            times = new LongAdder[KINDS];
+            samples = new LongAdder[KINDS];
+            for (int i = 0; i < KINDS; i++) {
+                counts[i] = new LongAdder();
+                times[i] = new LongAdder();
+                samples[i] = new LongAdder();
+            }
+            latencies = new LatencyHistogram[KINDS];
+            latencies[ON_NEXT] = new LatencyHistogram();
+            latencies[TRY_ON_NEXT] = latencies[ON_NEXT];
+            latencies[POLL] = new LatencyHistogram();
+            latencies[REQUEST] = new LatencyHistogram();
+        }
+
+        /** Decides whether the once-per-subscriber calls of a new subscriber should be timed. */
+        boolean sample() {
+            int r = sampleRate;
+            return r == 1 || ThreadLocalRandom.current().nextInt(r) == 0;
+        }
+
+        void count(int kind) {
+            counts[kind].increment();
+        }
+
+        /**
+         * Counts a call and starts timing it if it is sampled.
+         * @param kind the signal kind
+         * @param sampled the subscriber's decision from {@link #sample()}
+         * @return the start time or {@link #NOT_TIMED}
+         */
+        long begin(int kind, boolean sampled) {
+            if (sampled) {
+                return System.nanoTime();
+            }
+            count(kind);
+            return NOT_TIMED;
+        }
+
+        void end(int kind, long start) {
+            if (start != NOT_TIMED) {
+                long after = System.nanoTime();
+                record(kind, 1, after - start);
+            }
+        }
+
+        /**
+         * Records a timed call together with the untimed calls before it.
+         * @param kind the signal kind
+         * @param count the number of calls including the timed one
+         * @param time the time of the timed call
+         */
+        void record(int kind, long count, long time) {
+            time = Math.max(0L, time);
+            counts[kind].add(count);
+            times[kind].add(time);
+            samples[kind].increment();
+            LatencyHistogram h = latencies[kind];
+            if (h != null) {
+                h.record(time);
+            }
+            long threshold = parent.jfrThreshold;
+            if (threshold >= 0L && time >= threshold) {
+                RxProfilerEvents.commit(kind, name, count, time);
+            }
+        }
+
+        void flush(int kind, long count) {
+            if (count != 0L) {
+                counts[kind].add(count);
+            }
+        }
+
+        CallStatistics sum(boolean reset) {
+            long[] c = new long[KINDS];
+            long[] t = new long[KINDS];
+            for (int i = 0; i < KINDS; i++) {
+                long n = reset ? counts[i].sumThenReset() : counts[i].sum();
+                long time = reset ? times[i].sumThenReset() : times[i].sum();
+                long s = reset ? samples[i].sumThenReset() : samples[i].sum();
+                c[i] = n;
+                t[i] = s != 0L ? (long)((double)time * n / s) : 0L;
+            }
+            CallStatistics cs = new CallStatistics();
+            cs.key = name;
+            cs.subscribeCount = c[SUBSCRIBE];
+            cs.subscribeTime = t[SUBSCRIBE];
+            cs.onSubscribeCount = c[ON_SUBSCRIBE];
+            cs.onSubscribeTime = t[ON_SUBSCRIBE];
+            cs.onNextCount = c[ON_NEXT];
+            cs.onNextTime = t[ON_NEXT];
+            cs.tryOnNextCount = c[TRY_ON_NEXT];
+            cs.tryOnNextTime = t[TRY_ON_NEXT];
+            cs.onErrorCount = c[ON_ERROR];
+            cs.onErrorTime = t[ON_ERROR];
+            cs.onCompleteCount = c[ON_COMPLETE];
+            cs.onCompleteTime = t[ON_COMPLETE];
+            cs.pollCount = c[POLL];
+            cs.pollTime = t[POLL];
+            cs.requestCount = c[REQUEST];
+            cs.requestTime = t[REQUEST];
+            cs.onNextLatency = latencies[ON_NEXT].snapshot(reset);
+            cs.pollLatency = latencies[POLL].snapshot(reset);
+            cs.requestLatency = latencies[REQUEST].snapshot(reset);
+            return cs;
+        }
+    }
+
+    static final class FlowableProfiler<T> extends Flowable<T> {
+
+        final Publisher<T> source;
+
+        final ConcurrentCallStatistics stats;
+
+        FlowableProfiler(Publisher<T> source, ConcurrentCallStatistics stats) {
+            this.source = source;
+            this.stats = stats;
+        }
+
+        @Override
+        protected void subscribeActual(Subscriber<? super T> s) {
+            ConcurrentCallStatistics stats = this.stats;
+            Subscriber<T> parent;
+            boolean sampled;
+            if (s instanceof ConditionalSubscriber) {
+                ProfilerConditionalSubscriber<T> p = new ProfilerConditionalSubscriber<T>((ConditionalSubscriber<? super T>)s, stats);
+                sampled = p.lifecycle;
+                parent = p;
+            } else {
+                ProfilerSubscriber<T> p = new ProfilerSubscriber<T>(s, stats);
+                sampled = p.lifecycle;
+                parent = p;
+            }
+
+            long now = stats.begin(SUBSCRIBE, sampled);
+
+            source.subscribe(parent);
+
+            stats.end(SUBSCRIBE, now);
+        }
+
+        /**
+         * Shared state and logic of the profiling subscribers.
+         * <p>
+         * The onXXX signals and poll() are serialized, the countdown and the pending counts
+         * are only accessed from them; request() and cancel() are serialized with each other
+         * and have their own countdown, but may run concurrently with the onXXX signals, hence
+         * flushing there may skew the counts by less than the sample rate.
+         * <p>
+         * The subscribe, onSubscribe and terminal calls happen once per subscriber, so
+         * they are timed for 1 in {@code sampleRate} subscribers, decided up front.
+         */
+        abstract static class AbstractProfilerSubscriber<T> implements QueueSubscription<T> {
+
+            final ConcurrentCallStatistics calls;
+
+            final int sampleRate;
+
+            final boolean lifecycle;
+
+            Subscription s;
+
+            QueueSubscription<T> qs;
+
+            int countdown;
+
+            long onNextPending;
+
+            long tryOnNextPending;
+
+            long pollPending;
+
+            int requestCountdown;
+
+            long requestPending;
+
+            AbstractProfilerSubscriber(ConcurrentCallStatistics calls) {
+                this.calls = calls;
+                int r = calls.sampleRate;
+                this.sampleRate = r;
+                // don't time the first signal of every subscriber, it is usually the slowest
+                int c = r == 1 ? 1 : ThreadLocalRandom.current().nextInt(r) + 1;
+                this.countdown = c;
+                this.requestCountdown = c;
+                this.lifecycle = c == r;
+            }
+
+            abstract void onSubscribeActual();
+
+            @SuppressWarnings("unchecked")
+            public final void onSubscribe(Subscription s) {
+                this.s = s;
+                if (s instanceof QueueSubscription) {
+                    qs = (QueueSubscription<T>)s;
+                }
+
+                long now = calls.begin(ON_SUBSCRIBE, lifecycle);
+
+                onSubscribeActual();
+
+                calls.end(ON_SUBSCRIBE, now);
+            }
+
+            final boolean sample() {
+                if (--countdown != 0) {
+                    return false;
+                }
+                countdown = sampleRate;
+                return true;
+            }
+
+            final void flush() {
+                ConcurrentCallStatistics c = calls;
+                c.flush(ON_NEXT, onNextPending);
+                c.flush(TRY_ON_NEXT, tryOnNextPending);
+                c.flush(POLL, pollPending);
+                onNextPending = 0L;
+                tryOnNextPending = 0L;
+                pollPending = 0L;
+                flushRequests();
+            }
+
+            final void flushRequests() {
+                long n = requestPending;
+                if (n != 0L) {
+                    requestPending = 0L;
+                    calls.flush(REQUEST, n);
+                }
+            }
+
+            @Override
+            public final boolean offer(T value) {
+                throw new UnsupportedOperationException("Should not be called");
+            }
+
+            @Override
+            public final boolean offer(T v1, T v2) {
+                throw new UnsupportedOperationException("Should not be called");
+            }
+
+            @Override
+            public final T poll() throws Exception {
+                if (!sample()) {
+                    pollPending++;
+                    return qs.poll();
+                }
+                long now = System.nanoTime();
+
+                T v = qs.poll();
+
+                long after = System.nanoTime();
+                calls.record(POLL, pollPending + 1, after - now);
+                pollPending = 0L;
+
+                return v;
+            }
+
+            @Override
+            public final void clear() {
+                flush();
+                qs.clear();
+            }
+
+            @Override
+            public final boolean isEmpty() {
+                return qs.isEmpty();
+            }
+
+            @Override
+            public final void request(long n) {
+                if (--requestCountdown != 0) {
+                    requestPending++;
+                    s.request(n);
+                    return;
+                }
+                requestCountdown = sampleRate;
+                long now = System.nanoTime();
+
+                s.request(n);
+
+                long after = System.nanoTime();
+                calls.record(REQUEST, requestPending + 1, after - now);
+                requestPending = 0L;
+            }
+
+            @Override
+            public final int requestFusion(int mode) {
+                QueueSubscription<T> qs = this.qs;
+                return qs != null ? qs.requestFusion(mode) : NONE;
+            }
+
+            @Override
+            public final void cancel() {
+                s.cancel();
+                flush();
+            }
+        }
+
+        static final class ProfilerSubscriber<T> extends AbstractProfilerSubscriber<T> implements FlowableSubscriber<T> {
+
+            final Subscriber<? super T> actual;
+
+            ProfilerSubscriber(Subscriber<? super T> actual, ConcurrentCallStatistics calls) {
+                super(calls);
+                this.actual = actual;
+            }
+
+            @Override
+            void onSubscribeActual() {
+                actual.onSubscribe(this);
+            }
+
+            @Override
+            public void onNext(T t) {
+                if (!sample()) {
+                    onNextPending++;
+                    actual.onNext(t);
+                    return;
+                }
+                long now = System.nanoTime();
+
+                actual.onNext(t);
+
+                long after = System.nanoTime();
+                calls.record(ON_NEXT, onNextPending + 1, after - now);
+                onNextPending = 0L;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                flush();
+                long now = calls.begin(ON_ERROR, lifecycle);
+
+                actual.onError(t);
+
+                calls.end(ON_ERROR, now);
+            }
+
+            @Override
+            public void onComplete() {
+                flush();
+                long now = calls.begin(ON_COMPLETE, lifecycle);
+
+                actual.onComplete();
+
+                calls.end(ON_COMPLETE, now);
+            }
+        }
+
+        static final class ProfilerConditionalSubscriber<T> extends AbstractProfilerSubscriber<T> implements ConditionalSubscriber<T> {
+
+            final ConditionalSubscriber<? super T> actual;
+
+            ProfilerConditionalSubscriber(ConditionalSubscriber<? super T> actual, ConcurrentCallStatistics calls) {
+                super(calls);
+                this.actual = actual;
+            }
+
+            @Override
+            void onSubscribeActual() {
+                actual.onSubscribe(this);
+            }
+
+            @Override
+            public void onNext(T t) {
+                if (!sample()) {
+                    onNextPending++;
+                    actual.onNext(t);
+                    return;
+                }
+                long now = System.nanoTime();
+
+                actual.onNext(t);
+
+                long after = System.nanoTime();
+                calls.record(ON_NEXT, onNextPending + 1, after - now);
+                onNextPending = 0L;
+            }
+
+            @Override
+            public boolean tryOnNext(T t) {
+                if (!sample()) {
+                    tryOnNextPending++;
+                    return actual.tryOnNext(t);
+                }
+                long now = System.nanoTime();
+
+                boolean b = actual.tryOnNext(t);
+
+                long after = System.nanoTime();
+                calls.record(TRY_ON_NEXT, tryOnNextPending + 1, after - now);
+                tryOnNextPending = 0L;
+
+                return b;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                flush();
+                long now = calls.begin(ON_ERROR, lifecycle);
+
+                actual.onError(t);
+
+                calls.end(ON_ERROR, now);
+            }
+
+            @Override
+            public void onComplete() {
+                flush();
+                long now = calls.begin(ON_COMPLETE, lifecycle);
+
+                actual.onComplete();
+
+                calls.end(ON_COMPLETE, now);
+            }
+        }
+    }
+
+    static final class ObservableProfiler<T> extends Observable<T> {
+
+        final ObservableSource<T> source;
+
+        final ConcurrentCallStatistics stats;
+
+        ObservableProfiler(ObservableSource<T> source, ConcurrentCallStatistics stats) {
+            this.source = source;
+            this.stats = stats;
+        }
+
+        @Override
+        protected void subscribeActual(Observer<? super T> observer) {
+            ConcurrentCallStatistics stats = this.stats;
+            ProfilerObserver<T> parent = new ProfilerObserver<T>(observer, stats);
+            long now = stats.begin(SUBSCRIBE, parent.lifecycle);
+
+            source.subscribe(parent);
+
+            stats.end(SUBSCRIBE, now);
+        }
+
+        /**
+         * The onXXX signals and poll() are serialized, the countdown and the pending counts
+         * are only accessed from them; dispose() may run concurrently with them, hence
+         * flushing there may skew the counts by less than the sample rate.
+         */
+        static final class ProfilerObserver<T> implements Observer<T>, QueueDisposable<T> {
+
+            final Observer<? super T> actual;
+
+            final ConcurrentCallStatistics calls;
+
+            final int sampleRate;
+
+            final boolean lifecycle;
+
+            Disposable d;
+
+            QueueDisposable<T> qd;
+
+            int countdown;
+
+            long onNextPending;
+
+            long pollPending;
+
+            ProfilerObserver(Observer<? super T> actual, ConcurrentCallStatistics calls) {
+                this.actual = actual;
+                this.calls = calls;
+                int r = calls.sampleRate;
+                this.sampleRate = r;
+                int c = r == 1 ? 1 : ThreadLocalRandom.current().nextInt(r) + 1;
+                this.countdown = c;
+                this.lifecycle = c == r;
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public void onSubscribe(Disposable d) {
+                this.d = d;
+                if (d instanceof QueueDisposable) {
+                    qd = (QueueDisposable<T>)d;
+                }
+
+                long now = calls.begin(ON_SUBSCRIBE, lifecycle);
+
+                actual.onSubscribe(this);
+
+                calls.end(ON_SUBSCRIBE, now);
+            }
+
+            boolean sample() {
+                if (--countdown != 0) {
+                    return false;
+                }
+                countdown = sampleRate;
+                return true;
+            }
+
+            void flush() {
+                calls.flush(ON_NEXT, onNextPending);
+                calls.flush(POLL, pollPending);
+                onNextPending = 0L;
+                pollPending = 0L;
+            }
+
+            @Override
+            public void onNext(T t) {
+                if (!sample()) {
+                    onNextPending++;
+                    actual.onNext(t);
+                    return;
+                }
+                long now = System.nanoTime();
+
+                actual.onNext(t);
+
+                long after = System.nanoTime();
+                calls.record(ON_NEXT, onNextPending + 1, after - now);
+                onNextPending = 0L;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                flush();
+                long now = calls.begin(ON_ERROR, lifecycle);
+
+                actual.onError(t);
+
+                calls.end(ON_ERROR, now);
+            }
+
+            @Override
+            public void onComplete() {
+                flush();
+                long now = calls.begin(ON_COMPLETE, lifecycle);
+
+                actual.onComplete();
+
+                calls.end(ON_COMPLETE, now);
+            }
+
+            @Override
+            public boolean offer(T value) {
+                throw new UnsupportedOperationException("Should not be called");
+            }
+
+            @Override
+            public boolean offer(T v1, T v2) {
+                throw new UnsupportedOperationException("Should not be called");
+            }
+
+            @Override
+            public T poll() throws Exception {
+                if (!sample()) {
+                    pollPending++;
+                    return qd.poll();
+                }
+                long now = System.nanoTime();
+
+                T v = qd.poll();
+
+                long after = System.nanoTime();
+                calls.record(POLL, pollPending + 1, after - now);
+                pollPending = 0L;
+
+                return v;
+            }
+
+            @Override
+            public void clear() {
+                flush();
+                qd.clear();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return qd.isEmpty();
+            }
+
+            @Override
+            public int requestFusion(int mode) {
+                QueueDisposable<T> qd = this.qd;
+                return qd != null ? qd.requestFusion(mode) : NONE;
+            }
+
+            @Override
+            public void dispose() {
+                d.dispose();
+                flush();
+            }
+
+            @Override
+            public boolean isDisposed() {
+                return d.isDisposed();
+            }
+        }
+    }
+
+    static final class SingleProfiler<T> extends Single<T> {
+
+        final SingleSource<T> source;
+
+        final ConcurrentCallStatistics stats;
+
+        SingleProfiler(SingleSource<T> source, ConcurrentCallStatistics stats) {
+            this.source = source;
+            this.stats = stats;
+        }
+
+        @Override
+        protected void subscribeActual(SingleObserver<? super T> observer) {
+            ConcurrentCallStatistics stats = this.stats;
+            ProfilerSingleObserver<T> parent = new ProfilerSingleObserver<T>(observer, stats);
+            long now = stats.begin(SUBSCRIBE, parent.sampled);
+
+            source.subscribe(parent);
+
+            stats.end(SUBSCRIBE, now);
+        }
+
+        static final class ProfilerSingleObserver<T> implements SingleObserver<T>, Disposable {
+
+            final SingleObserver<? super T> actual;
+
+            final ConcurrentCallStatistics calls;
+
+            final boolean sampled;
+
+            Disposable d;
+
+            ProfilerSingleObserver(SingleObserver<? super T> actual, ConcurrentCallStatistics calls) {
+                this.actual = actual;
+                this.calls = calls;
+                this.sampled = calls.sample();
+            }
+
+            @Override
+            public void onSubscribe(Disposable d) {
+                this.d = d;
+
+                long now = calls.begin(ON_SUBSCRIBE, sampled);
+
+                actual.onSubscribe(this);
+
+                calls.end(ON_SUBSCRIBE, now);
+            }
+
+            @Override
+            public void onSuccess(T t) {
+                calls.count(ON_COMPLETE);
+                long now = calls.begin(ON_NEXT, sampled);
+
+                actual.onSuccess(t);
+
+                calls.end(ON_NEXT, now);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                long now = calls.begin(ON_ERROR, sampled);
+
+                actual.onError(t);
+
+                calls.end(ON_ERROR, now);
+            }
+
+            @Override
+            public void dispose() {
+                d.dispose();
+            }
+
+            @Override
+            public boolean isDisposed() {
+                return d.isDisposed();
+            }
+        }
+    }
+
+    static final class MaybeProfiler<T> extends Maybe<T> {
+
+        final MaybeSource<T> source;
+
+        final ConcurrentCallStatistics stats;
+
+        MaybeProfiler(MaybeSource<T> source, ConcurrentCallStatistics stats) {
+            this.source = source;
+            this.stats = stats;
+        }
+
+        @Override
+        protected void subscribeActual(MaybeObserver<? super T> observer) {
+            ConcurrentCallStatistics stats = this.stats;
+            ProfilerMaybeObserver<T> parent = new ProfilerMaybeObserver<T>(observer, stats);
+            long now = stats.begin(SUBSCRIBE, parent.sampled);
+
+            source.subscribe(parent);
+
+            stats.end(SUBSCRIBE, now);
+        }
+
+        static final class ProfilerMaybeObserver<T> implements MaybeObserver<T>, Disposable {
+
+            final MaybeObserver<? super T> actual;
+
+            final ConcurrentCallStatistics calls;
+
+            final boolean sampled;
+
+            Disposable d;
+
+            ProfilerMaybeObserver(MaybeObserver<? super T> actual, ConcurrentCallStatistics calls) {
+                this.actual = actual;
+                this.calls = calls;
+                this.sampled = calls.sample();
+            }
+
+            @Override
+            public void onSubscribe(Disposable d) {
+                this.d = d;
+
+                long now = calls.begin(ON_SUBSCRIBE, sampled);
+
+                actual.onSubscribe(this);
+
+                calls.end(ON_SUBSCRIBE, now);
+            }
+
+            @Override
+            public void onSuccess(T t) {
+                calls.count(ON_COMPLETE);
+                long now = calls.begin(ON_NEXT, sampled);
+
+                actual.onSuccess(t);
+
+                calls.end(ON_NEXT, now);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                long now = calls.begin(ON_ERROR, sampled);
+
+                actual.onError(t);
+
+                calls.end(ON_ERROR, now);
+            }
+
+            @Override
+            public void onComplete() {
+                long now = calls.begin(ON_COMPLETE, sampled);
+
+                actual.onComplete();
+
+                calls.end(ON_COMPLETE, now);
+            }
+
+            @Override
+            public void dispose() {
+                d.dispose();
+            }
+
+            @Override
+            public boolean isDisposed() {
+                return d.isDisposed();
+            }
+        }
+    }
+
+    static final class CompletableProfiler extends Completable {
+
+        final CompletableSource source;
+
+        final ConcurrentCallStatistics stats;
+
+        CompletableProfiler(CompletableSource source, ConcurrentCallStatistics stats) {
+            this.source = source;
+            this.stats = stats;
+        }
+
+        @Override
+        protected void subscribeActual(CompletableObserver observer) {
+            ConcurrentCallStatistics stats = this.stats;
+            ProfilerCompletableObserver parent = new ProfilerCompletableObserver(observer, stats);
+            long now = stats.begin(SUBSCRIBE, parent.sampled);
+
+            source.subscribe(parent);
+
+            stats.end(SUBSCRIBE, now);
+        }
+
+        static final class ProfilerCompletableObserver implements CompletableObserver, Disposable {
+
+            final CompletableObserver actual;
+
+            final ConcurrentCallStatistics calls;
+
+            final boolean sampled;
+
+            Disposable d;
+
+            ProfilerCompletableObserver(CompletableObserver actual, ConcurrentCallStatistics calls) {
+                this.actual = actual;
+                this.calls = calls;
+                this.sampled = calls.sample();
+            }
+
+            @Override
+            public void onSubscribe(Disposable d) {
+                this.d = d;
+
+                long now = calls.begin(ON_SUBSCRIBE, sampled);
+
+                actual.onSubscribe(this);
+
+                calls.end(ON_SUBSCRIBE, now);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                long now = calls.begin(ON_ERROR, sampled);
+
+                actual.onError(t);
+
+                calls.end(ON_ERROR, now);
+            }
+
+            @Override
+            public void onComplete() {
+                long now = calls.begin(ON_COMPLETE, sampled);
+
+                actual.onComplete();
+
+                calls.end(ON_COMPLETE, now);
+            }
+
+            @Override
+            public void dispose() {
+                d.dispose();
+            }
+
+            @Override
+            public boolean isDisposed() {
+                return d.isDisposed();
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package hu.akarnokd.rxjava2;
+
+import jdk.jfr.*;
+
+/**
+ * The JFR events emitted by {@link RxConcurrentProfiler#enableJfr(long)}, one type per signal kind.
+ * <p>
+ * The events are instant events committed after the sampled call returned, the time the call
+ * took is in the {@code latency} field. They can be switched on and off per type in the
+ * recording settings like any other event, for example:
+ * <pre>
+ * -XX:StartFlightRecording:settings=profile,+hu.akarnokd.rxjava2.OnNext#enabled=false
+ * </pre>
+ */
+public final class RxProfilerEvents {
+
+    private RxProfilerEvents() {
+        throw new IllegalStateException("No instances!");
+    }
+
+    static void commit(int kind, String operator, long signals, long latency) {
+        SignalEvent e;
+        switch (kind) {
+        case RxConcurrentProfiler.SUBSCRIBE:
+            e = new Subscribe();
+            break;
+        case RxConcurrentProfiler.ON_SUBSCRIBE:
+            e = new OnSubscribe();
+            break;
+        case RxConcurrentProfiler.ON_NEXT:
+        case RxConcurrentProfiler.TRY_ON_NEXT:
+            e = new OnNext();
+            break;
+        case RxConcurrentProfiler.ON_ERROR:
+            e = new OnError();
+            break;
+        case RxConcurrentProfiler.ON_COMPLETE:
+            e = new OnComplete();
+            break;
+        case RxConcurrentProfiler.POLL:
+            e = new Poll();
+            break;
+        default:
+            e = new Request();
+        }
+        if (e.isEnabled()) {
+            e.operator = operator;
+            e.signals = signals;
+            e.latency = latency;
+            e.commit();
+        }
+    }
+
+    @Category({ "RxJava", "Profiler" })
+    @StackTrace(false)
+    abstract static class SignalEvent extends Event {
+
+        @Label("Operator")
+        @Description("The operator class or its assembly site")
+        String operator;
+
+        @Label("Signals")
+        @Description("The number of signals since the previous sample, including this one")
+        long signals;
+
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+    }
+
+    @Name("hu.akarnokd.rxjava2.Subscribe")
+    @Label("Rx subscribe")
+    public static final class Subscribe extends SignalEvent {
+    }
+
+    @Name("hu.akarnokd.rxjava2.OnSubscribe")
+    @Label("Rx onSubscribe")
+    public static final class OnSubscribe extends SignalEvent {
+    }
+
+    @Name("hu.akarnokd.rxjava2.OnNext")
+    @Label("Rx onNext")
+    public static final class OnNext extends SignalEvent {
+    }
+
+    @Name("hu.akarnokd.rxjava2.OnError")
+    @Label("Rx onError")
+    public static final class OnError extends SignalEvent {
+    }
+
+    @Name("hu.akarnokd.rxjava2.OnComplete")
+    @Label("Rx onComplete")
+    public static final class OnComplete extends SignalEvent {
+    }
+
+    @Name("hu.akarnokd.rxjava2.Poll")
+    @Label("Rx poll")
+    public static final class Poll extends SignalEvent {
+    }
+
+    @Name("hu.akarnokd.rxjava2.Request")
+    @Label("Rx request")
+    public static final class Request extends SignalEvent {
+    }
+}
@@ -89,6 +89,12 @@ public class RxSynchronousProfiler {
         public long pollCount;
         public long requestTime;
         public long requestCount;
+        /** The onNext and tryOnNext latencies, null if not tracked. */
+        public LatencyHistogram onNextLatency;
+        /** The request latencies, null if not tracked. */
+        public LatencyHistogram requestLatency;
+        /** The poll latencies, null if not tracked. */
+        public LatencyHistogram pollLatency;
 
         public long sumTime() {
             return subscribeTime + onSubscribeTime + tryOnNextTime
@@ -123,9 +129,19 @@ public class RxSynchronousProfiler {
                 + "    onComplete() " + tf(onCompleteTime, onCompleteCount)
                 + "    poll()       " + tf(pollTime, pollCount)
                 + "    request()    " + tf(requestTime, requestCount)
+                + lf("onNext() ", onNextLatency)
+                + lf("request()", requestLatency)
+                + lf("poll()   ", pollLatency)
                 ;
         }
 
+        String lf(String name, LatencyHistogram h) {
+            if (h == null || h.count() == 0L) {
+                return "";
+            }
+            return "    latency " + name + " " + h + "\r\n";
+        }
+
         String div(long a, long b) {
             if (b != 0L) {
                 return "" + (a / b);
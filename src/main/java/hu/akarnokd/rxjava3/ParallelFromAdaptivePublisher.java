@@ -0,0 +1,513 @@
+package hu.akarnokd.rxjava3;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import io.reactivex.rxjava3.annotations.NonNull;
+import io.reactivex.rxjava3.core.*;
+import io.reactivex.rxjava3.exceptions.*;
+import io.reactivex.rxjava3.internal.functions.ObjectHelper;
+import io.reactivex.rxjava3.internal.subscriptions.SubscriptionHelper;
+import io.reactivex.rxjava3.internal.util.BackpressureHelper;
+import io.reactivex.rxjava3.operators.*;
+import io.reactivex.rxjava3.parallel.ParallelFlowable;
+
+/**
+ * Splits a Publisher into rails running on a {@link Scheduler}, like
+ * {@code ParallelFlowable.from(source).runOn(scheduler)}, but sizes the batch each rail
+ * receives to the rate the rail consumes its items.
+ * <p>
+ * Every rail measures how long its items take and the dispatcher keeps at most as many
+ * items queued on a rail as it can process within {@code maxLatency}, bounded by
+ * {@code prefetch}. Cheap, uniform work is thus handed out in large batches, while an item
+ * is not stuck for long behind a slow one on a busy rail when other rails could take it.
+ * With {@code preferIdle}, rails that have nothing left to process are served first.
+ * <p>
+ * The dispatching runs on the thread that signals the upstream items or on the rail thread
+ * that falls below half of its batch, whichever comes first.
+ * @param <T> the element type
+ */
+public final class ParallelFromAdaptivePublisher<T> extends ParallelFlowable<T> {
+
+    final Publisher<? extends T> source;
+
+    final int parallelism;
+
+    final Scheduler scheduler;
+
+    final int prefetch;
+
+    final long maxLatencyNanos;
+
+    final boolean preferIdle;
+
+    public ParallelFromAdaptivePublisher(Publisher<? extends T> source, int parallelism, Scheduler scheduler,
+            int prefetch, long maxLatency, TimeUnit unit, boolean preferIdle) {
+        ObjectHelper.verifyPositive(parallelism, "parallelism");
+        ObjectHelper.verifyPositive(prefetch, "prefetch");
+        ObjectHelper.verifyPositive(maxLatency, "maxLatency");
+        this.source = source;
+        this.parallelism = parallelism;
+        this.scheduler = scheduler;
+        this.prefetch = prefetch;
+        this.maxLatencyNanos = unit.toNanos(maxLatency);
+        this.preferIdle = preferIdle;
+    }
+
+    @Override
+    public int parallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T>[] subscribers) {
+        if (!validate(subscribers)) {
+            return;
+        }
+
+        source.subscribe(new AdaptiveDispatcher<>(subscribers, scheduler, prefetch, maxLatencyNanos, preferIdle));
+    }
+
+    static final class AdaptiveDispatcher<T>
+    extends AtomicInteger
+    implements FlowableSubscriber<T> {
+
+        private static final long serialVersionUID = 7294151931530407225L;
+
+        final Rail<T>[] rails;
+
+        final int prefetch;
+
+        final int limit;
+
+        final long maxLatencyNanos;
+
+        final boolean preferIdle;
+
+        final AtomicInteger cancel;
+
+        Subscription upstream;
+
+        SimpleQueue<T> queue;
+
+        volatile boolean done;
+        Throwable error;
+
+        volatile boolean cancelled;
+
+        /** Set once the rails have been told about the termination. */
+        boolean finished;
+
+        int index;
+
+        int consumed;
+
+        int sourceMode;
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        AdaptiveDispatcher(Subscriber<? super T>[] subscribers, Scheduler scheduler, int prefetch,
+                long maxLatencyNanos, boolean preferIdle) {
+            int n = subscribers.length;
+            this.rails = new Rail[n];
+            for (int i = 0; i < n; i++) {
+                this.rails[i] = new Rail<>(this, subscribers[i], scheduler.createWorker(), prefetch);
+            }
+            this.prefetch = prefetch;
+            this.limit = prefetch - (prefetch >> 2);
+            this.maxLatencyNanos = maxLatencyNanos;
+            this.preferIdle = preferIdle;
+            this.cancel = new AtomicInteger(n);
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.validate(this.upstream, s)) {
+                this.upstream = s;
+
+                if (s instanceof QueueSubscription) {
+                    @SuppressWarnings("unchecked")
+                    QueueSubscription<T> qs = (QueueSubscription<T>) s;
+
+                    int m = qs.requestFusion(QueueFuseable.ANY | QueueFuseable.BOUNDARY);
+                    if (m == QueueFuseable.SYNC) {
+                        sourceMode = m;
+                        queue = qs;
+                        done = true;
+                        subscribeRails();
+                        drain();
+                        return;
+                    }
+                    if (m == QueueFuseable.ASYNC) {
+                        sourceMode = m;
+                        queue = qs;
+                        subscribeRails();
+                        s.request(prefetch);
+                        return;
+                    }
+                }
+
+                queue = new SpscArrayQueue<>(prefetch);
+
+                subscribeRails();
+
+                s.request(prefetch);
+            }
+        }
+
+        void subscribeRails() {
+            for (Rail<T> rail : rails) {
+                rail.downstream.onSubscribe(rail);
+            }
+        }
+
+        @Override
+        public void onNext(@NonNull T t) {
+            if (sourceMode == QueueFuseable.NONE) {
+                if (!queue.offer(t)) {
+                    upstream.cancel();
+                    onError(new MissingBackpressureException("Queue full?!"));
+                    return;
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            drain();
+        }
+
+        /**
+         * Returns how many items the rail may have queued or in processing.
+         */
+        int target(Rail<T> rail) {
+            long cost = rail.nanosPerItem;
+            if (cost == 0L) {
+                // not measured yet, start small so a slow first item doesn't hold up a full batch
+                return 1;
+            }
+            return (int)Math.max(1L, Math.min(prefetch, maxLatencyNanos / cost));
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+
+            SimpleQueue<T> queue = this.queue;
+            Rail<T>[] rails = this.rails;
+            int n = rails.length;
+
+            int missed = 1;
+            for (;;) {
+
+                if (cancelled) {
+                    queue.clear();
+                } else if (!finished) {
+                    boolean d = done;
+                    Throwable ex = error;
+                    if (d && ex != null) {
+                        queue.clear();
+                        terminate(ex);
+                    } else {
+                        int result = -1;
+                        if (preferIdle) {
+                            result = dispatch(queue, rails, n, true);
+                        }
+                        if (result < 0) {
+                            result = dispatch(queue, rails, n, false);
+                        }
+                        if (result > 0) {
+                            // the poll crashed, the rails have been notified
+                            continue;
+                        }
+                        if (result == 0 && (sourceMode == QueueFuseable.SYNC || d)) {
+                            terminate(null);
+                        }
+                        if (++index == n) {
+                            index = 0;
+                        }
+                    }
+                }
+
+                int w = get();
+                if (w == missed) {
+                    missed = addAndGet(-missed);
+                    if (missed == 0) {
+                        break;
+                    }
+                } else {
+                    missed = w;
+                }
+            }
+        }
+
+        /**
+         * Tops up the rails to their target, starting with the rail at {@link #index}.
+         * @param idleOnly if true, only rails without any item in flight are topped up
+         * @return 0 if the queue ran empty, 1 if polling it crashed, -1 otherwise
+         */
+        int dispatch(SimpleQueue<T> queue, Rail<T>[] rails, int n, boolean idleOnly) {
+            int c = consumed;
+            int lim = limit;
+            int result = -1;
+            int idx = index;
+            outer:
+            for (int j = 0; j < n; j++, idx = idx + 1 == n ? 0 : idx + 1) {
+                Rail<T> rail = rails[idx];
+                if (rail.cancelled) {
+                    continue;
+                }
+                long produced = rail.produced;
+                long inFlight = produced - rail.consumed.get();
+                if (idleOnly && inFlight != 0L) {
+                    continue;
+                }
+                int target = target(rail);
+                long free = target - inFlight;
+                if (free <= 0L) {
+                    continue;
+                }
+                long e = produced;
+                while (e - produced != free) {
+                    T item;
+                    try {
+                        item = queue.poll();
+                    } catch (Throwable ex) {
+                        Exceptions.throwIfFatal(ex);
+                        upstream.cancel();
+                        queue.clear();
+                        terminate(ex);
+                        result = 1;
+                        break;
+                    }
+                    if (item == null) {
+                        result = 0;
+                        break;
+                    }
+                    rail.queue.offer(item);
+                    e++;
+                    if (sourceMode != QueueFuseable.SYNC && ++c == lim) {
+                        c = 0;
+                        upstream.request(lim);
+                    }
+                }
+                if (e != produced) {
+                    rail.produced = e;
+                    rail.refillAt = e - (target >> 1);
+                    rail.schedule();
+                } else {
+                    rail.refillAt = produced - (target >> 1);
+                }
+                if (result >= 0) {
+                    break outer;
+                }
+            }
+            consumed = c;
+            return result;
+        }
+
+        void terminate(Throwable ex) {
+            finished = true;
+            for (Rail<T> rail : rails) {
+                rail.error = ex;
+                rail.done = true;
+                rail.schedule();
+            }
+        }
+
+        void cancelRail() {
+            if (cancel.decrementAndGet() == 0) {
+                cancelled = true;
+                upstream.cancel();
+                drain();
+            } else {
+                // its share of the items goes to the other rails
+                drain();
+            }
+        }
+
+        static final class Rail<T>
+        extends AtomicInteger
+        implements Subscription, Runnable {
+
+            private static final long serialVersionUID = -2836914478564766227L;
+
+            final AdaptiveDispatcher<T> parent;
+
+            final Subscriber<? super T> downstream;
+
+            final Scheduler.Worker worker;
+
+            final SpscArrayQueue<T> queue;
+
+            final AtomicLong requested;
+
+            /** The number of items taken off the queue and fully processed, updated by the rail. */
+            final AtomicLong consumed;
+
+            /** The number of items queued, accessed by the dispatcher only. */
+            long produced;
+
+            /** Ask the dispatcher for more once {@link #consumed} reaches this value. */
+            volatile long refillAt;
+
+            /** The moving average of the time one item takes on this rail, 0 if not measured yet. */
+            volatile long nanosPerItem;
+
+            volatile boolean done;
+            Throwable error;
+
+            volatile boolean cancelled;
+
+            long emitted;
+
+            Rail(AdaptiveDispatcher<T> parent, Subscriber<? super T> downstream, Scheduler.Worker worker, int prefetch) {
+                this.parent = parent;
+                this.downstream = downstream;
+                this.worker = worker;
+                this.queue = new SpscArrayQueue<>(prefetch);
+                this.requested = new AtomicLong();
+                this.consumed = new AtomicLong();
+            }
+
+            @Override
+            public void request(long n) {
+                if (SubscriptionHelper.validate(n)) {
+                    BackpressureHelper.add(requested, n);
+                    schedule();
+                }
+            }
+
+            @Override
+            public void cancel() {
+                if (!cancelled) {
+                    cancelled = true;
+                    worker.dispose();
+                    if (getAndIncrement() == 0) {
+                        queue.clear();
+                    }
+                    parent.cancelRail();
+                }
+            }
+
+            void schedule() {
+                if (getAndIncrement() == 0) {
+                    worker.schedule(this);
+                }
+            }
+
+            @Override
+            public void run() {
+                SpscArrayQueue<T> q = queue;
+                Subscriber<? super T> a = downstream;
+                AtomicLong consumed = this.consumed;
+                long e = emitted;
+
+                int missed = 1;
+                for (;;) {
+
+                    long r = requested.get();
+                    long start = System.nanoTime();
+                    long startEmitted = e;
+
+                    while (e != r) {
+                        if (cancelled) {
+                            q.clear();
+                            return;
+                        }
+
+                        boolean d = done;
+
+                        if (d) {
+                            Throwable ex = error;
+                            if (ex != null) {
+                                q.clear();
+                                a.onError(ex);
+                                worker.dispose();
+                                return;
+                            }
+                        }
+
+                        T v = q.poll();
+
+                        boolean empty = v == null;
+
+                        if (d && empty) {
+                            a.onComplete();
+                            worker.dispose();
+                            return;
+                        }
+
+                        if (empty) {
+                            break;
+                        }
+
+                        a.onNext(v);
+
+                        e++;
+                        consumed.lazySet(e);
+                        if (e == refillAt) {
+                            parent.drain();
+                        }
+                    }
+
+                    if (e != startEmitted) {
+                        long cost = Math.max(1L, (System.nanoTime() - start) / (e - startEmitted));
+                        long old = nanosPerItem;
+                        nanosPerItem = old == 0L ? cost : (old * 3 + cost) >> 2;
+                    }
+
+                    if (e == r) {
+                        if (cancelled) {
+                            q.clear();
+                            return;
+                        }
+
+                        if (done) {
+                            Throwable ex = error;
+                            if (ex != null) {
+                                q.clear();
+                                a.onError(ex);
+                                worker.dispose();
+                                return;
+                            }
+                            if (q.isEmpty()) {
+                                a.onComplete();
+                                worker.dispose();
+                                return;
+                            }
+                        }
+                    }
+
+                    emitted = e;
+
+                    if (q.isEmpty()) {
+                        // idle: pull in the next batch, possibly on this very thread
+                        parent.drain();
+                    }
+
+                    int w = get();
+                    if (w == missed) {
+                        missed = addAndGet(-missed);
+                        if (missed == 0) {
+                            break;
+                        }
+                    } else {
+                        missed = w;
+                    }
+                }
+            }
+        }
+    }
+}
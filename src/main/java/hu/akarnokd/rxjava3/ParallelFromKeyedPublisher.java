@@ -0,0 +1,356 @@
+package hu.akarnokd.rxjava3;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.*;
+
+import org.reactivestreams.*;
+
+import io.reactivex.rxjava3.annotations.NonNull;
+import io.reactivex.rxjava3.core.FlowableSubscriber;
+import io.reactivex.rxjava3.exceptions.*;
+import io.reactivex.rxjava3.functions.Function;
+import io.reactivex.rxjava3.internal.functions.ObjectHelper;
+import io.reactivex.rxjava3.internal.subscriptions.SubscriptionHelper;
+import io.reactivex.rxjava3.internal.util.BackpressureHelper;
+import io.reactivex.rxjava3.operators.*;
+import io.reactivex.rxjava3.parallel.ParallelFlowable;
+
+/**
+ * Splits a Publisher into rails by the hash of a key: all items with the same key go to the
+ * same rail, in their original order, so the rails can keep per-key state without locking.
+ * <p>
+ * Unlike {@code groupBy}, the number of rails is fixed no matter how many keys there are.
+ * The memory use is bounded too: at most {@code prefetch} items are buffered from upstream
+ * and an item is only taken off that buffer when its rail has requested it. The price is
+ * head-of-line blocking: if the rail of the next item has no outstanding request, the other
+ * rails don't receive anything either until it catches up.
+ * <p>
+ * Items routed to a cancelled rail are dropped.
+ * @param <T> the element type
+ * @param <K> the key type
+ */
+public final class ParallelFromKeyedPublisher<T, K> extends ParallelFlowable<T> {
+
+    final Publisher<? extends T> source;
+
+    final Function<? super T, ? extends K> keySelector;
+
+    final int parallelism;
+
+    final int prefetch;
+
+    public ParallelFromKeyedPublisher(Publisher<? extends T> source, Function<? super T, ? extends K> keySelector,
+            int parallelism, int prefetch) {
+        ObjectHelper.verifyPositive(parallelism, "parallelism");
+        ObjectHelper.verifyPositive(prefetch, "prefetch");
+        this.source = source;
+        this.keySelector = keySelector;
+        this.parallelism = parallelism;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public int parallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T>[] subscribers) {
+        if (!validate(subscribers)) {
+            return;
+        }
+
+        source.subscribe(new KeyedDispatcher<>(subscribers, keySelector, prefetch));
+    }
+
+    /**
+     * Returns the rail index for the key.
+     * @param key the key, null goes to rail 0
+     * @param n the number of rails
+     * @return the index in [0, n)
+     */
+    public static int rail(Object key, int n) {
+        int h = Objects.hashCode(key);
+        h ^= h >>> 16;
+        return (h & Integer.MAX_VALUE) % n;
+    }
+
+    static final class KeyedDispatcher<T, K>
+    extends AtomicInteger
+    implements FlowableSubscriber<T> {
+
+        private static final long serialVersionUID = -1328562880209513722L;
+
+        final RailSubscription<T>[] rails;
+
+        final Function<? super T, ? extends K> keySelector;
+
+        final int prefetch;
+
+        final int limit;
+
+        Subscription upstream;
+
+        SimpleQueue<T> queue;
+
+        volatile boolean done;
+        Throwable error;
+
+        final AtomicInteger cancel;
+
+        volatile boolean cancelled;
+
+        /** The item taken off the queue whose rail had no outstanding request. */
+        T pending;
+
+        int pendingRail;
+
+        int consumed;
+
+        int sourceMode;
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        KeyedDispatcher(Subscriber<? super T>[] subscribers, Function<? super T, ? extends K> keySelector, int prefetch) {
+            int n = subscribers.length;
+            this.rails = new RailSubscription[n];
+            for (int i = 0; i < subscribers.length; i++) {
+                this.rails[i] = new RailSubscription<>(this, subscribers[i]);
+            }
+            this.keySelector = keySelector;
+            this.prefetch = prefetch;
+            this.limit = prefetch - (prefetch >> 2);
+            this.cancel = new AtomicInteger(n);
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.validate(this.upstream, s)) {
+                this.upstream = s;
+
+                if (s instanceof QueueSubscription) {
+                    @SuppressWarnings("unchecked")
+                    QueueSubscription<T> qs = (QueueSubscription<T>) s;
+
+                    int m = qs.requestFusion(QueueFuseable.ANY | QueueFuseable.BOUNDARY);
+                    if (m == QueueFuseable.SYNC) {
+                        sourceMode = m;
+                        queue = qs;
+                        done = true;
+                        subscribeRails();
+                        drain();
+                        return;
+                    }
+                    if (m == QueueFuseable.ASYNC) {
+                        sourceMode = m;
+                        queue = qs;
+                        subscribeRails();
+                        s.request(prefetch);
+                        return;
+                    }
+                }
+
+                queue = new SpscArrayQueue<>(prefetch);
+
+                subscribeRails();
+
+                s.request(prefetch);
+            }
+        }
+
+        void subscribeRails() {
+            for (RailSubscription<T> rs : rails) {
+                rs.subscribe();
+            }
+        }
+
+        @Override
+        public void onNext(@NonNull T t) {
+            if (sourceMode == QueueFuseable.NONE) {
+                if (!queue.offer(t)) {
+                    upstream.cancel();
+                    onError(new MissingBackpressureException("Queue full?!"));
+                    return;
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            drain();
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+
+            SimpleQueue<T> queue = this.queue;
+            RailSubscription<T>[] rails = this.rails;
+            int n = rails.length;
+            boolean sync = sourceMode == QueueFuseable.SYNC;
+
+            int c = this.consumed;
+            int limit = this.limit;
+
+            int missed = 1;
+            for (;;) {
+
+                for (;;) {
+                    if (cancelled) {
+                        pending = null;
+                        queue.clear();
+                        break;
+                    }
+
+                    boolean d = done;
+
+                    if (d) {
+                        Throwable ex = error;
+                        if (ex != null) {
+                            pending = null;
+                            queue.clear();
+                            for (RailSubscription<T> rs : rails) {
+                                // a cancelled rail must not receive signals anymore
+                                if (rs.get() != Long.MIN_VALUE) {
+                                    rs.downstream.onError(ex);
+                                }
+                            }
+                            cancelled = true;
+                            break;
+                        }
+                    }
+
+                    T item = pending;
+                    int index;
+
+                    if (item == null) {
+                        try {
+                            item = queue.poll();
+                            if (item != null) {
+                                index = rail(keySelector.apply(item), n);
+                            } else {
+                                index = 0;
+                            }
+                        } catch (Throwable ex) {
+                            Exceptions.throwIfFatal(ex);
+                            upstream.cancel();
+                            queue.clear();
+                            for (RailSubscription<T> rs : rails) {
+                                if (rs.get() != Long.MIN_VALUE) {
+                                    rs.downstream.onError(ex);
+                                }
+                            }
+                            cancelled = true;
+                            break;
+                        }
+
+                        if (item == null) {
+                            if (d) {
+                                for (RailSubscription<T> rs : rails) {
+                                    if (rs.get() != Long.MIN_VALUE) {
+                                        rs.downstream.onComplete();
+                                    }
+                                }
+                                cancelled = true;
+                            }
+                            break;
+                        }
+
+                        if (!sync && ++c == limit) {
+                            c = 0;
+                            upstream.request(limit);
+                        }
+                    } else {
+                        index = pendingRail;
+                    }
+
+                    RailSubscription<T> rs = rails[index];
+                    long r = rs.get();
+
+                    if (r == Long.MIN_VALUE) {
+                        pending = null;
+                        continue;
+                    }
+
+                    long e = rs.emitted;
+                    if (r == e) {
+                        pending = item;
+                        pendingRail = index;
+                        break;
+                    }
+
+                    pending = null;
+
+                    rs.downstream.onNext(item);
+
+                    rs.emitted = e + 1;
+                }
+
+                int w = get();
+                if (w == missed) {
+                    this.consumed = c;
+                    missed = addAndGet(-missed);
+                    if (missed == 0) {
+                        break;
+                    }
+                } else {
+                    missed = w;
+                }
+            }
+        }
+
+        void cancelRail() {
+            if (cancel.decrementAndGet() == 0) {
+                cancelled = true;
+                upstream.cancel();
+            }
+            drain();
+        }
+
+        static final class RailSubscription<T>
+        extends AtomicLong
+        implements Subscription {
+
+            private static final long serialVersionUID = 4906289727432436485L;
+
+            final KeyedDispatcher<T, ?> parent;
+
+            final Subscriber<? super T> downstream;
+
+            long emitted;
+
+            RailSubscription(KeyedDispatcher<T, ?> parent, Subscriber<? super T> downstream) {
+                this.parent = parent;
+                this.downstream = downstream;
+            }
+
+            @Override
+            public void request(long n) {
+                if (SubscriptionHelper.validate(n)) {
+                    BackpressureHelper.addCancel(this, n);
+                    parent.drain();
+                }
+            }
+
+            @Override
+            public void cancel() {
+                if (getAndSet(Long.MIN_VALUE) != Long.MIN_VALUE) {
+                    parent.cancelRail();
+                }
+            }
+
+            void subscribe() {
+                downstream.onSubscribe(this);
+            }
+        }
+    }
+}
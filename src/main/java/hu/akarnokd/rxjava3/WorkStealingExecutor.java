@@ -0,0 +1,236 @@
+package hu.akarnokd.rxjava3;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import hu.akarnokd.queue.*;
+import io.reactivex.rxjava3.exceptions.Exceptions;
+import io.reactivex.rxjava3.plugins.RxJavaPlugins;
+
+/**
+ * Executor with a fixed set of worker threads, each owning a {@link SpscStealableArrayQeque}.
+ * <p>
+ * Tasks submitted from a worker thread go to its own deque; tasks submitted from other threads
+ * go round-robin into the workers' multi-producer inboxes and are moved into the deque by the
+ * owner. Idle workers steal from a random victim and back off by spinning, yielding and then
+ * parking for increasingly longer periods.
+ */
+public final class WorkStealingExecutor implements Executor {
+
+    static final int SPIN_LIMIT = 64;
+
+    static final int YIELD_LIMIT = SPIN_LIMIT + 16;
+
+    static final long MIN_PARK_NANOS = 1_000L;
+
+    static final long MAX_PARK_NANOS = 1_000_000L;
+
+    final WorkerThread[] workers;
+
+    final AtomicInteger index;
+
+    final AtomicInteger parkedCount;
+
+    volatile boolean shutdown;
+
+    public WorkStealingExecutor() {
+        this(Runtime.getRuntime().availableProcessors(), 256, "WorkStealingExecutor");
+    }
+
+    public WorkStealingExecutor(int parallelism, int capacity, String namePrefix) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism > 0 required but it was " + parallelism);
+        }
+        this.index = new AtomicInteger();
+        this.parkedCount = new AtomicInteger();
+        WorkerThread[] ws = new WorkerThread[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            ws[i] = new WorkerThread(this, capacity, namePrefix + "-" + (i + 1));
+        }
+        this.workers = ws;
+        for (WorkerThread w : ws) {
+            w.start();
+        }
+    }
+
+    public int parallelism() {
+        return workers.length;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executor has been shut down");
+        }
+        Thread t = Thread.currentThread();
+        if (t instanceof WorkerThread && ((WorkerThread)t).executor == this) {
+            WorkerThread w = (WorkerThread)t;
+            if (!w.deque.offer(task)) {
+                w.inbox.offer(task);
+            }
+            wakeIdle(w);
+        } else {
+            WorkerThread[] ws = workers;
+            WorkerThread w = ws[Math.abs(index.getAndIncrement() % ws.length)];
+            w.inbox.offer(task);
+            if (w.parked) {
+                LockSupport.unpark(w);
+            }
+        }
+    }
+
+    /**
+     * Wakes up a parked worker, other than the given one, so it can steal.
+     * @param self the current worker
+     */
+    void wakeIdle(WorkerThread self) {
+        if (parkedCount.get() == 0) {
+            return;
+        }
+        WorkerThread[] ws = workers;
+        int n = ws.length;
+        int start = ThreadLocalRandom.current().nextInt(n);
+        for (int i = 0; i < n; i++) {
+            WorkerThread w = ws[(start + i) % n];
+            if (w != self && w.parked) {
+                LockSupport.unpark(w);
+                return;
+            }
+        }
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        for (WorkerThread w : workers) {
+            LockSupport.unpark(w);
+        }
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Returns the number of tasks the workers have stolen from each other so far.
+     * @return the number of stolen tasks
+     */
+    public long stealCount() {
+        long n = 0L;
+        for (WorkerThread w : workers) {
+            n += w.stolen;
+        }
+        return n;
+    }
+
+    static final class WorkerThread extends Thread {
+
+        final WorkStealingExecutor executor;
+
+        final SpscStealableArrayQeque<Runnable> deque;
+
+        final MpscLinkedArrayQueue<Runnable> inbox;
+
+        volatile boolean parked;
+
+        volatile long stolen;
+
+        WorkerThread(WorkStealingExecutor executor, int capacity, String name) {
+            super(name);
+            this.executor = executor;
+            this.deque = new SpscStealableArrayQeque<>(capacity);
+            this.inbox = new MpscLinkedArrayQueue<>(capacity);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            WorkStealingExecutor exec = executor;
+            int idle = 0;
+            long parkNanos = MIN_PARK_NANOS;
+
+            while (!exec.shutdown) {
+                Runnable r = next();
+                if (r != null) {
+                    idle = 0;
+                    parkNanos = MIN_PARK_NANOS;
+                    try {
+                        r.run();
+                    } catch (Throwable ex) {
+                        Exceptions.throwIfFatal(ex);
+                        RxJavaPlugins.onError(ex);
+                    }
+                    continue;
+                }
+
+                if (++idle <= SPIN_LIMIT) {
+                    Thread.onSpinWait();
+                } else if (idle <= YIELD_LIMIT) {
+                    Thread.yield();
+                } else {
+                    parked = true;
+                    exec.parkedCount.getAndIncrement();
+                    if (inbox.isEmpty() && deque.isEmpty() && !exec.shutdown) {
+                        LockSupport.parkNanos(this, parkNanos);
+                        parkNanos = Math.min(parkNanos << 1, MAX_PARK_NANOS);
+                    }
+                    exec.parkedCount.getAndDecrement();
+                    parked = false;
+                }
+            }
+        }
+
+        Runnable next() {
+            Runnable r = deque.poll();
+            if (r != null) {
+                return r;
+            }
+            r = inbox.poll();
+            if (r != null) {
+                if (transfer()) {
+                    executor.wakeIdle(this);
+                }
+                return r;
+            }
+            return steal();
+        }
+
+        /**
+         * Moves tasks from the inbox into the stealable deque while it has room.
+         * @return true if at least one task was moved
+         */
+        boolean transfer() {
+            MpscLinkedArrayQueue<Runnable> in = inbox;
+            SpscStealableArrayQeque<Runnable> dq = deque;
+            boolean moved = false;
+            for (;;) {
+                Runnable r = in.peek();
+                if (r == null || !dq.offer(r)) {
+                    return moved;
+                }
+                in.poll();
+                moved = true;
+            }
+        }
+
+        Runnable steal() {
+            WorkerThread[] ws = executor.workers;
+            int n = ws.length;
+            if (n == 1) {
+                return null;
+            }
+            int start = ThreadLocalRandom.current().nextInt(n);
+            for (int i = 0; i < n; i++) {
+                WorkerThread victim = ws[(start + i) % n];
+                if (victim != this) {
+                    Runnable r = victim.deque.steal();
+                    if (r != null) {
+                        stolen = stolen + 1;
+                        return r;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
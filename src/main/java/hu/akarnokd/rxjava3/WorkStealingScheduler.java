@@ -0,0 +1,65 @@
+package hu.akarnokd.rxjava3;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.annotations.NonNull;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * Scheduler running on a {@link WorkStealingExecutor}.
+ * <p>
+ * Each {@link Worker} executes its tasks in order, one at a time, and resubmits itself
+ * after each task, so the drain of a busy worker ends up in the current thread's stealable
+ * deque and an idle thread can pick it up.
+ */
+public final class WorkStealingScheduler extends Scheduler {
+
+    final WorkStealingExecutor executor;
+
+    final Scheduler scheduler;
+
+    public WorkStealingScheduler() {
+        this(new WorkStealingExecutor());
+    }
+
+    public WorkStealingScheduler(int parallelism) {
+        this(new WorkStealingExecutor(parallelism, 256, "RxWorkStealingScheduler"));
+    }
+
+    public WorkStealingScheduler(WorkStealingExecutor executor) {
+        this.executor = executor;
+        this.scheduler = Schedulers.from(executor, false, true);
+    }
+
+    public WorkStealingExecutor executor() {
+        return executor;
+    }
+
+    @Override
+    public @NonNull Worker createWorker() {
+        return scheduler.createWorker();
+    }
+
+    @Override
+    public @NonNull Disposable scheduleDirect(@NonNull Runnable run) {
+        return scheduler.scheduleDirect(run);
+    }
+
+    @Override
+    public @NonNull Disposable scheduleDirect(@NonNull Runnable run, long delay, @NonNull TimeUnit unit) {
+        return scheduler.scheduleDirect(run, delay, unit);
+    }
+
+    @Override
+    public @NonNull Disposable schedulePeriodicallyDirect(@NonNull Runnable run, long initialDelay, long period,
+            @NonNull TimeUnit unit) {
+        return scheduler.schedulePeriodicallyDirect(run, initialDelay, period, unit);
+    }
+
+    @Override
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
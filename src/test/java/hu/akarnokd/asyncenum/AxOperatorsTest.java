@@ -0,0 +1,213 @@
+/*
+ * Copyright 2016-2018 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+public class AxOperatorsTest {
+
+    static ExecutorService exec;
+
+    @BeforeClass
+    public static void before() {
+        exec = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterClass
+    public static void after() {
+        exec.shutdownNow();
+    }
+
+    static <T> TestAsyncConsumer<T> consume(Ax<T> source) {
+        return new TestAsyncConsumer<T>(source.enumerator())
+                .consumeAwaitAll(5, TimeUnit.SECONDS)
+                .assertNoErrors()
+                .assertCompleted();
+    }
+
+    @Test
+    public void syncStagesReused() {
+        IAsyncEnumerator<Integer> en = Ax.range(1, 5).map(v -> v + 1).filter(v -> v % 2 == 0).enumerator();
+
+        Assert.assertSame(AxStages.TRUE, en.moveNext(null));
+        Assert.assertEquals(2, en.current().intValue());
+        Assert.assertSame(AxStages.TRUE, en.moveNext(null));
+        Assert.assertEquals(4, en.current().intValue());
+        Assert.assertSame(AxStages.TRUE, en.moveNext(null));
+        Assert.assertEquals(6, en.current().intValue());
+        Assert.assertSame(AxStages.FALSE, en.moveNext(null));
+    }
+
+    @Test
+    public void syncStagesCannotBeCompleted() {
+        CompletableFuture<Boolean> f = AxStages.TRUE.toCompletableFuture();
+        f.obtrudeValue(false);
+
+        Assert.assertEquals(Boolean.TRUE, AxStages.now(AxStages.TRUE));
+        Assert.assertEquals(Boolean.TRUE, AxStages.TRUE.toCompletableFuture().join());
+
+        try {
+            ((CompletableFuture<Boolean>)AxStages.FALSE).complete(true);
+            Assert.fail("Should have thrown");
+        } catch (UnsupportedOperationException expected) {
+            // expected
+        }
+        Assert.assertEquals(Boolean.FALSE, AxStages.FALSE.toCompletableFuture().join());
+    }
+
+    @Test
+    public void map() {
+        consume(Ax.range(1, 5).map(v -> v * 10))
+        .assertValues(10, 20, 30, 40, 50);
+    }
+
+    @Test
+    public void mapAsync() {
+        consume(Ax.range(1, 5).observeOn(exec).map(v -> v * 10))
+        .assertValues(10, 20, 30, 40, 50);
+    }
+
+    @Test
+    public void filter() {
+        consume(Ax.range(1, 10).filter(v -> v % 3 == 0))
+        .assertValues(3, 6, 9);
+    }
+
+    @Test
+    public void filterAsync() {
+        consume(Ax.range(1, 10).observeOn(exec).filter(v -> v % 3 == 0))
+        .assertValues(3, 6, 9);
+    }
+
+    @Test
+    public void take() {
+        consume(Ax.range(1, 10).take(3))
+        .assertValues(1, 2, 3);
+
+        consume(Ax.range(1, 2).take(3))
+        .assertValues(1, 2);
+    }
+
+    @Test
+    public void takeClearsCurrentWhenDone() {
+        IAsyncEnumerator<Integer> en = Ax.range(1, 10).take(1).enumerator();
+
+        Assert.assertSame(AxStages.TRUE, en.moveNext(null));
+        Assert.assertEquals(1, en.current().intValue());
+        Assert.assertSame(AxStages.FALSE, en.moveNext(null));
+        Assert.assertNull(en.current());
+    }
+
+    @Test
+    public void reduce() {
+        consume(Ax.range(1, 100).reduce(() -> 0, (a, b) -> a + b))
+        .assertValue(5050);
+    }
+
+    @Test
+    public void reduceAsync() {
+        consume(Ax.range(1, 100).observeOn(exec).reduce(() -> 0, (a, b) -> a + b))
+        .assertValue(5050);
+    }
+
+    @Test
+    public void reduceEmpty() {
+        consume(Ax.range(1, 0).reduce(() -> 0, (a, b) -> a + b))
+        .assertValue(0);
+    }
+
+    @Test
+    public void buffer() {
+        consume(Ax.range(1, 5).buffer(2))
+        .assertValues(Arrays.asList(1, 2), Arrays.asList(3, 4), Arrays.asList(5));
+
+        consume(Ax.range(1, 4).observeOn(exec).buffer(2))
+        .assertValues(Arrays.asList(1, 2), Arrays.asList(3, 4));
+    }
+
+    @Test
+    public void concatMap() {
+        consume(Ax.range(1, 3).concatMap(v -> Ax.range(v * 10, 2)))
+        .assertValues(10, 11, 20, 21, 30, 31);
+    }
+
+    @Test
+    public void concatMapAsync() {
+        consume(Ax.range(1, 3).observeOn(exec).concatMap(v -> Ax.range(v * 10, 2).observeOn(exec)))
+        .assertValues(10, 11, 20, 21, 30, 31);
+    }
+
+    @Test
+    public void flatMapSync() {
+        TestAsyncConsumer<Integer> tc = consume(Ax.range(1, 3).flatMap(v -> Ax.range(v * 10, 2)));
+
+        tc.assertValueCount(6);
+        Assert.assertEquals(new HashSet<>(Arrays.asList(10, 11, 20, 21, 30, 31)), new HashSet<>(tc.ts.getOnNextEvents()));
+    }
+
+    @Test
+    public void flatMapAsync() {
+        for (int i = 0; i < 100; i++) {
+            TestAsyncConsumer<Integer> tc = consume(Ax.range(0, 100).flatMap(v -> Ax.range(v * 100, 100).observeOn(exec), 4, 16));
+
+            tc.assertValueCount(10_000);
+            Assert.assertEquals(10_000, new HashSet<>(tc.ts.getOnNextEvents()).size());
+        }
+    }
+
+    @Test
+    public void merge() {
+        TestAsyncConsumer<Integer> tc = consume(Ax.merge(Ax.range(1, 1000).observeOn(exec), Ax.range(1001, 1000).observeOn(exec, 16)));
+
+        tc.assertValueCount(2000);
+        List<Integer> list = new ArrayList<>(tc.ts.getOnNextEvents());
+        Collections.sort(list);
+        for (int i = 0; i < 2000; i++) {
+            Assert.assertEquals(i + 1, list.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void mergeEmpty() {
+        consume(Ax.<Integer>merge())
+        .assertNoValues();
+    }
+
+    @Test
+    public void observeOnBatched() {
+        for (int prefetch : new int[] { 2, 16, 128 }) {
+            consume(Ax.range(1, 1000).observeOn(exec, prefetch).take(500))
+            .assertValueCount(500);
+
+            consume(Ax.range(1, 1000).observeOn(exec).observeOn(exec, prefetch).reduce(() -> 0L, (a, b) -> a + b))
+            .assertValue(500500L);
+        }
+    }
+
+    @Test
+    public void mapError() {
+        new TestAsyncConsumer<Integer>(Ax.range(1, 5).map(v -> {
+            if (v == 3) {
+                throw new IllegalStateException();
+            }
+            return v;
+        }).enumerator())
+        .consumeAwaitAll(5, TimeUnit.SECONDS)
+        .assertValues(1, 2)
+        .assertNotCompleted();
+    }
+}
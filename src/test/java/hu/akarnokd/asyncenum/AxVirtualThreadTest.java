@@ -0,0 +1,182 @@
+/*
+ * Copyright 2016-2018 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.asyncenum;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.*;
+
+import rx.subscriptions.CompositeSubscription;
+
+public class AxVirtualThreadTest {
+
+    @Test
+    public void blockingIteratorSync() {
+        List<Integer> list = new ArrayList<>();
+        for (Integer v : Ax.range(1, 5).blockingIterable()) {
+            list.add(v);
+        }
+        Assert.assertEquals(Arrays.asList(1, 2, 3, 4, 5), list);
+    }
+
+    @Test
+    public void blockingIteratorAsync() {
+        ExecutorService exec = Executors.newSingleThreadExecutor();
+        try {
+            List<Integer> list = new ArrayList<>();
+            for (Integer v : Ax.range(1, 1000).observeOn(exec, 16).blockingIterable()) {
+                list.add(v);
+            }
+            Assert.assertEquals(1000, list.size());
+            Assert.assertEquals(1000, list.get(999).intValue());
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void blockingIteratorError() {
+        AxBlockingIterator<Integer> it = Ax.range(1, 5).observeOnVirtual(2).map(v -> {
+            if (v == 3) {
+                throw new IllegalStateException();
+            }
+            return v;
+        }).blockingIterator();
+
+        while (it.hasNext()) {
+            it.next();
+        }
+    }
+
+    @Test
+    public void observeOnVirtual() {
+        new TestAsyncConsumer<>(Ax.range(1, 10_000).observeOnVirtual(16).enumerator())
+        .consumeAwaitAll(5, TimeUnit.SECONDS)
+        .assertValueCount(10_000)
+        .assertNoErrors()
+        .assertCompleted();
+    }
+
+    @Test
+    public void subscribeOnVirtual() {
+        Thread main = Thread.currentThread();
+        Thread[] created = { null };
+        Ax<Integer> source = new Ax<Integer>() {
+            @Override
+            public IAsyncEnumerator<Integer> enumerator() {
+                created[0] = Thread.currentThread();
+                return Ax.range(1, 5).enumerator();
+            }
+        };
+
+        new TestAsyncConsumer<>(source.subscribeOnVirtual(2).enumerator())
+        .consumeAwaitAll(5, TimeUnit.SECONDS)
+        .assertValues(1, 2, 3, 4, 5)
+        .assertNoErrors()
+        .assertCompleted();
+
+        Assert.assertNotNull(created[0]);
+        Assert.assertNotSame(main, created[0]);
+    }
+
+    @Test
+    public void manyConcurrentEnumerations() throws Exception {
+        int n = AxVirtualThreads.isVirtual() ? 10_000 : 200;
+        List<AxBlockingIterator<List<Integer>>> iterators = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            iterators.add(Ax.range(i, 100).observeOnVirtual(8).buffer(100).blockingIterator());
+        }
+        for (int i = 0; i < n; i++) {
+            AxBlockingIterator<List<Integer>> it = iterators.get(i);
+            Assert.assertTrue(it.hasNext());
+            List<Integer> list = it.next();
+            Assert.assertEquals(100, list.size());
+            Assert.assertEquals(i, list.get(0).intValue());
+            Assert.assertFalse(it.hasNext());
+        }
+    }
+
+    @Test
+    public void prefetchOneSlowConsumer() {
+        for (int i = 0; i < 200; i++) {
+            AxBlockingIterator<Integer> it = Ax.range(1, 200).observeOnVirtual(1).blockingIterator();
+            int expected = 1;
+            while (it.hasNext()) {
+                Assert.assertEquals(expected++, it.next().intValue());
+                if ((expected & 15) == 0) {
+                    Thread.yield();
+                }
+            }
+            Assert.assertEquals(201, expected);
+        }
+    }
+
+    @Test
+    public void cancelReleasesProducerBlockedOnSource() throws Exception {
+        CompletableFuture<Boolean> never = new CompletableFuture<>();
+        AtomicReference<CompositeSubscription> upstream = new AtomicReference<>();
+        Ax<Integer> source = new Ax<Integer>() {
+            @Override
+            public IAsyncEnumerator<Integer> enumerator() {
+                return new IAsyncEnumerator<Integer>() {
+                    @Override
+                    public CompletionStage<Boolean> moveNext(CompositeSubscription token) {
+                        upstream.set(token);
+                        return never;
+                    }
+
+                    @Override
+                    public Integer current() {
+                        return null;
+                    }
+                };
+            }
+        };
+
+        Thread[] producer = { null };
+        CountDownLatch started = new CountDownLatch(1);
+        ThreadFactory tf = r -> {
+            Thread t = new Thread(() -> {
+                started.countDown();
+                r.run();
+            });
+            t.setDaemon(true);
+            producer[0] = t;
+            return t;
+        };
+
+        CompositeSubscription token = new CompositeSubscription();
+        new AxVirtualThread<>(source, tf, 4, false).enumerator().moveNext(token);
+
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        while (upstream.get() == null) {
+            Thread.sleep(1);
+        }
+
+        token.unsubscribe();
+
+        producer[0].join(5000);
+        Assert.assertFalse(producer[0].isAlive());
+        Assert.assertTrue(upstream.get().isUnsubscribed());
+    }
+
+    @Test
+    public void cancelStopsProducer() throws Exception {
+        AxBlockingIterator<Integer> it = Ax.range(1, Integer.MAX_VALUE - 1).observeOnVirtual(4).blockingIterator();
+        Assert.assertEquals(1, it.next().intValue());
+        it.close();
+    }
+}
@@ -58,4 +58,113 @@ public class IEnumerableTest {
         IEnumerable.concatArray(IEnumerable.just(1), IEnumerable.just(2))
         .assertResult(1, 2);
     }
+
+    @Test
+    public void mapMapFused() {
+        IEnumerable<Integer> ie = IEnumerable.fromIterable(Arrays.asList(1, 2, 3))
+        .map(v -> v + 1)
+        .map(v -> v * 10);
+
+        Assert.assertTrue(((IEMap<?, ?>)ie).source instanceof IEFromList);
+        ie.assertResult(20, 30, 40);
+    }
+
+    @Test
+    public void filterFilterFused() {
+        IEnumerable<Integer> ie = IEnumerable.fromIterable(Ix.range(1, 10))
+        .filter(v -> v % 2 == 0)
+        .filter(v -> v % 3 == 0);
+
+        Assert.assertTrue(((IEFilter<?>)ie).source instanceof IEFromIterable);
+        ie.assertResult(6);
+    }
+
+    @Test
+    public void filterMapFused() {
+        IEnumerable<String> ie = IEnumerable.fromIterable(Arrays.asList(1, 2, 3, 4, 5))
+        .filter(v -> v % 2 != 0)
+        .map(v -> v * 2)
+        .map(v -> "" + v);
+
+        Assert.assertTrue(ie instanceof IEFilterMap);
+        ie.assertResult("2", "6", "10");
+
+        IEnumerable.fromIterable(Ix.range(1, 5))
+        .filter(v -> v % 2 != 0)
+        .map(v -> v * 2)
+        .assertResult(2, 6, 10);
+    }
+
+    @Test
+    public void mapFilterFused() {
+        IEnumerable<Integer> ie = IEnumerable.fromIterable(Arrays.asList(1, 2, 3, 4, 5))
+        .map(v -> v * 3)
+        .filter(v -> v % 2 != 0)
+        .filter(v -> v > 3);
+
+        Assert.assertTrue(ie instanceof IEMapFilter);
+        ie.assertResult(9, 15);
+
+        IEnumerable.fromIterable(Ix.range(1, 5))
+        .map(v -> v * 3)
+        .filter(v -> v % 2 != 0)
+        .assertResult(3, 9, 15);
+    }
+
+    @Test
+    public void takeSkipListIndex() {
+        IEnumerable<Integer> ie = IEnumerable.fromIterable(Arrays.asList(1, 2, 3, 4, 5, 6))
+        .skip(1)
+        .take(4)
+        .skip(1)
+        .take(10);
+
+        Assert.assertTrue(ie instanceof IEFromList);
+        ie.assertResult(3, 4, 5);
+
+        IEnumerable.fromIterable(Arrays.asList(1, 2, 3))
+        .skip(5)
+        .assertResult();
+    }
+
+    @Test
+    public void takeMapPushedDown() {
+        List<Integer> calls = new ArrayList<>();
+        IEnumerable<Integer> ie = IEnumerable.fromIterable(Arrays.asList(1, 2, 3, 4))
+        .map(v -> {
+            calls.add(v);
+            return v + 1;
+        })
+        .take(2);
+
+        Assert.assertTrue(((IEMap<?, ?>)ie).source instanceof IEFromList);
+        ie.assertResult(2, 3);
+        Assert.assertEquals(Arrays.asList(1, 2), calls);
+    }
+
+    @Test
+    public void takeTakeSkipSkip() {
+        IEnumerable.fromIterable(Ix.range(1, 10))
+        .take(5)
+        .take(3)
+        .assertResult(1, 2, 3);
+
+        IEnumerable.fromIterable(Ix.range(1, 10))
+        .skip(3)
+        .skip(4)
+        .assertResult(8, 9, 10);
+    }
+
+    @Test
+    public void charactersTakeSkip() {
+        IEnumerable.characters("hello")
+        .skip(1)
+        .take(3)
+        .assertResult((int)'e', (int)'l', (int)'l');
+
+        IEnumerable.characters("hi")
+        .take(3)
+        .skip(2)
+        .assertResult();
+    }
 }
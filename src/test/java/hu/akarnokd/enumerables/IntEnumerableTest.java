@@ -0,0 +1,101 @@
+package hu.akarnokd.enumerables;
+
+import java.util.*;
+
+import org.junit.*;
+
+public class IntEnumerableTest {
+
+    @Test
+    public void range() {
+        IntEnumerable.range(1, 5)
+        .boxed()
+        .assertResult(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void characters() {
+        IntEnumerable.characters("abc")
+        .boxed()
+        .assertResult((int)'a', (int)'b', (int)'c');
+    }
+
+    @Test
+    public void mapFilter() {
+        IntEnumerable.range(1, 10)
+        .map(v -> v * 2)
+        .filter(v -> v % 3 == 0)
+        .boxed()
+        .assertResult(6, 12, 18);
+    }
+
+    @Test
+    public void takeSkipConcat() {
+        IntEnumerable.concat(
+                IntEnumerable.characters("hello").take(3),
+                IntEnumerable.characters("hello").skip(3))
+        .mapToObj(v -> (char)v)
+        .assertResult('h', 'e', 'l', 'l', 'o');
+    }
+
+    @Test
+    public void sum() {
+        Assert.assertEquals(55, IntEnumerable.range(1, 10).sum());
+        Assert.assertEquals(0, IntEnumerable.of().sum());
+    }
+
+    @Test
+    public void max() {
+        Assert.assertEquals(9, IntEnumerable.of(3, 9, -1, 4).max());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void maxEmpty() {
+        IntEnumerable.of().max();
+    }
+
+    @Test
+    public void count() {
+        Assert.assertEquals(4L, IntEnumerable.range(0, 10).filter(v -> v % 3 == 0).count());
+    }
+
+    @Test
+    public void mapToInt() {
+        Assert.assertEquals(11, IEnumerable.fromIterable(Arrays.asList("a", "bb", "cccccccc"))
+                .mapToInt(String::length)
+                .sum());
+    }
+
+    @Test
+    public void mapToLong() {
+        Assert.assertEquals(3_000_000_000L, IEnumerable.fromIterable(Arrays.asList(1, 2))
+                .mapToLong(v -> v * 1_000_000_000L)
+                .sum());
+    }
+
+    @Test
+    public void longOps() {
+        LongEnumerable.of(1L, 2L, 3L, 4L)
+        .filter(v -> v % 2 == 0)
+        .map(v -> v * 10)
+        .boxed()
+        .assertResult(20L, 40L);
+
+        Assert.assertEquals(4L, LongEnumerable.of(1L, 4L, 2L).max());
+        Assert.assertEquals(3L, LongEnumerable.of(1L, 4L, 2L).count());
+    }
+
+    @Test
+    public void doubleOps() {
+        DoubleEnumerable.of(0.5, 1.5, 2.5)
+        .map(v -> v * 2)
+        .filter(v -> v > 1)
+        .boxed()
+        .assertResult(3.0, 5.0);
+
+        Assert.assertEquals(4.5, IEnumerable.fromIterable(Arrays.asList(1, 2))
+                .mapToDouble(v -> v * 1.5)
+                .sum(), 0.0);
+        Assert.assertEquals(2.5, DoubleEnumerable.of(0.5, 2.5, 1.5).max(), 0.0);
+    }
+}
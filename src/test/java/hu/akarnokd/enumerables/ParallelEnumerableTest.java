@@ -0,0 +1,88 @@
+package hu.akarnokd.enumerables;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.*;
+
+import ix.Ix;
+
+public class ParallelEnumerableTest {
+
+    static List<Integer> range(int n) {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 1; i <= n; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    @Test
+    public void rails() {
+        List<IEnumerable<Integer>> rails = IEnumerable.fromIterable(range(10)).parallel(3).rails();
+
+        Assert.assertEquals(3, rails.size());
+        rails.get(0).assertResult(1, 2, 3);
+        rails.get(1).assertResult(4, 5, 6);
+        rails.get(2).assertResult(7, 8, 9, 10);
+    }
+
+    @Test
+    public void railsMoreThanItems() {
+        List<IEnumerable<Integer>> rails = IEnumerable.fromArray(1, 2).parallel(4).rails();
+
+        Assert.assertEquals(4, rails.size());
+        IEnumerable.concatArray(rails.get(0), rails.get(1), rails.get(2), rails.get(3))
+        .assertResult(1, 2);
+    }
+
+    @Test
+    public void collectKeepsOrder() {
+        for (int p = 1; p <= 8; p++) {
+            List<Integer> list = IEnumerable.fromIterable(range(1000))
+                    .parallel(p)
+                    .filter(v -> v % 3 == 0)
+                    .map(v -> v * 2)
+                    .collect(ArrayList<Integer>::new, List::add, List::addAll)
+                    .first();
+
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 3; i <= 1000; i += 3) {
+                expected.add(i * 2);
+            }
+            Assert.assertEquals(expected, list);
+        }
+    }
+
+    @Test
+    public void sumIntMaxInt() {
+        ParallelEnumerable<Integer> pe = IEnumerable.fromIterable(range(1000)).parallel(4, ForkJoinPool.commonPool());
+
+        pe.sumInt().assertResult(500500);
+        pe.maxInt().assertResult(1000);
+        pe.filter(v -> v > 2000).sumInt().assertResult();
+        pe.filter(v -> v > 2000).maxInt().assertResult();
+    }
+
+    @Test
+    public void nonListSourceBuffered() {
+        IEnumerable.fromIterable(Ix.range(1, 100))
+        .parallel(4)
+        .sumInt()
+        .assertResult(5050);
+    }
+
+    @Test
+    public void sequential() {
+        IEnumerable.fromIterable(range(5))
+        .parallel(2)
+        .map(v -> v + 1)
+        .sequential()
+        .assertResult(2, 3, 4, 5, 6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroParallelism() {
+        IEnumerable.fromArray(1).parallel(0);
+    }
+}
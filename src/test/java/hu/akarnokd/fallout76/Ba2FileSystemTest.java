@@ -0,0 +1,140 @@
+package hu.akarnokd.fallout76;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.Deflater;
+
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+public class Ba2FileSystemTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    Path base;
+
+    Path patch;
+
+    @Before
+    public void before() throws IOException {
+        ExecutorService exec = Executors.newFixedThreadPool(2);
+        try {
+            base = folder.newFile("base.ba2").toPath();
+            try (Ba2Writer w = new Ba2Writer(base, 3, exec, Deflater.DEFAULT_COMPRESSION, 2)) {
+                w.add("Misc/CurveTables/JSON/a.json", text("base a", 1000));
+                w.add("Misc/CurveTables/JSON/b.json", text("base b", 1000));
+                w.add("strings/raw.txt", "stored".getBytes(StandardCharsets.ISO_8859_1));
+            }
+            patch = folder.newFile("patch.ba2").toPath();
+            try (Ba2Writer w = new Ba2Writer(patch, 2, exec, Deflater.DEFAULT_COMPRESSION, 2)) {
+                w.add("misc\\curvetables\\json\\B.JSON", text("patch b", 1000));
+                w.add("misc/curvetables/json/c.json", text("patch c", 1000));
+            }
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    static byte[] text(String prefix, int repeat) {
+        StringBuilder sb = new StringBuilder(prefix);
+        for (int i = 0; i < repeat; i++) {
+            sb.append(' ').append(prefix);
+        }
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    static String string(ByteBuffer b) {
+        return StandardCharsets.ISO_8859_1.decode(b).toString();
+    }
+
+    @Test
+    public void overrides() throws IOException {
+        Ba2FileSystem vfs = Ba2FileSystem.mount(0L, base, patch);
+
+        assertEquals(4, vfs.size());
+        assertTrue(string(vfs.read("misc/curvetables/json/a.json")).startsWith("base a"));
+        assertTrue(string(vfs.read("MISC\\CurveTables\\json\\b.json")).startsWith("patch b"));
+        assertTrue(string(vfs.read("misc/curvetables/json/c.json")).startsWith("patch c"));
+        assertEquals("stored", string(vfs.read("Strings/Raw.txt")));
+        assertNull(vfs.read("misc/curvetables/json/d.json"));
+        assertFalse(vfs.exists("misc/curvetables/json"));
+
+        assertSame(vfs.archives().get(1), vfs.entry("misc/curvetables/json/b.json").file);
+    }
+
+    @Test
+    public void list() throws IOException {
+        Ba2FileSystem vfs = Ba2FileSystem.mount(0L, Arrays.asList(base, patch));
+
+        List<String> names = new ArrayList<>();
+        for (Ba2MappedEntry e : vfs.list(n -> n.endsWith(".json"))) {
+            names.add(e.name);
+        }
+        assertEquals(Arrays.asList("Misc/CurveTables/JSON/a.json", "misc\\curvetables\\json\\B.JSON",
+                "misc/curvetables/json/c.json"), names);
+    }
+
+    @Test
+    public void cacheBudget() throws IOException {
+        int entrySize = text("base a", 1000).length;
+        Ba2FileSystem vfs = Ba2FileSystem.mount(entrySize * 2L, base, patch);
+
+        ByteBuffer a1 = vfs.read("misc/curvetables/json/a.json");
+        ByteBuffer a2 = vfs.read("misc/curvetables/json/a.json");
+        assertTrue(a1.isReadOnly());
+        assertEquals(a1, a2);
+        assertEquals(entrySize, vfs.cachedBytes());
+
+        vfs.read("misc/curvetables/json/b.json");
+        vfs.read("misc/curvetables/json/c.json");
+        assertTrue(vfs.cachedBytes() <= entrySize * 2L);
+
+        // stored entries are views and never cached
+        long before = vfs.cachedBytes();
+        vfs.read("strings/raw.txt");
+        assertEquals(before, vfs.cachedBytes());
+    }
+
+    @Test
+    public void concurrentReads() throws Exception {
+        Ba2FileSystem vfs = Ba2FileSystem.mount(4096L, base, patch);
+        ExecutorService exec = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String name = "misc/curvetables/json/" + (char)('a' + i % 3) + ".json";
+                results.add(exec.submit(() -> string(vfs.read(name)).substring(0, 7)));
+            }
+            for (int i = 0; i < 200; i++) {
+                assertEquals(i % 3 == 0 ? "base a " : i % 3 == 1 ? "patch b" : "patch c", results.get(i).get());
+            }
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    @Test
+    public void turkishLocale() throws IOException {
+        Locale saved = Locale.getDefault();
+        Locale.setDefault(new Locale("tr"));
+        try {
+            Ba2FileSystem vfs = Ba2FileSystem.mount(0L, base, patch);
+
+            assertTrue(string(vfs.read("MISC/CURVETABLES/JSON/A.JSON")).startsWith("base a"));
+            assertTrue(string(vfs.read("misc/curvetables/json/b.json")).startsWith("patch b"));
+            assertEquals("stored", string(vfs.read("STRINGS/RAW.TXT")));
+
+            Ba2MappedFile file = vfs.archives().get(0);
+            assertNotNull(file.entry("MISC\\CURVETABLES\\JSON\\A.JSON"));
+        } finally {
+            Locale.setDefault(saved);
+        }
+    }
+}
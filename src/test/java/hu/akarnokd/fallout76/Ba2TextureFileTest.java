@@ -0,0 +1,215 @@
+package hu.akarnokd.fallout76;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.zip.Deflater;
+
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+public class Ba2TextureFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    static byte[] mip(int level, int size) {
+        byte[] b = new byte[size];
+        for (int i = 0; i < size; i++) {
+            b[i] = (byte)(level * 31 + i % 5);
+        }
+        return b;
+    }
+
+    static byte[] deflate(byte[] b) {
+        Deflater d = new Deflater();
+        d.setInput(b);
+        d.finish();
+        byte[] out = new byte[b.length + 64];
+        int n = d.deflate(out);
+        d.end();
+        byte[] r = new byte[n];
+        System.arraycopy(out, 0, r, 0, n);
+        return r;
+    }
+
+    /**
+     * Builds an archive with one texture of 3 chunks: mip 0 compressed, mips 1-2 stored,
+     * mip 3 compressed.
+     */
+    Path createArchive(byte[][] mips) throws IOException {
+        byte[][] stored = { deflate(mips[0]), concat(mips[1], mips[2]), deflate(mips[3]) };
+        int[] sizes = { mips[0].length, mips[1].length + mips[2].length, mips[3].length };
+        int[][] range = { { 0, 0 }, { 1, 2 }, { 3, 3 } };
+        boolean[] packed = { true, false, true };
+
+        String name = "Textures/Test/Wall_d.dds";
+        long dataStart = 24 + 24 + 3 * 24;
+        long dataSize = stored[0].length + stored[1].length + stored[2].length;
+
+        ByteBuffer bb = ByteBuffer.allocate((int)(dataStart + dataSize + 2 + name.length())).order(ByteOrder.LITTLE_ENDIAN);
+        bb.put("BTDX".getBytes(StandardCharsets.ISO_8859_1)).putInt(1)
+        .put("DX10".getBytes(StandardCharsets.ISO_8859_1)).putInt(1).putLong(dataStart + dataSize);
+
+        bb.putInt(0).put("dds\0".getBytes(StandardCharsets.ISO_8859_1)).putInt(0)
+        .put((byte)0).put((byte)3).putShort((short)24)
+        .putShort((short)64).putShort((short)128).put((byte)4).put((byte)71).put((byte)0).put((byte)8);
+
+        long offset = dataStart;
+        for (int i = 0; i < 3; i++) {
+            bb.putLong(offset).putInt(packed[i] ? stored[i].length : 0).putInt(sizes[i])
+            .putShort((short)range[i][0]).putShort((short)range[i][1]).putInt(0xBAADF00D);
+            offset += stored[i].length;
+        }
+        for (byte[] s : stored) {
+            bb.put(s);
+        }
+        bb.putShort((short)name.length()).put(name.getBytes(StandardCharsets.ISO_8859_1));
+
+        Path file = folder.newFile("textures.ba2").toPath();
+        Files.write(file, bb.array());
+        return file;
+    }
+
+    static byte[] concat(byte[] a, byte[] b) {
+        byte[] r = new byte[a.length + b.length];
+        System.arraycopy(a, 0, r, 0, a.length);
+        System.arraycopy(b, 0, r, a.length, b.length);
+        return r;
+    }
+
+    static byte[] bytes(ByteBuffer b) {
+        byte[] r = new byte[b.remaining()];
+        b.get(r);
+        return r;
+    }
+
+    @Test
+    public void chunks() throws IOException {
+        byte[][] mips = { mip(0, 8192), mip(1, 2048), mip(2, 512), mip(3, 128) };
+        Ba2TextureFile f = Ba2TextureFile.open(createArchive(mips));
+
+        assertEquals(1, f.entries.size());
+        Ba2TextureEntry e = f.entry("textures\\test\\wall_d.dds");
+        assertNotNull(e);
+        assertEquals(128, e.width);
+        assertEquals(64, e.height);
+        assertEquals(4, e.numMips);
+        assertEquals(71, e.format);
+        assertEquals(8, e.tileMode);
+        assertFalse(e.cubemap);
+        assertEquals(3, e.chunkCount());
+
+        assertTrue(e.chunk(0).isCompressed());
+        assertFalse(e.chunk(1).isCompressed());
+        assertArrayEquals(mips[0], bytes(e.chunkForMip(0).data()));
+        assertArrayEquals(concat(mips[1], mips[2]), bytes(e.chunkForMip(2).data()));
+        assertArrayEquals(mips[3], bytes(e.chunkForMip(3).data()));
+        assertNull(e.chunkForMip(4));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(8192 + 2560);
+        e.chunk(0).data(direct);
+        e.chunk(1).data(direct);
+        direct.flip();
+        assertArrayEquals(concat(mips[0], concat(mips[1], mips[2])), bytes(direct));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        e.transferTo(Channels.newChannel(out));
+        assertEquals(e.size(), out.size());
+        assertArrayEquals(concat(concat(mips[0], concat(mips[1], mips[2])), mips[3]), out.toByteArray());
+    }
+
+    @Test
+    public void generalArchiveRejectsTextures() throws IOException {
+        Path file = createArchive(new byte[][] { mip(0, 16), mip(1, 8), mip(2, 4), mip(3, 2) });
+        try {
+            Ba2MappedFile.open(file);
+            fail("Should have thrown");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("Ba2TextureFile"));
+        }
+    }
+
+    /**
+     * Writes an archive of single-chunk, stored textures whose data starts at {@code dataStart},
+     * sparse if that is far beyond the records.
+     */
+    Path createStoredArchive(String fileName, int count, long dataStart) throws IOException {
+        Path file = folder.getRoot().toPath().resolve(fileName);
+        long nameTableOffset = dataStart + count * 4L;
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer bb = ByteBuffer.allocate(24 + count * 48).order(ByteOrder.LITTLE_ENDIAN);
+            bb.put("BTDX".getBytes(StandardCharsets.ISO_8859_1)).putInt(1)
+            .put("DX10".getBytes(StandardCharsets.ISO_8859_1)).putInt(count).putLong(nameTableOffset);
+            for (int i = 0; i < count; i++) {
+                bb.putInt(0).put("dds\0".getBytes(StandardCharsets.ISO_8859_1)).putInt(0)
+                .put((byte)0).put((byte)1).putShort((short)24)
+                .putShort((short)1).putShort((short)1).put((byte)1).put((byte)71).put((byte)0).put((byte)8);
+                bb.putLong(dataStart + i * 4L).putInt(0).putInt(4)
+                .putShort((short)0).putShort((short)0).putInt(0xBAADF00D);
+            }
+            bb.flip();
+            fc.write(bb, 0);
+
+            ByteBuffer data = ByteBuffer.allocate(count * 4).order(ByteOrder.LITTLE_ENDIAN);
+            ByteArrayOutputStream names = new ByteArrayOutputStream();
+            for (int i = 0; i < count; i++) {
+                data.putInt(i);
+                String name = "textures/t" + i + ".dds";
+                names.write(name.length());
+                names.write(0);
+                names.write(name.getBytes(StandardCharsets.ISO_8859_1));
+            }
+            data.flip();
+            fc.write(data, dataStart);
+            fc.write(ByteBuffer.wrap(names.toByteArray()), nameTableOffset);
+        }
+        return file;
+    }
+
+    static void assertStoredArchive(Ba2TextureFile f, int count) throws IOException {
+        assertEquals(count, f.entries.size());
+        for (int i = 0; i < count; i++) {
+            Ba2TextureEntry e = f.entry("textures/t" + i + ".dds");
+            assertNotNull(e);
+            assertEquals(1, e.chunkCount());
+            assertEquals(i, e.chunk(0).data().order(ByteOrder.LITTLE_ENDIAN).getInt(0));
+        }
+    }
+
+    @Test
+    public void manyRecords() throws IOException {
+        // the records span several read windows
+        int count = 5000;
+        Ba2TextureFile f = Ba2TextureFile.open(createStoredArchive("many.ba2", count, 24 + count * 48));
+
+        assertStoredArchive(f, count);
+    }
+
+    @Test
+    public void dataBeyond2GB() throws IOException {
+        Ba2TextureFile f = Ba2TextureFile.open(createStoredArchive("large.ba2", 3, 3L << 30));
+
+        assertStoredArchive(f, 3);
+        assertEquals(3L << 30, f.entries.get(0).chunk(0).offset);
+    }
+
+    @Test
+    public void truncatedRecords() throws IOException {
+        Path file = createStoredArchive("truncated.ba2", 10, 24 + 10 * 48);
+        ByteBuffer b = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        // the chunk table of the last record now runs past the data into the name table
+        b.put(24 + 9 * 48 + 13, (byte)255);
+        Files.write(file, b.array());
+        try {
+            Ba2TextureFile.open(file);
+            fail("Should have thrown");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("name table"));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package hu.akarnokd.fallout76;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.Deflater;
+
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+public class Ba2WriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    ExecutorService exec;
+
+    @Before
+    public void before() {
+        exec = Executors.newFixedThreadPool(3);
+    }
+
+    @After
+    public void after() {
+        exec.shutdownNow();
+    }
+
+    static byte[] content(int index, Random rnd) {
+        byte[] b = new byte[rnd.nextInt(20_000)];
+        if ((index & 1) == 0) {
+            // compressible
+            for (int i = 0; i < b.length; i++) {
+                b[i] = (byte)('a' + (i % 7));
+            }
+        } else {
+            rnd.nextBytes(b);
+        }
+        return b;
+    }
+
+    @Test
+    public void roundTripStored() throws IOException {
+        Path file = folder.newFile("stored.ba2").toPath();
+        Random rnd = new Random(1);
+        List<byte[]> contents = new ArrayList<>();
+
+        try (Ba2Writer w = new Ba2Writer(file, 50, exec, Deflater.NO_COMPRESSION, 4)) {
+            for (int i = 0; i < 50; i++) {
+                byte[] b = content(i, rnd);
+                contents.add(b);
+                w.add("meshes/dir" + (i % 3) + "/file" + i + ".nif", b);
+            }
+        }
+
+        Ba2File ba2 = new Ba2File();
+        ba2.open(file.toFile(), name -> true);
+
+        assertEquals(50, ba2.entries.size());
+        for (int i = 0; i < 50; i++) {
+            Ba2FileEntry e = ba2.entries.get(i);
+            assertEquals("meshes/dir" + (i % 3) + "/file" + i + ".nif", e.name);
+            assertArrayEquals(contents.get(i), e.data);
+        }
+    }
+
+    @Test
+    public void roundTripCompressed() throws IOException {
+        Path file = folder.newFile("compressed.ba2").toPath();
+        Random rnd = new Random(2);
+        List<byte[]> contents = new ArrayList<>();
+
+        try (Ba2Writer w = new Ba2Writer(file, 200, exec, Deflater.DEFAULT_COMPRESSION, 8)) {
+            for (int i = 0; i < 200; i++) {
+                byte[] b = content(i, rnd);
+                contents.add(b);
+                w.add("misc/file" + i + ".json", b);
+            }
+        }
+
+        Ba2File ba2 = new Ba2File();
+        ba2.open(file.toFile(), name -> false);
+        Ba2MappedFile mapped = Ba2MappedFile.open(file);
+
+        assertEquals(200, mapped.entries.size());
+        for (int i = 0; i < 200; i++) {
+            Ba2MappedEntry e = mapped.entries.get(i);
+            assertEquals("misc/file" + i + ".json", e.name);
+            assertEquals(ba2.entries.get(i).offset, e.offset);
+            assertEquals(contents.get(i).length, e.size);
+            if ((i & 1) == 0 && e.size > 100) {
+                assertTrue(e.name, e.packedSize > 0 && e.packedSize < e.size);
+            }
+            if ((i & 1) != 0) {
+                assertEquals(e.name, 0, e.packedSize);
+            }
+            assertArrayEquals(e.name, contents.get(i), e.bytes());
+        }
+    }
+
+    @Test
+    public void addFromFile() throws IOException {
+        Path source = folder.newFile("source.bin").toPath();
+        byte[] b = new byte[100_000];
+        Arrays.fill(b, (byte)1);
+        Files.write(source, b);
+        Path file = folder.newFile("file.ba2").toPath();
+
+        try (Ba2Writer w = new Ba2Writer(file, 1, exec, Deflater.BEST_SPEED, 1)) {
+            w.add("textures/source.bin", source);
+        }
+
+        Ba2MappedEntry e = Ba2MappedFile.open(file).entry("TEXTURES\\SOURCE.BIN");
+        assertNotNull(e);
+        assertArrayEquals(b, e.bytes());
+    }
+
+    @Test
+    public void entryTable() throws IOException {
+        Path file = folder.newFile("table.ba2").toPath();
+
+        try (Ba2Writer w = new Ba2Writer(file, 1, exec, Deflater.NO_COMPRESSION, 1)) {
+            w.add("Meshes/SetDressing/Corpse.NIF", new byte[] { 1, 2, 3 });
+        }
+
+        ByteBuffer bb = ByteBuffer.wrap(Files.readAllBytes(file)).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+        assertEquals(0x58445442, bb.getInt(0));
+        assertEquals(1, bb.getInt(12));
+        assertEquals(24 + 36 + 3, bb.getLong(16));
+        assertEquals(Ba2Writer.crc("corpse", 0, 6), bb.getInt(24));
+        assertEquals("nif", EsmExport.intToChar(bb.getInt(28)).trim());
+        assertEquals(Ba2Writer.crc("meshes\\setdressing", 0, 18), bb.getInt(32));
+        assertEquals(24 + 36, bb.getLong(40));
+    }
+
+    @Test
+    public void fewerEntries() throws IOException {
+        Path file = folder.newFile("fewer.ba2").toPath();
+
+        Ba2Writer w = new Ba2Writer(file, 2, exec, Deflater.NO_COMPRESSION, 1);
+        w.add("a.txt", new byte[1]);
+        try {
+            w.close();
+            fail("Should have thrown");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("only 1"));
+        }
+    }
+
+    @Test
+    public void sourceFailure() throws IOException {
+        Path file = folder.newFile("failure.ba2").toPath();
+
+        Ba2Writer w = new Ba2Writer(file, 1, exec, Deflater.NO_COMPRESSION, 1);
+        try {
+            w.add("a.txt", folder.getRoot().toPath().resolve("missing.txt"));
+            w.close();
+            fail("Should have thrown");
+        } catch (NoSuchFileException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package hu.akarnokd.fallout76;
+
+import static org.junit.Assert.*;
+
+import java.io.UncheckedIOException;
+import java.nio.*;
+
+import org.junit.Test;
+
+public class EsmFieldCursorTest {
+
+    static ByteBuffer fields() {
+        ByteBuffer b = ByteBuffer.allocate(6 + 2 + 6 + 28).order(ByteOrder.LITTLE_ENDIAN);
+        // a FULL field that is too short for an int, followed by a full CTDA
+        b.putInt(EsmFieldCursor.FULL).putShort((short)2).putShort((short)0x1234);
+        b.putInt(EsmFieldCursor.CTDA).putShort((short)28);
+        for (int i = 0; i < 7; i++) {
+            b.putInt(i + 1);
+        }
+        return b;
+    }
+
+    @Test
+    public void readsWithinField() {
+        EsmFieldCursor c = new EsmFieldCursor().reset(fields(), 0, 42);
+
+        assertTrue(c.next());
+        assertEquals(0x1234, c.getShort(0));
+        assertEquals(0x34, c.getByte(0));
+
+        assertTrue(c.next());
+        assertEquals(EsmFieldCursor.CTDA, c.tag());
+        assertEquals(1, c.getInt());
+        assertEquals(7, c.getInt(24));
+
+        assertFalse(c.next());
+    }
+
+    @Test
+    public void readPastFieldEnd() {
+        EsmFieldCursor c = new EsmFieldCursor().reset(fields(), 0, 42);
+
+        assertTrue(c.next());
+        for (Runnable r : new Runnable[] {
+                c::getInt, c::getFloat, () -> c.getShort(1), () -> c.getByte(2), () -> c.getInt(-1) }) {
+            try {
+                r.run();
+                fail("Should have thrown");
+            } catch (UncheckedIOException expected) {
+                assertTrue(expected.getMessage(), expected.getMessage().contains("FULL"));
+            }
+        }
+
+        assertTrue(c.next());
+        try {
+            c.getInt(25);
+            fail("Should have thrown");
+        } catch (UncheckedIOException expected) {
+            // expected
+        }
+    }
+}
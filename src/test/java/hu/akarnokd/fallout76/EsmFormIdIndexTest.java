@@ -0,0 +1,195 @@
+package hu.akarnokd.fallout76;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.zip.Deflater;
+
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+public class EsmFormIdIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** Builds a small ESM in memory and remembers where each record header went. */
+    static final class EsmBuilder {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        final Map<Integer, Integer> offsets = new HashMap<>();
+
+        /** Offsets of the records of the open group, relative to the group's content. */
+        final Map<Integer, Integer> pending = new HashMap<>();
+
+        ByteArrayOutputStream group;
+
+        int groupLabel;
+
+        EsmBuilder() {
+            record("TES4", 0, 0, field("HEDR", new byte[12]));
+        }
+
+        EsmBuilder group(String label) {
+            group = new ByteArrayOutputStream();
+            groupLabel = type(label);
+            return this;
+        }
+
+        EsmBuilder end() {
+            byte[] content = group.toByteArray();
+            ByteBuffer h = header(24);
+            h.putInt(type("GRUP")).putInt(24 + content.length).putInt(groupLabel).putInt(0);
+            out.write(h.array(), 0, 24);
+            for (Map.Entry<Integer, Integer> e : pending.entrySet()) {
+                offsets.put(e.getKey(), out.size() + e.getValue());
+            }
+            pending.clear();
+            out.write(content, 0, content.length);
+            group = null;
+            return this;
+        }
+
+        EsmBuilder record(String type, int formId, int flags, byte[]... fields) {
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            for (byte[] f : fields) {
+                data.write(f, 0, f.length);
+            }
+            byte[] d = data.toByteArray();
+            if ((flags & EsmExport.FLAGS_COMPRESSED) != 0) {
+                Deflater def = new Deflater();
+                def.setInput(d);
+                def.finish();
+                byte[] buf = new byte[d.length + 64];
+                int n = def.deflate(buf);
+                def.end();
+                ByteBuffer c = header(4 + n);
+                c.putInt(d.length).put(buf, 0, n);
+                d = c.array();
+            }
+            ByteBuffer h = header(24);
+            h.putInt(type(type)).putInt(d.length).putInt(flags).putInt(formId);
+            ByteArrayOutputStream target = group != null ? group : out;
+            if (group != null) {
+                pending.put(formId, target.size());
+            } else {
+                offsets.put(formId, target.size());
+            }
+            target.write(h.array(), 0, 24);
+            target.write(d, 0, d.length);
+            return this;
+        }
+
+        Path write(Path file, long time) throws IOException {
+            Files.write(file, out.toByteArray());
+            Files.setLastModifiedTime(file, FileTime.fromMillis(time));
+            return file;
+        }
+    }
+
+    static ByteBuffer header(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    static int type(String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.ISO_8859_1)).order(ByteOrder.LITTLE_ENDIAN).getInt();
+    }
+
+    static byte[] field(String type, byte[] data) {
+        ByteBuffer b = header(6 + data.length);
+        b.putInt(type(type)).putShort((short)data.length).put(data);
+        return b.array();
+    }
+
+    static byte[] edid(String s) {
+        byte[] b = Arrays.copyOf(s.getBytes(StandardCharsets.ISO_8859_1), s.length() + 1);
+        return field("EDID", b);
+    }
+
+    static EsmBuilder esm(String armorEdid) {
+        return new EsmBuilder()
+                .group("WEAP")
+                .record("WEAP", 0x100, 0, edid("Gun"), field("DATA", new byte[8]))
+                // the EDID starts well past the first PARTIAL_INFLATE bytes
+                .record("WEAP", 0x101, EsmExport.FLAGS_COMPRESSED, field("DATA", new byte[900]), edid("LateEditorId"))
+                .end()
+                .group("ARMO")
+                .record("ARMO", 0x200, 0, edid(armorEdid))
+                .record("ARMO", 0x201, 0, field("DATA", new byte[4]))
+                .end()
+                .group("MISC")
+                .record("MISC", 0x300, EsmExport.FLAGS_COMPRESSED, edid("Misc"), field("DATA", new byte[16]))
+                .record("MISC", 0x301, 0, edid("Junk"))
+                .end();
+    }
+
+    static void assertIndex(EsmFormIdIndex index, EsmBuilder esm, String armorEdid) {
+        // the TES4 file header is not part of any group and is not indexed
+        assertEquals(6, index.size());
+        assertFalse(index.contains(0));
+        assertEquals("Gun", index.editorIdOf(0x100));
+        assertEquals("LateEditorId", index.editorIdOf(0x101));
+        assertEquals(armorEdid, index.editorIdOf(0x200));
+        assertNull(index.editorIdOf(0x201));
+        assertEquals("Misc", index.editorIdOf(0x300));
+        assertEquals("Junk", index.editorIdOf(0x301));
+        assertNull(index.editorIdOf(0x999));
+
+        for (int id : new int[] { 0x100, 0x101, 0x200, 0x201, 0x300, 0x301 }) {
+            int i = index.indexOf(id);
+            assertTrue(Integer.toHexString(id), i >= 0);
+            assertEquals(Integer.toHexString(id), esm.offsets.get(id).intValue(), index.recordOffset(i));
+        }
+        assertEquals(type("ARMO"), index.type(index.indexOf(0x201)));
+    }
+
+    @Test
+    public void incrementalRebuild() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("test.esm");
+        Path indexFile = folder.getRoot().toPath().resolve("test.fidx");
+
+        EsmBuilder v1 = esm("Armor");
+        v1.write(file, 1_000_000L);
+
+        EsmFormIdIndex index = EsmFormIdIndex.open(file, indexFile);
+        assertEquals(3, index.rebuiltGroups());
+        assertIndex(index, v1, "Armor");
+
+        index = EsmFormIdIndex.open(file, indexFile);
+        assertEquals(0, index.rebuiltGroups());
+        assertIndex(index, v1, "Armor");
+
+        // a longer EDID in the middle group shifts the offsets of the last one
+        EsmBuilder v2 = esm("ArmorRenamed");
+        v2.write(file, 2_000_000L);
+        assertNotEquals(v1.offsets.get(0x300), v2.offsets.get(0x300));
+
+        index = EsmFormIdIndex.open(file, indexFile);
+        assertEquals(1, index.rebuiltGroups());
+        assertIndex(index, v2, "ArmorRenamed");
+    }
+
+    @Test
+    public void edidAfterPartialInflateBoundary() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("boundary.esm");
+        Path indexFile = folder.getRoot().toPath().resolve("boundary.fidx");
+
+        int before = EsmFormIdIndex.PARTIAL_INFLATE - 6;
+        new EsmBuilder()
+            .group("WEAP")
+            // the partial inflate ends exactly after the DATA field
+            .record("WEAP", 0x100, EsmExport.FLAGS_COMPRESSED, field("DATA", new byte[before]), edid("OnTheBoundary"))
+            .record("WEAP", 0x101, EsmExport.FLAGS_COMPRESSED, field("DATA", new byte[before]), field("DNAM", new byte[16]))
+            .end()
+            .write(file, 1_000_000L);
+
+        EsmFormIdIndex index = EsmFormIdIndex.open(file, indexFile);
+        assertEquals("OnTheBoundary", index.editorIdOf(0x100));
+        assertNull(index.editorIdOf(0x101));
+    }
+}
@@ -0,0 +1,91 @@
+package hu.akarnokd.fallout76;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+
+import org.junit.Test;
+
+public class EsmInflaterPoolTest {
+
+    static ByteBuffer deflate(byte[] data) {
+        Deflater def = new Deflater();
+        def.setInput(data);
+        def.finish();
+        byte[] out = new byte[data.length + 64];
+        int n = def.deflate(out);
+        def.end();
+        return ByteBuffer.wrap(out, 0, n);
+    }
+
+    static byte[] data(int n) {
+        byte[] b = new byte[n];
+        for (int i = 0; i < n; i++) {
+            b[i] = (byte)(i % 13);
+        }
+        return b;
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        try (EsmInflaterPool pool = new EsmInflaterPool()) {
+            ByteBuffer out = pool.inflate(deflate(data(100_000)), 100_000);
+            byte[] b = new byte[out.remaining()];
+            out.get(b);
+            assertArrayEquals(data(100_000), b);
+            assertEquals(1, pool.records());
+        }
+    }
+
+    @Test
+    public void declaredSizeTooSmall() {
+        try (EsmInflaterPool pool = new EsmInflaterPool()) {
+            pool.inflate(deflate(data(1000)), 999);
+            fail("Should have thrown");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("more than 999"));
+        }
+    }
+
+    @Test
+    public void declaredSizeTooLarge() {
+        try (EsmInflaterPool pool = new EsmInflaterPool()) {
+            pool.inflate(deflate(data(1000)), 1001);
+            fail("Should have thrown");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("1000 bytes instead of 1001"));
+        }
+    }
+
+    @Test
+    public void truncatedStream() {
+        ByteBuffer in = deflate(data(1000));
+        // the trailing checksum is missing
+        in.limit(in.limit() - 4);
+        try (EsmInflaterPool pool = new EsmInflaterPool()) {
+            pool.inflate(in, 1000);
+            fail("Should have thrown");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("truncated"));
+        }
+    }
+
+    @Test
+    public void closedFromAnotherThread() throws Exception {
+        EsmInflaterPool pool = new EsmInflaterPool();
+        pool.inflate(deflate(data(10)), 10);
+
+        Thread t = new Thread(pool::close);
+        t.start();
+        t.join();
+
+        try {
+            pool.inflate(deflate(data(10)), ByteBuffer.allocate(10));
+            fail("Should have thrown");
+        } catch (IllegalStateException expected) {
+            assertEquals("EsmInflaterPool is closed", expected.getMessage());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package hu.akarnokd.fallout76;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+public class EsmJsWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    static final String NL = System.lineSeparator();
+
+    String write(WriterAction action) throws IOException {
+        Path file = folder.newFile().toPath();
+        try (EsmJsWriter w = new EsmJsWriter(file)) {
+            action.accept(w);
+        }
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+
+    interface WriterAction {
+        void accept(EsmJsWriter w) throws IOException;
+    }
+
+    @Test
+    public void commaBetweenSiblings() throws IOException {
+        String s = write(w -> {
+            w.text("a = {").newLine();
+            w.text("  ").quotedHex(1).text(": ").integer(1).comma().newLine();
+            w.text("  ").quotedHex(0xABCDEF).text(": ").integer(-2).comma().newLine();
+            w.text("}").newLine();
+        });
+
+        assertEquals("a = {" + NL
+                + "  \"00000001\": 1," + NL
+                + "  \"00ABCDEF\": -2" + NL
+                + "}" + NL, s);
+    }
+
+    @Test
+    public void noCommaBeforeClosingBrackets() throws IOException {
+        String s = write(w -> {
+            w.text("[").newLine();
+            w.text("  {").newLine();
+            w.text("    x: 1").comma().newLine();
+            w.text("  }").comma().newLine();
+            w.text("  [").newLine();
+            w.text("    2").comma().newLine();
+            w.text("\t]").comma().newLine();
+            w.text("]").newLine();
+        });
+
+        assertEquals("[" + NL
+                + "  {" + NL
+                + "    x: 1" + NL
+                + "  }," + NL
+                + "  [" + NL
+                + "    2" + NL
+                + "\t]" + NL
+                + "]" + NL, s);
+    }
+
+    @Test
+    public void closeWithPendingComma() throws IOException {
+        assertEquals("a," + NL + "b" + NL, write(w -> {
+            w.text("a").comma().newLine();
+            w.text("b").comma().newLine();
+        }));
+
+        // an unterminated line marked with a comma
+        assertEquals("c" + NL, write(w -> w.text("c").comma()));
+    }
+
+    @Test
+    public void nonAsciiAndLargeOutput() throws IOException {
+        String s = write(w -> {
+            for (int i = 0; i < 20_000; i++) {
+                w.text("\u00E9\uD83D\uDE00").integer(i).comma().newLine();
+            }
+        });
+        String[] lines = s.split(NL);
+        assertEquals(20_000, lines.length);
+        assertEquals("\u00E9\uD83D\uDE00" + "0,", lines[0]);
+        assertEquals("\u00E9\uD83D\uDE00" + "19999", lines[19_999]);
+    }
+}
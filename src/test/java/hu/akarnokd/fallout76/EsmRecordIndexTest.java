@@ -0,0 +1,195 @@
+package hu.akarnokd.fallout76;
+
+import static hu.akarnokd.fallout76.EsmFormIdIndexTest.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.Deflater;
+
+import org.junit.Test;
+
+public class EsmRecordIndexTest {
+
+    static byte[] record(String type, int formId, int flags, byte[]... fields) {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for (byte[] f : fields) {
+            data.write(f, 0, f.length);
+        }
+        byte[] d = data.toByteArray();
+        if ((flags & EsmExport.FLAGS_COMPRESSED) != 0) {
+            Deflater def = new Deflater();
+            def.setInput(d);
+            def.finish();
+            byte[] buf = new byte[d.length + 64];
+            int n = def.deflate(buf);
+            def.end();
+            d = header(4 + n).putInt(d.length).put(buf, 0, n).array();
+        }
+        ByteBuffer b = header(24 + d.length);
+        b.putInt(type(type)).putInt(d.length).putInt(flags).putInt(formId).putLong(0L).put(d);
+        return b.array();
+    }
+
+    static byte[] group(int label, int groupType, byte[]... children) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for (byte[] c : children) {
+            content.write(c, 0, c.length);
+        }
+        ByteBuffer b = header(24 + content.size());
+        b.putInt(type("GRUP")).putInt(24 + content.size()).putInt(label).putInt(groupType).putLong(0L)
+                .put(content.toByteArray());
+        return b.array();
+    }
+
+    static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] p : parts) {
+            out.write(p, 0, p.length);
+        }
+        return out.toByteArray();
+    }
+
+    /** Each record carries its form ID as EDID and a DATA field whose size depends on it. */
+    static byte[] record(String type, int formId, boolean compressed) {
+        return record(type, formId, compressed ? EsmExport.FLAGS_COMPRESSED : 0,
+                edid(Integer.toHexString(formId)), field("DATA", new byte[formId & 0xFF]));
+    }
+
+    /**
+     * TES4, a WEAP top group, a CELL top group with two levels of nested groups and a
+     * MISC top group large enough to span several decoder batches.
+     */
+    static ByteBuffer esm() {
+        byte[][] misc = new byte[40][];
+        for (int i = 0; i < misc.length; i++) {
+            misc[i] = record("MISC", 0x300 + i, i % 3 != 0);
+        }
+        return ByteBuffer.wrap(concat(
+                record("TES4", 0, 0, field("HEDR", new byte[12])),
+                group(type("WEAP"), 0,
+                        record("WEAP", 0x100, false),
+                        record("WEAP", 0x101, true)),
+                group(type("CELL"), 0,
+                        record("CELL", 0x200, false),
+                        group(0x200, 6,
+                                record("REFR", 0x201, true),
+                                group(0x200, 9,
+                                        record("REFR", 0x202, false),
+                                        record("REFR", 0x203, true))),
+                        record("CELL", 0x210, true)),
+                group(type("MISC"), 0, misc))).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    static int[] expectedFormIds() {
+        int[] head = { 0x100, 0x101, 0x200, 0x201, 0x202, 0x203, 0x210 };
+        int[] ids = Arrays.copyOf(head, head.length + 40);
+        for (int i = 0; i < 40; i++) {
+            ids[head.length + i] = 0x300 + i;
+        }
+        return ids;
+    }
+
+    @Test
+    public void scanNestedGroups() {
+        ByteBuffer file = esm();
+        EsmRecordIndex index = EsmRecordIndex.scan(file);
+
+        int[] ids = expectedFormIds();
+        assertEquals(ids.length, index.size());
+        assertEquals(3, index.groupCount());
+        assertEquals(type("WEAP"), index.groupLabel(0));
+        assertEquals(type("CELL"), index.groupLabel(1));
+        assertEquals(type("MISC"), index.groupLabel(2));
+
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(ids[i], index.formId(i));
+            assertEquals(index.type(i), file.getInt(index.offset(i)));
+            assertEquals(index.dataSize(i), file.getInt(index.offset(i) + 4));
+        }
+
+        assertEquals(type("CELL"), index.type(2));
+        assertEquals(type("REFR"), index.type(3));
+
+        // the nested records belong to the CELL top group but not directly
+        int[] groups = { 0, 0, 1, 1, 1, 1, 1 };
+        boolean[] direct = { true, true, true, false, false, false, true };
+        boolean[] compressed = { false, true, false, true, false, true, true };
+        for (int i = 0; i < groups.length; i++) {
+            assertEquals(groups[i], index.topGroup(i));
+            assertEquals(direct[i], index.isDirect(i));
+            assertEquals(compressed[i], index.isCompressed(i));
+        }
+        for (int i = groups.length; i < ids.length; i++) {
+            assertEquals(2, index.topGroup(i));
+            assertTrue(index.isDirect(i));
+        }
+
+        int end = index.groupOffset(2) + index.groupSize(2);
+        assertEquals(file.limit(), end);
+        assertEquals(index.groupOffset(1) + index.groupSize(1), index.groupOffset(2));
+    }
+
+    @Test
+    public void decodeInOrderAcrossBatches() throws Exception {
+        ByteBuffer file = esm();
+        EsmRecordIndex index = EsmRecordIndex.scan(file);
+        int[] ids = expectedFormIds();
+
+        ExecutorService exec = Executors.newFixedThreadPool(4);
+        try (EsmInflaterPool inflaters = new EsmInflaterPool()) {
+            for (int batchSize : new int[] { 1, 3, 7, 100 }) {
+                List<Integer> order = new ArrayList<>();
+                EsmRecordDecoder.decode(file, index, exec, batchSize, 2, inflaters, (record, data) -> {
+                    order.add(record);
+
+                    int id = ids[record];
+                    String edid = Integer.toHexString(id);
+                    assertEquals(type("EDID"), data.getInt(0));
+                    assertEquals(edid.length() + 1, data.getShort(4));
+                    byte[] name = new byte[edid.length()];
+                    data.get(6, name);
+                    assertEquals(edid, new String(name, StandardCharsets.ISO_8859_1));
+
+                    int dataField = 6 + edid.length() + 1;
+                    assertEquals(type("DATA"), data.getInt(dataField));
+                    assertEquals(id & 0xFF, data.getShort(dataField + 4));
+                    assertEquals(dataField + 6 + (id & 0xFF), data.limit());
+                });
+
+                assertEquals("batchSize " + batchSize, ids.length, order.size());
+                for (int i = 0; i < ids.length; i++) {
+                    assertEquals(i, order.get(i).intValue());
+                }
+            }
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    @Test
+    public void corruptRecordReportsFormId() throws Exception {
+        ByteBuffer file = esm();
+        EsmRecordIndex index = EsmRecordIndex.scan(file);
+        // garble the deflate stream of the compressed WEAP record
+        file.put(index.offset(1) + EsmRecordIndex.HEADER_SIZE + 4, (byte)0xFF);
+        file.put(index.offset(1) + EsmRecordIndex.HEADER_SIZE + 5, (byte)0xFF);
+
+        ExecutorService exec = Executors.newFixedThreadPool(2);
+        try (EsmInflaterPool inflaters = new EsmInflaterPool()) {
+            List<Integer> consumed = new ArrayList<>();
+            try {
+                EsmRecordDecoder.decode(file, index, exec, 1, 2, inflaters, (record, data) -> consumed.add(record));
+                fail("Should have thrown");
+            } catch (IOException expected) {
+                assertTrue(expected.getMessage(), expected.getMessage().startsWith("Record 00000101: "));
+            }
+            assertEquals(Arrays.asList(0), consumed);
+        } finally {
+            exec.shutdown();
+        }
+    }
+}
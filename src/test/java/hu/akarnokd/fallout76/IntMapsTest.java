@@ -0,0 +1,157 @@
+package hu.akarnokd.fallout76;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link IntIntMap}, {@link IntFloatMap} and {@link IntObjectMap} side by side.
+ */
+public class IntMapsTest {
+
+    @Test
+    public void zeroKey() {
+        IntIntMap ii = new IntIntMap();
+        IntFloatMap fi = new IntFloatMap();
+        IntObjectMap<String> oi = new IntObjectMap<>();
+
+        assertFalse(ii.containsKey(0));
+        assertEquals(-1, ii.get(0, -1));
+        assertEquals(-1f, fi.get(0, -1f), 0f);
+        assertNull(oi.get(0));
+
+        assertTrue(ii.putIfAbsent(0, 10));
+        assertFalse(ii.putIfAbsent(0, 11));
+        assertEquals(10, ii.get(0, -1));
+        ii.put(0, 12);
+        assertEquals(12, ii.get(0, -1));
+        assertEquals(1, ii.size());
+
+        fi.put(0, 1.5f);
+        assertTrue(fi.containsKey(0));
+        assertEquals(1.5f, fi.get(0, 0f), 0f);
+
+        oi.put(0, "zero");
+        assertTrue(oi.containsKey(0));
+        assertEquals("zero", oi.get(0));
+        assertEquals(1, oi.size());
+    }
+
+    @Test
+    public void negativeKeysAndGrowth() {
+        IntIntMap ii = new IntIntMap(4);
+        IntFloatMap fi = new IntFloatMap(4);
+        IntObjectMap<Integer> oi = new IntObjectMap<>(4);
+        int initial = ii.keys.length;
+
+        Random rnd = new Random(2);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            int k = rnd.nextInt(20_000) - 10_000;
+            int v = rnd.nextInt();
+            expected.put(k, v);
+            ii.put(k, v);
+            fi.put(k, v);
+            oi.put(k, v);
+        }
+
+        assertTrue(ii.keys.length > initial);
+        assertTrue(ii.size <= ii.keys.length / 2);
+        assertEquals(expected.size(), ii.size());
+        assertEquals(expected.size(), fi.size());
+        assertEquals(expected.size(), oi.size());
+        for (Map.Entry<Integer, Integer> e : expected.entrySet()) {
+            assertEquals(e.getValue().intValue(), ii.get(e.getKey(), 0));
+            assertEquals(e.getValue().floatValue(), fi.get(e.getKey(), 0f), 0f);
+            assertEquals(e.getValue(), oi.get(e.getKey()));
+        }
+        assertFalse(ii.containsKey(10_001));
+        assertEquals(-7, ii.get(10_001, -7));
+    }
+
+    @Test
+    public void retainAllWithZeroKey() {
+        IntIntMap ii = new IntIntMap();
+        IntFloatMap fi = new IntFloatMap();
+        IntObjectMap<String> oi = new IntObjectMap<>();
+        for (int k = -20; k <= 20; k++) {
+            ii.put(k, k * 2);
+            fi.put(k, k / 2f);
+            oi.put(k, "v" + k);
+        }
+
+        IntSet keep = new IntSet();
+        keep.add(0);
+        keep.add(-20);
+        keep.add(3);
+        keep.add(99);
+
+        ii.retainAll(keep);
+        fi.retainAll(keep);
+        oi.retainAll(keep);
+
+        assertArrayEquals(new int[] { -20, 0, 3 }, ii.sortedKeys());
+        assertArrayEquals(new int[] { -20, 0, 3 }, fi.sortedKeys());
+        assertArrayEquals(new int[] { -20, 0, 3 }, oi.sortedKeys());
+        assertEquals(0, ii.get(0, -1));
+        assertEquals(6, ii.get(3, -1));
+        assertEquals(-10f, fi.get(-20, 0f), 0f);
+        assertEquals("v0", oi.get(0));
+
+        keep = new IntSet();
+        keep.add(3);
+        ii.retainAll(keep);
+        fi.retainAll(keep);
+        oi.retainAll(keep);
+
+        assertFalse(ii.containsKey(0));
+        assertFalse(fi.containsKey(0));
+        assertFalse(oi.containsKey(0));
+        assertNull(oi.get(0));
+        assertEquals(1, ii.size());
+        assertEquals(1, fi.size());
+        assertEquals(1, oi.size());
+    }
+
+    @Test
+    public void forEachSorted() {
+        IntIntMap ii = new IntIntMap();
+        IntFloatMap fi = new IntFloatMap();
+        IntObjectMap<String> oi = new IntObjectMap<>();
+        for (int k : new int[] { 42, Integer.MIN_VALUE, 0, -1, Integer.MAX_VALUE, 7 }) {
+            ii.put(k, k);
+            fi.put(k, k);
+            oi.put(k, Integer.toString(k));
+        }
+        List<Integer> expected = Arrays.asList(Integer.MIN_VALUE, -1, 0, 7, 42, Integer.MAX_VALUE);
+
+        List<Integer> keys = new ArrayList<>();
+        ii.forEachSorted((k, v) -> {
+            assertEquals(k, v);
+            keys.add(k);
+        });
+        assertEquals(expected, keys);
+
+        keys.clear();
+        fi.forEachSorted((k, v) -> {
+            assertEquals((float)k, v, 0f);
+            keys.add(k);
+        });
+        assertEquals(expected, keys);
+
+        keys.clear();
+        oi.forEachSorted((k, v) -> {
+            assertEquals(Integer.toString(k), v);
+            keys.add(k);
+        });
+        assertEquals(expected, keys);
+
+        int[] sorted = oi.sortedKeys();
+        for (int i = 0; i < sorted.length; i++) {
+            assertEquals(expected.get(i).intValue(), sorted[i]);
+        }
+        assertEquals("{-2147483648=-2147483648, -1=-1, 0=0, 7=7, 42=42, 2147483647=2147483647}", ii.toString());
+    }
+}
@@ -0,0 +1,89 @@
+package hu.akarnokd.fallout76;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.Test;
+
+public class IntSetTest {
+
+    @Test
+    public void zeroAndNegativeKeys() {
+        IntSet set = new IntSet();
+
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.add(-1));
+        assertTrue(set.add(Integer.MIN_VALUE));
+        assertTrue(set.add(Integer.MAX_VALUE));
+
+        assertEquals(4, set.size());
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(-1));
+        assertTrue(set.contains(Integer.MIN_VALUE));
+        assertFalse(set.contains(1));
+        assertArrayEquals(new int[] { Integer.MIN_VALUE, -1, 0, Integer.MAX_VALUE }, set.toSortedArray());
+    }
+
+    @Test
+    public void growth() {
+        IntSet set = new IntSet(4);
+        int initial = set.keys.length;
+        Random rnd = new Random(1);
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            int v = rnd.nextInt();
+            assertEquals(expected.add(v), set.add(v));
+        }
+        assertTrue(set.keys.length > initial);
+        // at most half full
+        assertTrue(set.size <= set.keys.length / 2);
+        assertEquals(expected.size(), set.size());
+        for (int v : expected) {
+            assertTrue(set.contains(v));
+        }
+
+        int[] sorted = set.toSortedArray();
+        List<Integer> list = new ArrayList<>(expected);
+        Collections.sort(list);
+        for (int i = 0; i < sorted.length; i++) {
+            assertEquals(list.get(i).intValue(), sorted[i]);
+        }
+    }
+
+    @Test
+    public void retainAll() {
+        IntSet set = new IntSet();
+        for (int i = -50; i <= 50; i++) {
+            set.add(i);
+        }
+        IntSet keep = new IntSet();
+        keep.add(0);
+        keep.add(-50);
+        keep.add(7);
+        keep.add(1000);
+
+        set.retainAll(keep);
+        assertArrayEquals(new int[] { -50, 0, 7 }, set.toSortedArray());
+
+        keep = new IntSet();
+        keep.add(7);
+        set.retainAll(keep);
+        assertArrayEquals(new int[] { 7 }, set.toSortedArray());
+        assertFalse(set.contains(0));
+    }
+
+    @Test
+    public void forEachSorted() {
+        IntSet set = new IntSet();
+        for (int v : new int[] { 5, -3, 0, 100, -100 }) {
+            set.add(v);
+        }
+        List<Integer> list = new ArrayList<>();
+        set.forEachSorted(list::add);
+        assertEquals(Arrays.asList(-100, -3, 0, 5, 100), list);
+        assertEquals("[-100, -3, 0, 5, 100]", set.toString());
+    }
+}
@@ -0,0 +1,117 @@
+package hu.akarnokd.fallout76;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import org.junit.Test;
+
+public class TesStringsIndexTest {
+
+    /**
+     * Builds a strings file with the given entries; the last zero-terminated entry
+     * may omit its terminator to end exactly at the end of the array.
+     */
+    static byte[] strings(boolean lengthPrefixed, boolean terminateLast, int[] ids, String... values) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        ByteBuffer dir = ByteBuffer.allocate(8 + 8 * ids.length).order(ByteOrder.LITTLE_ENDIAN);
+        dir.putInt(ids.length).putInt(0);
+        for (int i = 0; i < ids.length; i++) {
+            dir.putInt(ids[i]).putInt(body.size());
+            byte[] b = values[i].getBytes(StandardCharsets.UTF_8);
+            boolean terminate = terminateLast || i != ids.length - 1;
+            if (lengthPrefixed) {
+                ByteBuffer len = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(b.length + 1);
+                body.write(len.array(), 0, 4);
+            }
+            body.write(b, 0, b.length);
+            if (terminate) {
+                body.write(0);
+            }
+        }
+        dir.putInt(4, body.size());
+        byte[] result = Arrays.copyOf(dir.array(), dir.capacity() + body.size());
+        System.arraycopy(body.toByteArray(), 0, result, dir.capacity(), body.size());
+        return result;
+    }
+
+    @Test
+    public void zeroTerminated() {
+        byte[] data = strings(false, true, new int[] { 1, 0x1234, -5 }, "first", "\u00E9t\u00E9", "");
+
+        TesStringsIndex index = TesStringsIndex.of("seventysix_en.strings", data, 0);
+
+        assertEquals(3, index.size());
+        assertEquals("first", index.get(1));
+        assertEquals("\u00E9t\u00E9", index.get(0x1234));
+        assertEquals("", index.get(-5));
+        assertNull(index.get(2));
+        assertFalse(index.contains(2));
+    }
+
+    @Test
+    public void zeroTerminatedLastEntryAtEndOfArray() {
+        byte[] data = strings(false, false, new int[] { 7, 8 }, "a", "unterminated");
+
+        TesStringsIndex index = TesStringsIndex.of(data);
+
+        assertEquals("a", index.get(7));
+        assertEquals("unterminated", index.get(8));
+        assertEquals("unterminated", TesStringsData.getZString(data, data.length - "unterminated".length()));
+    }
+
+    @Test
+    public void lengthPrefixedWithCache() {
+        byte[] data = strings(true, true, new int[] { 10, 20, 30 }, "one", "two", "three");
+
+        TesStringsIndex index = TesStringsIndex.of("SeventySix_en.DLSTRINGS", data, 2);
+
+        assertEquals("one", index.get(10));
+        assertEquals("two", index.get(20));
+        assertEquals("three", index.get(30));
+        assertEquals("one", index.get(10));
+
+        Map<Integer, String> all = new HashMap<>();
+        index.forEach(all::put);
+        assertEquals(3, all.size());
+        assertEquals("three", all.get(30));
+    }
+
+    @Test
+    public void empty() {
+        TesStringsIndex index = TesStringsIndex.empty();
+        assertEquals(0, index.size());
+        assertNull(index.get(1));
+    }
+
+    @Test
+    public void offsetPastEndRejected() {
+        byte[] data = strings(false, true, new int[] { 1, 2 }, "a", "b");
+        // the second entry's offset points past the strings
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).putInt(20, 100);
+
+        try {
+            TesStringsIndex.of(data);
+            fail("Should have thrown");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("00000002"));
+        }
+    }
+
+    @Test
+    public void lengthPrefixNeedsRoom() {
+        byte[] data = strings(true, true, new int[] { 1 }, "a");
+        // 2 bytes before the end: no room for the 4 byte length
+        ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).putInt(12, data.length - 16 - 2);
+
+        try {
+            TesStringsIndex.of("x.ilstrings", data, 0);
+            fail("Should have thrown");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package hu.akarnokd.queue;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class MpmcPaddedArrayQueueTest {
+    @Test
+    public void simple() {
+        MpmcPaddedArrayQueue<Integer> q = new MpmcPaddedArrayQueue<>(16);
+
+        for (int i = 0; i < 1000; i++) {
+            q.enqueue(i);
+            assertFalse(q.isEmpty());
+            assertEquals((Integer)i, q.dequeue());
+            assertTrue(q.isEmpty());
+        }
+
+        for (int i = 0; i < 16; i++) {
+            assertTrue(q.offer(i));
+        }
+        assertFalse(q.offer(16));
+        assertEquals(16, q.size());
+        assertEquals((Integer)0, q.peek());
+
+        for (int i = 0; i < 16; i++) {
+            assertEquals((Integer)i, q.poll());
+        }
+
+        assertNull(q.dequeue());
+        assertTrue(q.isEmpty());
+    }
+
+    @Test
+    public void multipleProducersConsumers() throws Exception {
+        MpmcPaddedArrayQueue<Integer> q = new MpmcPaddedArrayQueue<>(16);
+
+        int n = 50_000;
+        int p = 2;
+        int c = 2;
+        ExecutorService exec = Executors.newFixedThreadPool(p + c);
+        try {
+            AtomicInteger remaining = new AtomicInteger(n * p);
+            Set<Integer> set = ConcurrentHashMap.newKeySet();
+
+            for (int i = 0; i < p; i++) {
+                int fi = i;
+                exec.execute(() -> {
+                    for (int k = 0; k < n; k++) {
+                        q.enqueue(k + n * fi);
+                    }
+                });
+            }
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < c; i++) {
+                futures.add(exec.submit(() -> {
+                    while (remaining.get() > 0) {
+                        Integer v = q.dequeue();
+                        if (v != null) {
+                            assertTrue(set.add(v));
+                            remaining.decrementAndGet();
+                        } else {
+                            Thread.yield();
+                        }
+                    }
+                }));
+            }
+
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+
+            assertEquals(n * p, set.size());
+            assertTrue(q.isEmpty());
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2015-2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.queue;
+
+import org.junit.*;
+
+public class MpscDoubleArrayQueueTest {
+    @Test
+    public void simpleUse() {
+        boolean[] hasValue = new boolean[1];
+
+        MpscDoubleArrayQueue q = new MpscDoubleArrayQueue(32);
+
+        for (int i = 1; i <= 32; i++) {
+            Assert.assertTrue("" + i + ": ", q.offer(i));
+        }
+
+        Assert.assertFalse(q.offer(33d));
+        Assert.assertEquals(32, q.size());
+
+        for (int i = 1; i <= 32; i++) {
+            Assert.assertFalse(q.isEmpty());
+            Assert.assertEquals(i, q.peek(hasValue), 0d);
+            Assert.assertTrue(hasValue[0]);
+            Assert.assertEquals(i, q.poll(hasValue), 0d);
+            Assert.assertTrue(hasValue[0]);
+        }
+
+        Assert.assertTrue(q.isEmpty());
+
+        Assert.assertEquals(0d, q.peek(hasValue), 0d);
+        Assert.assertFalse(hasValue[0]);
+
+        Assert.assertEquals(0d, q.poll(hasValue), 0d);
+        Assert.assertFalse(hasValue[0]);
+    }
+
+    @Test
+    public void drainFill() {
+        MpscDoubleArrayQueue q = new MpscDoubleArrayQueue(16);
+
+        int[] counter = { 0 };
+        Assert.assertEquals(16, q.fill(() -> counter[0]++, 20));
+        Assert.assertEquals(0, q.fill(() -> counter[0]++, 20));
+
+        int[] expected = { 0 };
+        Assert.assertEquals(10, q.drain(v -> Assert.assertEquals(expected[0]++, v, 0d), 10));
+        Assert.assertEquals(6, q.size());
+
+        Assert.assertEquals(10, q.fill(() -> counter[0]++, 20));
+        Assert.assertEquals(16, q.drain(v -> Assert.assertEquals(expected[0]++, v, 0d), 20));
+        Assert.assertTrue(q.isEmpty());
+        Assert.assertEquals(26, expected[0]);
+    }
+
+    @Test(timeout = 10_000)
+    public void fillSupplierCrash() {
+        boolean[] hasValue = new boolean[1];
+        MpscDoubleArrayQueue q = new MpscDoubleArrayQueue(16);
+
+        int[] counter = { 0 };
+        try {
+            q.fill(() -> {
+                if (counter[0] == 3) {
+                    throw new IllegalStateException();
+                }
+                return counter[0]++;
+            }, 10);
+            Assert.fail("Should have thrown");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        Assert.assertTrue(q.offer(100));
+
+        // the slots claimed for the crashed part are skipped
+        Assert.assertEquals(0, q.peek(hasValue), 0d);
+        Assert.assertTrue(hasValue[0]);
+        Assert.assertEquals(0, q.poll(hasValue), 0d);
+        int[] expected = { 1 };
+        Assert.assertEquals(2, q.drain(v -> Assert.assertEquals(expected[0]++, v, 0d), 2));
+        Assert.assertEquals(100, q.peek(hasValue), 0d);
+        Assert.assertEquals(100, q.poll(hasValue), 0d);
+        Assert.assertTrue(hasValue[0]);
+        q.poll(hasValue);
+        Assert.assertFalse(hasValue[0]);
+        Assert.assertTrue(q.isEmpty());
+
+        Assert.assertEquals(16, q.fill(() -> counter[0]++, 20));
+        Assert.assertEquals(16, q.drain(v -> { }, 20));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015-2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.queue;
+
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+public class MpscIntArrayQueueTest {
+    @Test
+    public void simpleUse() {
+        boolean[] hasValue = new boolean[1];
+
+        MpscIntArrayQueue q = new MpscIntArrayQueue(32);
+
+        for (int i = 1; i <= 32; i++) {
+            Assert.assertTrue("" + i + ": ", q.offer(-i));
+        }
+
+        Assert.assertFalse(q.offer(33));
+        Assert.assertEquals(32, q.size());
+
+        for (int i = 1; i <= 32; i++) {
+            Assert.assertFalse(q.isEmpty());
+            Assert.assertEquals(IntQueue.pack(-i), q.peek());
+            Assert.assertEquals(-i, q.poll(hasValue));
+            Assert.assertTrue(hasValue[0]);
+        }
+
+        Assert.assertTrue(q.isEmpty());
+        Assert.assertEquals(0, q.peek());
+        Assert.assertEquals(0, q.poll());
+    }
+
+    @Test
+    public void drainFill() {
+        MpscIntArrayQueue q = new MpscIntArrayQueue(16);
+
+        int[] counter = { 0 };
+        Assert.assertEquals(16, q.fill(() -> counter[0]++, 20));
+        Assert.assertEquals(0, q.fill(() -> counter[0]++, 20));
+
+        int[] expected = { 0 };
+        Assert.assertEquals(10, q.drain(v -> Assert.assertEquals(expected[0]++, v), 10));
+
+        Assert.assertEquals(10, q.fill(() -> counter[0]++, 20));
+        Assert.assertEquals(16, q.drain(v -> Assert.assertEquals(expected[0]++, v), 20));
+        Assert.assertTrue(q.isEmpty());
+        Assert.assertEquals(26, expected[0]);
+    }
+
+    @Test
+    public void multipleProducers() throws Exception {
+        MpscIntArrayQueue q = new MpscIntArrayQueue(1024);
+        ExecutorService exec = Executors.newFixedThreadPool(2);
+        try {
+            int n = 100_000;
+            for (int p = 0; p < 2; p++) {
+                exec.submit(() -> {
+                    for (int i = 0; i < n; i++) {
+                        while (!q.offer(1)) {
+                            Thread.yield();
+                        }
+                    }
+                });
+            }
+
+            long sum = 0;
+            int received = 0;
+            while (received != 2 * n) {
+                long v = q.poll();
+                if (v != 0L) {
+                    sum += (int)v;
+                    received++;
+                } else {
+                    Thread.yield();
+                }
+            }
+            Assert.assertEquals(2 * n, sum);
+            Assert.assertTrue(q.isEmpty());
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void fillSupplierCrash() {
+        boolean[] hasValue = new boolean[1];
+        MpscIntArrayQueue q = new MpscIntArrayQueue(16);
+
+        int[] counter = { 0 };
+        try {
+            q.fill(() -> {
+                if (counter[0] == 3) {
+                    throw new IllegalStateException();
+                }
+                return counter[0]++;
+            }, 10);
+            Assert.fail("Should have thrown");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        Assert.assertTrue(q.offer(100));
+
+        // the slots claimed for the crashed part are skipped
+        Assert.assertEquals(IntQueue.pack(0), q.peek());
+        Assert.assertEquals(0, q.poll(hasValue));
+        Assert.assertEquals(1, q.poll(hasValue));
+        Assert.assertEquals(2, q.poll(hasValue));
+        Assert.assertEquals(IntQueue.pack(100), q.peek());
+        Assert.assertEquals(100, q.poll(hasValue));
+        Assert.assertTrue(hasValue[0]);
+        Assert.assertEquals(0L, q.poll());
+        Assert.assertTrue(q.isEmpty());
+
+        Assert.assertEquals(16, q.fill(() -> counter[0]++, 20));
+        Assert.assertEquals(16, q.drain(v -> { }, 20));
+    }
+}
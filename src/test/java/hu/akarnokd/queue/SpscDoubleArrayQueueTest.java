@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015-2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.queue;
+
+import org.junit.*;
+
+public class SpscDoubleArrayQueueTest {
+    @Test
+    public void simpleUse() {
+        boolean[] hasValue = new boolean[1];
+
+        SpscDoubleArrayQueue q = new SpscDoubleArrayQueue(32);
+
+        for (int i = 1; i <= 32; i++) {
+            Assert.assertTrue("" + i + ": ", q.offer(i));
+        }
+
+        Assert.assertFalse(q.offer(33d));
+        Assert.assertEquals(32, q.size());
+
+        for (int i = 1; i <= 32; i++) {
+            Assert.assertFalse(q.isEmpty());
+            Assert.assertEquals(i, q.peek(hasValue), 0d);
+            Assert.assertTrue(hasValue[0]);
+            Assert.assertEquals(i, q.poll(hasValue), 0d);
+            Assert.assertTrue(hasValue[0]);
+        }
+
+        Assert.assertTrue(q.isEmpty());
+
+        Assert.assertEquals(0d, q.peek(hasValue), 0d);
+        Assert.assertFalse(hasValue[0]);
+
+        Assert.assertEquals(0d, q.poll(hasValue), 0d);
+        Assert.assertFalse(hasValue[0]);
+    }
+
+    @Test
+    public void drainFill() {
+        SpscDoubleArrayQueue q = new SpscDoubleArrayQueue(16);
+
+        int[] counter = { 0 };
+        Assert.assertEquals(16, q.fill(() -> counter[0]++, 20));
+        Assert.assertEquals(0, q.fill(() -> counter[0]++, 20));
+
+        int[] expected = { 0 };
+        Assert.assertEquals(10, q.drain(v -> Assert.assertEquals(expected[0]++, v, 0d), 10));
+        Assert.assertEquals(6, q.size());
+
+        Assert.assertEquals(10, q.fill(() -> counter[0]++, 20));
+        Assert.assertEquals(16, q.drain(v -> Assert.assertEquals(expected[0]++, v, 0d), 20));
+        Assert.assertTrue(q.isEmpty());
+        Assert.assertEquals(26, expected[0]);
+    }
+}
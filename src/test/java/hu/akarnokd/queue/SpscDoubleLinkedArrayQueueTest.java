@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015-2017 David Karnok
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in
+ * compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is
+ * distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See
+ * the License for the specific language governing permissions and limitations under the License.
+ */
+
+package hu.akarnokd.queue;
+
+import org.junit.*;
+
+public class SpscDoubleLinkedArrayQueueTest {
+    @Test
+    public void triggerGrowth() {
+        SpscDoubleLinkedArrayQueue q = new SpscDoubleLinkedArrayQueue(16);
+
+        boolean[] b = new boolean[1];
+
+        for (int j = 0; j < 3; j++) {
+
+            for (int i = 0; i < 31; i++) {
+                Assert.assertTrue(q.offer(i + 0.5));
+            }
+
+            for (int i = 0; i < 31; i++) {
+                Assert.assertEquals(i + 0.5, q.peek(b), 0d);
+                Assert.assertTrue(b[0]);
+                Assert.assertEquals(i + 0.5, q.poll(b), 0d);
+                Assert.assertTrue(b[0]);
+            }
+
+            Assert.assertEquals(0, q.peek(b), 0d);
+            Assert.assertFalse(b[0]);
+            Assert.assertEquals(0, q.poll(b), 0d);
+            Assert.assertFalse(b[0]);
+
+            Assert.assertTrue(q.isEmpty());
+        }
+    }
+
+    @Test
+    public void drainAcrossGrowth() {
+        SpscDoubleLinkedArrayQueue q = new SpscDoubleLinkedArrayQueue(16);
+
+        int[] counter = { 0 };
+        Assert.assertEquals(100, q.fill(() -> counter[0]++, 100));
+        Assert.assertEquals(100, q.size());
+
+        int[] expected = { 0 };
+        Assert.assertEquals(100, q.drain(v -> Assert.assertEquals(expected[0]++, v, 0d), 200));
+        Assert.assertTrue(q.isEmpty());
+    }
+
+    @Test
+    public void clearAcrossGrowth() {
+        SpscDoubleLinkedArrayQueue q = new SpscDoubleLinkedArrayQueue(16);
+        boolean[] b = new boolean[1];
+
+        int[] counter = { 0 };
+        q.fill(() -> counter[0]++, 100);
+        q.clear();
+
+        Assert.assertTrue(q.isEmpty());
+        Assert.assertEquals(0, q.size());
+
+        Assert.assertTrue(q.offer(1));
+        Assert.assertEquals(1, q.poll(b), 0d);
+        Assert.assertTrue(b[0]);
+        Assert.assertTrue(q.isEmpty());
+    }
+}
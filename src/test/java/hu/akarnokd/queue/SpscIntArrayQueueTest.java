@@ -31,10 +31,10 @@ public class SpscIntArrayQueueTest {
         for (int i = 1; i <= 32; i++) {
             Assert.assertFalse(q.isEmpty());
             Assert.assertTrue(q.hasValue());
-            Assert.assertEquals(i, q.peek());
+            Assert.assertEquals(IntQueue.pack(i), q.peek());
             Assert.assertEquals(i, q.peek(hasValue));
             Assert.assertTrue(hasValue[0]);
-            Assert.assertEquals(i, q.poll());
+            Assert.assertEquals(IntQueue.pack(i), q.poll());
         }
 
         Assert.assertTrue(q.isEmpty());
@@ -48,4 +48,36 @@ public class SpscIntArrayQueueTest {
         Assert.assertEquals(0, q.poll(hasValue));
         Assert.assertFalse(hasValue[0]);
     }
+
+    @Test
+    public void drainFill() {
+        SpscIntArrayQueue q = new SpscIntArrayQueue(16);
+
+        int[] counter = { 0 };
+        Assert.assertEquals(16, q.fill(() -> counter[0]++, 20));
+        Assert.assertEquals(16, q.size());
+        Assert.assertEquals(0, q.fill(() -> counter[0]++, 20));
+
+        int[] expected = { 0 };
+        Assert.assertEquals(10, q.drain(v -> Assert.assertEquals(expected[0]++, v), 10));
+        Assert.assertEquals(6, q.size());
+
+        Assert.assertEquals(10, q.fill(() -> counter[0]++, 20));
+        Assert.assertEquals(16, q.drain(v -> Assert.assertEquals(expected[0]++, v), 20));
+        Assert.assertTrue(q.isEmpty());
+        Assert.assertEquals(26, expected[0]);
+    }
+
+    @Test
+    public void negativeValues() {
+        SpscIntArrayQueue q = new SpscIntArrayQueue(4);
+
+        q.offer(-1);
+        q.offer(Integer.MIN_VALUE);
+
+        int[] result = new int[4];
+        Assert.assertEquals(2, q.poll(result));
+        Assert.assertEquals(-1, result[0]);
+        Assert.assertEquals(Integer.MIN_VALUE, result[1]);
+    }
 }
@@ -43,4 +43,22 @@ public class SpscLongLinkedArrayQueueTest {
             Assert.assertTrue(q.isEmpty());
         }
     }
+
+    @Test
+    public void clearAcrossGrowth() {
+        SpscLongLinkedArrayQueue q = new SpscLongLinkedArrayQueue(16);
+        boolean[] b = new boolean[1];
+
+        int[] counter = { 0 };
+        q.fill(() -> counter[0]++, 100);
+        q.clear();
+
+        Assert.assertTrue(q.isEmpty());
+        Assert.assertEquals(0, q.size());
+
+        Assert.assertTrue(q.offer(1));
+        Assert.assertEquals(1, q.poll(b));
+        Assert.assertTrue(b[0]);
+        Assert.assertTrue(q.isEmpty());
+    }
 }
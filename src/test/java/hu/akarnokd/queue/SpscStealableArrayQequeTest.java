@@ -0,0 +1,117 @@
+package hu.akarnokd.queue;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+public class SpscStealableArrayQequeTest {
+
+    ExecutorService exec = Executors.newSingleThreadExecutor();
+
+    @After
+    public void after() {
+        exec.shutdownNow();
+    }
+
+    @Test
+    public void offerPollSteal() {
+        SpscStealableArrayQeque<Integer> q = new SpscStealableArrayQeque<>(8);
+
+        for (int i = 0; i < 8; i++) {
+            assertTrue(q.offer(i));
+        }
+        assertFalse(q.offer(8));
+
+        assertEquals(7, q.steal().intValue());
+        assertEquals(6, q.steal().intValue());
+        assertEquals(0, q.poll().intValue());
+
+        for (int i = 1; i < 6; i++) {
+            assertEquals(i, q.poll().intValue());
+        }
+        assertNull(q.poll());
+        assertNull(q.steal());
+        assertTrue(q.isEmpty());
+
+        // the stolen slots are reused
+        for (int i = 0; i < 8; i++) {
+            assertTrue(q.offer(i));
+        }
+        assertEquals(7, q.steal().intValue());
+        assertEquals(0, q.poll().intValue());
+    }
+
+    @Test
+    public void fullyStolen() {
+        SpscStealableArrayQeque<Integer> q = new SpscStealableArrayQeque<>(8);
+
+        for (int i = 0; i < 8; i++) {
+            assertTrue(q.offer(i));
+        }
+        for (int i = 7; i >= 0; i--) {
+            assertEquals(i, q.steal().intValue());
+        }
+        assertNull(q.steal());
+        assertNull(q.poll());
+        assertNull(q.steal());
+        assertTrue(q.isEmpty());
+    }
+
+    @Test(timeout = 60_000)
+    public void stealRacesPollOverStolenRing() {
+        for (int i = 0; i < 10_000; i++) {
+            SpscStealableArrayQeque<Integer> q = new SpscStealableArrayQeque<>(1024);
+
+            for (int j = 0; j < 1024; j++) {
+                q.offer(j);
+            }
+            for (int j = 0; j < 1024; j++) {
+                q.steal();
+            }
+
+            Integer[] result = { -1, -1 };
+
+            // both walk the stolen slots, poll moves the consumer index past the stealer
+            MpmcPollTest.race(() -> {
+                result[0] = q.steal();
+            }, () -> {
+                result[1] = q.poll();
+            }, exec);
+
+            assertNull(result[0]);
+            assertNull(result[1]);
+            assertTrue(q.isEmpty());
+        }
+    }
+
+    @Test(timeout = 60_000)
+    public void stealRacesPollForLastItem() {
+        for (int i = 0; i < 10_000; i++) {
+            SpscStealableArrayQeque<Integer> q = new SpscStealableArrayQeque<>(128);
+
+            for (int j = 0; j < 128; j++) {
+                q.offer(j);
+            }
+            // leave the oldest item, all the others are stolen
+            for (int j = 0; j < 127; j++) {
+                q.steal();
+            }
+
+            Integer[] result = { -1, -1 };
+
+            MpmcPollTest.race(() -> {
+                result[0] = q.steal();
+            }, () -> {
+                result[1] = q.poll();
+            }, exec);
+
+            // exactly one of them gets the last item
+            assertTrue((result[0] == null) != (result[1] == null));
+            assertEquals(0, (result[0] != null ? result[0] : result[1]).intValue());
+            assertNull(q.steal());
+            assertNull(q.poll());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package hu.akarnokd.reactive.lowalloc;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+
+public class LcObservableTest {
+
+    @Test
+    public void filter() {
+        TestObserver<Integer> to = new TestObserver<>();
+        LcObservable.range(1, 10).filter(v -> (v & 1) == 0).subscribe(to);
+        to.assertResult(2, 4, 6, 8, 10);
+    }
+
+    @Test
+    public void take() {
+        TestObserver<Integer> to = new TestObserver<>();
+        LcObservable.range(1, 10).take(3).subscribe(to);
+        to.assertResult(1, 2, 3);
+    }
+
+    @Test
+    public void reduce() {
+        TestObserver<Integer> to = new TestObserver<>();
+        LcObservable.range(1, 10).reduce(() -> 0, (a, b) -> a + b).subscribe(to);
+        to.assertResult(55);
+    }
+
+    @Test
+    public void flatMap() {
+        TestObserver<Integer> to = new TestObserver<>();
+        LcObservable.range(1, 3).flatMap(v -> LcObservable.range(v * 10, 2)).subscribe(to);
+        to.assertResult(10, 11, 20, 21, 30, 31);
+    }
+
+    @Test
+    public void flatMapAsync() {
+        TestObserver<Integer> to = new TestObserver<>();
+        LcObservable.range(1, 100)
+        .flatMap(v -> LcObservable.just(v).observeOn(Schedulers.computation()))
+        .reduce(() -> 0, (a, b) -> a + b)
+        .subscribe(to);
+        to.awaitDone(5, TimeUnit.SECONDS);
+        to.assertResult(5050);
+    }
+
+    @Test
+    public void concatMap() {
+        TestObserver<Integer> to = new TestObserver<>();
+        LcObservable.range(1, 3).concatMap(v -> LcObservable.range(v * 10, 2)).subscribe(to);
+        to.assertResult(10, 11, 20, 21, 30, 31);
+    }
+
+    @Test
+    public void concatMapAsync() {
+        TestObserver<Integer> to = new TestObserver<>();
+        LcObservable.range(1, 5)
+        .concatMap(v -> LcObservable.range(v * 10, 2).observeOn(Schedulers.computation()))
+        .subscribe(to);
+        to.awaitDone(5, TimeUnit.SECONDS);
+        to.assertResult(10, 11, 20, 21, 30, 31, 40, 41, 50, 51);
+    }
+
+    @Test
+    public void zip() {
+        TestObserver<Integer> to = new TestObserver<>();
+        LcObservable.range(1, 5).zipWith(LcObservable.range(10, 3), (a, b) -> a + b).subscribe(to);
+        to.assertResult(11, 13, 15);
+    }
+
+    @Test
+    public void observeOn() {
+        TestObserver<Integer> to = new TestObserver<>();
+        LcObservable.range(1, 1000).observeOn(Schedulers.single()).take(500).reduce(() -> 0, (a, b) -> a + b).subscribe(to);
+        to.awaitDone(5, TimeUnit.SECONDS);
+        to.assertResult(125250);
+    }
+
+    @Test
+    public void error() {
+        TestObserver<Integer> to = new TestObserver<>();
+        LcObservable.range(1, 5).map(v -> {
+            if (v == 3) {
+                throw new IllegalArgumentException();
+            }
+            return v;
+        })
+        .filter(v -> true)
+        .subscribe(to);
+        to.assertFailure(IllegalArgumentException.class, 1, 2);
+    }
+
+    @Test
+    public void cachedCreatesFresh() {
+        LcObservable<Integer> source = LcObservable.range(1, 5).map(v -> v + 1);
+        for (int i = 0; i < 3; i++) {
+            TestObserver<Integer> to = new TestObserver<>();
+            source.subscribe(to);
+            to.assertResult(2, 3, 4, 5, 6);
+        }
+        assertEquals(1, ((LcIntermediateObservable<?, ?>)source).observerState);
+    }
+
+    @Test
+    public void recycle() {
+        LcObservable<Integer> source = LcObservable.range(1, 5)
+                .filter(v -> v != 3)
+                .concatMap(v -> LcObservable.just(v))
+                .flatMap(v -> LcObservable.range(v, 2))
+                .take(6)
+                .zipWith(LcObservable.range(1, 10), (a, b) -> a * b)
+                .reduce(() -> 0, (a, b) -> a + b)
+                .recycle();
+
+        for (int i = 0; i < 3; i++) {
+            TestObserver<Integer> to = new TestObserver<>();
+            source.subscribe(to);
+            to.assertResult(1 + 4 + 6 + 12 + 20 + 30);
+            assertEquals(0, ((LcIntermediateObservable<?, ?>)source).observerState);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package hu.akarnokd.rxjava2;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverTheRange() {
+        long prev = -1L;
+        for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+            long upper = LatencyHistogram.upperBound(i);
+            assertTrue(upper > prev);
+            assertEquals(i, LatencyHistogram.index(prev + 1));
+            assertEquals(i, LatencyHistogram.index(upper));
+            prev = upper;
+        }
+        assertEquals(LatencyHistogram.MAX_TRACKABLE - 1, prev);
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.index(Long.MAX_VALUE));
+        assertEquals(0, LatencyHistogram.index(-5));
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            h.record(i * 1000L);
+        }
+        assertEquals(1000, h.count());
+
+        assertEquals(500_000, h.percentile(50), 500_000 / 16);
+        assertEquals(990_000, h.percentile(99), 990_000 / 16);
+        assertEquals(999_000, h.percentile(99.9), 999_000 / 16);
+        assertTrue(h.percentile(50) >= 500_000);
+    }
+
+    @Test
+    public void snapshotReset() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(10);
+        h.record(100);
+
+        LatencyHistogram s = h.snapshot(true);
+
+        assertEquals(2, s.count());
+        assertEquals(0, h.count());
+        assertEquals(0, h.percentile(50));
+
+        h.add(s).add(s);
+        assertEquals(4, h.count());
+        assertEquals(10, h.percentile(50));
+    }
+}
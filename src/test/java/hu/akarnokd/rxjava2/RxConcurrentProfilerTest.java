@@ -0,0 +1,276 @@
+package hu.akarnokd.rxjava2;
+
+import static org.junit.Assert.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import hu.akarnokd.rxjava2.RxSynchronousProfiler.CallStatistics;
+import io.reactivex.*;
+import io.reactivex.schedulers.*;
+import io.reactivex.subscribers.TestSubscriber;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.*;
+
+public class RxConcurrentProfilerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void multiThreadedCountsAreExact() {
+        RxConcurrentProfiler p = new RxConcurrentProfiler(16);
+        p.start();
+        try {
+            Flowable.range(1, 100)
+            .flatMap(v -> Flowable.range(1, 1000)
+                    .subscribeOn(Schedulers.computation())
+                    .map(w -> w + v))
+            .test()
+            .awaitDone(10, TimeUnit.SECONDS)
+            .assertValueCount(100_000)
+            .assertNoErrors()
+            .assertComplete();
+        } finally {
+            p.stop();
+        }
+
+        Map<String, CallStatistics> stats = p.snapshot();
+
+        CallStatistics map = stats.get("FlowableMap");
+        assertEquals(100, map.subscribeCount);
+        assertEquals(100, map.onCompleteCount);
+        assertEquals(100_000, map.onNextCount + map.tryOnNextCount + map.pollCount);
+        assertTrue(map.sumTime() > 0L);
+
+        CallStatistics flatMap = stats.get("FlowableFlatMap");
+        assertEquals(1, flatMap.subscribeCount);
+        assertEquals(100_000, flatMap.onNextCount);
+        assertEquals(1, flatMap.onCompleteCount);
+    }
+
+    @Test
+    public void sampledRequestsAndLifecycleAreCounted() {
+        RxConcurrentProfiler p = new RxConcurrentProfiler(64);
+        p.start();
+        Flowable<Integer> f;
+        try {
+            f = Flowable.range(1, 100).hide();
+        } finally {
+            p.stop();
+        }
+
+        for (int i = 0; i < 200; i++) {
+            TestSubscriber<Integer> ts = new TestSubscriber<Integer>(1L) {
+                @Override
+                public void onNext(Integer t) {
+                    super.onNext(t);
+                    request(1);
+                }
+            };
+            f.subscribe(ts);
+            ts.assertValueCount(100).assertComplete();
+        }
+
+        CallStatistics cs = p.snapshot().get("FlowableHide");
+        assertEquals(200, cs.subscribeCount);
+        assertEquals(200, cs.onSubscribeCount);
+        assertEquals(200, cs.onCompleteCount);
+        assertEquals(20_000, cs.onNextCount);
+        assertEquals(200 * 101, cs.requestCount);
+        assertTrue(cs.requestLatency.count() > 0);
+    }
+
+    @Test
+    public void snapshotAndReset() {
+        RxConcurrentProfiler p = new RxConcurrentProfiler();
+        p.start();
+        Flowable<Integer> f;
+        try {
+            f = Flowable.range(1, 10).hide();
+        } finally {
+            p.stop();
+        }
+
+        f.test().assertResult(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+
+        assertEquals(10, p.snapshotAndReset().get("FlowableHide").onNextCount);
+        assertEquals(0, p.snapshot().get("FlowableHide").onNextCount);
+
+        // operators assembled before keep reporting after a reset
+        f.test().assertResult(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+
+        assertEquals(10, p.snapshot().get("FlowableHide").onNextCount);
+
+        p.reset();
+
+        CallStatistics cs = p.snapshot().get("FlowableHide");
+        assertEquals(0, cs.onNextCount);
+        assertEquals(0L, cs.sumTime());
+    }
+
+    @Test
+    public void assemblySites() {
+        RxConcurrentProfiler p = new RxConcurrentProfiler(1, true);
+        p.start();
+        Flowable<Integer> f;
+        try {
+            f = Flowable.range(1, 10)
+                    .map(v -> v + 1)
+                    .filter(v -> true)
+                    .map(v -> v * 2);
+        } finally {
+            p.stop();
+        }
+
+        f.test().assertValueCount(10).assertComplete();
+
+        Map<String, CallStatistics> stats = p.snapshot();
+
+        long maps = stats.keySet().stream()
+                .filter(k -> k.startsWith("FlowableMap @ " + getClass().getName() + ".assemblySites("))
+                .count();
+        assertEquals(stats.keySet().toString(), 2, maps);
+
+        for (Map.Entry<String, CallStatistics> e : stats.entrySet()) {
+            CallStatistics cs = e.getValue();
+            assertEquals(e.getKey(), 10, cs.onNextCount + cs.tryOnNextCount + cs.pollCount);
+            assertEquals(e.getKey(), 1, cs.onCompleteCount);
+        }
+    }
+
+    @Test
+    public void latencyHistograms() {
+        RxConcurrentProfiler p = new RxConcurrentProfiler();
+        p.start();
+        try {
+            Flowable.range(1, 1000).hide()
+            .test()
+            .assertValueCount(1000);
+        } finally {
+            p.stop();
+        }
+
+        CallStatistics cs = p.snapshot().get("FlowableHide");
+
+        assertEquals(1000, cs.onNextLatency.count());
+        assertEquals(1, cs.requestLatency.count());
+        assertEquals(0, cs.pollLatency.count());
+        assertTrue(cs.onNextLatency.percentile(50) <= cs.onNextLatency.percentile(99.9));
+        assertTrue(cs.print(), cs.print().contains("latency onNext()"));
+    }
+
+    @Test
+    public void otherBaseTypes() {
+        RxConcurrentProfiler p = new RxConcurrentProfiler();
+        p.start();
+        try {
+            Observable.range(1, 5).hide().test().assertResult(1, 2, 3, 4, 5);
+            Maybe.just(1).hide().test().assertResult(1);
+            Maybe.empty().hide().test().assertResult();
+            Completable.complete().hide().test().assertResult();
+            Single.just(1).hide().test().assertResult(1);
+        } finally {
+            p.stop();
+        }
+
+        Map<String, CallStatistics> stats = p.snapshot();
+
+        assertEquals(5, stats.get("ObservableHide").onNextCount);
+        assertEquals(1, stats.get("ObservableHide").onCompleteCount);
+        assertEquals(1, stats.get("MaybeHide").onNextCount);
+        assertEquals(2, stats.get("MaybeHide").onCompleteCount);
+        assertEquals(1, stats.get("CompletableHide").onCompleteCount);
+        assertEquals(1, stats.get("SingleHide").onNextCount);
+    }
+
+    @Test
+    public void snapshotsEmitDeltas() {
+        RxConcurrentProfiler p = new RxConcurrentProfiler();
+        p.start();
+        Flowable<Integer> f;
+        try {
+            f = Flowable.range(1, 10).hide();
+        } finally {
+            p.stop();
+        }
+
+        TestScheduler scheduler = new TestScheduler();
+        TestSubscriber<ProfileSnapshot> ts = p.snapshots(1, TimeUnit.SECONDS, scheduler).test();
+
+        f.test().assertValueCount(10);
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        f.test().assertValueCount(10);
+        f.test().assertValueCount(10);
+        scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+
+        ts.assertValueCount(3);
+
+        assertEquals(10, ts.values().get(0).entries().get("FlowableHide").onNextCount);
+        assertEquals(10, ts.values().get(0).entries().get("FlowableHide").onNextLatency.count());
+        assertTrue(ts.values().get(1).entries().isEmpty());
+        assertEquals(20, ts.values().get(2).entries().get("FlowableHide").onNextCount);
+        assertEquals(20, ts.values().get(2).entries().get("FlowableHide").onNextLatency.count());
+        assertEquals(2, ts.values().get(2).entries().get("FlowableHide").onCompleteCount);
+
+        // the deltas don't consume the cumulative statistics
+        assertEquals(30, p.snapshot().get("FlowableHide").onNextCount);
+
+        ts.cancel();
+    }
+
+    @Test
+    public void jfrEvents() throws Exception {
+        RxConcurrentProfiler p = new RxConcurrentProfiler();
+        p.enableJfr(0L);
+        p.start();
+        Flowable<Integer> f;
+        try {
+            f = Flowable.range(1, 10).hide();
+        } finally {
+            p.stop();
+        }
+
+        Path file = folder.newFile("rx.jfr").toPath();
+        try (Recording r = new Recording()) {
+            r.enable(RxProfilerEvents.OnNext.class);
+            r.enable(RxProfilerEvents.OnComplete.class);
+            r.start();
+
+            f.test().assertValueCount(10);
+
+            p.disableJfr();
+
+            f.test().assertValueCount(10);
+
+            r.stop();
+            r.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        int onNext = 0;
+        int onComplete = 0;
+        for (RecordedEvent e : events) {
+            assertEquals(1L, e.getLong("signals"));
+            if (!e.getString("operator").equals("FlowableHide")) {
+                continue;
+            }
+            String name = e.getEventType().getName();
+            if (name.equals("hu.akarnokd.rxjava2.OnNext")) {
+                onNext++;
+            } else if (name.equals("hu.akarnokd.rxjava2.OnComplete")) {
+                onComplete++;
+            }
+        }
+        assertEquals(10, onNext);
+        assertEquals(1, onComplete);
+    }
+}
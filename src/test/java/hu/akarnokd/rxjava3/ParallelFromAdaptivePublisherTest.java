@@ -0,0 +1,153 @@
+package hu.akarnokd.rxjava3;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.processors.PublishProcessor;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.subscribers.TestSubscriber;
+
+public class ParallelFromAdaptivePublisherTest {
+
+    static <T> ParallelFromAdaptivePublisher<T> adaptive(Flowable<T> source, int parallelism, boolean preferIdle) {
+        return new ParallelFromAdaptivePublisher<>(source, parallelism, Schedulers.io(),
+                Flowable.bufferSize(), 1, TimeUnit.MILLISECONDS, preferIdle);
+    }
+
+    @Test
+    public void allItemsOnce() {
+        for (boolean preferIdle : new boolean[] { false, true }) {
+            for (Flowable<Integer> source : Arrays.asList(
+                    Flowable.range(1, 100_000),
+                    Flowable.range(1, 100_000).hide(),
+                    Flowable.range(1, 100_000).observeOn(Schedulers.single()))) {
+                List<Integer> list = adaptive(source, 4, preferIdle)
+                        .sequential()
+                        .toList()
+                        .blockingGet();
+
+                assertEquals(100_000, list.size());
+                Collections.sort(list);
+                for (int i = 0; i < list.size(); i++) {
+                    assertEquals(i + 1, list.get(i).intValue());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void smallPrefetch() {
+        for (int prefetch = 1; prefetch <= 4; prefetch++) {
+            for (Flowable<Integer> source : Arrays.asList(
+                    Flowable.range(1, 10_000),
+                    Flowable.range(1, 10_000).hide(),
+                    Flowable.range(1, 10_000).observeOn(Schedulers.single()))) {
+                new ParallelFromAdaptivePublisher<>(source, 3, Schedulers.io(), prefetch, 1, TimeUnit.MILLISECONDS, true)
+                .sequential()
+                .test()
+                .awaitDone(10, TimeUnit.SECONDS)
+                .assertValueCount(10_000)
+                .assertNoErrors()
+                .assertComplete();
+            }
+        }
+    }
+
+    @Test
+    public void invalidArguments() {
+        Flowable<Integer> source = Flowable.range(1, 10);
+        try {
+            new ParallelFromAdaptivePublisher<>(source, 0, Schedulers.io(), 16, 1, TimeUnit.MILLISECONDS, false);
+            fail("Should have thrown");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("parallelism"));
+        }
+        try {
+            new ParallelFromAdaptivePublisher<>(source, 2, Schedulers.io(), 0, 1, TimeUnit.MILLISECONDS, false);
+            fail("Should have thrown");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("prefetch"));
+        }
+        try {
+            new ParallelFromAdaptivePublisher<>(source, 2, Schedulers.io(), 16, 0, TimeUnit.MILLISECONDS, false);
+            fail("Should have thrown");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("maxLatency"));
+        }
+    }
+
+    @Test
+    public void skewedWorkIsNotStuckBehindSlowItem() {
+        // the first item blocks its rail for long, the rest should be spread over the others
+        Set<String> threads = Collections.synchronizedSet(new HashSet<>());
+        long count = adaptive(Flowable.range(1, 1000), 4, true)
+                .doOnNext(v -> {
+                    if (v == 1) {
+                        Thread.sleep(500);
+                    } else {
+                        threads.add(Thread.currentThread().getName());
+                    }
+                })
+                .sequential()
+                .takeUntil(v -> v != 1)
+                .timeout(400, TimeUnit.MILLISECONDS)
+                .count()
+                .blockingGet();
+
+        assertTrue(count >= 1);
+        assertFalse(threads.isEmpty());
+    }
+
+    @Test
+    public void error() {
+        PublishProcessor<Integer> pp = PublishProcessor.create();
+
+        TestSubscriber<Integer> ts = adaptive(pp, 2, false)
+                .sequential()
+                .test();
+
+        pp.onNext(1);
+        pp.onError(new IOException());
+
+        ts.awaitDone(5, TimeUnit.SECONDS)
+        .assertError(IOException.class);
+    }
+
+    @Test
+    public void cancelAllRailsCancelsUpstream() {
+        PublishProcessor<Integer> pp = PublishProcessor.create();
+
+        TestSubscriber<Integer> ts = adaptive(pp, 2, false)
+                .sequential()
+                .test();
+
+        assertTrue(pp.hasSubscribers());
+
+        ts.cancel();
+
+        assertFalse(pp.hasSubscribers());
+    }
+
+    @Test
+    public void backpressured() {
+        TestSubscriber<Integer> ts = adaptive(Flowable.range(1, 1000), 2, false)
+                .sequential(1)
+                .test(10);
+
+        ts.awaitCount(10);
+        ts.assertValueCount(10)
+        .assertNotComplete();
+
+        ts.requestMore(990);
+
+        ts.awaitDone(5, TimeUnit.SECONDS)
+        .assertValueCount(1000)
+        .assertComplete();
+    }
+}
@@ -0,0 +1,277 @@
+package hu.akarnokd.rxjava3;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.reactivestreams.Subscriber;
+
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.exceptions.MissingBackpressureException;
+import io.reactivex.rxjava3.internal.subscriptions.*;
+import io.reactivex.rxjava3.processors.PublishProcessor;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.subscribers.TestSubscriber;
+
+public class ParallelFromKeyedPublisherTest {
+
+    @Test
+    public void keysStayOnTheirRailInOrder() {
+        for (Flowable<Integer> source : Arrays.asList(
+                Flowable.range(0, 100_000),
+                Flowable.range(0, 100_000).hide(),
+                Flowable.range(0, 100_000).observeOn(Schedulers.single()))) {
+            List<ArrayList<Integer>> rails = new ParallelFromKeyedPublisher<>(source, v -> v % 100, 4, Flowable.bufferSize())
+                    .runOn(Schedulers.computation())
+                    .collect(ArrayList<Integer>::new, List::add)
+                    .sequential()
+                    .toList()
+                    .blockingGet();
+
+            assertEquals(4, rails.size());
+
+            Map<Integer, Integer> railOfKey = new HashMap<>();
+            Map<Integer, Integer> lastOfKey = new HashMap<>();
+            int total = 0;
+            for (int i = 0; i < rails.size(); i++) {
+                for (Integer v : rails.get(i)) {
+                    Integer rail = railOfKey.putIfAbsent(v % 100, i);
+                    if (rail != null) {
+                        assertEquals(rail.intValue(), i);
+                    }
+                    Integer last = lastOfKey.put(v % 100, v);
+                    if (last != null) {
+                        assertTrue(last < v);
+                    }
+                    total++;
+                }
+            }
+            assertEquals(100_000, total);
+            assertEquals(100, railOfKey.size());
+        }
+    }
+
+    @Test
+    public void nullKey() {
+        new ParallelFromKeyedPublisher<>(Flowable.range(1, 10), v -> null, 3, 16)
+        .sequential()
+        .test()
+        .assertResult(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+    }
+
+    @Test
+    public void boundedUpstreamRequests() {
+        AtomicLong requested = new AtomicLong();
+        Flowable<Integer> source = Flowable.range(0, 1000).doOnRequest(requested::addAndGet);
+
+        @SuppressWarnings("unchecked")
+        TestSubscriber<Integer>[] rails = new TestSubscriber[2];
+        rails[0] = new TestSubscriber<>(0L);
+        rails[1] = new TestSubscriber<>(0L);
+
+        new ParallelFromKeyedPublisher<>(source, v -> v & 1, 2, 16)
+        .subscribe(new Subscriber[] { rails[0], rails[1] });
+
+        // nobody requested: only the prefetch is taken
+        assertEquals(16, requested.get());
+
+        int even = ParallelFromKeyedPublisher.rail(0, 2);
+        rails[even].requestMore(1000);
+
+        // the next odd item blocks the head of the line
+        assertEquals(16, requested.get());
+        rails[even].assertValuesOnly(0);
+
+        rails[1 - even].requestMore(1000);
+
+        rails[0].assertValueCount(500).assertComplete();
+        rails[1].assertValueCount(500).assertComplete();
+    }
+
+    @Test
+    public void error() {
+        PublishProcessor<Integer> pp = PublishProcessor.create();
+
+        TestSubscriber<Integer> ts = new ParallelFromKeyedPublisher<>(pp, v -> v, 2, 16)
+                .sequential()
+                .test();
+
+        pp.onNext(1);
+        pp.onError(new IOException());
+
+        ts.assertFailure(IOException.class, 1);
+    }
+
+    @Test
+    public void keySelectorCrash() {
+        PublishProcessor<Integer> pp = PublishProcessor.create();
+
+        TestSubscriber<Integer> ts = new ParallelFromKeyedPublisher<Integer, Integer>(pp, v -> {
+            if (v == 2) {
+                throw new IOException();
+            }
+            return v;
+        }, 2, 16)
+        .sequential()
+        .test();
+
+        pp.onNext(1);
+        pp.onNext(2);
+
+        assertFalse(pp.hasSubscribers());
+        ts.assertFailure(IOException.class, 1);
+    }
+
+    @Test
+    public void cancelAllRailsCancelsUpstream() {
+        PublishProcessor<Integer> pp = PublishProcessor.create();
+
+        TestSubscriber<Integer> ts = new ParallelFromKeyedPublisher<>(pp, v -> v, 2, 16)
+                .runOn(Schedulers.computation())
+                .sequential()
+                .test();
+
+        assertTrue(pp.hasSubscribers());
+
+        ts.cancel();
+
+        assertFalse(pp.hasSubscribers());
+    }
+
+    @Test
+    public void cancelledRailDoesNotBlockOthers() {
+        @SuppressWarnings("unchecked")
+        TestSubscriber<Integer>[] rails = new TestSubscriber[2];
+        rails[0] = new TestSubscriber<>(0L);
+        rails[1] = new TestSubscriber<>();
+
+        new ParallelFromKeyedPublisher<>(Flowable.range(0, 1000), v -> v & 1, 2, 16)
+        .subscribe(new Subscriber[] { rails[0], rails[1] });
+
+        rails[0].cancel();
+
+        rails[1].awaitDone(5, TimeUnit.SECONDS)
+        .assertValueCount(500)
+        .assertComplete();
+    }
+
+    @Test
+    public void cancelledRailGetsNoTerminalSignal() {
+        for (boolean fail : new boolean[] { false, true }) {
+            PublishProcessor<Integer> pp = PublishProcessor.create();
+
+            @SuppressWarnings("unchecked")
+            TestSubscriber<Integer>[] rails = new TestSubscriber[2];
+            rails[0] = new TestSubscriber<>();
+            rails[1] = new TestSubscriber<>();
+
+            new ParallelFromKeyedPublisher<>(pp, v -> v & 1, 2, 16)
+            .subscribe(new Subscriber[] { rails[0], rails[1] });
+
+            rails[0].cancel();
+
+            if (fail) {
+                pp.onError(new IOException());
+                rails[1].assertFailure(IOException.class);
+            } else {
+                pp.onComplete();
+                rails[1].assertResult();
+            }
+            rails[0].assertEmpty();
+        }
+    }
+
+    @Test
+    public void overflowCancelsUpstream() {
+        BooleanSubscription bs = new BooleanSubscription();
+        Flowable<Integer> source = Flowable.unsafeCreate(s -> {
+            s.onSubscribe(bs);
+            for (int i = 0; i < 100 && !bs.isCancelled(); i++) {
+                s.onNext(i);
+            }
+        });
+
+        @SuppressWarnings("unchecked")
+        TestSubscriber<Integer>[] rails = new TestSubscriber[2];
+        rails[0] = new TestSubscriber<>(0L);
+        rails[1] = new TestSubscriber<>(0L);
+
+        new ParallelFromKeyedPublisher<>(source, v -> v & 1, 2, 16)
+        .subscribe(new Subscriber[] { rails[0], rails[1] });
+
+        assertTrue(bs.isCancelled());
+        rails[0].assertFailure(MissingBackpressureException.class);
+        rails[1].assertFailure(MissingBackpressureException.class);
+    }
+
+    @Test
+    public void invalidArguments() {
+        try {
+            new ParallelFromKeyedPublisher<>(Flowable.range(1, 10), v -> v, 0, 16);
+            fail("Should have thrown");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("parallelism"));
+        }
+        try {
+            new ParallelFromKeyedPublisher<>(Flowable.range(1, 10), v -> v, 2, 0);
+            fail("Should have thrown");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("prefetch"));
+        }
+    }
+
+    @Test
+    public void emptySourceCompletesWithoutRequest() {
+        // a sync-fused source that is found empty only when polled
+        Flowable<Integer> emptySync = Flowable.unsafeCreate(s -> s.onSubscribe(new BasicQueueSubscription<Integer>() {
+            private static final long serialVersionUID = -4383658545394587617L;
+
+            @Override
+            public int requestFusion(int mode) {
+                return mode & SYNC;
+            }
+
+            @Override
+            public Integer poll() {
+                return null;
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return true;
+            }
+
+            @Override
+            public void clear() {
+            }
+
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        }));
+
+        for (Flowable<Integer> source : Arrays.asList(
+                Flowable.<Integer>empty(),
+                emptySync,
+                Flowable.range(1, 10).filter(v -> false))) {
+            @SuppressWarnings("unchecked")
+            TestSubscriber<Integer>[] rails = new TestSubscriber[2];
+            rails[0] = new TestSubscriber<>(0L);
+            rails[1] = new TestSubscriber<>(0L);
+
+            new ParallelFromKeyedPublisher<>(source, v -> v, 2, 16)
+            .subscribe(new Subscriber[] { rails[0], rails[1] });
+
+            rails[0].assertResult();
+            rails[1].assertResult();
+        }
+    }
+}
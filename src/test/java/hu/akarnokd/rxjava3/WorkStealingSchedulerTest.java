@@ -0,0 +1,96 @@
+package hu.akarnokd.rxjava3;
+
+import static org.junit.Assert.*;
+
+import java.util.Set;
+import java.util.concurrent.*;
+
+import org.junit.Test;
+
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+public class WorkStealingSchedulerTest {
+
+    @Test
+    public void executeExternal() throws Exception {
+        WorkStealingExecutor exec = new WorkStealingExecutor(4, 16, "WorkStealingTest");
+        try {
+            int n = 10_000;
+            CountDownLatch cdl = new CountDownLatch(n);
+            for (int i = 0; i < n; i++) {
+                exec.execute(cdl::countDown);
+            }
+            assertTrue(cdl.await(10, TimeUnit.SECONDS));
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    @Test
+    public void idleWorkersStealFromBusyOne() throws Exception {
+        WorkStealingExecutor exec = new WorkStealingExecutor(2, 64, "WorkStealingTest");
+        try {
+            int n = 32;
+            CountDownLatch cdl = new CountDownLatch(n);
+            Set<Thread> threads = ConcurrentHashMap.newKeySet();
+            Thread[] owner = { null };
+
+            exec.execute(() -> {
+                owner[0] = Thread.currentThread();
+                for (int i = 0; i < n; i++) {
+                    exec.execute(() -> {
+                        threads.add(Thread.currentThread());
+                        cdl.countDown();
+                    });
+                }
+                // keep the owner busy so the others have to steal
+                try {
+                    cdl.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            assertTrue(cdl.await(10, TimeUnit.SECONDS));
+            assertEquals(1, threads.size());
+            assertFalse(threads.contains(owner[0]));
+            assertEquals(n, exec.stealCount());
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelFlowable() {
+        WorkStealingScheduler scheduler = new WorkStealingScheduler(4);
+        try {
+            Flowable.range(1, 10_000)
+            .parallel(8)
+            .runOn(scheduler)
+            .map(v -> (long)v)
+            .sequential()
+            .reduce(0L, Long::sum)
+            .test()
+            .awaitDone(10, TimeUnit.SECONDS)
+            .assertResult(50_005_000L);
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void delayed() {
+        WorkStealingScheduler scheduler = new WorkStealingScheduler(2);
+        try {
+            Flowable.just(1)
+            .delay(10, TimeUnit.MILLISECONDS, scheduler)
+            .observeOn(Schedulers.computation())
+            .test()
+            .awaitDone(5, TimeUnit.SECONDS)
+            .assertResult(1);
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+}